@@ -1,4 +1,5 @@
 import analysis.fixedNumberOfTestsPerDay;
+import analysis.testSchedule;
 import dataTypes.simulationParameters;
 import network.graph;
 import simulation.simulationRuns;
@@ -6,6 +7,7 @@ import simulation.simulationRuns;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 public class Main
 {
@@ -59,8 +61,10 @@ public class Main
 		simulationParameters p1 = new simulationParameters(networkName, timeStep,
 				reps, falseNegProb, transmissability, latency, externalInfectionProb);
 		listOfParams.add(p1);
+		int numberOfThreads = Runtime.getRuntime().availableProcessors();
 		simulationRuns simulationResults = new simulationRuns();
-		simulationResults.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed);
+		simulationResults.setCompactSamplePaths(true);
+		simulationResults.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, numberOfThreads);
 
 
 		// disease testing
@@ -71,11 +75,14 @@ public class Main
 		int baseSeed = 3567;
 		int randomOrderBaseSeed = 1118;
 		fixedNumberOfTestsPerDay testResults = new fixedNumberOfTestsPerDay();
+		// all schedules are scored in one pass over each sample path
+		List<testSchedule> schedules = new ArrayList<>();
 		for (int i=1; i<=5; i++)
 		{
-			testResults.testWithRandomOrder(network, simulationResults, i, alpha, baseSeed, randomOrderBaseSeed);
-			//testResults.test(network, simulationResults, i, alpha, baseSeed);
+			schedules.add(new testSchedule(network, i, timeStep, new Random(randomOrderBaseSeed+p1.hashCode()+i)));
+			//schedules.add(new testSchedule(network, i, timeStep));
 		}
+		testResults.testSchedules(network, simulationResults, schedules, alpha, baseSeed, true);
 		//System.out.println(testResults.toString());
 		testResults.writeToCSV(nursingTestResultsFile, append);
 	}
@@ -0,0 +1,162 @@
+package analysis;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counts the tests of infectious nodes on each day of test schedules with {@code long} bitsets over node ids
+ * (see {@link network.csrGraph}).
+ * <br>
+ * The nodes tested by a schedule on a day are kept as the non-zero words of a bitset;
+ * the nodes infectious by each day of a sample path are decoded once into a bitset per day
+ * (see {@link bitsetTestingKernel#setSamplePath(byte[])}), shared by all schedules.
+ * The number of tests of infectious nodes on a day is then an AND and a popcount per non-zero word of the
+ * schedule, plus a lookup per repeated test of a node tested more than once on the day (as a custom schedule
+ * may do), so each test is counted.
+ * <br>
+ * An instance is not thread-safe; use one instance per thread.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 4, 2020.
+ */
+class bitsetTestingKernel
+{
+	/**
+	 * Number of days.
+	 */
+	private final int timeStep;
+	
+	/**
+	 * Indices of the non-zero words of the bitset of nodes tested by each schedule on each day;
+	 * {@code wordIndex[i][t-1]} for schedule {@code i} on day {@code t}.
+	 */
+	private final int[][][] wordIndex;
+	
+	/**
+	 * Non-zero words of the bitset of nodes tested by each schedule on each day,
+	 * in the same order as {@link bitsetTestingKernel#wordIndex}.
+	 */
+	private final long[][][] wordMask;
+	
+	/**
+	 * Ids of nodes tested again by each schedule on each day, once per test after the first test of the node on
+	 * the day; {@code repeatedTests[i][t-1]} for schedule {@code i} on day {@code t}.
+	 */
+	private final int[][][] repeatedTests;
+	
+	/**
+	 * Bitset of nodes infectious by each day of the current sample path;
+	 * {@code infectious[t]} for day {@code t}.
+	 */
+	private final long[][] infectious;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param schedules test schedules
+	 * @param s number of nodes
+	 * @param timeStep number of days.
+	 */
+	bitsetTestingKernel(List<testSchedule> schedules, int s, int timeStep)
+	{
+		int numberOfWords = (s+Long.SIZE-1)/Long.SIZE;
+		this.timeStep = timeStep;
+		this.wordIndex = new int[schedules.size()][][];
+		this.wordMask = new long[schedules.size()][][];
+		this.repeatedTests = new int[schedules.size()][][];
+		this.infectious = new long[timeStep+1][numberOfWords];
+		long[] bitset = new long[numberOfWords];
+		for (int i=0; i<schedules.size(); i++)
+		{
+			int[][] testNodes = schedules.get(i).testNodes;
+			int days = Math.min(timeStep, testNodes.length);
+			wordIndex[i] = new int[days][];
+			wordMask[i] = new long[days][];
+			repeatedTests[i] = new int[days][];
+			for (int t=1; t<=days; t++)
+			{
+				Arrays.fill(bitset, 0);
+				int[] repeated = new int[testNodes[t-1].length];
+				int numberOfRepeatedTests = 0;
+				for (int v: testNodes[t-1])
+				{
+					if ((bitset[v>>>6] & (1L<<v))!=0)
+						repeated[numberOfRepeatedTests++] = v;
+					bitset[v>>>6] |= 1L<<v;
+				}
+				repeatedTests[i][t-1] = Arrays.copyOf(repeated, numberOfRepeatedTests);
+				int numberOfNonZeroWords = 0;
+				for (long word: bitset)
+					if (word!=0)
+						numberOfNonZeroWords++;
+				wordIndex[i][t-1] = new int[numberOfNonZeroWords];
+				wordMask[i][t-1] = new long[numberOfNonZeroWords];
+				int j = 0;
+				for (int w=0; w<numberOfWords; w++)
+				{
+					if (bitset[w]==0)
+						continue;
+					wordIndex[i][t-1][j] = w;
+					wordMask[i][t-1][j++] = bitset[w];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of days of a schedule that can be counted.
+	 *
+	 * @param i index of the schedule.
+	 * @return the number of days of schedule {@code i}, up to the time step.
+	 */
+	int getNumberOfDays(int i)
+	{
+		return wordIndex[i].length;
+	}
+	
+	/**
+	 * Decodes the nodes infectious by each day of a sample path into bitsets.
+	 *
+	 * @param infectiousDay day on which each node became infectious;
+	 *                      {@link dataTypes.simulationOutput#NOT_INFECTIOUS} if it did not.
+	 */
+	void setSamplePath(byte[] infectiousDay)
+	{
+		for (long[] words: infectious)
+			Arrays.fill(words, 0);
+		for (int v=0; v<infectiousDay.length; v++)
+		{
+			if (infectiousDay[v]<=timeStep)
+				infectious[infectiousDay[v]][v>>>6] |= 1L<<v;
+		}
+		for (int t=1; t<=timeStep; t++)
+		{
+			long[] previous = infectious[t-1];
+			long[] current = infectious[t];
+			for (int w=0; w<current.length; w++)
+				current[w] |= previous[w];
+		}
+	}
+	
+	/**
+	 * Returns the number of infectious nodes tested by a schedule on a day of the current sample path
+	 * (see {@link bitsetTestingKernel#setSamplePath(byte[])}).
+	 * A node tested more than once on a day counts once for each test.
+	 *
+	 * @param i index of the schedule
+	 * @param t day, {@code 1<=t<=}{@link bitsetTestingKernel#getNumberOfDays(int)}.
+	 * @return the number of infectious nodes tested by schedule {@code i} on day {@code t}.
+	 */
+	int getNumberOfInfectiousTests(int i, int t)
+	{
+		int[] index = wordIndex[i][t-1];
+		long[] mask = wordMask[i][t-1];
+		long[] infectiousByT = infectious[t];
+		int count = 0;
+		for (int j=0; j<index.length; j++)
+			count += Long.bitCount(mask[j] & infectiousByT[index[j]]);
+		for (int v: repeatedTests[i][t-1])
+			if ((infectiousByT[v>>>6] & (1L<<v))!=0)
+				count++;
+		return count;
+	}
+}
@@ -1,12 +1,15 @@
 package analysis;
 
 import com.opencsv.CSVWriter;
+import dataTypes.epidemicParameters;
 import dataTypes.simulationOutput;
 import dataTypes.simulationParameters;
 import dataTypes.statisticalOutput;
 import network.graph;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.util.Pair;
+import simulation.completeGraphMarkovChain;
+import simulation.engineType;
 import simulation.simulationRuns;
 
 import java.io.File;
@@ -20,7 +23,7 @@ import java.util.stream.IntStream;
 /**
  * Contains methods for fixed number of tests per day testing strategy.
  * @author Sudesh Agrawal (sudesh@utexas.edu).
- * Last Updated: November 18, 2020.
+ * Last Updated: December 16, 2020.
  */
 public class fixedNumberOfTestsPerDay
 {
@@ -36,6 +39,31 @@ public class fixedNumberOfTestsPerDay
 	 */
 	Map<Pair<simulationParameters, Integer>, Boolean> randomTestingOrder;
 	
+	/**
+	 * A map from a {@link org.apache.commons.math3.util.Pair} of {@link dataTypes.simulationParameters} and
+	 * {@link testSchedule} to the results of disease testing with the schedule as {@link dataTypes.statisticalOutput};
+	 * so, schedules with the same number of tests per day (e.g., a sequential and a random testing order) have
+	 * separate results.
+	 */
+	Map<Pair<simulationParameters, testSchedule>, statisticalOutput> scheduleResults;
+	
+	/**
+	 * A map from a {@link org.apache.commons.math3.util.Pair} of {@link dataTypes.simulationParameters} and a pair of
+	 * {@link testSchedule} to the paired difference between the detection probabilities of the first and of the
+	 * second schedule as {@link dataTypes.statisticalOutput}
+	 * (see {@link pairedComparisonEvaluator#getPairedDifference(int, int, double)}).
+	 */
+	Map<Pair<simulationParameters, Pair<testSchedule, testSchedule>>, statisticalOutput> pairedDifferences;
+	
+	/**
+	 * A map from a {@link org.apache.commons.math3.util.Pair} of {@link dataTypes.simulationParameters} and
+	 * number of tests per day to the derivatives of the detection probability with respect to each probability of
+	 * the epidemic (by name: "transmissability" and "external infection probability") as
+	 * {@link dataTypes.statisticalOutput} (see {@link fixedNumberOfTestsPerDay#testSensitivity(graph, simulationRuns,
+	 * List, double, int[], int)}).
+	 */
+	Map<Pair<simulationParameters, Integer>, Map<String, statisticalOutput>> derivatives;
+	
 	/**
 	 * Constructor.
 	 *
@@ -47,6 +75,9 @@ public class fixedNumberOfTestsPerDay
 	{
 		this.testResults = testResults;
 		this.randomTestingOrder = randomTestingOrder;
+		this.scheduleResults = new HashMap<>();
+		this.pairedDifferences = new HashMap<>();
+		this.derivatives = new HashMap<>();
 	}
 	
 	/**
@@ -56,6 +87,9 @@ public class fixedNumberOfTestsPerDay
 	{
 		this.testResults = new HashMap<>();
 		this.randomTestingOrder = new HashMap<>();
+		this.scheduleResults = new HashMap<>();
+		this.pairedDifferences = new HashMap<>();
+		this.derivatives = new HashMap<>();
 	}
 	
 	/**
@@ -78,6 +112,36 @@ public class fixedNumberOfTestsPerDay
 		return randomTestingOrder;
 	}
 	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link fixedNumberOfTestsPerDay#scheduleResults}.
+	 */
+	public Map<Pair<simulationParameters, testSchedule>, statisticalOutput> getScheduleResults()
+	{
+		return scheduleResults;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link fixedNumberOfTestsPerDay#pairedDifferences}.
+	 */
+	public Map<Pair<simulationParameters, Pair<testSchedule, testSchedule>>, statisticalOutput> getPairedDifferences()
+	{
+		return pairedDifferences;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link fixedNumberOfTestsPerDay#derivatives}.
+	 */
+	public Map<Pair<simulationParameters, Integer>, Map<String, statisticalOutput>> getDerivatives()
+	{
+		return derivatives;
+	}
+	
 	/**
 	 * Finds detection probability for a sequential circular testing order.
 	 *
@@ -112,14 +176,15 @@ public class fixedNumberOfTestsPerDay
 			SplittableRandom reliabilityGen = new SplittableRandom(baseSeed+paramHashCode+k);
 			
 			System.out.println("Disease testing for \n\t"+param.toString()+"\n\t and k="+k);
-			List<Map<Integer, Set<Integer>>> samples = result.getValue().getSamplesOfInfectiousNodesAtEachTime();
+			simulationOutput samples = result.getValue();
 			
 			Map<Integer, Set<Integer>> testNodes = getTestNodes(k, nodeList, timeStep);
 			//System.out.println("\t Test Schedule each day:\n\t\t"+testNodes.toString());
 			// disease testing
 			int countDetectedSamples = 0;
-			for (Map<Integer, Set<Integer>> sample: samples)
+			for (int x=0; x<samples.getNumberOfSamples(); x++)
 			{
+				Map<Integer, Set<Integer>> sample = samples.getSample(x);
 				//System.out.println("\t Sample:\n\t\t"+sample.toString());
 				for (int t=1; t<=timeStep; t++)
 				{
@@ -145,7 +210,7 @@ public class fixedNumberOfTestsPerDay
 					}
 				}
 			}
-			int sampleSize = samples.size();
+			int sampleSize = samples.getNumberOfSamples();
 			double probability = 1.0* countDetectedSamples /sampleSize;
 			double standardError = Math.sqrt(probability*(1.0-probability)/sampleSize);
 			String nameOfStatisticalTest = "normal approximation for binomial proportion";
@@ -238,15 +303,16 @@ public class fixedNumberOfTestsPerDay
 			Random randomOrderGen = new Random(randomOrderBaseSeed +paramHashCode+k);
 			
 			System.out.println("Disease testing with RANDOM ORDER for \n\t"+param.toString()+"\n\t and k="+k);
-			List<Map<Integer, Set<Integer>>> samples = result.getValue().getSamplesOfInfectiousNodesAtEachTime();
+			simulationOutput samples = result.getValue();
 			
 			// build the set of test nodes
 			Map<Integer, Set<Integer>> testNodes = getTestNodes(k, nodeList, timeStep, randomOrderGen);
 			//System.out.println("\t Test Schedule each day:\n\t\t"+testNodes.toString());
 			// disease testing
 			int countDetectedSamples = 0;
-			for (Map<Integer, Set<Integer>> sample: samples)
+			for (int x=0; x<samples.getNumberOfSamples(); x++)
 			{
+				Map<Integer, Set<Integer>> sample = samples.getSample(x);
 				//System.out.println("\t Sample:\n\t\t"+sample.toString());
 				for (int t=1; t<=timeStep; t++)
 				{
@@ -272,7 +338,7 @@ public class fixedNumberOfTestsPerDay
 					}
 				}
 			}
-			int sampleSize = samples.size();
+			int sampleSize = samples.getNumberOfSamples();
 			double probability = 1.0* countDetectedSamples /sampleSize;
 			double standardError = Math.sqrt(probability*(1.0-probability)/sampleSize);
 			String nameOfStatisticalTest = "normal approximation for binomial proportion";
@@ -288,6 +354,904 @@ public class fixedNumberOfTestsPerDay
 		}
 	}
 	
+	/**
+	 * Finds detection probability for a sequential circular testing order, by averaging the conditional
+	 * detection probability of each sample path instead of simulating false negative results.
+	 * <br>
+	 * Given a sample path, the outbreak is detected unless all tests of infectious nodes up to the time step are
+	 * false negatives; so, the conditional detection probability is {@code 1-fnRate^N}, where {@code N} is the
+	 * number of tests of infectious nodes.
+	 * The average of these conditional probabilities is an unbiased estimate of the detection probability,
+	 * with a variance no larger than that of {@link fixedNumberOfTestsPerDay#test(graph, simulationRuns, int,
+	 * double, int)} (Rao-Blackwell theorem).
+	 *
+	 * @param g network graph
+	 * @param simulationResults simulation results as an instance of {@link simulationRuns}
+	 * @param k number of tests per day
+	 * @param alpha significance level of CI on detection probability.
+	 */
+	public void testRaoBlackwellized(graph g, simulationRuns simulationResults, int k, double alpha)
+	{
+		testRaoBlackwellized(g, simulationResults, k, alpha, null);
+	}
+	
+	/**
+	 * Finds detection probability for a random testing order, by averaging the conditional detection
+	 * probability of each sample path instead of simulating false negative results
+	 * (see {@link fixedNumberOfTestsPerDay#testRaoBlackwellized(graph, simulationRuns, int, double)}).
+	 * The testing order is the same as that of {@link fixedNumberOfTestsPerDay#testWithRandomOrder(graph,
+	 * simulationRuns, int, double, int, int)} for the same {@code randomOrderBaseSeed}.
+	 *
+	 * @param g network graph
+	 * @param simulationResults simulation results as an instance of {@link simulationRuns}
+	 * @param k number of tests per day
+	 * @param alpha significance level of CI on detection probability
+	 * @param randomOrderBaseSeed base seed for generating random testing order.
+	 */
+	public void testRaoBlackwellizedWithRandomOrder(graph g, simulationRuns simulationResults, int k, double alpha,
+	                                                int randomOrderBaseSeed)
+	{
+		testRaoBlackwellized(g, simulationResults, k, alpha, randomOrderBaseSeed);
+	}
+	
+	/**
+	 * Finds detection probability by averaging the conditional detection probability of each stored sample path
+	 * (see {@link raoBlackwellizedEvaluator}); each sample path is decoded once.
+	 *
+	 * @param g network graph
+	 * @param simulationResults simulation results as an instance of {@link simulationRuns}
+	 * @param k number of tests per day
+	 * @param alpha significance level of CI on detection probability
+	 * @param randomOrderBaseSeed base seed for generating random testing order;
+	 *                            {@code null} for a sequential circular testing order.
+	 */
+	private void testRaoBlackwellized(graph g, simulationRuns simulationResults, int k, double alpha,
+	                                  Integer randomOrderBaseSeed)
+	{
+		int[] nodeLabels = g.getVertexSet().stream().mapToInt(v -> v).sorted().toArray();
+		byte[] infectiousDay = new byte[nodeLabels.length];
+		boolean randomOrder = (randomOrderBaseSeed!=null);
+		for (Map.Entry<simulationParameters, simulationOutput> result:
+																simulationResults.getMapParamToSamples().entrySet())
+		{
+			simulationParameters param = result.getKey();
+			if (!param.getNetworkName().equals(g.getNetworkName()))
+			{
+				System.out.println("Network name mismatch in simulation results and graph provided as input, skipping!");
+				continue;
+			}
+			System.out.println("Disease testing (Rao-Blackwellized)"+(randomOrder ? " with RANDOM ORDER" : "")
+					+" for \n\t"+param.toString()+"\n\t and k="+k);
+			simulationOutput samples = result.getValue();
+			raoBlackwellizedEvaluator evaluator = randomOrder
+					? new raoBlackwellizedEvaluator(g, param, k, randomOrderBaseSeed)
+					: new raoBlackwellizedEvaluator(g, param, k);
+			for (int x=0; x<samples.getNumberOfSamples(); x++)
+			{
+				samples.getInfectiousDays(x, nodeLabels, infectiousDay);
+				evaluator.accept(x, infectiousDay);
+			}
+			addRaoBlackwellizedResult(evaluator, alpha);
+		}
+	}
+	
+	/**
+	 * Records detection probabilities found by Rao-Blackwellized evaluators of sample paths streamed from a
+	 * simulation (see {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency}).
+	 *
+	 * @param evaluators evaluators that consumed the sample paths
+	 * @param alpha significance level of CI on detection probability.
+	 */
+	public void addRaoBlackwellizedResults(List<raoBlackwellizedEvaluator> evaluators, double alpha)
+	{
+		for (raoBlackwellizedEvaluator evaluator: evaluators)
+			addRaoBlackwellizedResult(evaluator, alpha);
+	}
+	
+	/**
+	 * Records the detection probability found by a Rao-Blackwellized evaluator.
+	 *
+	 * @param evaluator evaluator that consumed the sample paths
+	 * @param alpha significance level of CI on detection probability.
+	 */
+	private void addRaoBlackwellizedResult(raoBlackwellizedEvaluator evaluator, double alpha)
+	{
+		statisticalOutput output = evaluator.getDetectionProbability(alpha);
+		Pair<simulationParameters, Integer> key = new Pair<>(evaluator.getParam(), evaluator.getK());
+		testResults.put(key, output);
+		randomTestingOrder.put(key, evaluator.isRandomOrder());
+		System.out.println("Conditional probability of outbreak detection (Rao-Blackwellized) = "
+				+output.getMean()+"+-"+0.5*output.getCIWidth());
+	}
+	
+	/**
+	 * Records detection probabilities found by evaluators of sample paths streamed from a simulation
+	 * (see {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency}).
+	 *
+	 * @param evaluators evaluators that consumed the sample paths
+	 * @param alpha significance level of CI on detection probability.
+	 */
+	public void addStreamingResults(List<fixedNumberOfTestsPerDayEvaluator> evaluators, double alpha)
+	{
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		
+		for (fixedNumberOfTestsPerDayEvaluator evaluator: evaluators)
+			addResult(evaluator.getParam(), evaluator.getK(), evaluator.isRandomOrder(),
+					evaluator.getNumberOfSamples(), evaluator.getNumberOfDetectedSamples(), alpha, zValue);
+	}
+	
+	/**
+	 * Finds detection probabilities with adaptive sequential stopping: sample paths are streamed from a simulation
+	 * (see {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency(graph, simulationParameters,
+	 * int[], int, List, int, int)}) in batches, and each evaluator stops consuming sample paths once the half-width
+	 * of the CI on its detection probability is at most {@code targetHalfWidth}, or once it has consumed the number
+	 * of simulation repetitions of its parameters, which caps the sample size.
+	 * The simulation stops when no evaluator needs more sample paths; so, parameters whose detection probability is
+	 * near 0 or 1 stop early, and the remaining batches only feed the others.
+	 * <br>
+	 * The stopping rule uses the Agresti-Coull half-width {@code z*sqrt(p(1-p)/(n+z^2))} with
+	 * {@code p=(x+z^2/2)/(n+z^2)}, which, unlike the normal approximation, is not zero when no (or every) sample
+	 * path detects the outbreak.
+	 * Since the sample paths and false negative results of each simulation repetition do not depend on the batches,
+	 * an evaluator that stops after {@code n} sample paths has the same counts as one fed the first {@code n} sample
+	 * paths of the simulation at once.
+	 * This does not hold for the {@link engineType#BIT_PARALLEL} engine, whose sample paths depend on the group of
+	 * repetitions simulated together, so it is not supported.
+	 * The results are recorded for the parameters with the number of simulation repetitions set to the number of
+	 * sample paths consumed, with the same Agresti-Coull CI as the stopping rule
+	 * (see {@link fixedNumberOfTestsPerDay#getAgrestiCoullOutput(int, int, double, double)}); so, the recorded
+	 * half-width is at most {@code targetHalfWidth} unless the number of sample paths is capped.
+	 *
+	 * @param g network graph
+	 * @param simulationResults an instance of {@link simulationRuns} with the simulation engine
+	 * @param evaluators evaluators of parameters that differ at most in the false negative probability; the number of
+	 *                   simulation repetitions of the parameters is the maximum number of sample paths
+	 * @param alpha significance level of CI on detection probability
+	 * @param targetHalfWidth target half-width of CI on detection probability
+	 * @param batchSize number of simulation repetitions in each batch
+	 * @param simulationBaseSeed base seed for random number generation of the simulation
+	 *                           (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List,
+	 *                           int[], int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on.
+	 * @return simulation parameters of the recorded results, one for each evaluator.
+	 * @throws Exception thrown if there are no evaluators;
+	 *                      or if the evaluators are for different epidemic parameters;
+	 *                      or if {@code targetHalfWidth<=0};
+	 *                      or if {@code batchSize<1};
+	 *                      or if the engine of {@code simulationResults} is {@link engineType#BIT_PARALLEL};
+	 *                      or if the simulation throws an exception
+	 *                      (see {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency(graph,
+	 *                      simulationParameters, int[], int, List, int, int)}).
+	 */
+	public List<simulationParameters> testAdaptively(graph g, simulationRuns simulationResults,
+	                                                 List<fixedNumberOfTestsPerDayEvaluator> evaluators, double alpha,
+	                                                 double targetHalfWidth, int batchSize, int[] simulationBaseSeed,
+	                                                 int numberOfThreads) throws Exception
+	{
+		if (evaluators.isEmpty())
+			throw new Exception("No evaluators to test with!");
+		simulationParameters param = evaluators.get(0).getParam();
+		for (fixedNumberOfTestsPerDayEvaluator evaluator: evaluators)
+			if (!evaluator.getParam().getEpidemicParameters().equals(param.getEpidemicParameters()))
+				throw new Exception("Evaluators should be for the same epidemic parameters!");
+		if (targetHalfWidth<=0)
+			throw new Exception("Target half-width should be positive!");
+		if (batchSize<1)
+			throw new Exception("Batch size should be positive!");
+		if (simulationResults.getEngine()==engineType.BIT_PARALLEL)
+			throw new Exception("Simulating in batches is not supported by the bit-parallel engine!");
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		
+		int maximumReps = param.getNumberOfSimulationRepetitions();
+		List<fixedNumberOfTestsPerDayEvaluator> activeEvaluators = new ArrayList<>(evaluators);
+		int reps = 0;
+		while (!activeEvaluators.isEmpty() && (reps<maximumReps))
+		{
+			int nextReps = Math.min(maximumReps, reps+batchSize);
+			simulationResults.streamSimulationForConditionalProbabilityWithLatency(g, param, simulationBaseSeed,
+					numberOfThreads, activeEvaluators, reps, nextReps);
+			reps = nextReps;
+			activeEvaluators.removeIf(evaluator -> getStoppingHalfWidth(evaluator.getNumberOfSamples(),
+					evaluator.getNumberOfDetectedSamples(), zValue)<=targetHalfWidth);
+		}
+		
+		List<simulationParameters> listOfParams = new ArrayList<>(evaluators.size());
+		for (fixedNumberOfTestsPerDayEvaluator evaluator: evaluators)
+		{
+			simulationParameters stoppedParam = new simulationParameters(evaluator.getParam());
+			stoppedParam.setNumberOfSimulationRepetitions(evaluator.getNumberOfSamples());
+			addResult(stoppedParam, evaluator.getK(), evaluator.isRandomOrder(),
+					getAgrestiCoullOutput(evaluator.getNumberOfSamples(), evaluator.getNumberOfDetectedSamples(), alpha,
+							zValue));
+			listOfParams.add(stoppedParam);
+		}
+		return listOfParams;
+	}
+	
+	/**
+	 * Returns the Agresti-Coull half-width of CI on a binomial proportion, used to decide when to stop
+	 * (see {@link fixedNumberOfTestsPerDay#testAdaptively(graph, simulationRuns, List, double, double, int, int[],
+	 * int)}).
+	 *
+	 * @param sampleSize number of sample paths
+	 * @param numberOfDetectedSamples number of sample paths in which the outbreak is detected
+	 * @param zValue {@code 1-alpha/2} quantile of the standard normal distribution.
+	 * @return the Agresti-Coull half-width of CI on the detection probability.
+	 */
+	static double getStoppingHalfWidth(int sampleSize, int numberOfDetectedSamples, double zValue)
+	{
+		double adjustedSampleSize = sampleSize+zValue*zValue;
+		double probability = (numberOfDetectedSamples+0.5*zValue*zValue)/adjustedSampleSize;
+		return zValue*Math.sqrt(probability*(1.0-probability)/adjustedSampleSize);
+	}
+	
+	/**
+	 * Returns the detection probability with the Agresti-Coull CI on a binomial proportion, whose half-width is the
+	 * one used to decide when to stop (see {@link fixedNumberOfTestsPerDay#getStoppingHalfWidth(int, int, double)});
+	 * the mean is the center {@code (x+z^2/2)/(n+z^2)} of the CI.
+	 *
+	 * @param sampleSize number of sample paths
+	 * @param numberOfDetectedSamples number of sample paths in which the outbreak is detected
+	 * @param alpha significance level of CI on detection probability
+	 * @param zValue {@code 1-alpha/2} quantile of the standard normal distribution.
+	 * @return the detection probability as {@link dataTypes.statisticalOutput}.
+	 */
+	static statisticalOutput getAgrestiCoullOutput(int sampleSize, int numberOfDetectedSamples, double alpha,
+	                                               double zValue)
+	{
+		double adjustedSampleSize = sampleSize+zValue*zValue;
+		double probability = (numberOfDetectedSamples+0.5*zValue*zValue)/adjustedSampleSize;
+		double standardError = Math.sqrt(probability*(1.0-probability)/adjustedSampleSize);
+		String nameOfStatisticalTest = "Agresti-Coull for binomial proportion";
+		double CIWidth = 2*getStoppingHalfWidth(sampleSize, numberOfDetectedSamples, zValue);
+		int replicationSize = 1;
+		return new statisticalOutput(probability, standardError, alpha, nameOfStatisticalTest, CIWidth, sampleSize,
+				replicationSize);
+	}
+	
+	/**
+	 * Finds the detection probability with stratified sampling on the number of initial infections: sample paths
+	 * of each stratum (see {@link simulationRuns#streamStratumForConditionalProbabilityWithLatency}) are streamed to
+	 * an evaluator of the stratum (see {@link fixedNumberOfTestsPerDayEvaluator#newInstanceForStratum(int)}),
+	 * and the detection probabilities of the strata are combined with the exact probabilities of the strata
+	 * (see {@link simulationRuns#getStratumProbabilities(int, double, int)}).
+	 * <br>
+	 * The number of simulation repetitions of the parameters is the total number of sample paths.
+	 * Each stratum with a positive probability first gets {@code pilotReps} sample paths;
+	 * the remaining sample paths are allocated to the strata in proportion to their probabilities
+	 * (proportional allocation), or to their probabilities times the standard deviations of detection estimated
+	 * from the pilot sample paths (Neyman allocation).
+	 * The standard error is that of the stratified estimator, {@code sqrt(sum_j w_j^2 p_j(1-p_j)/n_j)}.
+	 * <br>
+	 * The pilot and the allocated sample paths of a stratum are simulated in separate batches, which the
+	 * {@link engineType#BIT_PARALLEL} engine does not support (see
+	 * {@link fixedNumberOfTestsPerDay#testAdaptively(graph, simulationRuns, List, double, double, int, int[], int)}).
+	 *
+	 * @param g network graph
+	 * @param simulationResults an instance of {@link simulationRuns} with the simulation engine
+	 * @param evaluator an evaluator with the simulation parameters, the number of tests per day, and the testing
+	 *                  order; it is not fed any sample paths
+	 * @param alpha significance level of CI on detection probability
+	 * @param numberOfStrata number of strata; the last stratum has {@code numberOfStrata} or more initial infections
+	 * @param pilotReps number of simulation repetitions of each stratum before allocation
+	 * @param neymanAllocation {@code true}, for Neyman allocation; {@code false}, for proportional allocation
+	 * @param simulationBaseSeed base seed for random number generation of the simulation
+	 *                           (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List,
+	 *                           int[], int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on.
+	 * @return evaluators of the strata; {@code null} for strata with zero probability.
+	 * @throws Exception thrown if {@code pilotReps<1};
+	 *                      or if the number of simulation repetitions is less than the pilot sample paths;
+	 *                      or if the engine of {@code simulationResults} is {@link engineType#BIT_PARALLEL};
+	 *                      or if the simulation throws an exception
+	 *                      (see {@link simulationRuns#streamStratumForConditionalProbabilityWithLatency}).
+	 */
+	public List<fixedNumberOfTestsPerDayEvaluator> testStratified(graph g, simulationRuns simulationResults,
+	                                                              fixedNumberOfTestsPerDayEvaluator evaluator,
+	                                                              double alpha, int numberOfStrata, int pilotReps,
+	                                                              boolean neymanAllocation, int[] simulationBaseSeed,
+	                                                              int numberOfThreads) throws Exception
+	{
+		simulationParameters param = evaluator.getParam();
+		int k = evaluator.getK();
+		double[] stratumProb = simulationRuns.getStratumProbabilities(g.getVertexSet().size(),
+				param.getExternalInfectionProbability(), numberOfStrata);
+		if (pilotReps<1)
+			throw new Exception("Number of pilot simulation repetitions should be positive!");
+		if (simulationResults.getEngine()==engineType.BIT_PARALLEL)
+			throw new Exception("Simulating in batches is not supported by the bit-parallel engine!");
+		int numberOfPositiveStrata = (int) Arrays.stream(stratumProb).filter(w -> w>0).count();
+		int remainingReps = param.getNumberOfSimulationRepetitions()-numberOfPositiveStrata*pilotReps;
+		if (remainingReps<0)
+			throw new Exception("Number of simulation repetitions should be at least the pilot simulation "
+					+"repetitions of all strata!");
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		System.out.println("Disease testing with "+numberOfStrata+" STRATA for \n\t"+param.toString()
+				+"\n\t and k="+k+(evaluator.isRandomOrder() ? " (with random order)" : ""));
+		
+		// pilot sample paths
+		List<fixedNumberOfTestsPerDayEvaluator> evaluators = new ArrayList<>(numberOfStrata);
+		for (int j=0; j<numberOfStrata; j++)
+		{
+			if (stratumProb[j]<=0)
+			{
+				evaluators.add(null);
+				continue;
+			}
+			evaluators.add(evaluator.newInstanceForStratum(j));
+			simulationResults.streamStratumForConditionalProbabilityWithLatency(g, param, simulationBaseSeed,
+					numberOfThreads, evaluators.subList(j, j+1), numberOfStrata, j, 0, pilotReps);
+		}
+		
+		// allocation of the remaining sample paths
+		double[] allocationWeights = new double[numberOfStrata];
+		for (int j=0; j<numberOfStrata; j++)
+		{
+			if (evaluators.get(j)==null)
+				continue;
+			allocationWeights[j] = stratumProb[j];
+			if (neymanAllocation)
+			{
+				// adjusted so that strata without (or with only) detections in the pilot still get sample paths
+				double probability = (evaluators.get(j).getNumberOfDetectedSamples()+1.0)/(pilotReps+2.0);
+				allocationWeights[j] *= Math.sqrt(probability*(1.0-probability));
+			}
+		}
+		int[] additionalReps = getAllocation(remainingReps, allocationWeights);
+		for (int j=0; j<numberOfStrata; j++)
+			if (additionalReps[j]>0)
+				simulationResults.streamStratumForConditionalProbabilityWithLatency(g, param, simulationBaseSeed,
+						numberOfThreads, evaluators.subList(j, j+1), numberOfStrata, j, pilotReps,
+						pilotReps+additionalReps[j]);
+		
+		// stratified estimator
+		double probability = 0;
+		double variance = 0;
+		int sampleSize = 0;
+		for (int j=0; j<numberOfStrata; j++)
+		{
+			if (evaluators.get(j)==null)
+				continue;
+			int n = evaluators.get(j).getNumberOfSamples();
+			double stratumProbability = 1.0*evaluators.get(j).getNumberOfDetectedSamples()/n;
+			probability += stratumProb[j]*stratumProbability;
+			variance += stratumProb[j]*stratumProb[j]*stratumProbability*(1.0-stratumProbability)/n;
+			sampleSize += n;
+		}
+		double standardError = Math.sqrt(variance);
+		String nameOfStatisticalTest = "normal approximation for stratified binomial proportion ("
+				+(neymanAllocation ? "Neyman" : "proportional")+" allocation)";
+		double CIWidth = 2*zValue*standardError;
+		int replicationSize = 1;
+		statisticalOutput output = new statisticalOutput(probability, standardError, alpha,
+				nameOfStatisticalTest, CIWidth, sampleSize, replicationSize);
+		Pair<simulationParameters, Integer> key = new Pair<>(param, k);
+		testResults.put(key, output);
+		randomTestingOrder.put(key, evaluator.isRandomOrder());
+		System.out.println("Conditional probability of outbreak detection (stratified) = "
+				+probability+"+-"+0.5*CIWidth);
+		return evaluators;
+	}
+	
+	/**
+	 * Allocates a number of simulation repetitions in proportion to weights, rounding by largest remainders.
+	 *
+	 * @param total number of simulation repetitions to allocate
+	 * @param weights non-negative weights, not all zero.
+	 * @return number of simulation repetitions allocated to each weight, summing to {@code total}.
+	 */
+	static int[] getAllocation(int total, double[] weights)
+	{
+		double sumOfWeights = Arrays.stream(weights).sum();
+		int[] allocation = new int[weights.length];
+		double[] remainders = new double[weights.length];
+		int allocated = 0;
+		for (int j=0; j<weights.length; j++)
+		{
+			double share = total*weights[j]/sumOfWeights;
+			allocation[j] = (int) Math.floor(share);
+			remainders[j] = share-allocation[j];
+			allocated += allocation[j];
+		}
+		Integer[] byRemainder = IntStream.range(0, weights.length).boxed().toArray(Integer[]::new);
+		Arrays.sort(byRemainder, (i, j) -> Double.compare(remainders[j], remainders[i]));
+		for (int i=0; allocated<total; i++, allocated++)
+			allocation[byRemainder[i]]++;
+		return allocation;
+	}
+	
+	/**
+	 * Finds detection probabilities by importance sampling (see {@link importanceSamplingEvaluator}): the sample
+	 * paths are streamed from a simulation with the tilted transmissability of the evaluators
+	 * (see {@link importanceSamplingEvaluator#getSimulatedParam()}), which must record trial counts
+	 * (see {@link simulation.engineType#DAILY_SWEEP}), and the weighted estimates are recorded for the parameters of
+	 * the evaluators.
+	 * The probabilities of the tail events stay with the evaluators
+	 * (see {@link importanceSamplingEvaluator#getTailProbability(double)}).
+	 *
+	 * @param g network graph
+	 * @param simulationResults an instance of {@link simulationRuns} with the simulation engine
+	 * @param evaluators evaluators whose simulated parameters differ at most in the false negative probability;
+	 *                   the number of simulation repetitions of the parameters is the number of sample paths
+	 * @param alpha significance level of CI on detection probability
+	 * @param simulationBaseSeed base seed for random number generation of the simulation
+	 *                           (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List,
+	 *                           int[], int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on.
+	 * @throws Exception thrown if there are no evaluators;
+	 *                      or if the evaluators are for different simulated epidemic parameters;
+	 *                      or if the simulation throws an exception
+	 *                      (see {@link simulationRuns#streamTrialCountsForConditionalProbabilityWithLatency(graph,
+	 *                      simulationParameters, int[], int, List)}).
+	 */
+	public void testWithImportanceSampling(graph g, simulationRuns simulationResults,
+	                                       List<importanceSamplingEvaluator> evaluators, double alpha,
+	                                       int[] simulationBaseSeed, int numberOfThreads) throws Exception
+	{
+		if (evaluators.isEmpty())
+			throw new Exception("No evaluators to test with!");
+		simulationParameters simulatedParam = evaluators.get(0).getSimulatedParam();
+		for (importanceSamplingEvaluator evaluator: evaluators)
+			if (!evaluator.getSimulatedParam().getEpidemicParameters().equals(simulatedParam.getEpidemicParameters()))
+				throw new Exception("Evaluators should be for the same simulated epidemic parameters!");
+		System.out.println("Disease testing with IMPORTANCE SAMPLING (simulated transmissability = "
+				+simulatedParam.getTransmissability()+")");
+		simulationResults.streamTrialCountsForConditionalProbabilityWithLatency(g, simulatedParam, simulationBaseSeed,
+				numberOfThreads, evaluators);
+		
+		for (importanceSamplingEvaluator evaluator: evaluators)
+		{
+			statisticalOutput output = evaluator.getDetectionProbability(alpha);
+			Pair<simulationParameters, Integer> key = new Pair<>(evaluator.getParam(), evaluator.getK());
+			testResults.put(key, output);
+			randomTestingOrder.put(key, evaluator.isRandomOrder());
+			System.out.println("Conditional probability of outbreak detection for \n\t"
+					+evaluator.getParam().toString()+"\n\t and k="+evaluator.getK()
+					+(evaluator.isRandomOrder() ? " (with random order)" : "")+" = "+output.getMean()
+					+"+-"+0.5*output.getCIWidth()+" (effective sample size = "+evaluator.getEffectiveSampleSize()+")");
+		}
+	}
+	
+	/**
+	 * Finds detection probabilities under "what-if" parameters from a stored simulation with trial counts, by
+	 * reweighting its sample paths (see {@link simulationRuns#reweightSimulation(graph, simulationParameters,
+	 * simulationParameters, double, List)}), in seconds instead of a new simulation; the weighted estimates are
+	 * recorded for the query parameters of the evaluators.
+	 *
+	 * @param g network graph
+	 * @param simulationResults simulation results with the stored simulation
+	 * @param param simulation parameters of the stored simulation
+	 * @param evaluators evaluators whose query parameters differ at most in the false negative probability
+	 * @param alpha significance level of CI on detection probability
+	 * @param minimumEffectiveSampleSize minimum effective sample size to answer the query.
+	 * @return the effective sample size of the weighted sample paths.
+	 * @throws Exception thrown if there are no evaluators;
+	 *                      or if the evaluators are for different query epidemic parameters;
+	 *                      or if the query is refused
+	 *                      (see {@link simulationRuns#reweightSimulation(graph, simulationParameters,
+	 *                      simulationParameters, double, List)}).
+	 */
+	public double testWithReweighting(graph g, simulationRuns simulationResults, simulationParameters param,
+	                                  List<reweightingEvaluator> evaluators, double alpha,
+	                                  double minimumEffectiveSampleSize) throws Exception
+	{
+		if (evaluators.isEmpty())
+			throw new Exception("No evaluators to test with!");
+		simulationParameters queryParam = evaluators.get(0).getParam();
+		for (reweightingEvaluator evaluator: evaluators)
+			if (!evaluator.getParam().getEpidemicParameters().equals(queryParam.getEpidemicParameters()))
+				throw new Exception("Evaluators should be for the same query epidemic parameters!");
+		System.out.println("Disease testing with REWEIGHTING of the simulation for \n\t"+param.toString());
+		double effectiveSampleSize = simulationResults.reweightSimulation(g, param, queryParam,
+				minimumEffectiveSampleSize, evaluators);
+		
+		for (reweightingEvaluator evaluator: evaluators)
+		{
+			statisticalOutput output = evaluator.getDetectionProbability(alpha);
+			Pair<simulationParameters, Integer> key = new Pair<>(evaluator.getParam(), evaluator.getK());
+			testResults.put(key, output);
+			randomTestingOrder.put(key, evaluator.isRandomOrder());
+			System.out.println("Conditional probability of outbreak detection for \n\t"
+					+evaluator.getParam().toString()+"\n\t and k="+evaluator.getK()
+					+(evaluator.isRandomOrder() ? " (with random order)" : "")+" = "+output.getMean()
+					+"+-"+0.5*output.getCIWidth()+" (effective sample size = "+effectiveSampleSize+")");
+		}
+		return effectiveSampleSize;
+	}
+	
+	/**
+	 * Finds detection probabilities, and their derivatives with respect to the transmissability and the external
+	 * infection probability by the likelihood ratio method (see {@link sensitivityEvaluator}), from one simulation
+	 * that records trial counts (see {@link simulation.engineType#DAILY_SWEEP}).
+	 * The detection probabilities are recorded, and so are the derivatives with their standard errors
+	 * (see {@link fixedNumberOfTestsPerDay#derivatives} and
+	 * {@link fixedNumberOfTestsPerDay#writeDerivativesToCSV(String, boolean)}).
+	 *
+	 * @param g network graph
+	 * @param simulationResults an instance of {@link simulationRuns} with the simulation engine
+	 * @param evaluators evaluators of parameters that differ at most in the false negative probability; the number of
+	 *                   simulation repetitions of the parameters is the number of sample paths
+	 * @param alpha significance level of CI on detection probability and on derivatives
+	 * @param simulationBaseSeed base seed for random number generation of the simulation
+	 *                           (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List,
+	 *                           int[], int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on.
+	 * @throws Exception thrown if there are no evaluators;
+	 *                      or if the evaluators are for different epidemic parameters;
+	 *                      or if the transmissability or the external infection probability is not strictly between
+	 *                      0 and 1;
+	 *                      or if the simulation throws an exception
+	 *                      (see {@link simulationRuns#streamTrialCountsForConditionalProbabilityWithLatency(graph,
+	 *                      simulationParameters, int[], int, List)}).
+	 */
+	public void testSensitivity(graph g, simulationRuns simulationResults, List<sensitivityEvaluator> evaluators,
+	                            double alpha, int[] simulationBaseSeed, int numberOfThreads) throws Exception
+	{
+		if (evaluators.isEmpty())
+			throw new Exception("No evaluators to test with!");
+		simulationParameters param = evaluators.get(0).getParam();
+		for (sensitivityEvaluator evaluator: evaluators)
+			if (!evaluator.getParam().getEpidemicParameters().equals(param.getEpidemicParameters()))
+				throw new Exception("Evaluators should be for the same epidemic parameters!");
+		if ((param.getTransmissability()<=0) || (param.getTransmissability()>=1)
+				|| (param.getExternalInfectionProbability()<=0) || (param.getExternalInfectionProbability()>=1))
+			throw new Exception("Transmissability and external infection probability should be strictly between 0 "
+					+"and 1 for derivatives!");
+		System.out.println("Disease testing with LIKELIHOOD RATIO DERIVATIVES");
+		simulationResults.streamTrialCountsForConditionalProbabilityWithLatency(g, param, simulationBaseSeed,
+				numberOfThreads, evaluators);
+		
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		for (sensitivityEvaluator evaluator: evaluators)
+		{
+			addResult(evaluator.getParam(), evaluator.getK(), evaluator.isRandomOrder(),
+					evaluator.getNumberOfSamples(), evaluator.getNumberOfDetectedSamples(), alpha, zValue);
+			statisticalOutput transmissabilityDerivative = evaluator.getDerivativeWithRespectToTransmissability(alpha);
+			statisticalOutput externalInfectionDerivative
+					= evaluator.getDerivativeWithRespectToExternalInfectionProbability(alpha);
+			Map<String, statisticalOutput> derivativesOfEvaluator = new LinkedHashMap<>();
+			derivativesOfEvaluator.put(sensitivityEvaluator.NAMES_OF_PROBABILITIES[
+					sensitivityEvaluator.TRANSMISSABILITY], transmissabilityDerivative);
+			derivativesOfEvaluator.put(sensitivityEvaluator.NAMES_OF_PROBABILITIES[
+					sensitivityEvaluator.EXTERNAL_INFECTION_PROBABILITY], externalInfectionDerivative);
+			derivatives.put(new Pair<>(evaluator.getParam(), evaluator.getK()), derivativesOfEvaluator);
+			System.out.println("\t Derivative with respect to transmissability = "
+					+transmissabilityDerivative.getMean()+"+-"+0.5*transmissabilityDerivative.getCIWidth()
+					+" (standard error = "+transmissabilityDerivative.getStDev()+")");
+			System.out.println("\t Derivative with respect to external infection probability = "
+					+externalInfectionDerivative.getMean()+"+-"+0.5*externalInfectionDerivative.getCIWidth()
+					+" (standard error = "+externalInfectionDerivative.getStDev()+")");
+		}
+	}
+	
+	/**
+	 * Finds detection probabilities over a sweep of transmissabilities and external infection probabilities from a
+	 * simulation coupled by common random numbers
+	 * (see {@link simulationRuns#streamCoupledSweepForConditionalProbabilityWithLatency}), in which every point of
+	 * the sweep is simulated in one pass; so, the detection probabilities vary smoothly over the sweep, and
+	 * differences between points are estimated with a much smaller variance than with independent simulations.
+	 * <br>
+	 * Evaluators with the same epidemic parameters share the sample paths of a point.
+	 *
+	 * @param g network graph
+	 * @param simulationResults an instance of {@link simulationRuns}
+	 * @param evaluators evaluators of parameters that differ at most in the transmissability, the external infection
+	 *                   probability and the false negative probability
+	 * @param alpha significance level of CI on detection probability
+	 * @param simulationBaseSeed base seed for random number generation of the simulation
+	 *                           (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List,
+	 *                           int[], int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on.
+	 * @throws Exception thrown if there are no evaluators;
+	 *                      or if the simulation throws an exception
+	 *                      (see {@link simulationRuns#streamCoupledSweepForConditionalProbabilityWithLatency}).
+	 */
+	public void testCoupledSweep(graph g, simulationRuns simulationResults,
+	                             List<fixedNumberOfTestsPerDayEvaluator> evaluators, double alpha,
+	                             int[] simulationBaseSeed, int numberOfThreads) throws Exception
+	{
+		if (evaluators.isEmpty())
+			throw new Exception("No evaluators to test with!");
+		Map<epidemicParameters, List<fixedNumberOfTestsPerDayEvaluator>> mapEpidemicToEvaluators
+				= new LinkedHashMap<>();
+		for (fixedNumberOfTestsPerDayEvaluator evaluator: evaluators)
+			mapEpidemicToEvaluators.computeIfAbsent(evaluator.getParam().getEpidemicParameters(),
+					epidemic -> new ArrayList<>()).add(evaluator);
+		List<simulationParameters> listOfParams = mapEpidemicToEvaluators.values().stream()
+				.map(evaluatorsOfPoint -> evaluatorsOfPoint.get(0).getParam()).collect(Collectors.toList());
+		System.out.println("Disease testing with a COUPLED SWEEP of "+listOfParams.size()+" points");
+		simulationResults.streamCoupledSweepForConditionalProbabilityWithLatency(g, listOfParams, simulationBaseSeed,
+				numberOfThreads, new ArrayList<>(mapEpidemicToEvaluators.values()));
+		
+		addStreamingResults(evaluators, alpha);
+	}
+	
+	/**
+	 * Finds detection probabilities of several test schedules (see {@link testSchedule}) in one pass over each
+	 * stored sample path (see {@link testSchedulesEvaluator}), instead of one pass per schedule.
+	 * <br>
+	 * Results are recorded by schedule in {@link fixedNumberOfTestsPerDay#scheduleResults}, so schedules with the
+	 * same number of tests per day do not overwrite each other.
+	 *
+	 * @param g network graph
+	 * @param simulationResults simulation results as an instance of {@link simulationRuns}
+	 * @param schedules test schedules
+	 * @param alpha significance level of CI on detection probability
+	 * @param baseSeed base seed for simulating false negative results.
+	 * @return evaluators with the number of sample paths in which the outbreak is detected by each schedule,
+	 * one for each simulation parameters.
+	 */
+	public List<testSchedulesEvaluator> testSchedules(graph g, simulationRuns simulationResults,
+	                                                  List<testSchedule> schedules, double alpha, int baseSeed)
+	{
+		return testSchedules(g, simulationResults, schedules, alpha, baseSeed, false);
+	}
+	
+	/**
+	 * Finds detection probabilities of several test schedules in one pass over each stored sample path
+	 * (see {@link fixedNumberOfTestsPerDay#testSchedules(graph, simulationRuns, List, double, int)}),
+	 * optionally counting the tests of infectious nodes with bitsets
+	 * (see {@link testSchedulesEvaluator#testSchedulesEvaluator(simulationParameters, List, int, boolean)}).
+	 *
+	 * @param g network graph
+	 * @param simulationResults simulation results as an instance of {@link simulationRuns}
+	 * @param schedules test schedules
+	 * @param alpha significance level of CI on detection probability
+	 * @param baseSeed base seed for simulating false negative results
+	 * @param bitsets {@code true}, if tests of infectious nodes should be counted with bitsets;
+	 *                {@code false}, if each test should be simulated.
+	 * @return evaluators with the number of sample paths in which the outbreak is detected by each schedule,
+	 * one for each simulation parameters.
+	 */
+	public List<testSchedulesEvaluator> testSchedules(graph g, simulationRuns simulationResults,
+	                                                  List<testSchedule> schedules, double alpha, int baseSeed,
+	                                                  boolean bitsets)
+	{
+		int[] nodeLabels = g.getVertexSet().stream().mapToInt(v -> v).sorted().toArray();
+		byte[] infectiousDay = new byte[nodeLabels.length];
+		List<testSchedulesEvaluator> evaluators = new ArrayList<>();
+		for (Map.Entry<simulationParameters, simulationOutput> result:
+																simulationResults.getMapParamToSamples().entrySet())
+		{
+			simulationParameters param = result.getKey();
+			if (!param.getNetworkName().equals(g.getNetworkName()))
+			{
+				System.out.println("Network name mismatch in simulation results and graph provided as input, skipping!");
+				continue;
+			}
+			System.out.println("Disease testing with "+schedules.size()+" schedules for \n\t"+param.toString());
+			simulationOutput samples = result.getValue();
+			testSchedulesEvaluator evaluator = new testSchedulesEvaluator(param, schedules, baseSeed, bitsets);
+			for (int x=0; x<samples.getNumberOfSamples(); x++)
+			{
+				samples.getInfectiousDays(x, nodeLabels, infectiousDay);
+				evaluator.accept(x, infectiousDay);
+			}
+			addScheduleResults(evaluator, alpha);
+			evaluators.add(evaluator);
+		}
+		return evaluators;
+	}
+	
+	/**
+	 * Records detection probabilities of the test schedules of an evaluator
+	 * (see {@link fixedNumberOfTestsPerDay#testSchedules(graph, simulationRuns, List, double, int)}).
+	 *
+	 * @param evaluator evaluator that consumed the sample paths
+	 * @param alpha significance level of CI on detection probability.
+	 */
+	public void addScheduleResults(testSchedulesEvaluator evaluator, double alpha)
+	{
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		
+		List<testSchedule> schedules = evaluator.getSchedules();
+		for (int i=0; i<schedules.size(); i++)
+			addScheduleResult(evaluator.getParam(), schedules.get(i), evaluator.getNumberOfSamples(),
+					evaluator.getNumberOfDetectedSamples(i), alpha, zValue);
+	}
+	
+	/**
+	 * Compares several test schedules on the same stored sample paths with shared false negative results
+	 * (see {@link pairedComparisonEvaluator}), instead of with independent false negative results; so, the
+	 * difference between the detection probabilities of two schedules (e.g., {@code k} and {@code k+1} tests per
+	 * day, or a sequential and a random testing order) has a much tighter CI for the same number of sample paths.
+	 * <br>
+	 * Detection probabilities are recorded by schedule as by
+	 * {@link fixedNumberOfTestsPerDay#testSchedules(graph, simulationRuns, List, double, int)};
+	 * the paired difference between each two schedules is recorded in
+	 * {@link fixedNumberOfTestsPerDay#pairedDifferences}
+	 * (see {@link fixedNumberOfTestsPerDay#writeComparisonsToCSV(String, boolean)}).
+	 *
+	 * @param g network graph
+	 * @param simulationResults simulation results as an instance of {@link simulationRuns}
+	 * @param schedules test schedules
+	 * @param alpha significance level of CI on detection probability and on paired differences
+	 * @param baseSeed base seed for simulating false negative results.
+	 * @return evaluators with the number of sample paths in which the outbreak is detected by each schedule,
+	 * and by each schedule but not another, one for each simulation parameters.
+	 */
+	public List<pairedComparisonEvaluator> compareSchedules(graph g, simulationRuns simulationResults,
+	                                                        List<testSchedule> schedules, double alpha, int baseSeed)
+	{
+		int[] nodeLabels = g.getVertexSet().stream().mapToInt(v -> v).sorted().toArray();
+		byte[] infectiousDay = new byte[nodeLabels.length];
+		List<pairedComparisonEvaluator> evaluators = new ArrayList<>();
+		for (Map.Entry<simulationParameters, simulationOutput> result:
+																simulationResults.getMapParamToSamples().entrySet())
+		{
+			simulationParameters param = result.getKey();
+			if (!param.getNetworkName().equals(g.getNetworkName()))
+			{
+				System.out.println("Network name mismatch in simulation results and graph provided as input, skipping!");
+				continue;
+			}
+			System.out.println("Disease testing with PAIRED COMPARISON of "+schedules.size()+" schedules for \n\t"
+					+param.toString());
+			simulationOutput samples = result.getValue();
+			pairedComparisonEvaluator evaluator = new pairedComparisonEvaluator(param, schedules, baseSeed);
+			for (int x=0; x<samples.getNumberOfSamples(); x++)
+			{
+				samples.getInfectiousDays(x, nodeLabels, infectiousDay);
+				evaluator.accept(x, infectiousDay);
+			}
+			addComparisonResults(evaluator, alpha);
+			evaluators.add(evaluator);
+		}
+		return evaluators;
+	}
+	
+	/**
+	 * Records detection probabilities of the test schedules of a paired comparison, and the paired difference
+	 * between each two schedules
+	 * (see {@link fixedNumberOfTestsPerDay#compareSchedules(graph, simulationRuns, List, double, int)}).
+	 *
+	 * @param evaluator evaluator that consumed the sample paths
+	 * @param alpha significance level of CI on detection probability and on paired differences.
+	 */
+	public void addComparisonResults(pairedComparisonEvaluator evaluator, double alpha)
+	{
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		
+		simulationParameters param = evaluator.getParam();
+		List<testSchedule> schedules = evaluator.getSchedules();
+		for (int i=0; i<schedules.size(); i++)
+			addScheduleResult(param, schedules.get(i), evaluator.getNumberOfSamples(),
+					evaluator.getNumberOfDetectedSamples(i), alpha, zValue);
+		for (int i=0; i<schedules.size(); i++)
+		{
+			for (int j=i+1; j<schedules.size(); j++)
+			{
+				statisticalOutput difference = evaluator.getPairedDifference(i, j, alpha);
+				pairedDifferences.put(new Pair<>(param, new Pair<>(schedules.get(i), schedules.get(j))), difference);
+				System.out.println("Paired difference in conditional probability of outbreak detection of "
+						+schedules.get(i).getName()+" and "+schedules.get(j).getName()+" = "+difference.getMean()
+						+"+-"+0.5*difference.getCIWidth());
+			}
+		}
+	}
+	
+	/**
+	 * Records the detection probability estimated from the number of sample paths in which the outbreak is detected.
+	 *
+	 * @param param simulation parameters
+	 * @param k number of tests per day
+	 * @param randomOrder {@code true}, if a random testing order was used; {@code false}, otherwise
+	 * @param sampleSize number of sample paths
+	 * @param numberOfDetectedSamples number of sample paths in which the outbreak is detected
+	 * @param alpha significance level of CI on detection probability
+	 * @param zValue {@code 1-alpha/2} quantile of the standard normal distribution.
+	 */
+	private void addResult(simulationParameters param, int k, boolean randomOrder, int sampleSize,
+	                       int numberOfDetectedSamples, double alpha, double zValue)
+	{
+		addResult(param, k, randomOrder,
+				getBinomialProportionOutput(sampleSize, numberOfDetectedSamples, alpha, zValue));
+	}
+	
+	/**
+	 * Records a detection probability.
+	 *
+	 * @param param simulation parameters
+	 * @param k number of tests per day
+	 * @param randomOrder {@code true}, if a random testing order was used; {@code false}, otherwise
+	 * @param output detection probability as {@link dataTypes.statisticalOutput}.
+	 */
+	private void addResult(simulationParameters param, int k, boolean randomOrder, statisticalOutput output)
+	{
+		Pair<simulationParameters, Integer> key = new Pair<>(param, k);
+		testResults.put(key, output);
+		randomTestingOrder.put(key, randomOrder);
+		System.out.println("Conditional probability of outbreak detection for \n\t"
+				+param.toString()+"\n\t and k="+k
+				+(randomOrder ? " (with random order)" : "")+" = "+output.getMean()+"+-"+0.5*output.getCIWidth());
+	}
+	
+	/**
+	 * Records the detection probability of a test schedule estimated from the number of sample paths in which the
+	 * outbreak is detected (see {@link fixedNumberOfTestsPerDay#scheduleResults}).
+	 *
+	 * @param param simulation parameters
+	 * @param schedule test schedule
+	 * @param sampleSize number of sample paths
+	 * @param numberOfDetectedSamples number of sample paths in which the outbreak is detected
+	 * @param alpha significance level of CI on detection probability
+	 * @param zValue {@code 1-alpha/2} quantile of the standard normal distribution.
+	 */
+	private void addScheduleResult(simulationParameters param, testSchedule schedule, int sampleSize,
+	                               int numberOfDetectedSamples, double alpha, double zValue)
+	{
+		statisticalOutput output = getBinomialProportionOutput(sampleSize, numberOfDetectedSamples, alpha, zValue);
+		scheduleResults.put(new Pair<>(param, schedule), output);
+		System.out.println("Conditional probability of outbreak detection for \n\t"
+				+param.toString()+"\n\t and schedule "+schedule.getName()+" = "+output.getMean()+"+-"
+				+0.5*output.getCIWidth());
+	}
+	
+	/**
+	 * Returns the detection probability estimated from the number of sample paths in which the outbreak is detected,
+	 * with the CI of the normal approximation for a binomial proportion.
+	 *
+	 * @param sampleSize number of sample paths
+	 * @param numberOfDetectedSamples number of sample paths in which the outbreak is detected
+	 * @param alpha significance level of CI on detection probability
+	 * @param zValue {@code 1-alpha/2} quantile of the standard normal distribution.
+	 * @return the detection probability as {@link dataTypes.statisticalOutput}.
+	 */
+	private static statisticalOutput getBinomialProportionOutput(int sampleSize, int numberOfDetectedSamples,
+	                                                             double alpha, double zValue)
+	{
+		double probability = 1.0*numberOfDetectedSamples/sampleSize;
+		double standardError = Math.sqrt(probability*(1.0-probability)/sampleSize);
+		String nameOfStatisticalTest = "normal approximation for binomial proportion";
+		double CIWidth = 2*zValue*standardError;
+		int replicationSize = 1;
+		return new statisticalOutput(probability, standardError, alpha, nameOfStatisticalTest, CIWidth, sampleSize,
+				replicationSize);
+	}
+	
+	/**
+	 * Finds the exact detection probability on a complete graph with a Markov chain
+	 * (see {@link simulation.completeGraphMarkovChain}), without simulation.
+	 * The detection probability is the same for the sequential and for a random testing order.
+	 * <br>
+	 * Probability dropped by the Markov chain can only overestimate the detection probability
+	 * (see {@link simulation.completeGraphMarkovChain#getDetectionProbability(int)}), so the exact detection
+	 * probability {@code p} is bounded by {@code [p-dropped, p]}; the recorded result is the midpoint of this
+	 * interval with a CI width of the dropped probability.
+	 * The bound is deterministic, so the recorded alpha is {@code NaN}, and the sample size is 0.
+	 *
+	 * @param g network graph; should be a complete graph
+	 * @param param simulation parameters (the number of simulation repetitions is not used)
+	 * @param k number of tests per day
+	 * @param randomOrder {@code true}, if the result should be recorded for a random testing order;
+	 *                    {@code false}, for the sequential circular testing order.
+	 * @throws Exception thrown if {@code g} is not a complete graph, or if the parameters are not supported by
+	 *                   {@link simulation.completeGraphMarkovChain}.
+	 */
+	public void testWithMarkovChain(graph g, simulationParameters param, int k, boolean randomOrder)
+			throws Exception
+	{
+		System.out.println("Disease testing with MARKOV CHAIN for \n\t"+param.toString()+"\n\t and k="+k);
+		completeGraphMarkovChain chain = new completeGraphMarkovChain(g, param);
+		double upperBound = chain.getDetectionProbability(k);
+		double CIWidth = chain.getDroppedProbability();
+		double probability = upperBound-0.5*CIWidth;
+		String nameOfStatisticalTest = "exact Markov chain on complete graph (bound by dropped probability)";
+		statisticalOutput output = new statisticalOutput(probability, 0, Double.NaN, nameOfStatisticalTest, CIWidth,
+				0, 1);
+		Pair<simulationParameters, Integer> key = new Pair<>(param, k);
+		testResults.put(key, output);
+		randomTestingOrder.put(key, randomOrder);
+		System.out.println("Conditional probability of outbreak detection (exact) in ["+(upperBound-CIWidth)+", "
+				+upperBound+"]");
+	}
+	
 	/**
 	 * Writes disease testing results to csv file.
 	 *
@@ -315,33 +1279,179 @@ public class fixedNumberOfTestsPerDay
 		}
 		String now = Instant.now().toString();
 		for (Map.Entry<Pair<simulationParameters, Integer>, statisticalOutput> e: this.testResults.entrySet())
+			writer.writeNext(getLine(e.getKey().getFirst(), e.getKey().getSecond(),
+					this.randomTestingOrder.get(e.getKey()), e.getValue(), now));
+		for (Map.Entry<Pair<simulationParameters, testSchedule>, statisticalOutput> e:
+																				this.scheduleResults.entrySet())
+			writer.writeNext(getLine(e.getKey().getFirst(), e.getKey().getSecond().getK(),
+					e.getKey().getSecond().isRandomOrder(), e.getValue(), now));
+		writer.flush();
+		writer.close();
+		System.out.println("Disease testing results successfully written to \""+filePath+"\".");
+	}
+	
+	/**
+	 * Writes paired differences between the detection probabilities of test schedules
+	 * (see {@link fixedNumberOfTestsPerDay#pairedDifferences}) to csv file.
+	 *
+	 * @param filePath path to output file
+	 * @param append {@code true}, if you wish to append to existing file; {@code false}, otherwise.
+	 * @throws IOException thrown if error in input-output operation.
+	 */
+	public void writeComparisonsToCSV(String filePath, boolean append) throws IOException
+	{
+		File fileObj = new File(filePath);
+		String[] header = {"Network name", "simulation reps", "t", "latency", "ext. infection prob",
+							"int. infection prob", "fnrate", "test schedule", "other test schedule",
+							"paired difference in outbreak conditional prob", "CI width", "lower CI", "upper CI",
+							"name of statistical test", "sample size", "alpha", "UTC"};
+		boolean writeHeader = false;
+		if (!fileObj.exists())
+			writeHeader = true;
+		else if (!append)
+			writeHeader = true;
+		CSVWriter writer = new CSVWriter(new FileWriter(filePath, append));
+		if (writeHeader)
+		{
+			writer.writeNext(header);
+			writer.flush();
+		}
+		String now = Instant.now().toString();
+		for (Map.Entry<Pair<simulationParameters, Pair<testSchedule, testSchedule>>, statisticalOutput> e:
+																				this.pairedDifferences.entrySet())
 		{
+			simulationParameters param = e.getKey().getFirst();
+			Pair<testSchedule, testSchedule> schedules = e.getKey().getSecond();
+			statisticalOutput output = e.getValue();
 			String[] line = new String[17];
-			line[0] = e.getKey().getFirst().getNetworkName();
-			line[1] = String.valueOf(e.getKey().getFirst().getNumberOfSimulationRepetitions());
-			line[2] = String.valueOf(e.getKey().getFirst().getTimeStep());
-			line[3] = String.valueOf(e.getKey().getFirst().getLatency());
-			line[4] = String.valueOf(e.getKey().getFirst().getExternalInfectionProbability());
-			line[5] = String.valueOf(e.getKey().getFirst().getTransmissability());
-			line[6] = String.valueOf(e.getKey().getFirst().getFalseNegativeProbability());
-			line[7] = String.valueOf(e.getKey().getSecond());
-			line[8] = String.valueOf(this.randomTestingOrder.get(e.getKey()));
-			double prob = e.getValue().getMean();
-			line[9] = String.valueOf(prob);
-			double width = e.getValue().getCIWidth();
+			line[0] = param.getNetworkName();
+			line[1] = String.valueOf(param.getNumberOfSimulationRepetitions());
+			line[2] = String.valueOf(param.getTimeStep());
+			line[3] = String.valueOf(param.getLatency());
+			line[4] = String.valueOf(param.getExternalInfectionProbability());
+			line[5] = String.valueOf(param.getTransmissability());
+			line[6] = String.valueOf(param.getFalseNegativeProbability());
+			line[7] = schedules.getFirst().getName();
+			line[8] = schedules.getSecond().getName();
+			double difference = output.getMean();
+			line[9] = String.valueOf(difference);
+			double width = output.getCIWidth();
 			double halfwidth = 0.5*width;
 			line[10] = String.valueOf(width);
-			line[11] = String.valueOf(prob-halfwidth);
-			line[12] = String.valueOf(prob+halfwidth);
-			line[13] = e.getValue().getNameOfStatisticalTest();
-			line[14] = String.valueOf(e.getValue().getReplicationSize());
-			line[15] = String.valueOf(e.getValue().getAlpha());
+			line[11] = String.valueOf(difference-halfwidth);
+			line[12] = String.valueOf(difference+halfwidth);
+			line[13] = output.getNameOfStatisticalTest();
+			line[14] = String.valueOf(output.getSampleSize());
+			line[15] = String.valueOf(output.getAlpha());
 			line[16] = now;
 			writer.writeNext(line);
 		}
 		writer.flush();
 		writer.close();
-		System.out.println("Disease testing results successfully written to \""+filePath+"\".");
+		System.out.println("Paired differences successfully written to \""+filePath+"\".");
+	}
+	
+	/**
+	 * Writes derivatives of detection probabilities (see {@link fixedNumberOfTestsPerDay#derivatives}) to csv file.
+	 *
+	 * @param filePath path to output file
+	 * @param append {@code true}, if you wish to append to existing file; {@code false}, otherwise.
+	 * @throws IOException thrown if error in input-output operation.
+	 */
+	public void writeDerivativesToCSV(String filePath, boolean append) throws IOException
+	{
+		File fileObj = new File(filePath);
+		String[] header = {"Network name", "simulation reps", "t", "latency", "ext. infection prob",
+							"int. infection prob", "fnrate", "no of tests per day", "random test order",
+							"with respect to", "derivative of outbreak conditional prob", "standard error",
+							"CI width", "lower CI", "upper CI", "name of statistical test", "sample size", "alpha",
+							"UTC"};
+		boolean writeHeader = false;
+		if (!fileObj.exists())
+			writeHeader = true;
+		else if (!append)
+			writeHeader = true;
+		CSVWriter writer = new CSVWriter(new FileWriter(filePath, append));
+		if (writeHeader)
+		{
+			writer.writeNext(header);
+			writer.flush();
+		}
+		String now = Instant.now().toString();
+		for (Map.Entry<Pair<simulationParameters, Integer>, Map<String, statisticalOutput>> e:
+																					this.derivatives.entrySet())
+		{
+			simulationParameters param = e.getKey().getFirst();
+			for (Map.Entry<String, statisticalOutput> derivative: e.getValue().entrySet())
+			{
+				statisticalOutput output = derivative.getValue();
+				String[] line = new String[19];
+				line[0] = param.getNetworkName();
+				line[1] = String.valueOf(param.getNumberOfSimulationRepetitions());
+				line[2] = String.valueOf(param.getTimeStep());
+				line[3] = String.valueOf(param.getLatency());
+				line[4] = String.valueOf(param.getExternalInfectionProbability());
+				line[5] = String.valueOf(param.getTransmissability());
+				line[6] = String.valueOf(param.getFalseNegativeProbability());
+				line[7] = String.valueOf(e.getKey().getSecond());
+				line[8] = String.valueOf(this.randomTestingOrder.get(e.getKey()));
+				line[9] = derivative.getKey();
+				double mean = output.getMean();
+				line[10] = String.valueOf(mean);
+				line[11] = String.valueOf(output.getStDev());
+				double width = output.getCIWidth();
+				double halfwidth = 0.5*width;
+				line[12] = String.valueOf(width);
+				line[13] = String.valueOf(mean-halfwidth);
+				line[14] = String.valueOf(mean+halfwidth);
+				line[15] = output.getNameOfStatisticalTest();
+				line[16] = String.valueOf(output.getSampleSize());
+				line[17] = String.valueOf(output.getAlpha());
+				line[18] = now;
+				writer.writeNext(line);
+			}
+		}
+		writer.flush();
+		writer.close();
+		System.out.println("Derivatives successfully written to \""+filePath+"\".");
+	}
+	
+	/**
+	 * Returns a line of the csv file of disease testing results
+	 * (see {@link fixedNumberOfTestsPerDay#writeToCSV(String, boolean)}).
+	 *
+	 * @param param simulation parameters
+	 * @param k number of tests per day
+	 * @param randomOrder whether a random testing order was used
+	 * @param output result of disease testing
+	 * @param now time at which the results are written.
+	 * @return the line of the csv file.
+	 */
+	private static String[] getLine(simulationParameters param, int k, Boolean randomOrder, statisticalOutput output,
+	                                String now)
+	{
+		String[] line = new String[17];
+		line[0] = param.getNetworkName();
+		line[1] = String.valueOf(param.getNumberOfSimulationRepetitions());
+		line[2] = String.valueOf(param.getTimeStep());
+		line[3] = String.valueOf(param.getLatency());
+		line[4] = String.valueOf(param.getExternalInfectionProbability());
+		line[5] = String.valueOf(param.getTransmissability());
+		line[6] = String.valueOf(param.getFalseNegativeProbability());
+		line[7] = String.valueOf(k);
+		line[8] = String.valueOf(randomOrder);
+		double prob = output.getMean();
+		line[9] = String.valueOf(prob);
+		double width = output.getCIWidth();
+		double halfwidth = 0.5*width;
+		line[10] = String.valueOf(width);
+		line[11] = String.valueOf(prob-halfwidth);
+		line[12] = String.valueOf(prob+halfwidth);
+		line[13] = output.getNameOfStatisticalTest();
+		line[14] = String.valueOf(output.getReplicationSize());
+		line[15] = String.valueOf(output.getAlpha());
+		line[16] = now;
+		return line;
 	}
 	
 	/**
@@ -368,6 +1478,47 @@ public class fixedNumberOfTestsPerDay
 			str.append("\n\t\t half-width: ").append(0.5*testResults.get(e).getCIWidth());
 			str.append("\n\t>");
 		}
+		for (Pair<simulationParameters, testSchedule> e: scheduleResults.keySet())
+		{
+			str.append("\n\t<");
+			str.append("\n\t\t ").append(e.getFirst().toString()).append(",");
+			str.append("\n\t\t test schedule: ").append(e.getSecond().getName());
+			str.append("\n\t\t detection probability: ").append(scheduleResults.get(e).getMean());
+			str.append("\n\t\t statistical test: ").append(scheduleResults.get(e).getNameOfStatisticalTest());
+			str.append("\n\t\t sample size = ").append(scheduleResults.get(e).getSampleSize());
+			str.append("\n\t\t alpha = ").append(scheduleResults.get(e).getAlpha());
+			str.append("\n\t\t half-width: ").append(0.5*scheduleResults.get(e).getCIWidth());
+			str.append("\n\t>");
+		}
+		for (Pair<simulationParameters, Pair<testSchedule, testSchedule>> e: pairedDifferences.keySet())
+		{
+			str.append("\n\t<");
+			str.append("\n\t\t ").append(e.getFirst().toString()).append(",");
+			str.append("\n\t\t test schedules: ").append(e.getSecond().getFirst().getName()).append(" and ")
+					.append(e.getSecond().getSecond().getName());
+			str.append("\n\t\t paired difference in detection probability: ")
+					.append(pairedDifferences.get(e).getMean());
+			str.append("\n\t\t statistical test: ").append(pairedDifferences.get(e).getNameOfStatisticalTest());
+			str.append("\n\t\t sample size = ").append(pairedDifferences.get(e).getSampleSize());
+			str.append("\n\t\t alpha = ").append(pairedDifferences.get(e).getAlpha());
+			str.append("\n\t\t half-width: ").append(0.5*pairedDifferences.get(e).getCIWidth());
+			str.append("\n\t>");
+		}
+		for (Pair<simulationParameters, Integer> e: derivatives.keySet())
+		{
+			str.append("\n\t<");
+			str.append("\n\t\t ").append(e.getFirst().toString()).append(",");
+			str.append("\n\t\t no. of tests per day = ").append(e.getSecond());
+			str.append("\n\t\t random testing order: ").append(randomTestingOrder.get(e));
+			for (Map.Entry<String, statisticalOutput> derivative: derivatives.get(e).entrySet())
+			{
+				str.append("\n\t\t derivative of detection probability with respect to ").append(derivative.getKey())
+						.append(": ").append(derivative.getValue().getMean());
+				str.append("\n\t\t\t standard error = ").append(derivative.getValue().getStDev());
+				str.append("\n\t\t\t half-width: ").append(0.5*derivative.getValue().getCIWidth());
+			}
+			str.append("\n\t>");
+		}
 		return str.toString();
 	}
 }
@@ -0,0 +1,281 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import helper.randomStreams;
+import helper.reseedableRandom;
+import network.graph;
+import simulation.samplePathConsumer;
+
+import java.util.*;
+
+/**
+ * Evaluates the fixed number of tests per day testing strategy on sample paths streamed from a simulation
+ * (see {@link simulation.simulationRuns#streamSimulationForConditionalProbabilityWithLatency}),
+ * keeping only the number of sample paths and the number of sample paths in which the outbreak is detected.
+ * <br>
+ * The test schedule is the same as that of {@link fixedNumberOfTestsPerDay#test(graph, simulation.simulationRuns,
+ * int, double, int)} (or {@link fixedNumberOfTestsPerDay#testWithRandomOrder(graph, simulation.simulationRuns, int,
+ * double, int, int)}, for a random testing order).
+ * False negative results are drawn only for tests of infectious nodes, from a random number stream of each
+ * simulation repetition (see {@link helper.randomStreams}); so, the results do not depend on the number of threads.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 10, 2020.
+ */
+public class fixedNumberOfTestsPerDayEvaluator implements samplePathConsumer
+{
+	/**
+	 * Simulation parameters (the false negative probability is used for testing).
+	 */
+	final simulationParameters param;
+	
+	/**
+	 * Number of tests per day.
+	 */
+	final int k;
+	
+	/**
+	 * {@code true}, if a random testing order is used; {@code false}, otherwise.
+	 */
+	final boolean randomOrder;
+	
+	/**
+	 * Seed from which the random number streams for false negative results of all repetitions are derived.
+	 */
+	final long reliabilitySeed;
+	
+	/**
+	 * Ids (see {@link network.csrGraph}) of nodes in the order in which they are tested.
+	 */
+	final int[] testingOrder;
+	
+	/**
+	 * Number of sample paths consumed.
+	 */
+	int numberOfSamples;
+	
+	/**
+	 * Number of sample paths in which the outbreak is detected.
+	 */
+	int numberOfDetectedSamples;
+	
+	/**
+	 * Random number generator for false negative results.
+	 */
+	final reseedableRandom reliabilityGen;
+	
+	/**
+	 * Constructor for a sequential circular testing order.
+	 *
+	 * @param g network graph
+	 * @param param simulation parameters; the false negative probability can differ from the one simulated
+	 * @param k number of tests per day
+	 * @param baseSeed base seed for simulating false negative results.
+	 */
+	public fixedNumberOfTestsPerDayEvaluator(graph g, simulationParameters param, int k, int baseSeed)
+	{
+		this(param, k, false, baseSeed+param.hashCode()+k, getTestingOrder(g, null));
+	}
+	
+	/**
+	 * Constructor for a random testing order.
+	 *
+	 * @param g network graph
+	 * @param param simulation parameters; the false negative probability can differ from the one simulated
+	 * @param k number of tests per day
+	 * @param baseSeed base seed for simulating false negative results
+	 * @param randomOrderBaseSeed base seed for generating random testing order.
+	 */
+	public fixedNumberOfTestsPerDayEvaluator(graph g, simulationParameters param, int k, int baseSeed,
+	                                         int randomOrderBaseSeed)
+	{
+		this(param, k, true, baseSeed+param.hashCode()+k,
+				getTestingOrder(g, new Random(randomOrderBaseSeed+param.hashCode()+k)));
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param param simulation parameters
+	 * @param k number of tests per day
+	 * @param randomOrder {@code true}, if a random testing order is used; {@code false}, otherwise
+	 * @param reliabilitySeed seed for random number streams of false negative results
+	 * @param testingOrder ids of nodes in the order in which they are tested.
+	 */
+	private fixedNumberOfTestsPerDayEvaluator(simulationParameters param, int k, boolean randomOrder,
+	                                          long reliabilitySeed, int[] testingOrder)
+	{
+		this.param = param;
+		this.k = k;
+		this.randomOrder = randomOrder;
+		this.reliabilitySeed = reliabilitySeed;
+		this.testingOrder = testingOrder;
+		this.numberOfSamples = 0;
+		this.numberOfDetectedSamples = 0;
+		this.reliabilityGen = new reseedableRandom(0);
+	}
+	
+	/**
+	 * Returns the ids of nodes in the order in which they are tested.
+	 *
+	 * @param g network graph
+	 * @param randomOrderGen an instance of {@link java.util.Random} for generating random order of test nodes;
+	 *                       {@code null} for a sequential order.
+	 * @return ids (see {@link network.csrGraph}) of nodes in the order in which they are tested.
+	 */
+	private static int[] getTestingOrder(graph g, Random randomOrderGen)
+	{
+		List<Integer> nodeList = new ArrayList<>(g.getVertexSet());
+		Collections.sort(nodeList);
+		int[] labels = nodeList.stream().mapToInt(v -> v).toArray();
+		if (randomOrderGen!=null)
+			Collections.shuffle(nodeList, randomOrderGen);
+		return nodeList.stream().mapToInt(v -> Arrays.binarySearch(labels, v)).toArray();
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link fixedNumberOfTestsPerDayEvaluator#param}.
+	 */
+	public simulationParameters getParam()
+	{
+		return param;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link fixedNumberOfTestsPerDayEvaluator#k}.
+	 */
+	public int getK()
+	{
+		return k;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link fixedNumberOfTestsPerDayEvaluator#randomOrder}.
+	 */
+	public boolean isRandomOrder()
+	{
+		return randomOrder;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link fixedNumberOfTestsPerDayEvaluator#numberOfSamples}.
+	 */
+	public int getNumberOfSamples()
+	{
+		return numberOfSamples;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link fixedNumberOfTestsPerDayEvaluator#numberOfDetectedSamples}.
+	 */
+	public int getNumberOfDetectedSamples()
+	{
+		return numberOfDetectedSamples;
+	}
+	
+	/**
+	 * Returns a new evaluator with the same configuration as this evaluator, but without any sample paths consumed.
+	 *
+	 * @return a new evaluator with the same configuration as this evaluator.
+	 */
+	@Override
+	public samplePathConsumer newInstance()
+	{
+		return new fixedNumberOfTestsPerDayEvaluator(param, k, randomOrder, reliabilitySeed, testingOrder);
+	}
+	
+	/**
+	 * Returns a new evaluator with the same configuration as this evaluator, but with random number streams for
+	 * false negative results of a stratum of the number of initial infections
+	 * (see {@link simulation.simulationRuns#streamStratumForConditionalProbabilityWithLatency}),
+	 * so the false negative results of different strata are independent.
+	 *
+	 * @param stratum index (starting from 0) of the stratum.
+	 * @return a new evaluator for stratum {@code stratum}, without any sample paths consumed.
+	 */
+	fixedNumberOfTestsPerDayEvaluator newInstanceForStratum(int stratum)
+	{
+		return new fixedNumberOfTestsPerDayEvaluator(param, k, randomOrder,
+				randomStreams.seedForReplication(reliabilitySeed, -1-stratum), testingOrder);
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path, until the outbreak is detected.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious.
+	 */
+	@Override
+	public void accept(int replication, byte[] infectiousDay)
+	{
+		numberOfSamples++;
+		if (getDetectionDay(replication, infectiousDay)>0)
+			numberOfDetectedSamples++;
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path, until the outbreak is detected, and returns the day
+	 * on which it is detected; does not count the sample path.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious.
+	 * @return the day on which the outbreak is detected; 0 if it is not detected within the time step.
+	 */
+	int getDetectionDay(int replication, byte[] infectiousDay)
+	{
+		int s = testingOrder.length;
+		int testsPerDay = Math.min(k, s);
+		double fnRate = param.getFalseNegativeProbability();
+		reliabilityGen.reseed(randomStreams.seedForReplication(reliabilitySeed, replication));
+		for (int t=1; t<=param.getTimeStep(); t++)
+		{
+			int start = (int) ((long) k*(t-1)%s);
+			for (int j=0; j<testsPerDay; j++)
+			{
+				int v = testingOrder[(start+j)%s];
+				if ((infectiousDay[v]<=t) && (reliabilityGen.nextDouble()>fnRate))
+					return t;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Adds the counts of another evaluator to this evaluator.
+	 *
+	 * @param other an evaluator created by {@link fixedNumberOfTestsPerDayEvaluator#newInstance()}.
+	 */
+	@Override
+	public void combine(samplePathConsumer other)
+	{
+		fixedNumberOfTestsPerDayEvaluator that = (fixedNumberOfTestsPerDayEvaluator) other;
+		this.numberOfSamples += that.numberOfSamples;
+		this.numberOfDetectedSamples += that.numberOfDetectedSamples;
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		return "fixedNumberOfTestsPerDayEvaluator{" +
+				"param=" + param +
+				", k=" + k +
+				", randomOrder=" + randomOrder +
+				", numberOfSamples=" + numberOfSamples +
+				", numberOfDetectedSamples=" + numberOfDetectedSamples +
+				'}';
+	}
+}
@@ -0,0 +1,348 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import simulation.trialCounts;
+import simulation.trialCountsConsumer;
+
+/**
+ * Evaluates the fixed number of tests per day testing strategy by importance sampling: sample paths are simulated
+ * with a tilted (usually larger) transmissability, and each sample path is weighted by its likelihood ratio
+ * under the transmissability of the parameters (see {@link trialCounts#getLogLikelihoodRatioOfTransmissability(
+ * double, double)}).
+ * So, rare outbreaks with long chains of transmission, whose probability is tiny under the transmissability of
+ * the parameters, are simulated often, and the weighted averages are unbiased estimates under the parameters.
+ * <br>
+ * Besides the detection probability, the evaluator estimates the probability of a tail event: at least
+ * {@link importanceSamplingEvaluator#infectiousThreshold} nodes infectious by the day on which the outbreak is
+ * detected (by the time step, if it is not detected).
+ * <br>
+ * The tests of each sample path are the same as those of {@link fixedNumberOfTestsPerDayEvaluator}, with the same
+ * random number streams for false negative results; so, with the simulated transmissability equal to the
+ * transmissability of the parameters, every weight is 1, and the detection probability is the same as that of
+ * {@link fixedNumberOfTestsPerDayEvaluator}.
+ * The sample paths should be streamed from a simulation that records trial counts
+ * (see {@link simulation.trialCountsConsumer}).
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+public class importanceSamplingEvaluator implements trialCountsConsumer
+{
+	/**
+	 * Evaluator whose tests are used for each sample path; it does not count any sample paths.
+	 */
+	final fixedNumberOfTestsPerDayEvaluator tester;
+	
+	/**
+	 * Transmissability with which the sample paths are simulated.
+	 */
+	final double simulatedTransmissability;
+	
+	/**
+	 * Minimum number of nodes infectious by the day of detection in the tail event.
+	 */
+	final int infectiousThreshold;
+	
+	/**
+	 * Number of sample paths consumed.
+	 */
+	int numberOfSamples;
+	
+	/**
+	 * Sum of the likelihood ratios of the sample paths.
+	 */
+	double sumOfWeights;
+	
+	/**
+	 * Sum of the squares of the likelihood ratios of the sample paths.
+	 */
+	double sumOfSquaredWeights;
+	
+	/**
+	 * Sum of the likelihood ratios of the sample paths in which the outbreak is detected.
+	 */
+	double sumOfDetectionWeights;
+	
+	/**
+	 * Sum of the squares of the likelihood ratios of the sample paths in which the outbreak is detected.
+	 */
+	double sumOfSquaredDetectionWeights;
+	
+	/**
+	 * Sum of the likelihood ratios of the sample paths with the tail event.
+	 */
+	double sumOfTailWeights;
+	
+	/**
+	 * Sum of the squares of the likelihood ratios of the sample paths with the tail event.
+	 */
+	double sumOfSquaredTailWeights;
+	
+	/**
+	 * Constructor for a sequential circular testing order.
+	 *
+	 * @param g network graph
+	 * @param param simulation parameters under which the probabilities are estimated
+	 * @param k number of tests per day
+	 * @param baseSeed base seed for simulating false negative results
+	 * @param simulatedTransmissability transmissability with which the sample paths are simulated
+	 * @param infectiousThreshold minimum number of nodes infectious by the day of detection in the tail event.
+	 */
+	public importanceSamplingEvaluator(graph g, simulationParameters param, int k, int baseSeed,
+	                                   double simulatedTransmissability, int infectiousThreshold)
+	{
+		this(new fixedNumberOfTestsPerDayEvaluator(g, param, k, baseSeed), simulatedTransmissability,
+				infectiousThreshold);
+	}
+	
+	/**
+	 * Constructor for a random testing order.
+	 *
+	 * @param g network graph
+	 * @param param simulation parameters under which the probabilities are estimated
+	 * @param k number of tests per day
+	 * @param baseSeed base seed for simulating false negative results
+	 * @param randomOrderBaseSeed base seed for generating random testing order
+	 * @param simulatedTransmissability transmissability with which the sample paths are simulated
+	 * @param infectiousThreshold minimum number of nodes infectious by the day of detection in the tail event.
+	 */
+	public importanceSamplingEvaluator(graph g, simulationParameters param, int k, int baseSeed,
+	                                   int randomOrderBaseSeed, double simulatedTransmissability,
+	                                   int infectiousThreshold)
+	{
+		this(new fixedNumberOfTestsPerDayEvaluator(g, param, k, baseSeed, randomOrderBaseSeed),
+				simulatedTransmissability, infectiousThreshold);
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param tester evaluator whose tests are used for each sample path
+	 * @param simulatedTransmissability transmissability with which the sample paths are simulated
+	 * @param infectiousThreshold minimum number of nodes infectious by the day of detection in the tail event.
+	 */
+	private importanceSamplingEvaluator(fixedNumberOfTestsPerDayEvaluator tester, double simulatedTransmissability,
+	                                    int infectiousThreshold)
+	{
+		this.tester = tester;
+		this.simulatedTransmissability = simulatedTransmissability;
+		this.infectiousThreshold = infectiousThreshold;
+	}
+	
+	/**
+	 * Returns the simulation parameters under which the probabilities are estimated.
+	 *
+	 * @return simulation parameters.
+	 */
+	public simulationParameters getParam()
+	{
+		return tester.getParam();
+	}
+	
+	/**
+	 * Returns the simulation parameters with which the sample paths should be simulated, i.e., the parameters with
+	 * the transmissability set to {@link importanceSamplingEvaluator#simulatedTransmissability}.
+	 *
+	 * @return simulation parameters of the simulation.
+	 */
+	public simulationParameters getSimulatedParam()
+	{
+		simulationParameters simulatedParam = new simulationParameters(tester.getParam());
+		simulatedParam.setTransmissability(simulatedTransmissability);
+		return simulatedParam;
+	}
+	
+	/**
+	 * Returns the number of tests per day.
+	 *
+	 * @return the number of tests per day.
+	 */
+	public int getK()
+	{
+		return tester.getK();
+	}
+	
+	/**
+	 * Checks whether a random testing order is used.
+	 *
+	 * @return {@code true}, if a random testing order is used; {@code false}, otherwise.
+	 */
+	public boolean isRandomOrder()
+	{
+		return tester.isRandomOrder();
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link importanceSamplingEvaluator#simulatedTransmissability}.
+	 */
+	public double getSimulatedTransmissability()
+	{
+		return simulatedTransmissability;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link importanceSamplingEvaluator#infectiousThreshold}.
+	 */
+	public int getInfectiousThreshold()
+	{
+		return infectiousThreshold;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link importanceSamplingEvaluator#numberOfSamples}.
+	 */
+	public int getNumberOfSamples()
+	{
+		return numberOfSamples;
+	}
+	
+	/**
+	 * Returns the effective sample size {@code (sum of weights)^2/(sum of squared weights)} of the sample paths;
+	 * much smaller than the number of sample paths if a few sample paths have most of the weight.
+	 *
+	 * @return the effective sample size.
+	 */
+	public double getEffectiveSampleSize()
+	{
+		return (sumOfSquaredWeights>0) ? sumOfWeights*sumOfWeights/sumOfSquaredWeights : 0;
+	}
+	
+	/**
+	 * Returns the estimate of the detection probability with its CI.
+	 *
+	 * @param alpha significance level of CI on detection probability.
+	 * @return the detection probability as {@link dataTypes.statisticalOutput}.
+	 */
+	public statisticalOutput getDetectionProbability(double alpha)
+	{
+		return getOutput(sumOfDetectionWeights, sumOfSquaredDetectionWeights, alpha);
+	}
+	
+	/**
+	 * Returns the estimate of the probability of the tail event, i.e., at least
+	 * {@link importanceSamplingEvaluator#infectiousThreshold} nodes infectious by the day on which the outbreak is
+	 * detected (by the time step, if it is not detected), with its CI.
+	 *
+	 * @param alpha significance level of CI on the probability.
+	 * @return the probability of the tail event as {@link dataTypes.statisticalOutput}.
+	 */
+	public statisticalOutput getTailProbability(double alpha)
+	{
+		return getOutput(sumOfTailWeights, sumOfSquaredTailWeights, alpha);
+	}
+	
+	/**
+	 * Returns the mean of weighted indicators of an event with its CI from the normal approximation.
+	 *
+	 * @param sum sum of the weights of the sample paths with the event
+	 * @param sumOfSquares sum of the squares of the weights of the sample paths with the event
+	 * @param alpha significance level of CI.
+	 * @return the estimate as {@link dataTypes.statisticalOutput}.
+	 */
+	private statisticalOutput getOutput(double sum, double sumOfSquares, double alpha)
+	{
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		double probability = sum/numberOfSamples;
+		double variance = (numberOfSamples>1)
+				? Math.max(0, (sumOfSquares-numberOfSamples*probability*probability)/(numberOfSamples-1)) : 0;
+		double standardError = Math.sqrt(variance/numberOfSamples);
+		String nameOfStatisticalTest = "normal approximation for importance sampling (simulated transmissability = "
+				+simulatedTransmissability+")";
+		double CIWidth = 2*zValue*standardError;
+		int replicationSize = 1;
+		return new statisticalOutput(probability, standardError, alpha, nameOfStatisticalTest, CIWidth,
+				numberOfSamples, replicationSize);
+	}
+	
+	/**
+	 * Returns a new evaluator with the same configuration as this evaluator, but without any sample paths consumed.
+	 *
+	 * @return a new evaluator with the same configuration as this evaluator.
+	 */
+	@Override
+	public trialCountsConsumer newInstance()
+	{
+		return new importanceSamplingEvaluator((fixedNumberOfTestsPerDayEvaluator) tester.newInstance(),
+				simulatedTransmissability, infectiousThreshold);
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path until the outbreak is detected, and adds the
+	 * likelihood ratio of the sample path to the sums of the events that occur.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious
+	 * @param counts numbers of trials of infection and their successes in the sample path.
+	 */
+	@Override
+	public void accept(int replication, byte[] infectiousDay, trialCounts counts)
+	{
+		double weight = Math.exp(counts.getLogLikelihoodRatioOfTransmissability(
+				tester.getParam().getTransmissability(), simulatedTransmissability));
+		numberOfSamples++;
+		sumOfWeights += weight;
+		sumOfSquaredWeights += weight*weight;
+		int detectionDay = tester.getDetectionDay(replication, infectiousDay);
+		if (detectionDay>0)
+		{
+			sumOfDetectionWeights += weight;
+			sumOfSquaredDetectionWeights += weight*weight;
+		}
+		int lastDay = (detectionDay>0) ? detectionDay : tester.getParam().getTimeStep();
+		int numberOfInfectiousNodes = 0;
+		for (byte day: infectiousDay)
+			if (day<=lastDay)
+				numberOfInfectiousNodes++;
+		if (numberOfInfectiousNodes>=infectiousThreshold)
+		{
+			sumOfTailWeights += weight;
+			sumOfSquaredTailWeights += weight*weight;
+		}
+	}
+	
+	/**
+	 * Adds the sums of another evaluator to this evaluator.
+	 *
+	 * @param other an evaluator created by {@link importanceSamplingEvaluator#newInstance()}.
+	 */
+	@Override
+	public void combine(trialCountsConsumer other)
+	{
+		importanceSamplingEvaluator that = (importanceSamplingEvaluator) other;
+		this.numberOfSamples += that.numberOfSamples;
+		this.sumOfWeights += that.sumOfWeights;
+		this.sumOfSquaredWeights += that.sumOfSquaredWeights;
+		this.sumOfDetectionWeights += that.sumOfDetectionWeights;
+		this.sumOfSquaredDetectionWeights += that.sumOfSquaredDetectionWeights;
+		this.sumOfTailWeights += that.sumOfTailWeights;
+		this.sumOfSquaredTailWeights += that.sumOfSquaredTailWeights;
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		return "importanceSamplingEvaluator{" +
+				"param=" + tester.getParam() +
+				", k=" + tester.getK() +
+				", randomOrder=" + tester.isRandomOrder() +
+				", simulatedTransmissability=" + simulatedTransmissability +
+				", infectiousThreshold=" + infectiousThreshold +
+				", numberOfSamples=" + numberOfSamples +
+				", effectiveSampleSize=" + getEffectiveSampleSize() +
+				'}';
+	}
+}
@@ -0,0 +1,325 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import helper.randomStreams;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import simulation.samplePathConsumer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares several test schedules (see {@link testSchedule}) on the same sample paths with shared false negative
+ * results, keeping the number of sample paths in which the outbreak is detected by each schedule and by each
+ * schedule but not another; so, the difference between the detection probabilities of two schedules is estimated
+ * from paired samples (see {@link pairedComparisonEvaluator#getPairedDifference(int, int, double)}).
+ * <br>
+ * Unlike {@link testSchedulesEvaluator}, whose schedules draw false negative results from their own random number
+ * streams, the result of a test is looked up from one random number stream of each simulation repetition
+ * (see {@link helper.randomStreams#doubleAt(long, long)}), indexed by the tested node and the number of earlier
+ * tests of the node in the schedule; so, the {@code j}<sup>th</sup> test of a node has the same result in every
+ * schedule, and the detection probabilities of schedules that differ in a few tests are strongly correlated.
+ * The detection probability of each schedule has the same distribution as with {@link testSchedulesEvaluator}.
+ * <br>
+ * The evaluator can be fed stored sample paths (see {@link fixedNumberOfTestsPerDay#compareSchedules(network.graph,
+ * simulation.simulationRuns, List, double, int)}) or sample paths streamed from a simulation
+ * (see {@link simulation.simulationRuns#streamSimulationForConditionalProbabilityWithLatency}).
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 12, 2020.
+ */
+public class pairedComparisonEvaluator implements samplePathConsumer
+{
+	/**
+	 * Simulation parameters (the false negative probability is used for testing).
+	 */
+	final simulationParameters param;
+	
+	/**
+	 * Test schedules.
+	 */
+	final List<testSchedule> schedules;
+	
+	/**
+	 * Seed from which the random number streams for false negative results of each simulation repetition are
+	 * derived.
+	 */
+	final long reliabilitySeed;
+	
+	/**
+	 * Index of the random number for the false negative result of each test of each schedule;
+	 * {@code testIndex[i][t-1][j]} for the {@code j}<sup>th</sup> test of schedule {@code i} on day {@code t}.
+	 * The index of the {@code n}<sup>th</sup> (starting from 0) test of node {@code v} is {@code (n<<32)|v}.
+	 */
+	final long[][][] testIndex;
+	
+	/**
+	 * Number of sample paths consumed.
+	 */
+	int numberOfSamples;
+	
+	/**
+	 * Number of sample paths in which the outbreak is detected, by schedule.
+	 */
+	final int[] numberOfDetectedSamples;
+	
+	/**
+	 * Number of sample paths in which the outbreak is detected by one schedule but not by another;
+	 * {@code numberOfDiscordantSamples[i][j]} for detection by schedule {@code i} but not by schedule {@code j}.
+	 */
+	final int[][] numberOfDiscordantSamples;
+	
+	/**
+	 * Whether the outbreak is detected by each schedule in the current sample path.
+	 */
+	final boolean[] detected;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param param simulation parameters; the false negative probability can differ from the one simulated
+	 * @param schedules test schedules
+	 * @param baseSeed base seed for simulating false negative results.
+	 */
+	public pairedComparisonEvaluator(simulationParameters param, List<testSchedule> schedules, int baseSeed)
+	{
+		this(param, schedules, baseSeed+param.hashCode(), getTestIndex(schedules));
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param param simulation parameters
+	 * @param schedules test schedules
+	 * @param reliabilitySeed seed for random number streams of false negative results
+	 * @param testIndex index of the random number for the false negative result of each test of each schedule.
+	 */
+	private pairedComparisonEvaluator(simulationParameters param, List<testSchedule> schedules, long reliabilitySeed,
+	                                  long[][][] testIndex)
+	{
+		this.param = param;
+		this.schedules = schedules;
+		this.reliabilitySeed = reliabilitySeed;
+		this.testIndex = testIndex;
+		this.numberOfSamples = 0;
+		this.numberOfDetectedSamples = new int[schedules.size()];
+		this.numberOfDiscordantSamples = new int[schedules.size()][schedules.size()];
+		this.detected = new boolean[schedules.size()];
+	}
+	
+	/**
+	 * Returns the index of the random number for the false negative result of each test of each schedule
+	 * (see {@link pairedComparisonEvaluator#testIndex}).
+	 *
+	 * @param schedules test schedules.
+	 * @return index of the random number for the false negative result of each test of each schedule.
+	 */
+	private static long[][][] getTestIndex(List<testSchedule> schedules)
+	{
+		long[][][] testIndex = new long[schedules.size()][][];
+		for (int i=0; i<schedules.size(); i++)
+		{
+			int[][] testNodes = schedules.get(i).testNodes;
+			Map<Integer, Integer> numberOfEarlierTests = new HashMap<>();
+			testIndex[i] = new long[testNodes.length][];
+			for (int t=1; t<=testNodes.length; t++)
+			{
+				testIndex[i][t-1] = new long[testNodes[t-1].length];
+				for (int j=0; j<testNodes[t-1].length; j++)
+				{
+					int v = testNodes[t-1][j];
+					long n = numberOfEarlierTests.merge(v, 1, Integer::sum)-1;
+					testIndex[i][t-1][j] = (n<<32)|v;
+				}
+			}
+		}
+		return testIndex;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link pairedComparisonEvaluator#param}.
+	 */
+	public simulationParameters getParam()
+	{
+		return param;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link pairedComparisonEvaluator#schedules}.
+	 */
+	public List<testSchedule> getSchedules()
+	{
+		return schedules;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link pairedComparisonEvaluator#numberOfSamples}.
+	 */
+	public int getNumberOfSamples()
+	{
+		return numberOfSamples;
+	}
+	
+	/**
+	 * Returns the number of sample paths in which the outbreak is detected by a schedule.
+	 *
+	 * @param i index of the schedule in {@link pairedComparisonEvaluator#schedules}.
+	 * @return the number of sample paths in which the outbreak is detected by schedule {@code i}.
+	 */
+	public int getNumberOfDetectedSamples(int i)
+	{
+		return numberOfDetectedSamples[i];
+	}
+	
+	/**
+	 * Returns the number of sample paths in which the outbreak is detected by one schedule but not by another.
+	 *
+	 * @param i index of a schedule in {@link pairedComparisonEvaluator#schedules}
+	 * @param j index of another schedule in {@link pairedComparisonEvaluator#schedules}.
+	 * @return the number of sample paths in which the outbreak is detected by schedule {@code i} but not by
+	 * schedule {@code j}.
+	 */
+	public int getNumberOfDiscordantSamples(int i, int j)
+	{
+		return numberOfDiscordantSamples[i][j];
+	}
+	
+	/**
+	 * Returns the difference between the detection probabilities of two schedules, estimated from the paired
+	 * samples, with the normal approximation for its CI.
+	 * <br>
+	 * The difference of a sample path is 1 if only schedule {@code i} detects the outbreak, -1 if only schedule
+	 * {@code j} does, and 0 otherwise; so, the standard error is
+	 * {@code sqrt(((a+b)/n-((a-b)/n)^2)/n)}, where {@code a} and {@code b} are the numbers of discordant sample paths
+	 * (see {@link pairedComparisonEvaluator#getNumberOfDiscordantSamples(int, int)}), which is much smaller than the
+	 * standard error of the difference of independent estimates when the schedules mostly agree.
+	 *
+	 * @param i index of a schedule in {@link pairedComparisonEvaluator#schedules}
+	 * @param j index of another schedule in {@link pairedComparisonEvaluator#schedules}
+	 * @param alpha significance level of CI on the difference.
+	 * @return the detection probability of schedule {@code i} minus that of schedule {@code j}.
+	 */
+	public statisticalOutput getPairedDifference(int i, int j, double alpha)
+	{
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		
+		double onlyI = 1.0*numberOfDiscordantSamples[i][j]/numberOfSamples;
+		double onlyJ = 1.0*numberOfDiscordantSamples[j][i]/numberOfSamples;
+		double difference = onlyI-onlyJ;
+		double standardError = Math.sqrt(Math.max(0, onlyI+onlyJ-difference*difference)/numberOfSamples);
+		String nameOfStatisticalTest = "normal approximation for paired difference of binomial proportions";
+		double CIWidth = 2*zValue*standardError;
+		int replicationSize = 1;
+		return new statisticalOutput(difference, standardError, alpha, nameOfStatisticalTest, CIWidth,
+				numberOfSamples, replicationSize);
+	}
+	
+	/**
+	 * Returns a new evaluator with the same configuration as this evaluator, but without any sample paths consumed.
+	 *
+	 * @return a new evaluator with the same configuration as this evaluator.
+	 */
+	@Override
+	public samplePathConsumer newInstance()
+	{
+		return new pairedComparisonEvaluator(param, schedules, reliabilitySeed, testIndex);
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path by each schedule, until the outbreak is detected,
+	 * with the false negative results shared by all schedules.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious.
+	 */
+	@Override
+	public void accept(int replication, byte[] infectiousDay)
+	{
+		double fnRate = param.getFalseNegativeProbability();
+		int timeStep = param.getTimeStep();
+		long seed = randomStreams.seedForReplication(reliabilitySeed, replication);
+		numberOfSamples++;
+		for (int i=0; i<detected.length; i++)
+		{
+			detected[i] = detects(schedules.get(i).testNodes, testIndex[i],
+					Math.min(timeStep, testIndex[i].length), fnRate, seed, infectiousDay);
+			if (detected[i])
+				numberOfDetectedSamples[i]++;
+		}
+		for (int i=0; i<detected.length; i++)
+			for (int j=0; j<detected.length; j++)
+				if (detected[i] && !detected[j])
+					numberOfDiscordantSamples[i][j]++;
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path, until the outbreak is detected.
+	 *
+	 * @param testNodes ids of nodes tested on each day
+	 * @param testIndex index of the random number for the false negative result of each test
+	 * @param timeStep number of days
+	 * @param fnRate false negative probability
+	 * @param seed seed of the random number stream for false negative results of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious.
+	 * @return {@code true}, if the outbreak is detected; {@code false}, otherwise.
+	 */
+	private static boolean detects(int[][] testNodes, long[][] testIndex, int timeStep, double fnRate, long seed,
+	                               byte[] infectiousDay)
+	{
+		for (int t=1; t<=timeStep; t++)
+		{
+			for (int j=0; j<testNodes[t-1].length; j++)
+			{
+				if ((infectiousDay[testNodes[t-1][j]]<=t)
+						&& (randomStreams.doubleAt(seed, testIndex[t-1][j])>fnRate))
+					return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Adds the counts of another evaluator to this evaluator.
+	 *
+	 * @param other an evaluator created by {@link pairedComparisonEvaluator#newInstance()}.
+	 */
+	@Override
+	public void combine(samplePathConsumer other)
+	{
+		pairedComparisonEvaluator that = (pairedComparisonEvaluator) other;
+		this.numberOfSamples += that.numberOfSamples;
+		for (int i=0; i<numberOfDetectedSamples.length; i++)
+		{
+			this.numberOfDetectedSamples[i] += that.numberOfDetectedSamples[i];
+			for (int j=0; j<numberOfDetectedSamples.length; j++)
+				this.numberOfDiscordantSamples[i][j] += that.numberOfDiscordantSamples[i][j];
+		}
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		List<String> results = new ArrayList<>(schedules.size());
+		for (int i=0; i<schedules.size(); i++)
+			results.add(schedules.get(i).getName()+": "+numberOfDetectedSamples[i]);
+		return "pairedComparisonEvaluator{" +
+				"param=" + param +
+				", numberOfSamples=" + numberOfSamples +
+				", numberOfDetectedSamples=" + results +
+				'}';
+	}
+}
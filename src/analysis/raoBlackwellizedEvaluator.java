@@ -0,0 +1,219 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import simulation.samplePathConsumer;
+
+import java.util.Random;
+
+/**
+ * Evaluates the fixed number of tests per day testing strategy by averaging the conditional detection probability
+ * of each sample path given its infectious nodes, {@code 1-fnRate^(number of tests of infectious nodes)}, instead
+ * of drawing false negative results (see {@link fixedNumberOfTestsPerDay#testRaoBlackwellized(graph,
+ * simulation.simulationRuns, int, double)}).
+ * <br>
+ * The evaluator can be fed stored sample paths, or sample paths streamed from a simulation
+ * (see {@link simulation.simulationRuns#streamSimulationForConditionalProbabilityWithLatency}); it keeps only the
+ * number of sample paths and the sum and sum of squares of their conditional detection probabilities.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+public class raoBlackwellizedEvaluator implements samplePathConsumer
+{
+	/**
+	 * Simulation parameters (the false negative probability is used for testing).
+	 */
+	final simulationParameters param;
+	
+	/**
+	 * Test schedule; the same as that of {@link fixedNumberOfTestsPerDay#test(graph, simulation.simulationRuns, int,
+	 * double, int)} (or {@link fixedNumberOfTestsPerDay#testWithRandomOrder(graph, simulation.simulationRuns, int,
+	 * double, int, int)}, for a random testing order).
+	 */
+	final testSchedule schedule;
+	
+	/**
+	 * Number of sample paths consumed.
+	 */
+	int numberOfSamples;
+	
+	/**
+	 * Sum of the conditional detection probabilities of the sample paths.
+	 */
+	double sumOfConditionalProbabilities;
+	
+	/**
+	 * Sum of the squares of the conditional detection probabilities of the sample paths.
+	 */
+	double sumOfSquaredConditionalProbabilities;
+	
+	/**
+	 * Constructor for a sequential circular testing order.
+	 *
+	 * @param g network graph
+	 * @param param simulation parameters; the false negative probability can differ from the one simulated
+	 * @param k number of tests per day.
+	 */
+	public raoBlackwellizedEvaluator(graph g, simulationParameters param, int k)
+	{
+		this(param, new testSchedule(g, k, param.getTimeStep()));
+	}
+	
+	/**
+	 * Constructor for a random testing order.
+	 *
+	 * @param g network graph
+	 * @param param simulation parameters; the false negative probability can differ from the one simulated
+	 * @param k number of tests per day
+	 * @param randomOrderBaseSeed base seed for generating random testing order.
+	 */
+	public raoBlackwellizedEvaluator(graph g, simulationParameters param, int k, int randomOrderBaseSeed)
+	{
+		this(param, new testSchedule(g, k, param.getTimeStep(), new Random(randomOrderBaseSeed+param.hashCode()+k)));
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param param simulation parameters
+	 * @param schedule test schedule.
+	 */
+	private raoBlackwellizedEvaluator(simulationParameters param, testSchedule schedule)
+	{
+		this.param = param;
+		this.schedule = schedule;
+		this.numberOfSamples = 0;
+		this.sumOfConditionalProbabilities = 0;
+		this.sumOfSquaredConditionalProbabilities = 0;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link raoBlackwellizedEvaluator#param}.
+	 */
+	public simulationParameters getParam()
+	{
+		return param;
+	}
+	
+	/**
+	 * Returns the number of tests per day.
+	 *
+	 * @return the number of tests per day of {@link raoBlackwellizedEvaluator#schedule}.
+	 */
+	public int getK()
+	{
+		return schedule.getK();
+	}
+	
+	/**
+	 * Returns whether a random testing order is used.
+	 *
+	 * @return {@code true}, if {@link raoBlackwellizedEvaluator#schedule} follows a random testing order;
+	 * {@code false}, otherwise.
+	 */
+	public boolean isRandomOrder()
+	{
+		return schedule.isRandomOrder();
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link raoBlackwellizedEvaluator#numberOfSamples}.
+	 */
+	public int getNumberOfSamples()
+	{
+		return numberOfSamples;
+	}
+	
+	/**
+	 * Returns the mean of the conditional detection probabilities of the sample paths with its CI from the normal
+	 * approximation.
+	 *
+	 * @param alpha significance level of CI on detection probability.
+	 * @return the detection probability as {@link dataTypes.statisticalOutput}.
+	 */
+	public statisticalOutput getDetectionProbability(double alpha)
+	{
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		double probability = sumOfConditionalProbabilities/numberOfSamples;
+		double variance = (numberOfSamples>1)
+				? Math.max(0, (sumOfSquaredConditionalProbabilities-numberOfSamples*probability*probability)
+						/(numberOfSamples-1)) : 0;
+		double standardError = Math.sqrt(variance/numberOfSamples);
+		String nameOfStatisticalTest = "normal approximation for mean of conditional probabilities";
+		double CIWidth = 2*zValue*standardError;
+		int replicationSize = 1;
+		return new statisticalOutput(probability, standardError, alpha, nameOfStatisticalTest, CIWidth,
+				numberOfSamples, replicationSize);
+	}
+	
+	/**
+	 * Returns a new evaluator with the same configuration as this evaluator, but without any sample paths consumed.
+	 *
+	 * @return a new evaluator with the same configuration as this evaluator.
+	 */
+	@Override
+	public samplePathConsumer newInstance()
+	{
+		return new raoBlackwellizedEvaluator(param, schedule);
+	}
+	
+	/**
+	 * Counts the tests of infectious nodes in a sample path, and adds its conditional detection probability to the
+	 * sums.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious.
+	 */
+	@Override
+	public void accept(int replication, byte[] infectiousDay)
+	{
+		int[][] testNodes = schedule.testNodes;
+		int timeStep = Math.min(param.getTimeStep(), testNodes.length);
+		int numberOfInfectiousTests = 0;
+		for (int t=1; t<=timeStep; t++)
+			for (int v: testNodes[t-1])
+				if (infectiousDay[v]<=t)
+					numberOfInfectiousTests++;
+		double conditionalProbability = 1-Math.pow(param.getFalseNegativeProbability(), numberOfInfectiousTests);
+		numberOfSamples++;
+		sumOfConditionalProbabilities += conditionalProbability;
+		sumOfSquaredConditionalProbabilities += conditionalProbability*conditionalProbability;
+	}
+	
+	/**
+	 * Adds the sums of another evaluator to this evaluator.
+	 *
+	 * @param other an evaluator created by {@link raoBlackwellizedEvaluator#newInstance()}.
+	 */
+	@Override
+	public void combine(samplePathConsumer other)
+	{
+		raoBlackwellizedEvaluator that = (raoBlackwellizedEvaluator) other;
+		this.numberOfSamples += that.numberOfSamples;
+		this.sumOfConditionalProbabilities += that.sumOfConditionalProbabilities;
+		this.sumOfSquaredConditionalProbabilities += that.sumOfSquaredConditionalProbabilities;
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		return "raoBlackwellizedEvaluator{" +
+				"param=" + param +
+				", schedule=" + schedule +
+				", numberOfSamples=" + numberOfSamples +
+				", sumOfConditionalProbabilities=" + sumOfConditionalProbabilities +
+				'}';
+	}
+}
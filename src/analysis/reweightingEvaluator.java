@@ -0,0 +1,240 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import simulation.samplePathConsumer;
+import simulation.weightedSamplePathConsumer;
+
+/**
+ * Evaluates the fixed number of tests per day testing strategy under "what-if" parameters from the weighted sample
+ * paths of a stored simulation (see {@link simulation.simulationRuns#reweightSimulation(graph, simulationParameters,
+ * simulationParameters, double, java.util.List)}), keeping the sums of the weights of the sample paths in which the
+ * outbreak is detected.
+ * <br>
+ * The tests of each sample path are the same as those of {@link fixedNumberOfTestsPerDayEvaluator} for the query
+ * parameters, with the same random number streams for false negative results.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 14, 2020.
+ */
+public class reweightingEvaluator implements weightedSamplePathConsumer
+{
+	/**
+	 * Evaluator whose tests are used for each sample path; it does not count any sample paths.
+	 */
+	final fixedNumberOfTestsPerDayEvaluator tester;
+	
+	/**
+	 * Number of sample paths consumed.
+	 */
+	int numberOfSamples;
+	
+	/**
+	 * Sum of the weights of the sample paths.
+	 */
+	double sumOfWeights;
+	
+	/**
+	 * Sum of the squares of the weights of the sample paths.
+	 */
+	double sumOfSquaredWeights;
+	
+	/**
+	 * Sum of the weights of the sample paths in which the outbreak is detected.
+	 */
+	double sumOfDetectionWeights;
+	
+	/**
+	 * Sum of the squares of the weights of the sample paths in which the outbreak is detected.
+	 */
+	double sumOfSquaredDetectionWeights;
+	
+	/**
+	 * Constructor for a sequential circular testing order.
+	 *
+	 * @param g network graph
+	 * @param queryParam simulation parameters of the query
+	 * @param k number of tests per day
+	 * @param baseSeed base seed for simulating false negative results.
+	 */
+	public reweightingEvaluator(graph g, simulationParameters queryParam, int k, int baseSeed)
+	{
+		this(new fixedNumberOfTestsPerDayEvaluator(g, queryParam, k, baseSeed));
+	}
+	
+	/**
+	 * Constructor for a random testing order.
+	 *
+	 * @param g network graph
+	 * @param queryParam simulation parameters of the query
+	 * @param k number of tests per day
+	 * @param baseSeed base seed for simulating false negative results
+	 * @param randomOrderBaseSeed base seed for generating random testing order.
+	 */
+	public reweightingEvaluator(graph g, simulationParameters queryParam, int k, int baseSeed,
+	                            int randomOrderBaseSeed)
+	{
+		this(new fixedNumberOfTestsPerDayEvaluator(g, queryParam, k, baseSeed, randomOrderBaseSeed));
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param tester evaluator whose tests are used for each sample path.
+	 */
+	private reweightingEvaluator(fixedNumberOfTestsPerDayEvaluator tester)
+	{
+		this.tester = tester;
+	}
+	
+	/**
+	 * Returns the simulation parameters of the query.
+	 *
+	 * @return simulation parameters of the query.
+	 */
+	public simulationParameters getParam()
+	{
+		return tester.getParam();
+	}
+	
+	/**
+	 * Returns the number of tests per day.
+	 *
+	 * @return the number of tests per day.
+	 */
+	public int getK()
+	{
+		return tester.getK();
+	}
+	
+	/**
+	 * Checks whether a random testing order is used.
+	 *
+	 * @return {@code true}, if a random testing order is used; {@code false}, otherwise.
+	 */
+	public boolean isRandomOrder()
+	{
+		return tester.isRandomOrder();
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link reweightingEvaluator#numberOfSamples}.
+	 */
+	public int getNumberOfSamples()
+	{
+		return numberOfSamples;
+	}
+	
+	/**
+	 * Returns the effective sample size {@code (sum of weights)^2/(sum of squared weights)} of the sample paths.
+	 *
+	 * @return the effective sample size.
+	 */
+	public double getEffectiveSampleSize()
+	{
+		return (sumOfSquaredWeights>0) ? sumOfWeights*sumOfWeights/sumOfSquaredWeights : 0;
+	}
+	
+	/**
+	 * Returns the estimate of the detection probability under the query parameters, the mean of the weighted
+	 * indicators of detection, with its CI from the normal approximation.
+	 *
+	 * @param alpha significance level of CI on detection probability.
+	 * @return the detection probability as {@link dataTypes.statisticalOutput}.
+	 */
+	public statisticalOutput getDetectionProbability(double alpha)
+	{
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		double probability = sumOfDetectionWeights/numberOfSamples;
+		double variance = (numberOfSamples>1) ? Math.max(0,
+				(sumOfSquaredDetectionWeights-numberOfSamples*probability*probability)/(numberOfSamples-1)) : 0;
+		double standardError = Math.sqrt(variance/numberOfSamples);
+		String nameOfStatisticalTest = "normal approximation for reweighted sample paths (effective sample size = "
+				+getEffectiveSampleSize()+")";
+		double CIWidth = 2*zValue*standardError;
+		int replicationSize = 1;
+		return new statisticalOutput(probability, standardError, alpha, nameOfStatisticalTest, CIWidth,
+				numberOfSamples, replicationSize);
+	}
+	
+	/**
+	 * Returns a new evaluator with the same configuration as this evaluator, but without any sample paths consumed.
+	 *
+	 * @return a new evaluator with the same configuration as this evaluator.
+	 */
+	@Override
+	public samplePathConsumer newInstance()
+	{
+		return new reweightingEvaluator((fixedNumberOfTestsPerDayEvaluator) tester.newInstance());
+	}
+	
+	/**
+	 * Consumes a sample path with weight 1, i.e., a sample path simulated under the query parameters.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious.
+	 */
+	@Override
+	public void accept(int replication, byte[] infectiousDay)
+	{
+		accept(replication, infectiousDay, 1);
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path until the outbreak is detected, and adds the weight of
+	 * the sample path to the sums.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious
+	 * @param weight weight of the sample path.
+	 */
+	@Override
+	public void accept(int replication, byte[] infectiousDay, double weight)
+	{
+		numberOfSamples++;
+		sumOfWeights += weight;
+		sumOfSquaredWeights += weight*weight;
+		if (tester.getDetectionDay(replication, infectiousDay)>0)
+		{
+			sumOfDetectionWeights += weight;
+			sumOfSquaredDetectionWeights += weight*weight;
+		}
+	}
+	
+	/**
+	 * Adds the sums of another evaluator to this evaluator.
+	 *
+	 * @param other an evaluator created by {@link reweightingEvaluator#newInstance()}.
+	 */
+	@Override
+	public void combine(samplePathConsumer other)
+	{
+		reweightingEvaluator that = (reweightingEvaluator) other;
+		this.numberOfSamples += that.numberOfSamples;
+		this.sumOfWeights += that.sumOfWeights;
+		this.sumOfSquaredWeights += that.sumOfSquaredWeights;
+		this.sumOfDetectionWeights += that.sumOfDetectionWeights;
+		this.sumOfSquaredDetectionWeights += that.sumOfSquaredDetectionWeights;
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		return "reweightingEvaluator{" +
+				"param=" + tester.getParam() +
+				", k=" + tester.getK() +
+				", randomOrder=" + tester.isRandomOrder() +
+				", numberOfSamples=" + numberOfSamples +
+				", effectiveSampleSize=" + getEffectiveSampleSize() +
+				'}';
+	}
+}
@@ -0,0 +1,314 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import simulation.trialCounts;
+import simulation.trialCountsConsumer;
+
+/**
+ * Evaluates the fixed number of tests per day testing strategy, and estimates the derivatives of the detection
+ * probability with respect to the transmissability and the external infection probability by the likelihood ratio
+ * (score function) method, from the same sample paths.
+ * <br>
+ * Since the sample path is a function of Bernoulli trials with these probabilities, the derivative of the detection
+ * probability {@code P} with respect to a probability {@code q} is {@code E[D S]}, where {@code D} indicates the
+ * detection of the outbreak and {@code S} is the score of {@code q} of the sample path
+ * (see {@link trialCounts#getScoreOfTransmissability(double)} and
+ * {@link trialCounts#getScoreOfExternalInfectionProbability(double, int)}).
+ * As {@code E[S]=0}, the evaluator estimates the covariance of {@code D} and {@code S}, which has a smaller variance
+ * than the mean of {@code D S}.
+ * So, one simulation gives a local sensitivity analysis, instead of one simulation at each perturbed value.
+ * <br>
+ * The tests of each sample path are the same as those of {@link fixedNumberOfTestsPerDayEvaluator}, with the same
+ * random number streams for false negative results; so, the detection probability is the same as that of
+ * {@link fixedNumberOfTestsPerDayEvaluator}.
+ * The sample paths should be streamed from a simulation that records trial counts
+ * (see {@link simulation.trialCountsConsumer}).
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+public class sensitivityEvaluator implements trialCountsConsumer
+{
+	/**
+	 * Index of the sums of the score of the transmissability.
+	 */
+	static final int TRANSMISSABILITY = 0;
+	
+	/**
+	 * Index of the sums of the score of the external infection probability.
+	 */
+	static final int EXTERNAL_INFECTION_PROBABILITY = 1;
+	
+	/**
+	 * Names of the probabilities, by index of their sums; e.g., {@code NAMES_OF_PROBABILITIES[TRANSMISSABILITY]}.
+	 */
+	static final String[] NAMES_OF_PROBABILITIES = {"transmissability", "external infection probability"};
+	
+	/**
+	 * Evaluator whose tests are used for each sample path; it does not count any sample paths.
+	 */
+	final fixedNumberOfTestsPerDayEvaluator tester;
+	
+	/**
+	 * Number of sample paths consumed.
+	 */
+	int numberOfSamples;
+	
+	/**
+	 * Number of sample paths in which the outbreak is detected.
+	 */
+	int numberOfDetectedSamples;
+	
+	/**
+	 * Sum of the scores of the sample paths, by probability.
+	 */
+	final double[] sumOfScores;
+	
+	/**
+	 * Sum of the squares of the scores of the sample paths, by probability.
+	 */
+	final double[] sumOfSquaredScores;
+	
+	/**
+	 * Sum of the scores of the sample paths in which the outbreak is detected, by probability.
+	 */
+	final double[] sumOfDetectionScores;
+	
+	/**
+	 * Sum of the squares of the scores of the sample paths in which the outbreak is detected, by probability.
+	 */
+	final double[] sumOfSquaredDetectionScores;
+	
+	/**
+	 * Constructor for a sequential circular testing order.
+	 *
+	 * @param g network graph
+	 * @param param simulation parameters; the transmissability and the external infection probability should be
+	 *              strictly between 0 and 1
+	 * @param k number of tests per day
+	 * @param baseSeed base seed for simulating false negative results.
+	 */
+	public sensitivityEvaluator(graph g, simulationParameters param, int k, int baseSeed)
+	{
+		this(new fixedNumberOfTestsPerDayEvaluator(g, param, k, baseSeed));
+	}
+	
+	/**
+	 * Constructor for a random testing order.
+	 *
+	 * @param g network graph
+	 * @param param simulation parameters; the transmissability and the external infection probability should be
+	 *              strictly between 0 and 1
+	 * @param k number of tests per day
+	 * @param baseSeed base seed for simulating false negative results
+	 * @param randomOrderBaseSeed base seed for generating random testing order.
+	 */
+	public sensitivityEvaluator(graph g, simulationParameters param, int k, int baseSeed, int randomOrderBaseSeed)
+	{
+		this(new fixedNumberOfTestsPerDayEvaluator(g, param, k, baseSeed, randomOrderBaseSeed));
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param tester evaluator whose tests are used for each sample path.
+	 */
+	private sensitivityEvaluator(fixedNumberOfTestsPerDayEvaluator tester)
+	{
+		this.tester = tester;
+		this.sumOfScores = new double[2];
+		this.sumOfSquaredScores = new double[2];
+		this.sumOfDetectionScores = new double[2];
+		this.sumOfSquaredDetectionScores = new double[2];
+	}
+	
+	/**
+	 * Returns the simulation parameters.
+	 *
+	 * @return simulation parameters.
+	 */
+	public simulationParameters getParam()
+	{
+		return tester.getParam();
+	}
+	
+	/**
+	 * Returns the number of tests per day.
+	 *
+	 * @return the number of tests per day.
+	 */
+	public int getK()
+	{
+		return tester.getK();
+	}
+	
+	/**
+	 * Checks whether a random testing order is used.
+	 *
+	 * @return {@code true}, if a random testing order is used; {@code false}, otherwise.
+	 */
+	public boolean isRandomOrder()
+	{
+		return tester.isRandomOrder();
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link sensitivityEvaluator#numberOfSamples}.
+	 */
+	public int getNumberOfSamples()
+	{
+		return numberOfSamples;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link sensitivityEvaluator#numberOfDetectedSamples}.
+	 */
+	public int getNumberOfDetectedSamples()
+	{
+		return numberOfDetectedSamples;
+	}
+	
+	/**
+	 * Returns the estimate of the derivative of the detection probability with respect to the transmissability with
+	 * its CI.
+	 *
+	 * @param alpha significance level of CI on the derivative.
+	 * @return the derivative as {@link dataTypes.statisticalOutput}.
+	 */
+	public statisticalOutput getDerivativeWithRespectToTransmissability(double alpha)
+	{
+		return getDerivative(TRANSMISSABILITY, alpha);
+	}
+	
+	/**
+	 * Returns the estimate of the derivative of the detection probability with respect to the external infection
+	 * probability with its CI.
+	 *
+	 * @param alpha significance level of CI on the derivative.
+	 * @return the derivative as {@link dataTypes.statisticalOutput}.
+	 */
+	public statisticalOutput getDerivativeWithRespectToExternalInfectionProbability(double alpha)
+	{
+		return getDerivative(EXTERNAL_INFECTION_PROBABILITY, alpha);
+	}
+	
+	/**
+	 * Returns the sample covariance of the indicator {@code D} of detection and the score {@code S} of a probability,
+	 * i.e., the estimate of the derivative of the detection probability, with its CI from the normal approximation.
+	 * <br>
+	 * The standard error is that of the mean of {@code (D-p)(S-m)}, where {@code p} and {@code m} are the sample
+	 * means of {@code D} and {@code S}; as {@code D} is 0 or 1, its variance follows from the sums of {@code S},
+	 * {@code S^2}, {@code D S} and {@code D S^2}.
+	 *
+	 * @param i index of the probability ({@link sensitivityEvaluator#TRANSMISSABILITY} or
+	 *          {@link sensitivityEvaluator#EXTERNAL_INFECTION_PROBABILITY})
+	 * @param alpha significance level of CI.
+	 * @return the estimate as {@link dataTypes.statisticalOutput}.
+	 */
+	private statisticalOutput getDerivative(int i, double alpha)
+	{
+		NormalDistribution mynormdist = new NormalDistribution(0, 1);
+		double zValue = mynormdist.inverseCumulativeProbability(1-0.5*alpha);
+		double n = numberOfSamples;
+		double probability = numberOfDetectedSamples/n;
+		double meanScore = sumOfScores[i]/n;
+		double derivative = sumOfDetectionScores[i]/n-probability*meanScore;
+		double detectedSquaredDeviation = (sumOfSquaredDetectionScores[i]-2*meanScore*sumOfDetectionScores[i]
+				+meanScore*meanScore*numberOfDetectedSamples)/n;
+		double squaredDeviation = sumOfSquaredScores[i]/n-meanScore*meanScore;
+		double secondMoment = (1-2*probability)*detectedSquaredDeviation+probability*probability*squaredDeviation;
+		double variance = (numberOfSamples>1) ? Math.max(0, secondMoment-derivative*derivative)*n/(n-1) : 0;
+		double standardError = Math.sqrt(variance/n);
+		String nameOfStatisticalTest = "normal approximation for likelihood ratio derivative";
+		double CIWidth = 2*zValue*standardError;
+		int replicationSize = 1;
+		return new statisticalOutput(derivative, standardError, alpha, nameOfStatisticalTest, CIWidth,
+				numberOfSamples, replicationSize);
+	}
+	
+	/**
+	 * Returns a new evaluator with the same configuration as this evaluator, but without any sample paths consumed.
+	 *
+	 * @return a new evaluator with the same configuration as this evaluator.
+	 */
+	@Override
+	public trialCountsConsumer newInstance()
+	{
+		return new sensitivityEvaluator((fixedNumberOfTestsPerDayEvaluator) tester.newInstance());
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path until the outbreak is detected, and adds the scores of
+	 * the sample path to the sums.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious
+	 * @param counts numbers of trials of infection and their successes in the sample path.
+	 */
+	@Override
+	public void accept(int replication, byte[] infectiousDay, trialCounts counts)
+	{
+		simulationParameters param = tester.getParam();
+		double[] scores = new double[2];
+		scores[TRANSMISSABILITY] = counts.getScoreOfTransmissability(param.getTransmissability());
+		scores[EXTERNAL_INFECTION_PROBABILITY] = counts.getScoreOfExternalInfectionProbability(
+				param.getExternalInfectionProbability(), infectiousDay.length);
+		boolean detected = tester.getDetectionDay(replication, infectiousDay)>0;
+		numberOfSamples++;
+		if (detected)
+			numberOfDetectedSamples++;
+		for (int i=0; i<scores.length; i++)
+		{
+			sumOfScores[i] += scores[i];
+			sumOfSquaredScores[i] += scores[i]*scores[i];
+			if (detected)
+			{
+				sumOfDetectionScores[i] += scores[i];
+				sumOfSquaredDetectionScores[i] += scores[i]*scores[i];
+			}
+		}
+	}
+	
+	/**
+	 * Adds the sums of another evaluator to this evaluator.
+	 *
+	 * @param other an evaluator created by {@link sensitivityEvaluator#newInstance()}.
+	 */
+	@Override
+	public void combine(trialCountsConsumer other)
+	{
+		sensitivityEvaluator that = (sensitivityEvaluator) other;
+		this.numberOfSamples += that.numberOfSamples;
+		this.numberOfDetectedSamples += that.numberOfDetectedSamples;
+		for (int i=0; i<sumOfScores.length; i++)
+		{
+			this.sumOfScores[i] += that.sumOfScores[i];
+			this.sumOfSquaredScores[i] += that.sumOfSquaredScores[i];
+			this.sumOfDetectionScores[i] += that.sumOfDetectionScores[i];
+			this.sumOfSquaredDetectionScores[i] += that.sumOfSquaredDetectionScores[i];
+		}
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		return "sensitivityEvaluator{" +
+				"param=" + tester.getParam() +
+				", k=" + tester.getK() +
+				", randomOrder=" + tester.isRandomOrder() +
+				", numberOfSamples=" + numberOfSamples +
+				", numberOfDetectedSamples=" + numberOfDetectedSamples +
+				'}';
+	}
+}
@@ -0,0 +1,250 @@
+package analysis;
+
+import network.graph;
+
+import java.util.*;
+
+/**
+ * Represents a test schedule: the nodes to be tested on each day, in the order in which they are tested.
+ * <br>
+ * Nodes are stored by id (see {@link network.csrGraph}), the index of their label in increasing order of labels,
+ * so a schedule can be scored directly on the days on which nodes became infectious
+ * (see {@link testSchedulesEvaluator}).
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 3, 2020.
+ */
+public class testSchedule
+{
+	/**
+	 * Name of the schedule.
+	 */
+	final String name;
+	
+	/**
+	 * Number of tests per day; for a custom schedule, the maximum number of tests on a day.
+	 */
+	final int k;
+	
+	/**
+	 * {@code true}, if the schedule follows a random testing order; {@code false}, otherwise.
+	 */
+	final boolean randomOrder;
+	
+	/**
+	 * Ids of nodes tested on each day, in the order in which they are tested;
+	 * {@code testNodes[t-1]} are the nodes tested on day {@code t}.
+	 */
+	final int[][] testNodes;
+	
+	/**
+	 * Constructor for a sequential circular testing order
+	 * (same as {@link fixedNumberOfTestsPerDay#test(graph, simulation.simulationRuns, int, double, int)}).
+	 *
+	 * @param g network graph
+	 * @param k number of tests per day
+	 * @param timeStep number of days for which test nodes are needed.
+	 */
+	public testSchedule(graph g, int k, int timeStep)
+	{
+		this("sequential, k="+k, k, false, getCircularSchedule(k, timeStep, getSortedLabels(g).length, null));
+	}
+	
+	/**
+	 * Constructor for a random testing order
+	 * (same as {@link fixedNumberOfTestsPerDay#testWithRandomOrder(graph, simulation.simulationRuns, int, double,
+	 * int, int)} for {@code randomOrderGen} seeded with {@code randomOrderBaseSeed+param.hashCode()+k}).
+	 *
+	 * @param g network graph
+	 * @param k number of tests per day
+	 * @param timeStep number of days for which test nodes are needed
+	 * @param randomOrderGen an instance of {@link java.util.Random} for generating random order of test nodes.
+	 */
+	public testSchedule(graph g, int k, int timeStep, Random randomOrderGen)
+	{
+		this("random order, k="+k, k, true, getCircularSchedule(k, timeStep, getSortedLabels(g).length,
+				getRandomOrder(getSortedLabels(g), randomOrderGen)));
+	}
+	
+	/**
+	 * Constructor for a custom schedule.
+	 *
+	 * @param g network graph
+	 * @param name name of the schedule
+	 * @param testNodes a map from day to the labels of nodes tested on that day, in the order in which they are
+	 *                  tested; days without tests can be left out
+	 * @param timeStep number of days for which test nodes are needed.
+	 * @throws Exception thrown if a node to be tested is not in the graph.
+	 */
+	public testSchedule(graph g, String name, Map<Integer, List<Integer>> testNodes, int timeStep) throws Exception
+	{
+		this(name, getMaximumTestsPerDay(testNodes, timeStep), false, getCustomSchedule(g, testNodes, timeStep));
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param name name of the schedule
+	 * @param k number of tests per day
+	 * @param randomOrder {@code true}, if the schedule follows a random testing order; {@code false}, otherwise
+	 * @param testNodes ids of nodes tested on each day.
+	 */
+	private testSchedule(String name, int k, boolean randomOrder, int[][] testNodes)
+	{
+		this.name = name;
+		this.k = k;
+		this.randomOrder = randomOrder;
+		this.testNodes = testNodes;
+	}
+	
+	/**
+	 * Returns the labels of nodes of a graph in increasing order.
+	 *
+	 * @param g network graph.
+	 * @return labels of nodes in increasing order.
+	 */
+	private static int[] getSortedLabels(graph g)
+	{
+		return g.getVertexSet().stream().mapToInt(v -> v).sorted().toArray();
+	}
+	
+	/**
+	 * Returns the ids of nodes in a random order, shuffled the same way as
+	 * {@link fixedNumberOfTestsPerDay#testWithRandomOrder(graph, simulation.simulationRuns, int, double, int, int)}.
+	 *
+	 * @param labels labels of nodes in increasing order
+	 * @param randomOrderGen an instance of {@link java.util.Random} for generating random order of test nodes.
+	 * @return ids of nodes in a random order.
+	 */
+	private static int[] getRandomOrder(int[] labels, Random randomOrderGen)
+	{
+		List<Integer> nodeList = new ArrayList<>(labels.length);
+		for (int v: labels)
+			nodeList.add(v);
+		Collections.shuffle(nodeList, randomOrderGen);
+		return nodeList.stream().mapToInt(v -> Arrays.binarySearch(labels, v)).toArray();
+	}
+	
+	/**
+	 * Returns a schedule that tests {@code k} nodes each day, going around a testing order.
+	 *
+	 * @param k number of tests per day
+	 * @param timeStep number of days
+	 * @param s number of nodes
+	 * @param order ids of nodes in the testing order; {@code null} for the increasing order of ids.
+	 * @return ids of nodes tested on each day.
+	 */
+	private static int[][] getCircularSchedule(int k, int timeStep, int s, int[] order)
+	{
+		int testsPerDay = Math.min(k, s);
+		int[][] testNodes = new int[timeStep][testsPerDay];
+		for (int t=1; t<=timeStep; t++)
+		{
+			int start = (int) ((long) k*(t-1)%s);
+			for (int j=0; j<testsPerDay; j++)
+			{
+				int position = (start+j)%s;
+				testNodes[t-1][j] = (order==null) ? position : order[position];
+			}
+		}
+		return testNodes;
+	}
+	
+	/**
+	 * Returns the ids of nodes tested on each day of a custom schedule.
+	 *
+	 * @param g network graph
+	 * @param testNodes a map from day to the labels of nodes tested on that day
+	 * @param timeStep number of days.
+	 * @return ids of nodes tested on each day.
+	 * @throws Exception thrown if a node to be tested is not in the graph.
+	 */
+	private static int[][] getCustomSchedule(graph g, Map<Integer, List<Integer>> testNodes, int timeStep)
+			throws Exception
+	{
+		int[] labels = getSortedLabels(g);
+		int[][] schedule = new int[timeStep][];
+		for (int t=1; t<=timeStep; t++)
+		{
+			List<Integer> nodes = testNodes.getOrDefault(t, Collections.emptyList());
+			schedule[t-1] = new int[nodes.size()];
+			for (int j=0; j<nodes.size(); j++)
+			{
+				int id = Arrays.binarySearch(labels, nodes.get(j));
+				if (id<0)
+					throw new Exception("Node "+nodes.get(j)+" to be tested is not in the graph!");
+				schedule[t-1][j] = id;
+			}
+		}
+		return schedule;
+	}
+	
+	/**
+	 * Returns the maximum number of tests on a day of a custom schedule.
+	 *
+	 * @param testNodes a map from day to the labels of nodes tested on that day
+	 * @param timeStep number of days.
+	 * @return the maximum number of tests on a day.
+	 */
+	private static int getMaximumTestsPerDay(Map<Integer, List<Integer>> testNodes, int timeStep)
+	{
+		int maximum = 0;
+		for (int t=1; t<=timeStep; t++)
+			maximum = Math.max(maximum, testNodes.getOrDefault(t, Collections.emptyList()).size());
+		return maximum;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link testSchedule#name}.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link testSchedule#k}.
+	 */
+	public int getK()
+	{
+		return k;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link testSchedule#randomOrder}.
+	 */
+	public boolean isRandomOrder()
+	{
+		return randomOrder;
+	}
+	
+	/**
+	 * Returns the number of days in the schedule.
+	 *
+	 * @return the number of days in the schedule.
+	 */
+	public int getTimeStep()
+	{
+		return testNodes.length;
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		return "testSchedule{" +
+				"name='" + name + '\'' +
+				", k=" + k +
+				", randomOrder=" + randomOrder +
+				'}';
+	}
+}
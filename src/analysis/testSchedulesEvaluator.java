@@ -0,0 +1,327 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import helper.randomStreams;
+import helper.reseedableRandom;
+import simulation.samplePathConsumer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates several test schedules (see {@link testSchedule}) in one pass over each sample path, keeping only the
+ * number of sample paths and the number of sample paths in which the outbreak is detected by each schedule.
+ * <br>
+ * The days on which nodes became infectious are decoded once per sample path and shared by all schedules;
+ * each schedule then stops at its first detection.
+ * False negative results are drawn only for tests of infectious nodes, from a random number stream of each
+ * simulation repetition and schedule, derived from the same seed as {@link fixedNumberOfTestsPerDayEvaluator}
+ * for the same number of tests per day; so, sequential and random order schedules give the same results as
+ * {@link fixedNumberOfTestsPerDayEvaluator}.
+ * <br>
+ * With bitsets (see {@link bitsetTestingKernel}), the evaluator counts the {@code n} tests of infectious nodes on a
+ * day with an AND and a popcount, and draws a single random number to decide whether any of them is positive
+ * (with probability {@code 1-fnRate^n}), instead of one random number per test;
+ * the results have the same distribution, but use the random number streams differently.
+ * <br>
+ * The evaluator can be fed stored sample paths (see {@link fixedNumberOfTestsPerDay#testSchedules(network.graph,
+ * simulation.simulationRuns, List, double, int)}) or sample paths streamed from a simulation
+ * (see {@link simulation.simulationRuns#streamSimulationForConditionalProbabilityWithLatency}).
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 4, 2020.
+ */
+public class testSchedulesEvaluator implements samplePathConsumer
+{
+	/**
+	 * Simulation parameters (the false negative probability is used for testing).
+	 */
+	final simulationParameters param;
+	
+	/**
+	 * Test schedules.
+	 */
+	final List<testSchedule> schedules;
+	
+	/**
+	 * Seed from which the random number streams for false negative results of each schedule are derived.
+	 */
+	final long[] reliabilitySeeds;
+	
+	/**
+	 * Number of sample paths consumed.
+	 */
+	int numberOfSamples;
+	
+	/**
+	 * Number of sample paths in which the outbreak is detected, by schedule.
+	 */
+	final int[] numberOfDetectedSamples;
+	
+	/**
+	 * Random number generator for false negative results.
+	 */
+	final reseedableRandom reliabilityGen;
+	
+	/**
+	 * {@code true}, if tests of infectious nodes are counted with bitsets; {@code false}, otherwise.
+	 */
+	final boolean bitsets;
+	
+	/**
+	 * Kernel counting tests of infectious nodes with bitsets; created on the first sample path, if
+	 * {@link testSchedulesEvaluator#bitsets} is {@code true}.
+	 */
+	bitsetTestingKernel kernel;
+	
+	/**
+	 * Probability of all of {@code n} tests of infectious nodes being false negatives, for each {@code n}
+	 * (with bitsets).
+	 */
+	double[] probabilityOfAllFalseNegatives;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param param simulation parameters; the false negative probability can differ from the one simulated
+	 * @param schedules test schedules
+	 * @param baseSeed base seed for simulating false negative results.
+	 */
+	public testSchedulesEvaluator(simulationParameters param, List<testSchedule> schedules, int baseSeed)
+	{
+		this(param, schedules, baseSeed, false);
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param param simulation parameters; the false negative probability can differ from the one simulated
+	 * @param schedules test schedules
+	 * @param baseSeed base seed for simulating false negative results
+	 * @param bitsets {@code true}, if tests of infectious nodes should be counted with bitsets;
+	 *                {@code false}, if each test should be simulated.
+	 */
+	public testSchedulesEvaluator(simulationParameters param, List<testSchedule> schedules, int baseSeed,
+	                              boolean bitsets)
+	{
+		this(param, schedules, getReliabilitySeeds(param, schedules, baseSeed), bitsets);
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param param simulation parameters
+	 * @param schedules test schedules
+	 * @param reliabilitySeeds seeds for random number streams of false negative results, by schedule
+	 * @param bitsets {@code true}, if tests of infectious nodes should be counted with bitsets;
+	 *                {@code false}, otherwise.
+	 */
+	private testSchedulesEvaluator(simulationParameters param, List<testSchedule> schedules, long[] reliabilitySeeds,
+	                               boolean bitsets)
+	{
+		this.param = param;
+		this.schedules = schedules;
+		this.reliabilitySeeds = reliabilitySeeds;
+		this.numberOfSamples = 0;
+		this.numberOfDetectedSamples = new int[schedules.size()];
+		this.reliabilityGen = new reseedableRandom(0);
+		this.bitsets = bitsets;
+	}
+	
+	/**
+	 * Returns the seeds for random number streams of false negative results of each schedule.
+	 *
+	 * @param param simulation parameters
+	 * @param schedules test schedules
+	 * @param baseSeed base seed for simulating false negative results.
+	 * @return seeds for random number streams of false negative results, by schedule.
+	 */
+	private static long[] getReliabilitySeeds(simulationParameters param, List<testSchedule> schedules,
+	                                          int baseSeed)
+	{
+		long[] seeds = new long[schedules.size()];
+		for (int i=0; i<seeds.length; i++)
+			seeds[i] = baseSeed+param.hashCode()+schedules.get(i).getK();
+		return seeds;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link testSchedulesEvaluator#param}.
+	 */
+	public simulationParameters getParam()
+	{
+		return param;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link testSchedulesEvaluator#schedules}.
+	 */
+	public List<testSchedule> getSchedules()
+	{
+		return schedules;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link testSchedulesEvaluator#bitsets}.
+	 */
+	public boolean isBitsets()
+	{
+		return bitsets;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link testSchedulesEvaluator#numberOfSamples}.
+	 */
+	public int getNumberOfSamples()
+	{
+		return numberOfSamples;
+	}
+	
+	/**
+	 * Returns the number of sample paths in which the outbreak is detected by a schedule.
+	 *
+	 * @param i index of the schedule in {@link testSchedulesEvaluator#schedules}.
+	 * @return the number of sample paths in which the outbreak is detected by schedule {@code i}.
+	 */
+	public int getNumberOfDetectedSamples(int i)
+	{
+		return numberOfDetectedSamples[i];
+	}
+	
+	/**
+	 * Returns a new evaluator with the same configuration as this evaluator, but without any sample paths consumed.
+	 *
+	 * @return a new evaluator with the same configuration as this evaluator.
+	 */
+	@Override
+	public samplePathConsumer newInstance()
+	{
+		return new testSchedulesEvaluator(param, schedules, reliabilitySeeds, bitsets);
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path by each schedule, until the outbreak is detected.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious.
+	 */
+	@Override
+	public void accept(int replication, byte[] infectiousDay)
+	{
+		double fnRate = param.getFalseNegativeProbability();
+		int timeStep = param.getTimeStep();
+		numberOfSamples++;
+		if (bitsets)
+		{
+			acceptWithBitsets(replication, infectiousDay, fnRate, timeStep);
+			return;
+		}
+		for (int i=0; i<numberOfDetectedSamples.length; i++)
+		{
+			int[][] testNodes = schedules.get(i).testNodes;
+			reliabilityGen.reseed(randomStreams.seedForReplication(reliabilitySeeds[i], replication));
+			if (detects(testNodes, Math.min(timeStep, testNodes.length), fnRate, infectiousDay))
+				numberOfDetectedSamples[i]++;
+		}
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path by each schedule, until the outbreak is detected,
+	 * counting the tests of infectious nodes with bitsets.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node became infectious
+	 * @param fnRate false negative probability
+	 * @param timeStep time step of the sample path.
+	 */
+	private void acceptWithBitsets(int replication, byte[] infectiousDay, double fnRate, int timeStep)
+	{
+		if (kernel==null)
+		{
+			kernel = new bitsetTestingKernel(schedules, infectiousDay.length, timeStep);
+			int maximumTestsPerDay = 0;
+			for (testSchedule schedule: schedules)
+				for (int[] nodes: schedule.testNodes)
+					maximumTestsPerDay = Math.max(maximumTestsPerDay, nodes.length);
+			probabilityOfAllFalseNegatives = new double[maximumTestsPerDay+1];
+			for (int n=0; n<=maximumTestsPerDay; n++)
+				probabilityOfAllFalseNegatives[n] = Math.pow(fnRate, n);
+		}
+		kernel.setSamplePath(infectiousDay);
+		for (int i=0; i<numberOfDetectedSamples.length; i++)
+		{
+			reliabilityGen.reseed(randomStreams.seedForReplication(reliabilitySeeds[i], replication));
+			for (int t=1; t<=kernel.getNumberOfDays(i); t++)
+			{
+				int n = kernel.getNumberOfInfectiousTests(i, t);
+				if ((n>0) && (reliabilityGen.nextDouble()>probabilityOfAllFalseNegatives[n]))
+				{
+					numberOfDetectedSamples[i]++;
+					break;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Tests the nodes scheduled on each day of a sample path, until the outbreak is detected.
+	 *
+	 * @param testNodes ids of nodes tested on each day
+	 * @param timeStep number of days
+	 * @param fnRate false negative probability
+	 * @param infectiousDay day on which each node became infectious.
+	 * @return {@code true}, if the outbreak is detected; {@code false}, otherwise.
+	 */
+	private boolean detects(int[][] testNodes, int timeStep, double fnRate, byte[] infectiousDay)
+	{
+		for (int t=1; t<=timeStep; t++)
+		{
+			for (int v: testNodes[t-1])
+			{
+				if ((infectiousDay[v]<=t) && (reliabilityGen.nextDouble()>fnRate))
+					return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Adds the counts of another evaluator to this evaluator.
+	 *
+	 * @param other an evaluator created by {@link testSchedulesEvaluator#newInstance()}.
+	 */
+	@Override
+	public void combine(samplePathConsumer other)
+	{
+		testSchedulesEvaluator that = (testSchedulesEvaluator) other;
+		this.numberOfSamples += that.numberOfSamples;
+		for (int i=0; i<numberOfDetectedSamples.length; i++)
+			this.numberOfDetectedSamples[i] += that.numberOfDetectedSamples[i];
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		List<String> results = new ArrayList<>(schedules.size());
+		for (int i=0; i<schedules.size(); i++)
+			results.add(schedules.get(i).getName()+": "+numberOfDetectedSamples[i]);
+		return "testSchedulesEvaluator{" +
+				"param=" + param +
+				", bitsets=" + bitsets +
+				", numberOfSamples=" + numberOfSamples +
+				", numberOfDetectedSamples=" + results +
+				'}';
+	}
+}
@@ -0,0 +1,240 @@
+package dataTypes;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Represents the parameters of {@link simulationParameters} that affect the simulated epidemic,
+ * i.e., all parameters except the false negative probability, which only affects testing.
+ * <br>
+ * Sample paths are cached under these parameters, so simulation parameters that differ only in
+ * the false negative probability share the same sample paths (see {@link simulation.simulationRuns}).
+ * Sample paths are seeded by these parameters except the time step and the number of simulation repetitions
+ * (see {@link epidemicParameters#getSeedHashCode()}).
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+public class epidemicParameters
+{
+	/**
+	 * Name of the network.
+	 */
+	final String networkName;
+	
+	/**
+	 * Time step of each simulation run.
+	 */
+	final int timeStep;
+	
+	/**
+	 * Number of times simulation is repeated.
+	 */
+	final int numberOfSimulationRepetitions;
+	
+	/**
+	 * Daily probability of infection between neighbors.
+	 */
+	final double transmissability;
+	
+	/**
+	 * The number of days to move from the exposed state to the infected state.
+	 */
+	final int latency;
+	
+	/**
+	 * Probability distribution of the latency of each node; {@code null} for a fixed latency
+	 * (see {@link simulationParameters#getLatencyDistribution()}).
+	 */
+	final double[] latencyDistribution;
+	
+	/**
+	 * Daily probability of infection from outside world.
+	 */
+	final double externalInfectionProbability;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param param simulation parameters.
+	 */
+	public epidemicParameters(simulationParameters param)
+	{
+		this.networkName = param.networkName;
+		this.timeStep = param.timeStep;
+		this.numberOfSimulationRepetitions = param.numberOfSimulationRepetitions;
+		this.transmissability = param.transmissability;
+		this.latency = param.latency;
+		this.latencyDistribution = (param.latencyDistribution==null) ? null : param.latencyDistribution.clone();
+		this.externalInfectionProbability = param.externalInfectionProbability;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link epidemicParameters#networkName}.
+	 */
+	public String getNetworkName()
+	{
+		return networkName;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link epidemicParameters#timeStep}.
+	 */
+	public int getTimeStep()
+	{
+		return timeStep;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link epidemicParameters#numberOfSimulationRepetitions}.
+	 */
+	public int getNumberOfSimulationRepetitions()
+	{
+		return numberOfSimulationRepetitions;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link epidemicParameters#transmissability}.
+	 */
+	public double getTransmissability()
+	{
+		return transmissability;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link epidemicParameters#latency}.
+	 */
+	public int getLatency()
+	{
+		return latency;
+	}
+	
+	/**
+	 * Getter; returns a copy, since the latency distribution is part of the key under which sample paths are cached.
+	 *
+	 * @return a copy of {@link epidemicParameters#latencyDistribution}; {@code null}, if the latency is fixed.
+	 */
+	public double[] getLatencyDistribution()
+	{
+		return (latencyDistribution==null) ? null : latencyDistribution.clone();
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link epidemicParameters#externalInfectionProbability}.
+	 */
+	public double getExternalInfectionProbability()
+	{
+		return externalInfectionProbability;
+	}
+	
+	/**
+	 * Indicates whether some other parameters are equal to these parameters, except possibly for the time step.
+	 *
+	 * @param that epidemic parameters.
+	 * @return {@code true} if {@code that} is equal to these parameters, except possibly for the time step;
+	 * {@code false} otherwise.
+	 */
+	public boolean equalsExceptTimeStep(epidemicParameters that)
+	{
+		return numberOfSimulationRepetitions == that.numberOfSimulationRepetitions &&
+				Double.compare(that.transmissability, transmissability) == 0 &&
+				latency == that.latency &&
+				Arrays.equals(latencyDistribution, that.latencyDistribution) &&
+				Double.compare(that.externalInfectionProbability, externalInfectionProbability) == 0 &&
+				networkName.equals(that.networkName);
+	}
+	
+	/**
+	 * Returns a hash code of the parameters except the time step and the number of simulation repetitions,
+	 * from which the random number streams of simulations are derived;
+	 * so, with streams that are consumed day by day, a sample path with a shorter time step is a prefix of the
+	 * sample path with a longer time step, and the first repetitions of a simulation with more repetitions are the
+	 * same as those of a simulation with fewer repetitions.
+	 *
+	 * @return a hash code of the parameters except the time step and the number of simulation repetitions.
+	 */
+	public int getSeedHashCode()
+	{
+		int hash = Objects.hash(networkName, transmissability, latency, externalInfectionProbability);
+		return (latencyDistribution==null) ? hash : 31*hash+Arrays.hashCode(latencyDistribution);
+	}
+	
+	/**
+	 * Returns a hash code of the parameters except the time step, the number of simulation repetitions, the
+	 * transmissability and the external infection probability, from which the random numbers of a coupled sweep
+	 * over transmissabilities and external infection probabilities are derived
+	 * (see {@link simulation.simulationRuns#streamCoupledSweepForConditionalProbabilityWithLatency}).
+	 *
+	 * @return a hash code of the parameters shared by the points of a coupled sweep.
+	 */
+	public int getCoupledSeedHashCode()
+	{
+		int hash = Objects.hash(networkName, latency);
+		return (latencyDistribution==null) ? hash : 31*hash+Arrays.hashCode(latencyDistribution);
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		return "Epidemic parameters: "
+				+"network --- "+networkName+"; "
+				+"time step = "+timeStep+"; "
+				+"simulation repetitions = "+numberOfSimulationRepetitions+"; "
+				+"transmissability = "+transmissability+"; "
+				+((latencyDistribution==null) ? "latency = "+latency+"; "
+						: "latency distribution = "+Arrays.toString(latencyDistribution)+"; ")
+				+"external infection probability = "+externalInfectionProbability+".";
+	}
+	
+	/**
+	 * Indicates whether some other object is "equal to" this one.
+	 *
+	 * @param o the reference object with which to compare.
+	 * @return {@code true} if this object is the same as the obj argument; {@code false} otherwise.
+	 */
+	@Override
+	public boolean equals(Object o)
+	{
+		// this instance check
+		if (this == o) return true;
+		// null check
+		if (o == null || getClass() != o.getClass()) return false;
+		epidemicParameters that = (epidemicParameters) o;
+		return timeStep == that.timeStep &&
+				numberOfSimulationRepetitions == that.numberOfSimulationRepetitions &&
+				Double.compare(that.transmissability, transmissability) == 0 &&
+				latency == that.latency &&
+				Arrays.equals(latencyDistribution, that.latencyDistribution) &&
+				Double.compare(that.externalInfectionProbability, externalInfectionProbability) == 0 &&
+				networkName.equals(that.networkName);
+	}
+	
+	/**
+	 * Returns a hash code value for the object.
+	 *
+	 * @return a hash code value for this object.
+	 */
+	@Override
+	public int hashCode()
+	{
+		int hash = Objects.hash(networkName, timeStep, numberOfSimulationRepetitions, transmissability, latency,
+								externalInfectionProbability);
+		return (latencyDistribution==null) ? hash : 31*hash+Arrays.hashCode(latencyDistribution);
+	}
+}
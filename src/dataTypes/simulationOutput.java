@@ -5,21 +5,90 @@ import java.util.*;
 /**
  * Represents simulation output.
  * @author Sudesh Agrawal (sudesh@utexas.edu).
- * Last Updated: November 14, 2020.
+ * Last Updated: December 16, 2020.
  */
 public class simulationOutput
 {
+	/**
+	 * Value in {@link simulationOutput#infectiousDays} for nodes that did not become infectious within the time step.
+	 */
+	public static final byte NOT_INFECTIOUS = Byte.MAX_VALUE;
+	
 	/**
 	 * Each element in the list is a sample path.
 	 * Each sample path maps time to set of infectious nodes by that time.
+	 * <br>
+	 * {@code null} if sample paths are stored in the compact form {@link simulationOutput#infectiousDays}.
 	 */
 	List<Map<Integer, Set<Integer>>> samplesOfInfectiousNodesAtEachTime;
 	
+	/**
+	 * Compact form of sample paths: the day on which each node became infectious,
+	 * or {@link simulationOutput#NOT_INFECTIOUS}, one byte per node per sample path.
+	 * Sample paths are stored in blocks of {@link simulationOutput#samplesPerBlock} consecutive sample paths;
+	 * the day of the node with id {@code i} (see {@link network.csrGraph}) in sample path {@code x} is
+	 * {@code infectiousDays[x/samplesPerBlock][(x%samplesPerBlock)*nodeLabels.length+i]}.
+	 * <br>
+	 * A prefix of a longer simulation (see {@link simulationOutput#getPrefix(int)}) shares the blocks of the
+	 * longer simulation, so days after {@link simulationOutput#timeStep} can appear in place of
+	 * {@link simulationOutput#NOT_INFECTIOUS}.
+	 * <br>
+	 * {@code null} if sample paths are stored in {@link simulationOutput#samplesOfInfectiousNodesAtEachTime}.
+	 */
+	byte[][] infectiousDays;
+	
+	/**
+	 * Number of sample paths in each block of {@link simulationOutput#infectiousDays}.
+	 */
+	int samplesPerBlock;
+	
+	/**
+	 * Number of sample paths in {@link simulationOutput#infectiousDays}.
+	 */
+	int numberOfSamples;
+	
+	/**
+	 * Labels of nodes (by id) in {@link simulationOutput#infectiousDays}.
+	 */
+	int[] nodeLabels;
+	
+	/**
+	 * Label of the super node that models outside infection; it is infectious at all times.
+	 */
+	int supernode;
+	
+	/**
+	 * Time step of each sample path in {@link simulationOutput#infectiousDays}.
+	 */
+	int timeStep;
+	
 	/**
 	 * Simulation run time.
 	 */
 	double simulationWallTime;
 	
+	/**
+	 * States of the random number generators at the end of a sequential simulation, from which more simulation
+	 * repetitions can be simulated (see {@link simulation.simulationRuns#addSimulationRepetitions(network.graph,
+	 * simulationParameters, int)});
+	 * {@code null} for parallel simulations, whose repetitions have their own random number streams
+	 * (see {@link helper.randomStreams}).
+	 */
+	long[] generatorStates;
+	
+	/**
+	 * Engine that simulated the sample paths; simulation repetitions can only be added with the same engine
+	 * (see {@link simulation.simulationRuns#addSimulationRepetitions(network.graph, simulationParameters, int)}).
+	 */
+	simulation.engineType engine;
+	
+	/**
+	 * Base seed for random number generation of the simulation
+	 * (see {@link simulation.simulationRuns#simulationForConditionalProbabilityWithLatency(network.graph, List,
+	 * int[], int)}); simulation repetitions can only be added with the same base seed.
+	 */
+	int[] baseSeed;
+	
 	/**
 	 * Constructor.
 	 */
@@ -41,6 +110,29 @@ public class simulationOutput
 		this.simulationWallTime = simulationWallTime;
 	}
 	
+	/**
+	 * Constructor for sample paths in the compact form.
+	 *
+	 * @param infectiousDays blocks of days on which nodes became infectious
+	 * @param samplesPerBlock number of sample paths in each block
+	 * @param numberOfSamples number of sample paths
+	 * @param nodeLabels labels of nodes (by id)
+	 * @param supernode label of the super node that models outside infection
+	 * @param timeStep time step of each sample path
+	 * @param simulationWallTime simulation run time.
+	 */
+	public simulationOutput(byte[][] infectiousDays, int samplesPerBlock, int numberOfSamples, int[] nodeLabels,
+	                        int supernode, int timeStep, double simulationWallTime)
+	{
+		this.infectiousDays = infectiousDays;
+		this.samplesPerBlock = samplesPerBlock;
+		this.numberOfSamples = numberOfSamples;
+		this.nodeLabels = nodeLabels;
+		this.supernode = supernode;
+		this.timeStep = timeStep;
+		this.simulationWallTime = simulationWallTime;
+	}
+	
 	/**
 	 * Copy constructor (references copied instead of value, for non-primitive data types).
 	 *
@@ -49,27 +141,266 @@ public class simulationOutput
 	public simulationOutput(simulationOutput output)
 	{
 		this.samplesOfInfectiousNodesAtEachTime = output.samplesOfInfectiousNodesAtEachTime;
+		this.infectiousDays = output.infectiousDays;
+		this.samplesPerBlock = output.samplesPerBlock;
+		this.numberOfSamples = output.numberOfSamples;
+		this.nodeLabels = output.nodeLabels;
+		this.supernode = output.supernode;
+		this.timeStep = output.timeStep;
 		this.simulationWallTime = output.simulationWallTime;
+		this.generatorStates = output.generatorStates;
+		this.engine = output.engine;
+		this.baseSeed = output.baseSeed;
+	}
+	
+	/**
+	 * Converts the days on which nodes became infectious into a sample path.
+	 *
+	 * @param infectiousDays days on which nodes became infectious
+	 * @param offset position of the day of the node with id 0 in {@code infectiousDays}
+	 * @param nodeLabels labels of nodes (by id)
+	 * @param supernode label of the super node that models outside infection
+	 * @param timeStep time step of the sample path.
+	 * @return a map from time to the set of infectious nodes by that time (including the super node).
+	 */
+	public static Map<Integer, Set<Integer>> toSamplePath(byte[] infectiousDays, int offset, int[] nodeLabels,
+	                                                      int supernode, int timeStep)
+	{
+		Map<Integer, Set<Integer>> sample = new HashMap<>();
+		for (int t=0; t<=timeStep; t++)
+		{
+			sample.put(t, new HashSet<>());
+			sample.get(t).add(supernode);
+		}
+		for (int i=0; i<nodeLabels.length; i++)
+			for (int t=infectiousDays[offset+i]; t<=timeStep; t++)
+				sample.get(t).add(nodeLabels[i]);
+		return sample;
+	}
+	
+	/**
+	 * Returns the sample paths up to a shorter time step.
+	 * <br>
+	 * Sample paths in the compact form are shared with this output instead of copied;
+	 * otherwise, each sample path is copied up to the shorter time step (the sets of nodes are shared).
+	 *
+	 * @param timeStep time step of the prefix; at most the time step of this output.
+	 * @return the sample paths up to time step {@code timeStep}.
+	 * @throws Exception thrown if {@code timeStep} is negative or greater than the time step of this output.
+	 */
+	public simulationOutput getPrefix(int timeStep) throws Exception
+	{
+		if (isCompact())
+		{
+			if ((timeStep<0) || (timeStep>this.timeStep))
+				throw new Exception("Time step of the prefix should be between 0 and "+this.timeStep+"!");
+			simulationOutput output = new simulationOutput(infectiousDays, samplesPerBlock, numberOfSamples,
+					nodeLabels, supernode, timeStep, simulationWallTime);
+			output.engine = engine;
+			output.baseSeed = baseSeed;
+			return output;
+		}
+		List<Map<Integer, Set<Integer>>> samples = new ArrayList<>(samplesOfInfectiousNodesAtEachTime.size());
+		for (Map<Integer, Set<Integer>> sample: samplesOfInfectiousNodesAtEachTime)
+		{
+			if ((timeStep<0) || !sample.containsKey(timeStep))
+				throw new Exception("Time step of the prefix should be between 0 and the time step of the output!");
+			Map<Integer, Set<Integer>> prefix = new HashMap<>();
+			for (int t=0; t<=timeStep; t++)
+				prefix.put(t, sample.get(t));
+			samples.add(prefix);
+		}
+		simulationOutput output = new simulationOutput(samples, simulationWallTime);
+		output.nodeLabels = nodeLabels;
+		output.supernode = supernode;
+		output.timeStep = timeStep;
+		output.engine = engine;
+		output.baseSeed = baseSeed;
+		return output;
+	}
+	
+	/**
+	 * Checks whether sample paths are stored in the compact form {@link simulationOutput#infectiousDays}.
+	 *
+	 * @return {@code true} if sample paths are stored in the compact form; {@code false}, otherwise.
+	 */
+	public boolean isCompact()
+	{
+		return infectiousDays!=null;
+	}
+	
+	/**
+	 * Returns the number of sample paths.
+	 *
+	 * @return the number of sample paths.
+	 */
+	public int getNumberOfSamples()
+	{
+		if (isCompact())
+			return numberOfSamples;
+		return samplesOfInfectiousNodesAtEachTime.size();
+	}
+	
+	/**
+	 * Returns the day on which a node became infectious in a sample path stored in the compact form.
+	 *
+	 * @param x index of the sample path
+	 * @param id id of the node.
+	 * @return the day on which the node became infectious; {@link simulationOutput#NOT_INFECTIOUS} if it did not.
+	 */
+	public byte getInfectiousDay(int x, int id)
+	{
+		byte day = infectiousDays[x/samplesPerBlock][(x%samplesPerBlock)*nodeLabels.length+id];
+		return (day<=timeStep) ? day : NOT_INFECTIOUS;
+	}
+	
+	/**
+	 * Decodes the day on which each node became infectious in a sample path, reusing an array.
+	 *
+	 * @param x index of the sample path
+	 * @param nodeLabels labels of nodes (by id) in increasing order; same as {@link simulationOutput#nodeLabels}
+	 *                   for sample paths in the compact form
+	 * @param infectiousDay array to store the day on which each node (by id) became infectious;
+	 *                      {@link simulationOutput#NOT_INFECTIOUS} if it did not.
+	 */
+	public void getInfectiousDays(int x, int[] nodeLabels, byte[] infectiousDay)
+	{
+		if (isCompact())
+		{
+			System.arraycopy(infectiousDays[x/samplesPerBlock], (x%samplesPerBlock)*nodeLabels.length,
+					infectiousDay, 0, nodeLabels.length);
+			for (int i=0; i<nodeLabels.length; i++)
+				if (infectiousDay[i]>timeStep)
+					infectiousDay[i] = NOT_INFECTIOUS;
+			return;
+		}
+		Arrays.fill(infectiousDay, 0, nodeLabels.length, NOT_INFECTIOUS);
+		for (Map.Entry<Integer, Set<Integer>> entry: samplesOfInfectiousNodesAtEachTime.get(x).entrySet())
+		{
+			int t = entry.getKey();
+			for (Integer v: entry.getValue())
+			{
+				int id = Arrays.binarySearch(nodeLabels, v);
+				if ((id>=0) && (t<infectiousDay[id]))
+					infectiousDay[id] = (byte) t;
+			}
+		}
+	}
+	
+	/**
+	 * Returns a sample path.
+	 * If sample paths are stored in the compact form, the sample path is rebuilt.
+	 *
+	 * @param x index of the sample path.
+	 * @return a map from time to the set of infectious nodes by that time.
+	 */
+	public Map<Integer, Set<Integer>> getSample(int x)
+	{
+		if (isCompact())
+			return toSamplePath(infectiousDays[x/samplesPerBlock], (x%samplesPerBlock)*nodeLabels.length,
+					nodeLabels, supernode, timeStep);
+		return samplesOfInfectiousNodesAtEachTime.get(x);
+	}
+	
+	/**
+	 * Returns the set of nodes infectious by a given time in a sample path.
+	 * If sample paths are stored in the compact form, the set is rebuilt.
+	 *
+	 * @param x index of the sample path
+	 * @param t time.
+	 * @return the set of nodes infectious by time {@code t} in sample path {@code x}.
+	 */
+	public Set<Integer> getInfectiousNodesAtTime(int x, int t)
+	{
+		if (!isCompact())
+			return samplesOfInfectiousNodesAtEachTime.get(x).get(t);
+		Set<Integer> infectiousNodes = new HashSet<>();
+		infectiousNodes.add(supernode);
+		for (int i=0; i<nodeLabels.length; i++)
+			if (getInfectiousDay(x, i)<=t)
+				infectiousNodes.add(nodeLabels[i]);
+		return infectiousNodes;
 	}
 	
 	/**
 	 * Getter.
+	 * <br>
+	 * If sample paths are stored in the compact form, all sample paths are rebuilt;
+	 * use {@link simulationOutput#getSample(int)} to rebuild them one at a time instead.
 	 *
-	 * @return {@link simulationOutput#getSamplesOfInfectiousNodesAtEachTime()}.
+	 * @return {@link simulationOutput#samplesOfInfectiousNodesAtEachTime}.
 	 */
 	public List<Map<Integer, Set<Integer>>> getSamplesOfInfectiousNodesAtEachTime()
 	{
+		if (isCompact())
+		{
+			List<Map<Integer, Set<Integer>>> samples = new ArrayList<>(numberOfSamples);
+			for (int x=0; x<numberOfSamples; x++)
+				samples.add(getSample(x));
+			return samples;
+		}
 		return samplesOfInfectiousNodesAtEachTime;
 	}
 	
 	/**
-	 * Setter.
+	 * Setter; sample paths are no longer stored in the compact form.
 	 *
 	 * @param samplesOfInfectiousNodesAtEachTime sample paths.
 	 */
 	public void setSamplesOfInfectiousNodesAtEachTime(List<Map<Integer, Set<Integer>>> samplesOfInfectiousNodesAtEachTime)
 	{
 		this.samplesOfInfectiousNodesAtEachTime = samplesOfInfectiousNodesAtEachTime;
+		this.infectiousDays = null;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationOutput#infectiousDays}.
+	 */
+	public byte[][] getInfectiousDays()
+	{
+		return infectiousDays;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationOutput#samplesPerBlock}.
+	 */
+	public int getSamplesPerBlock()
+	{
+		return samplesPerBlock;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationOutput#nodeLabels}.
+	 */
+	public int[] getNodeLabels()
+	{
+		return nodeLabels;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationOutput#supernode}.
+	 */
+	public int getSupernode()
+	{
+		return supernode;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationOutput#timeStep}.
+	 */
+	public int getTimeStep()
+	{
+		return timeStep;
 	}
 	
 	/**
@@ -92,6 +423,58 @@ public class simulationOutput
 		this.simulationWallTime = simulationWallTime;
 	}
 	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationOutput#generatorStates}.
+	 */
+	public long[] getGeneratorStates()
+	{
+		return generatorStates;
+	}
+	
+	/**
+	 * Setter.
+	 *
+	 * @param generatorStates states of the random number generators at the end of a sequential simulation.
+	 */
+	public void setGeneratorStates(long[] generatorStates)
+	{
+		this.generatorStates = generatorStates;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationOutput#engine}.
+	 */
+	public simulation.engineType getEngine()
+	{
+		return engine;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return a copy of {@link simulationOutput#baseSeed}; {@code null}, if it is not recorded.
+	 */
+	public int[] getBaseSeed()
+	{
+		return (baseSeed==null) ? null : baseSeed.clone();
+	}
+	
+	/**
+	 * Records how the sample paths were simulated, so that simulation repetitions are only added the same way.
+	 *
+	 * @param engine engine that simulated the sample paths
+	 * @param baseSeed base seed for random number generation of the simulation.
+	 */
+	public void setSimulatedWith(simulation.engineType engine, int[] baseSeed)
+	{
+		this.engine = engine;
+		this.baseSeed = baseSeed.clone();
+	}
+	
 	/**
 	 * Returns a string representation of the object.
 	 *
@@ -101,7 +484,7 @@ public class simulationOutput
 	public String toString()
 	{
 		return "Simulation output: "
-				+"samples of infectious nodes: "+this.samplesOfInfectiousNodesAtEachTime +"; "
+				+"samples of infectious nodes: "+this.getSamplesOfInfectiousNodesAtEachTime() +"; "
 				+"simulation wall time = "+this.simulationWallTime+".";
 	}
 	
@@ -122,7 +505,13 @@ public class simulationOutput
 		if (o == null || getClass() != o.getClass()) return false;
 		simulationOutput that = (simulationOutput) o;
 		return Double.compare(that.simulationWallTime, simulationWallTime) == 0 &&
-				Objects.equals(samplesOfInfectiousNodesAtEachTime, that.samplesOfInfectiousNodesAtEachTime);
+				samplesPerBlock == that.samplesPerBlock &&
+				numberOfSamples == that.numberOfSamples &&
+				supernode == that.supernode &&
+				timeStep == that.timeStep &&
+				Objects.equals(samplesOfInfectiousNodesAtEachTime, that.samplesOfInfectiousNodesAtEachTime) &&
+				Arrays.deepEquals(infectiousDays, that.infectiousDays) &&
+				Arrays.equals(nodeLabels, that.nodeLabels);
 	}
 	
 	/**
@@ -133,6 +522,10 @@ public class simulationOutput
 	@Override
 	public int hashCode()
 	{
-		return Objects.hash(samplesOfInfectiousNodesAtEachTime, simulationWallTime);
+		int result = Objects.hash(samplesOfInfectiousNodesAtEachTime, simulationWallTime, samplesPerBlock,
+				numberOfSamples, supernode, timeStep);
+		result = 31*result+Arrays.deepHashCode(infectiousDays);
+		result = 31*result+Arrays.hashCode(nodeLabels);
+		return result;
 	}
 }
@@ -1,11 +1,12 @@
 package dataTypes;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
  * Represents parameters needed for simulation.
  * @author Sudesh Agrawal (sudesh@utexas.edu).
- * Last Updated: November 12, 2020.
+ * Last Updated: December 16, 2020.
  */
 public class simulationParameters
 {
@@ -38,6 +39,14 @@ public class simulationParameters
 	 */
 	int latency;
 	
+	/**
+	 * Probability distribution of the number of days to move from the exposed state to the infected state,
+	 * drawn independently for each node;
+	 * {@code latencyDistribution[d]} is the probability of a latency of {@code d} days.
+	 * {@code null}, if every node has a latency of {@link simulationParameters#latency} days.
+	 */
+	double[] latencyDistribution;
+	
 	/**
 	 * Daily probability of infection from outside world.
 	 */
@@ -80,6 +89,7 @@ public class simulationParameters
 		this.falseNegativeProbability = param.falseNegativeProbability;
 		this.transmissability = param.transmissability;
 		this.latency = param.latency;
+		this.latencyDistribution = (param.latencyDistribution==null) ? null : param.latencyDistribution.clone();
 		this.externalInfectionProbability = param.externalInfectionProbability;
 	}
 	
@@ -143,6 +153,16 @@ public class simulationParameters
 		return latency;
 	}
 	
+	/**
+	 * Getter; returns a copy, since the latency distribution is part of the key under which sample paths are cached.
+	 *
+	 * @return a copy of {@link simulationParameters#latencyDistribution}; {@code null}, if the latency is fixed.
+	 */
+	public double[] getLatencyDistribution()
+	{
+		return (latencyDistribution==null) ? null : latencyDistribution.clone();
+	}
+	
 	/**
 	 * Getter.
 	 *
@@ -153,6 +173,17 @@ public class simulationParameters
 		return externalInfectionProbability;
 	}
 	
+	/**
+	 * Returns the parameters that affect the simulated epidemic, i.e., all parameters except the false negative
+	 * probability.
+	 *
+	 * @return the epidemic parameters.
+	 */
+	public epidemicParameters getEpidemicParameters()
+	{
+		return new epidemicParameters(this);
+	}
+	
 	/**
 	 * Setter.
 	 *
@@ -213,6 +244,35 @@ public class simulationParameters
 		this.latency = latency;
 	}
 	
+	/**
+	 * Setter; the distribution is copied, since it is part of the key under which sample paths are cached.
+	 *
+	 * @param latencyDistribution probability distribution of the number of days to move from the exposed state
+	 *                            to the infected state; {@code null} for a fixed latency.
+	 * @throws Exception thrown if {@code latencyDistribution} is empty, has a negative element, or does not sum up
+	 *                   to 1.
+	 */
+	public void setLatencyDistribution(double[] latencyDistribution) throws Exception
+	{
+		if (latencyDistribution==null)
+		{
+			this.latencyDistribution = null;
+			return;
+		}
+		if (latencyDistribution.length==0)
+			throw new Exception("Latency distribution should not be empty!");
+		double sum = 0.0;
+		for (double probability: latencyDistribution)
+		{
+			if (probability<0)
+				throw new Exception("Latency distribution should not have negative probabilities!");
+			sum += probability;
+		}
+		if (Math.abs(sum-1)>0.0000001)
+			throw new Exception("Latency distribution is not a probability mass function!");
+		this.latencyDistribution = latencyDistribution.clone();
+	}
+	
 	/**
 	 * Setter.
 	 *
@@ -237,7 +297,8 @@ public class simulationParameters
 				+"simulation repetitions = "+numberOfSimulationRepetitions+"; "
 				+"false negative probability = "+falseNegativeProbability+"; "
 				+"transmissability = "+transmissability+"; "
-				+"latency = "+latency+"; "
+				+((latencyDistribution==null) ? "latency = "+latency+"; "
+						: "latency distribution = "+Arrays.toString(latencyDistribution)+"; ")
 				+"external infection probability = "+externalInfectionProbability+".";
 	}
 	
@@ -262,6 +323,7 @@ public class simulationParameters
 				Double.compare(that.falseNegativeProbability, falseNegativeProbability) == 0 &&
 				Double.compare(that.transmissability, transmissability) == 0 &&
 				latency == that.latency &&
+				Arrays.equals(latencyDistribution, that.latencyDistribution) &&
 				Double.compare(that.externalInfectionProbability, externalInfectionProbability) == 0 &&
 				networkName.equals(that.networkName);
 	}
@@ -274,7 +336,9 @@ public class simulationParameters
 	@Override
 	public int hashCode()
 	{
-		return Objects.hash(networkName, timeStep, numberOfSimulationRepetitions, falseNegativeProbability,
+		int hash = Objects.hash(networkName, timeStep, numberOfSimulationRepetitions, falseNegativeProbability,
 								transmissability, latency, externalInfectionProbability);
+		// keep the hash code (and so, the random number streams) of parameters with a fixed latency
+		return (latencyDistribution==null) ? hash : 31*hash+Arrays.hashCode(latencyDistribution);
 	}
 }
@@ -6,7 +6,7 @@ import java.util.*;
 /**
  * Contains methods for some combinatorial operations.
  * @author Sudesh Agrawal (sudesh@utexas.edu).
- * Last Updated: November 3, 2020.
+ * Last Updated: December 15, 2020.
  */
 public class combinatorics
 {
@@ -39,6 +39,7 @@ public class combinatorics
 	/**
 	 * Chooses elements from the state space of a distribution with probability mass function {@code pmf} based on
 	 * random stream {@code randomchoices}.
+	 * To draw repeatedly from the same distribution, build a {@link discreteDistributionSampler} once instead.
 	 * <br>
 	 * Overloaded function: see {@link combinatorics#discreteProbabilityChoice(List, int[], double[])}.
 	 *
@@ -50,25 +51,7 @@ public class combinatorics
 	 */
 	public static int[] discreteProbabilityChoice(double[] randomChoices, int[] stateSpace, double[] pmf) throws Exception
 	{
-		double[] cdf = new double[pmf.length];
-		int[] binomialChoices = new int[randomChoices.length];
-		double sum = 0.0;
-		for (int i=0; i<pmf.length; i++)
-		{
-			sum += pmf[i];
-			cdf[i] = sum;
-		}
-		if (Math.abs(cdf[pmf.length-1]-1)>0.0000001)
-			throw new Exception("'pmf' is not a probability mass function!");
-		
-		for (int i=0; i<randomChoices.length; i++)
-			if (randomChoices[i]<=cdf[0])
-				binomialChoices[i] = stateSpace[0];
-			else
-				for (int j=1; j<cdf.length; j++)
-					if ((randomChoices[i]>cdf[j-1]) && (randomChoices[i]<=cdf[j]))
-						binomialChoices[i] = stateSpace[j];
-		return binomialChoices;
+		return new discreteDistributionSampler(stateSpace, pmf).sample(randomChoices);
 	}
 	
 	/**
@@ -86,27 +69,7 @@ public class combinatorics
 	public static List<Integer> discreteProbabilityChoice(List<Double> randomChoices,
 	                                                           int[] stateSpace, double[] pmf) throws Exception
 	{
-		double[] cdf = new double[pmf.length];
-		ArrayList<Integer> binomialChoices = new ArrayList<>(randomChoices.size());
-		for (int i=0; i<randomChoices.size(); i++)
-			binomialChoices.add(-1);
-		double sum = 0.0;
-		for (int i=0; i<pmf.length; i++)
-		{
-			sum += pmf[i];
-			cdf[i] = sum;
-		}
-		if (Math.abs(cdf[pmf.length-1]-1)>0.0000001)
-			throw new Exception("'pmf' is not a probability mass function!");
-		
-		for (int i=0; i<randomChoices.size(); i++)
-			if (randomChoices.get(i)<=cdf[0])
-				binomialChoices.set(i, stateSpace[0]);
-			else
-				for (int j=1; j<cdf.length; j++)
-					if ((randomChoices.get(i)>cdf[j-1]) && (randomChoices.get(i)<=cdf[j]))
-						binomialChoices.set(i, stateSpace[j]);
-		return binomialChoices;
+		return new discreteDistributionSampler(stateSpace, pmf).sample(randomChoices);
 	}
 	
 	/**
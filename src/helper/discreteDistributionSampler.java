@@ -0,0 +1,151 @@
+package helper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws elements from the state space of a discrete distribution by inverting its cumulative distribution function
+ * with random numbers in {@code [0, 1]}, like {@link combinatorics#discreteProbabilityChoice(double[], int[],
+ * double[])}.
+ * <br>
+ * The cumulative distribution function is built once, so the sampler can be reused for many draws
+ * (see {@link simulation.simulationRuns}); each draw is a binary search over it, i.e., {@code O(log n)} for a state
+ * space of {@code n} elements, instead of a scan over the whole state space.
+ * A random number {@code u} is mapped to the first element whose cumulative probability is at least {@code u},
+ * so the mapping is the same as that of a linear scan, and is monotone in {@code u}.
+ * A random number greater than the sum of the probabilities (possible only by rounding) is mapped to the last
+ * element with a positive probability.
+ * <br>
+ * An instance is immutable, so it can be shared by threads.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 15, 2020.
+ */
+public class discreteDistributionSampler
+{
+	/**
+	 * State space of the distribution.
+	 */
+	final int[] stateSpace;
+	
+	/**
+	 * Cumulative distribution function; {@code cdf[i]} is the probability of the first {@code i+1} elements of
+	 * {@link discreteDistributionSampler#stateSpace}.
+	 */
+	final double[] cdf;
+	
+	/**
+	 * Index of the last element of {@link discreteDistributionSampler#stateSpace} with a positive probability.
+	 */
+	final int lastPositiveIndex;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param stateSpace an array representing the state space of the probability distribution
+	 * @param pmf an array representing the probability mass function corresponding to elements in {@code stateSpace}.
+	 * @throws Exception thrown if the lengths of {@code stateSpace} and {@code pmf} differ;
+	 *                      or if elements of pmf do not sum up to 1.
+	 */
+	public discreteDistributionSampler(int[] stateSpace, double[] pmf) throws Exception
+	{
+		if (stateSpace.length!=pmf.length)
+			throw new Exception("'stateSpace' and 'pmf' should have the same length!");
+		double[] cdf = new double[pmf.length];
+		double sum = 0.0;
+		int lastPositiveIndex = 0;
+		for (int i=0; i<pmf.length; i++)
+		{
+			sum += pmf[i];
+			cdf[i] = sum;
+			if (pmf[i]>0)
+				lastPositiveIndex = i;
+		}
+		if (Math.abs(cdf[pmf.length-1]-1)>0.0000001)
+			throw new Exception("'pmf' is not a probability mass function!");
+		this.stateSpace = stateSpace.clone();
+		this.cdf = cdf;
+		this.lastPositiveIndex = lastPositiveIndex;
+	}
+	
+	/**
+	 * Returns the number of elements in the state space.
+	 *
+	 * @return the number of elements in {@link discreteDistributionSampler#stateSpace}.
+	 */
+	public int getNumberOfStates()
+	{
+		return stateSpace.length;
+	}
+	
+	/**
+	 * Chooses an element from the state space based on a random number.
+	 *
+	 * @param u a random number in {@code [0, 1]}.
+	 * @return the first element of the state space whose cumulative probability is at least {@code u}.
+	 */
+	public int sample(double u)
+	{
+		int low = 0;
+		int high = cdf.length;
+		while (low<high)
+		{
+			int mid = (low+high)>>>1;
+			if (cdf[mid]<u)
+				low = mid+1;
+			else
+				high = mid;
+		}
+		return stateSpace[(low<cdf.length) ? low : lastPositiveIndex];
+	}
+	
+	/**
+	 * Chooses elements from the state space based on an array of random numbers.
+	 *
+	 * @param u an array of random numbers in {@code [0, 1]}
+	 * @param out an array of at least the length of {@code u}, to which the choice corresponding to each element of
+	 *            {@code u} is written.
+	 */
+	public void sample(double[] u, int[] out)
+	{
+		for (int i=0; i<u.length; i++)
+			out[i] = sample(u[i]);
+	}
+	
+	/**
+	 * Chooses elements from the state space based on an array of random numbers.
+	 *
+	 * @param u an array of random numbers in {@code [0, 1]}.
+	 * @return an integer array of choices corresponding to elements in {@code u}.
+	 */
+	public int[] sample(double[] u)
+	{
+		int[] out = new int[u.length];
+		sample(u, out);
+		return out;
+	}
+	
+	/**
+	 * Chooses elements from the state space based on a list of random numbers.
+	 *
+	 * @param u a list of random numbers in {@code [0, 1]}
+	 * @param out a list to which the choice corresponding to each element of {@code u} is appended.
+	 */
+	public void sample(List<Double> u, List<Integer> out)
+	{
+		for (double v: u)
+			out.add(sample(v));
+	}
+	
+	/**
+	 * Chooses elements from the state space based on a list of random numbers.
+	 *
+	 * @param u a list of random numbers in {@code [0, 1]}.
+	 * @return an {@link java.util.ArrayList} of choices corresponding to elements in {@code u}.
+	 */
+	public List<Integer> sample(List<Double> u)
+	{
+		List<Integer> out = new ArrayList<>(u.size());
+		sample(u, out);
+		return out;
+	}
+}
@@ -0,0 +1,78 @@
+package helper;
+
+import java.util.SplittableRandom;
+
+/**
+ * Contains methods for deriving independent random number streams for individual simulation repetitions.
+ * <br>
+ * The seed of the stream for repetition {@code x} is the {@code (x+1)}<sup>th</sup> value of
+ * {@link java.util.SplittableRandom#nextLong()} of a generator seeded with the base seed,
+ * computed directly (without stepping through the previous {@code x} values).
+ * Hence, the stream of a repetition depends only on the base seed and the repetition index,
+ * and not on the order in which (or the thread by which) repetitions are simulated.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 11, 2020.
+ */
+public class randomStreams
+{
+	/**
+	 * The odd increment used by {@link java.util.SplittableRandom} for generators created with a seed.
+	 */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	/**
+	 * Multiplier to convert 53 random bits to a double in {@code [0, 1)}.
+	 */
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	
+	/**
+	 * Returns the 64-bit mix function (variant 13 of Stafford's mixers) used by {@link java.util.SplittableRandom}.
+	 *
+	 * @param z value to be mixed.
+	 * @return mixed value of {@code z}.
+	 */
+	public static long mix64(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * Returns the seed of the random number stream for a simulation repetition.
+	 *
+	 * @param baseSeed seed from which streams of all repetitions are derived
+	 * @param replication index (starting from 0) of the simulation repetition.
+	 * @return seed of the random number stream for repetition {@code replication}.
+	 */
+	public static long seedForReplication(long baseSeed, long replication)
+	{
+		return mix64(baseSeed+(replication+1)*GOLDEN_GAMMA);
+	}
+	
+	/**
+	 * Returns the {@code (index+1)}<sup>th</sup> value of {@link java.util.SplittableRandom#nextDouble()} of a
+	 * generator seeded with {@code seed}, computed directly; so, a random number can be looked up by its index
+	 * (e.g., of a node or an edge) instead of drawn in order.
+	 *
+	 * @param seed seed of the stream
+	 * @param index index (starting from 0) of the random number in the stream.
+	 * @return a pseudorandom {@code double} value in {@code [0, 1)}.
+	 */
+	public static double doubleAt(long seed, long index)
+	{
+		return (mix64(seed+(index+1)*GOLDEN_GAMMA)>>>11)*DOUBLE_UNIT;
+	}
+	
+	/**
+	 * Returns the random number stream for a simulation repetition.
+	 *
+	 * @param baseSeed seed from which streams of all repetitions are derived
+	 * @param replication index (starting from 0) of the simulation repetition.
+	 * @return an instance of {@link java.util.SplittableRandom} for repetition {@code replication}.
+	 */
+	public static SplittableRandom streamForReplication(long baseSeed, long replication)
+	{
+		return new SplittableRandom(seedForReplication(baseSeed, replication));
+	}
+}
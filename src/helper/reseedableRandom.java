@@ -0,0 +1,126 @@
+package helper;
+
+/**
+ * Represents a random number generator that can be reseeded without creating a new object.
+ * <br>
+ * For the same seed, it generates the same values as {@link java.util.SplittableRandom#SplittableRandom(long)}
+ * for {@link reseedableRandom#nextLong()}, {@link reseedableRandom#nextDouble()} and
+ * {@link reseedableRandom#nextInt(int)}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 6, 2020.
+ */
+public class reseedableRandom
+{
+	/**
+	 * The odd increment used by {@link java.util.SplittableRandom} for generators created with a seed.
+	 */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	
+	/**
+	 * Multiplier to convert 53 random bits to a double in {@code [0, 1)}.
+	 */
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+	
+	/**
+	 * Current state of the generator.
+	 */
+	private long seed;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param seed initial seed.
+	 */
+	public reseedableRandom(long seed)
+	{
+		this.seed = seed;
+	}
+	
+	/**
+	 * Restarts the generator with a new seed.
+	 *
+	 * @param seed new seed.
+	 */
+	public void reseed(long seed)
+	{
+		this.seed = seed;
+	}
+	
+	/**
+	 * Returns the current state of the generator;
+	 * reseeding a generator with it (see {@link reseedableRandom#reseed(long)}) continues the same stream.
+	 *
+	 * @return the current state of the generator.
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+	
+	/**
+	 * Returns the 32-bit mix function used by {@link java.util.SplittableRandom}.
+	 *
+	 * @param z value to be mixed.
+	 * @return mixed value of {@code z}.
+	 */
+	private static int mix32(long z)
+	{
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+	
+	/**
+	 * Returns a pseudorandom {@code long} value.
+	 *
+	 * @return a pseudorandom {@code long} value.
+	 */
+	public long nextLong()
+	{
+		return randomStreams.mix64(seed += GOLDEN_GAMMA);
+	}
+	
+	/**
+	 * Returns a pseudorandom {@code double} value in {@code [0, 1)}.
+	 *
+	 * @return a pseudorandom {@code double} value in {@code [0, 1)}.
+	 */
+	public double nextDouble()
+	{
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+	
+	/**
+	 * Returns a pseudorandom {@code int} value in {@code [0, bound)}.
+	 *
+	 * @param bound upper bound (exclusive); must be positive.
+	 * @return a pseudorandom {@code int} value in {@code [0, bound)}.
+	 */
+	public int nextInt(int bound)
+	{
+		int r = mix32(seed += GOLDEN_GAMMA);
+		int m = bound-1;
+		if ((bound & m)==0)
+			r &= m;
+		else
+		{
+			// reject over-represented candidates
+			int u = r >>> 1;
+			while (u+m-(r = u%bound)<0)
+				u = mix32(seed += GOLDEN_GAMMA) >>> 1;
+		}
+		return r;
+	}
+	
+	/**
+	 * Returns the number of failures before the first success in a sequence of independent Bernoulli trials,
+	 * i.e., a geometric random variable on {@code {0, 1, 2, ...}}.
+	 *
+	 * @param logOfFailureProbability natural logarithm of the probability of failure of a trial,
+	 *                                i.e., {@code Math.log1p(-p)} for a probability of success {@code p>0}.
+	 * @return the number of failures before the first success; {@link Long#MAX_VALUE} if it is too large.
+	 */
+	public long nextGeometric(double logOfFailureProbability)
+	{
+		return (long) Math.floor(Math.log(1.0-nextDouble())/logOfFailureProbability);
+	}
+}
@@ -0,0 +1,223 @@
+package network;
+
+import java.util.*;
+
+/**
+ * Represents an immutable compressed-sparse-row (CSR) snapshot of a {@link graph}.
+ * <br>
+ * Nodes are given dense ids {@code 0, 1, ..., n-1} in increasing order of their labels.
+ * The neighbors of the node with id {@code i} are
+ * {@code targets[offsets[i]], targets[offsets[i]+1], ..., targets[offsets[i+1]-1]},
+ * in the same order as {@link graph#getNeighborsOfNode(int)}.
+ * <br>
+ * <b>Note:</b> the snapshot does not reflect changes made to the {@link graph} after it was built.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 21, 2020.
+ */
+public class csrGraph
+{
+	/**
+	 * Name of the network.
+	 */
+	private final String networkName;
+	
+	/**
+	 * An array of length {@code n+1};
+	 * neighbors of the node with id {@code i} are stored from {@code offsets[i]} to {@code offsets[i+1]-1}
+	 * in {@link csrGraph#targets}.
+	 */
+	private final int[] offsets;
+	
+	/**
+	 * Ids of the neighbors of all nodes, stored one node after the other.
+	 */
+	private final int[] targets;
+	
+	/**
+	 * A map from node id to node label; labels are in increasing order.
+	 */
+	private final int[] labels;
+	
+	/**
+	 * A map from node label to node id.
+	 */
+	private final Map<Integer, Integer> idOfLabel;
+	
+	/**
+	 * Node ids in the order in which the vertex set of the source {@link graph} is iterated.
+	 */
+	private final int[] vertexSetOrder;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param g network graph.
+	 */
+	public csrGraph(graph g)
+	{
+		this.networkName = g.getNetworkName();
+		Set<Integer> vertexSet = g.getVertexSet();
+		int n = vertexSet.size();
+		this.labels = vertexSet.stream().mapToInt(v -> v).sorted().toArray();
+		this.idOfLabel = new HashMap<>(2*n);
+		for (int i=0; i<n; i++)
+			this.idOfLabel.put(labels[i], i);
+		this.vertexSetOrder = vertexSet.stream().mapToInt(idOfLabel::get).toArray();
+		
+		this.offsets = new int[n+1];
+		List<List<Integer>> neighbors = new ArrayList<>(n);
+		for (int i=0; i<n; i++)
+		{
+			neighbors.add(g.getNeighborsOfNode(labels[i]));
+			offsets[i+1] = offsets[i]+neighbors.get(i).size();
+		}
+		this.targets = new int[offsets[n]];
+		for (int i=0; i<n; i++)
+		{
+			int j = offsets[i];
+			for (Integer neighbor: neighbors.get(i))
+				targets[j++] = idOfLabel.get(neighbor);
+		}
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link csrGraph#networkName}.
+	 */
+	public String getNetworkName()
+	{
+		return networkName;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return a copy of {@link csrGraph#offsets}.
+	 */
+	public int[] getOffsets()
+	{
+		return offsets.clone();
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return a copy of {@link csrGraph#targets}.
+	 */
+	public int[] getTargets()
+	{
+		return targets.clone();
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return a copy of {@link csrGraph#labels}.
+	 */
+	public int[] getLabels()
+	{
+		return labels.clone();
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return a copy of {@link csrGraph#vertexSetOrder}.
+	 */
+	public int[] getVertexSetOrder()
+	{
+		return vertexSetOrder.clone();
+	}
+	
+	/**
+	 * Returns the number of nodes.
+	 *
+	 * @return the number of nodes.
+	 */
+	public int getNumberOfNodes()
+	{
+		return labels.length;
+	}
+	
+	/**
+	 * Returns the number of neighbor entries, i.e., twice the number of edges (self-loops are counted twice).
+	 *
+	 * @return the number of neighbor entries.
+	 */
+	public int getNumberOfNeighborEntries()
+	{
+		return targets.length;
+	}
+	
+	/**
+	 * Returns the label of a node.
+	 *
+	 * @param id id of the node.
+	 * @return label of the node with id {@code id}.
+	 */
+	public int getLabel(int id)
+	{
+		return labels[id];
+	}
+	
+	/**
+	 * Returns the id of a node.
+	 *
+	 * @param label label of the node.
+	 * @return id of the node with label {@code label}; -1 if there is no such node.
+	 */
+	public int getId(int label)
+	{
+		return idOfLabel.getOrDefault(label, -1);
+	}
+	
+	/**
+	 * Returns the degree of a node.
+	 *
+	 * @param id id of the node.
+	 * @return number of neighbors of the node with id {@code id}.
+	 */
+	public int getDegree(int id)
+	{
+		return offsets[id+1]-offsets[id];
+	}
+	
+	/**
+	 * Returns the {@code j}<sup>th</sup> neighbor of a node.
+	 *
+	 * @param id id of the node
+	 * @param j index of the neighbor, {@code 0<=j<degree}.
+	 * @return id of the {@code j}<sup>th</sup> neighbor of the node with id {@code id}.
+	 */
+	public int getNeighbor(int id, int j)
+	{
+		return targets[offsets[id]+j];
+	}
+	
+	/**
+	 * Get neighbors of a given node.
+	 *
+	 * @param label label of the node whose neighbors are to be fetched.
+	 * @return labels of the neighbors of the node with label {@code label}.
+	 */
+	public List<Integer> getNeighborsOfNode(int label)
+	{
+		int id = idOfLabel.get(label);
+		List<Integer> neighbors = new ArrayList<>(getDegree(id));
+		for (int e=offsets[id]; e<offsets[id+1]; e++)
+			neighbors.add(labels[targets[e]]);
+		return neighbors;
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		return networkName+": csr<nodes = "+labels.length+", neighbor entries = "+targets.length+">";
+	}
+}
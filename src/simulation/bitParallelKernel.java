@@ -0,0 +1,340 @@
+package simulation;
+
+import helper.randomStreams;
+import helper.reseedableRandom;
+import network.csrGraph;
+
+import java.util.Arrays;
+
+/**
+ * Simulates up to 64 sample paths of the epidemic at once, with the state of each node kept as {@code long}
+ * bitmasks whose bit {@code r} is the state of the node in the {@code r}<sup>th</sup> sample path.
+ * <br>
+ * A trial of infection is done for all sample paths at once with a random bitmask whose bits are independent
+ * Bernoulli trials; bitmasks are drawn by skipping geometrically to the next successful bit (or the next failed
+ * bit, for probabilities above 0.5), so the number of random numbers drawn scales with the number of
+ * infections.
+ * The initial set of infectious nodes of each sample path is selected the same way as in {@link epidemicKernel},
+ * from the random number stream of the simulation repetition (see {@link helper.randomStreams});
+ * the trials of infection use random number streams shared by the 64 sample paths.
+ * So, the sample paths have the same distribution as those of {@link epidemicKernel}.
+ * <br>
+ * An instance is not thread-safe; use one instance per thread.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 29, 2020.
+ */
+class bitParallelKernel
+{
+	/**
+	 * Number of sample paths simulated at once.
+	 */
+	static final int REPLICATIONS_PER_WORD = Long.SIZE;
+	
+	/**
+	 * Number of nodes (excluding the super node).
+	 */
+	private final int s;
+	
+	/**
+	 * Offsets of the adjacency lists (see {@link network.csrGraph#getOffsets()}).
+	 */
+	private final int[] offsets;
+	
+	/**
+	 * Neighbor ids of the adjacency lists (see {@link network.csrGraph#getTargets()}).
+	 */
+	private final int[] targets;
+	
+	/**
+	 * Node ids in the order of the vertex set of the network;
+	 * the order from which the initial infections are selected.
+	 */
+	private final int[] vertexSetOrder;
+	
+	/**
+	 * Time step of each simulation run.
+	 */
+	private final int timeStep;
+	
+	/**
+	 * Number of days to move from the exposed state to the infected state.
+	 */
+	private final int latency;
+	
+	/**
+	 * {@code true}, if bitmasks of transmission are drawn as complements of bitmasks with probability
+	 * {@code 1-transmissability}; {@code false}, otherwise.
+	 */
+	private final boolean complementOfTransmission;
+	
+	/**
+	 * Natural logarithm of the probability of a bit of the bitmask of transmission (before any complement)
+	 * being 0.
+	 */
+	private final double logOfNoTransmission;
+	
+	/**
+	 * {@code true}, if bitmasks of external infection are drawn as complements of bitmasks with probability
+	 * {@code 1-externalInfectionProbability}; {@code false}, otherwise.
+	 */
+	private final boolean complementOfExternalInfection;
+	
+	/**
+	 * Natural logarithm of the probability of a bit of the bitmask of external infection (before any complement)
+	 * being 0.
+	 */
+	private final double logOfNoExternalInfection;
+	
+	/**
+	 * Bitmask of sample paths in which each node is infectious.
+	 */
+	private final long[] infectious;
+	
+	/**
+	 * Bitmask of sample paths in which each node is exposed.
+	 */
+	private final long[] exposed;
+	
+	/**
+	 * Bitmasks of sample paths in which each node was exposed {@code a} days ago, for {@code a=0, ..., latency}.
+	 */
+	private final long[][] exposedDaysAgo;
+	
+	/**
+	 * Day on which each node became infectious in each sample path;
+	 * {@link epidemicKernel#NOT_INFECTIOUS} if it did not.
+	 */
+	private final byte[][] infectiousDay;
+	
+	/**
+	 * Scratch space for selecting the initial set of infectious nodes.
+	 */
+	private final int[] candidates;
+	
+	/**
+	 * Random number generator for selecting the initial set of infectious nodes.
+	 */
+	private final reseedableRandom firstInfectedGen;
+	
+	/**
+	 * Number of bits left before the next 1 in the bitmasks of external infection (before any complement).
+	 */
+	private long externalInfectionSkip;
+	
+	/**
+	 * Number of bits left before the next 1 in the bitmasks of transmission (before any complement).
+	 */
+	private long transmissionSkip;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param timeStep time step of each simulation run; at most {@link epidemicKernel#MAX_TIME_STEP}
+	 * @param latency number of days to move from the exposed state to the infected state
+	 * @param transmissability daily probability of transmission
+	 * @param externalInfectionProbability daily probability of infection from outside world.
+	 */
+	bitParallelKernel(csrGraph g, int timeStep, int latency, double transmissability,
+	                  double externalInfectionProbability)
+	{
+		this.s = g.getNumberOfNodes();
+		this.offsets = g.getOffsets();
+		this.targets = g.getTargets();
+		this.vertexSetOrder = g.getVertexSetOrder();
+		this.timeStep = timeStep;
+		this.latency = latency;
+		this.complementOfTransmission = transmissability>0.5;
+		this.logOfNoTransmission = complementOfTransmission ? Math.log(transmissability)
+				: Math.log1p(-transmissability);
+		this.complementOfExternalInfection = externalInfectionProbability>0.5;
+		this.logOfNoExternalInfection = complementOfExternalInfection ? Math.log(externalInfectionProbability)
+				: Math.log1p(-externalInfectionProbability);
+		this.infectious = new long[s];
+		this.exposed = new long[s];
+		this.exposedDaysAgo = new long[latency+1][s];
+		this.infectiousDay = new byte[REPLICATIONS_PER_WORD][s];
+		this.candidates = new int[s];
+		this.firstInfectedGen = new reseedableRandom(0);
+	}
+	
+	/**
+	 * Returns the day on which each node became infectious in a sample path of the last call to
+	 * {@link bitParallelKernel#simulate(int, int, int[], int, long, reseedableRandom, reseedableRandom)}.
+	 * <br>
+	 * The returned array is overwritten by the next call to
+	 * {@link bitParallelKernel#simulate(int, int, int[], int, long, reseedableRandom, reseedableRandom)}.
+	 *
+	 * @param r index of the sample path, {@code 0<=r<numberOfReplications}.
+	 * @return day on which each node became infectious in sample path {@code r};
+	 * {@link epidemicKernel#NOT_INFECTIOUS} if it did not.
+	 */
+	byte[] getInfectiousDay(int r)
+	{
+		return infectiousDay[r];
+	}
+	
+	/**
+	 * Simulates sample paths of consecutive simulation repetitions at once.
+	 *
+	 * @param firstReplication index of the first simulation repetition
+	 * @param numberOfReplications number of simulation repetitions; at most
+	 *                             {@link bitParallelKernel#REPLICATIONS_PER_WORD}
+	 * @param binomialChoices number of initial infections in each simulation repetition, from repetition
+	 *                        {@code firstChoice}
+	 * @param firstChoice index of the simulation repetition whose number of initial infections is
+	 *                    {@code binomialChoices[0]}
+	 * @param firstInfectedSeed seed from which the random number streams for selecting the initial set of
+	 *                          infectious nodes are derived (see {@link helper.randomStreams})
+	 * @param outsideInfectionGen random number generator for external infections in subsequent time steps
+	 * @param transmissabilityGen random number generator for internal infections.
+	 */
+	void simulate(int firstReplication, int numberOfReplications, int[] binomialChoices, int firstChoice,
+	              long firstInfectedSeed, reseedableRandom outsideInfectionGen, reseedableRandom transmissabilityGen)
+	{
+		Arrays.fill(infectious, 0);
+		Arrays.fill(exposed, 0);
+		for (long[] masks: exposedDaysAgo)
+			Arrays.fill(masks, 0);
+		for (int r=0; r<numberOfReplications; r++)
+			Arrays.fill(infectiousDay[r], epidemicKernel.NOT_INFECTIOUS);
+		
+		// TIME 0: select initial infections of each sample path the same way as epidemicKernel
+		for (int r=0; r<numberOfReplications; r++)
+		{
+			firstInfectedGen.reseed(randomStreams.seedForReplication(firstInfectedSeed, firstReplication+r));
+			System.arraycopy(vertexSetOrder, 0, candidates, 0, s);
+			int numberOfCandidates = s;
+			for (int i=0; i<binomialChoices[firstReplication+r-firstChoice]; i++)
+			{
+				int randIndex = firstInfectedGen.nextInt(numberOfCandidates);
+				int v = candidates[randIndex];
+				System.arraycopy(candidates, randIndex+1, candidates, randIndex, numberOfCandidates-randIndex-1);
+				numberOfCandidates--;
+				makeInfectious(v, 1L<<r, 0);
+			}
+		}
+		long replications = (numberOfReplications==REPLICATIONS_PER_WORD) ? -1L : (1L<<numberOfReplications)-1;
+		externalInfectionSkip = nextSkip(outsideInfectionGen, logOfNoExternalInfection);
+		transmissionSkip = nextSkip(transmissabilityGen, logOfNoTransmission);
+		
+		for (int t=1; t<=timeStep; t++)
+		{
+			// find nodes infected by super node in the morning of t
+			for (int v: vertexSetOrder)
+			{
+				long newlyInfectious = nextExternalInfectionMask(outsideInfectionGen) & ~infectious[v] & replications;
+				if (newlyInfectious!=0)
+					makeInfectious(v, newlyInfectious, t);
+			}
+			// find infected nodes which became infectious after being latent
+			if (latency>=1)
+			{
+				long[] latent = exposedDaysAgo[latency];
+				for (int v=0; v<s; v++)
+				{
+					long newlyInfectious = latent[v] & ~infectious[v];
+					latent[v] = 0;
+					if (newlyInfectious!=0)
+						makeInfectious(v, newlyInfectious, t);
+				}
+			}
+			// internal infections
+			long[] newlyExposed = exposedDaysAgo[0];
+			for (int v=0; v<s; v++)
+			{
+				if (infectious[v]==0)
+					continue;
+				for (int e=offsets[v]; e<offsets[v+1]; e++)
+				{
+					int u = targets[e];
+					long susceptible = infectious[v] & ~(infectious[u] | exposed[u]);
+					if (susceptible==0)
+						continue;
+					long newlyExposedFromV = nextTransmissionMask(transmissabilityGen) & susceptible;
+					exposed[u] |= newlyExposedFromV;
+					newlyExposed[u] |= newlyExposedFromV;
+				}
+			}
+			// update time since infection
+			if (latency>=1)
+			{
+				long[] oldest = exposedDaysAgo[latency];
+				System.arraycopy(exposedDaysAgo, 0, exposedDaysAgo, 1, latency);
+				exposedDaysAgo[0] = oldest;
+			}
+			else
+				Arrays.fill(newlyExposed, 0);
+		}
+	}
+	
+	/**
+	 * Makes a node infectious in some sample paths.
+	 *
+	 * @param v id of the node
+	 * @param mask bitmask of the sample paths
+	 * @param t day on which the node becomes infectious.
+	 */
+	private void makeInfectious(int v, long mask, int t)
+	{
+		infectious[v] |= mask;
+		exposed[v] &= ~mask;
+		for (long m=mask; m!=0; m&=m-1)
+			infectiousDay[Long.numberOfTrailingZeros(m)][v] = (byte) t;
+	}
+	
+	/**
+	 * Returns a bitmask of external infections; each bit is 1 with the daily probability of infection from
+	 * outside world.
+	 *
+	 * @param outsideInfectionGen random number generator for external infections.
+	 * @return a bitmask of external infections.
+	 */
+	private long nextExternalInfectionMask(reseedableRandom outsideInfectionGen)
+	{
+		long mask = 0;
+		int position = 0;
+		while (externalInfectionSkip<REPLICATIONS_PER_WORD-position)
+		{
+			position += (int) externalInfectionSkip;
+			mask |= 1L<<position++;
+			externalInfectionSkip = nextSkip(outsideInfectionGen, logOfNoExternalInfection);
+		}
+		externalInfectionSkip -= REPLICATIONS_PER_WORD-position;
+		return complementOfExternalInfection ? ~mask : mask;
+	}
+	
+	/**
+	 * Returns a bitmask of transmissions; each bit is 1 with the daily probability of transmission.
+	 *
+	 * @param transmissabilityGen random number generator for internal infections.
+	 * @return a bitmask of transmissions.
+	 */
+	private long nextTransmissionMask(reseedableRandom transmissabilityGen)
+	{
+		long mask = 0;
+		int position = 0;
+		while (transmissionSkip<REPLICATIONS_PER_WORD-position)
+		{
+			position += (int) transmissionSkip;
+			mask |= 1L<<position++;
+			transmissionSkip = nextSkip(transmissabilityGen, logOfNoTransmission);
+		}
+		transmissionSkip -= REPLICATIONS_PER_WORD-position;
+		return complementOfTransmission ? ~mask : mask;
+	}
+	
+	/**
+	 * Returns the number of 0 bits before the next 1 bit.
+	 *
+	 * @param gen random number generator
+	 * @param logOfFailureProbability natural logarithm of the probability of a bit being 0.
+	 * @return the number of 0 bits before the next 1 bit; {@link Long#MAX_VALUE} if bits are never 1.
+	 */
+	private static long nextSkip(reseedableRandom gen, double logOfFailureProbability)
+	{
+		if (logOfFailureProbability==0)
+			return Long.MAX_VALUE;
+		return gen.nextGeometric(logOfFailureProbability);
+	}
+}
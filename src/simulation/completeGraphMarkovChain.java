@@ -0,0 +1,555 @@
+package simulation;
+
+import dataTypes.simulationParameters;
+import network.csrGraph;
+import network.graph;
+
+import java.util.*;
+
+/**
+ * Computes the exact distribution of the epidemic on a complete graph (see
+ * {@link network.graph#initializeAsCompleteGraph(int, int)}), without simulation.
+ * <br>
+ * On a complete graph all nodes are interchangeable, so the epidemic is a Markov chain on the number of nodes
+ * that are susceptible, exposed (for each number of days since infection), and infectious.
+ * The chain follows the same steps each day as {@link epidemicKernel}: infections from outside world,
+ * exposed nodes becoming infectious, internal infections (a susceptible node is exposed with probability
+ * {@code 1-(1-transmissability)^I} when {@code I} nodes are infectious), and aging of exposed nodes.
+ * <br>
+ * For disease testing, the nodes are split into two groups, the nodes that have been tested and the nodes that
+ * have not; the {@code k} nodes tested on a day are a uniformly random subset of the untested nodes, whose
+ * infectious nodes are each missed with the false negative probability.
+ * Since nodes are interchangeable, the detection probability is the same for the sequential and for a random
+ * testing order; it requires {@code k*timeStep<=s}, so that no node is tested twice.
+ * <br>
+ * States with probability below a tolerance are dropped;
+ * the total probability dropped is an upper bound on the error (see
+ * {@link completeGraphMarkovChain#getDroppedProbability()}).
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 1, 2020.
+ */
+public class completeGraphMarkovChain
+{
+	/**
+	 * Class of susceptible nodes.
+	 */
+	private static final int SUSCEPTIBLE = 0;
+	
+	/**
+	 * Class of infectious nodes; classes {@code 1, ..., latency} are exposed nodes by number of days since
+	 * infection.
+	 */
+	private final int infectious;
+	
+	/**
+	 * Number of nodes (excluding the super node).
+	 */
+	private final int s;
+	
+	/**
+	 * Time step of the simulation.
+	 */
+	private final int timeStep;
+	
+	/**
+	 * Number of days to move from the exposed state to the infected state.
+	 */
+	private final int latency;
+	
+	/**
+	 * Daily probability of transmission.
+	 */
+	private final double transmissability;
+	
+	/**
+	 * Daily probability of infection from outside world.
+	 */
+	private final double externalInfectionProbability;
+	
+	/**
+	 * Probability of a false negative test result.
+	 */
+	private final double fnRate;
+	
+	/**
+	 * States with probability below {@code tolerance} are dropped.
+	 */
+	private final double tolerance;
+	
+	/**
+	 * Natural logarithms of factorials of {@code 0, 1, ..., s}.
+	 */
+	private final double[] logFactorial;
+	
+	/**
+	 * Total probability of the states dropped in the last computation.
+	 */
+	private double droppedProbability;
+	
+	/**
+	 * Constructor.
+	 * <br>
+	 * States with probability below {@code 1e-12} are dropped.
+	 *
+	 * @param g network graph; should be a complete graph
+	 * @param param simulation parameters.
+	 * @throws Exception thrown if {@code g} is not a complete graph, or if the parameters are not supported
+	 *                   (see {@link completeGraphMarkovChain#completeGraphMarkovChain(graph, simulationParameters,
+	 *                   double)}).
+	 */
+	public completeGraphMarkovChain(graph g, simulationParameters param) throws Exception
+	{
+		this(g, param, 1e-12);
+	}
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param g network graph; should be a complete graph
+	 * @param param simulation parameters
+	 * @param tolerance states with probability below {@code tolerance} are dropped.
+	 * @throws Exception thrown if {@code g} is not a complete graph;
+	 *                   or if minimum node label in the graph {@code g} is less than 2;
+	 *                   or if the latency is less than 1, or random (the states of the chain need a fixed latency);
+	 *                   or if the daily probability of infection from outside world is not positive.
+	 */
+	public completeGraphMarkovChain(graph g, simulationParameters param, double tolerance) throws Exception
+	{
+		if (g.getMinimumNodeLabel()<2)
+			throw new Exception("Node labels should be >=2!");
+		if (!isCompleteGraph(new csrGraph(g)))
+			throw new Exception("Graph is not a complete graph!");
+		if (param.getLatency()<1)
+			throw new Exception("Latency should be at least 1!");
+		if (param.getLatencyDistribution()!=null)
+			throw new Exception("Random latency is not supported!");
+		if (param.getExternalInfectionProbability()<=0)
+			throw new Exception("Probability of infection from outside world should be positive!");
+		this.s = g.getVertexSet().size();
+		this.timeStep = param.getTimeStep();
+		this.latency = param.getLatency();
+		this.infectious = latency+1;
+		this.transmissability = param.getTransmissability();
+		this.externalInfectionProbability = param.getExternalInfectionProbability();
+		this.fnRate = param.getFalseNegativeProbability();
+		this.tolerance = tolerance;
+		this.logFactorial = new double[s+1];
+		for (int i=1; i<=s; i++)
+			logFactorial[i] = logFactorial[i-1]+Math.log(i);
+		this.droppedProbability = 0;
+	}
+	
+	/**
+	 * Checks whether a graph is a complete graph, i.e., every node is adjacent to every other node exactly once,
+	 * and there are no self-loops.
+	 *
+	 * @param g network graph.
+	 * @return {@code true}, if {@code g} is a complete graph; {@code false}, otherwise.
+	 */
+	public static boolean isCompleteGraph(csrGraph g)
+	{
+		int n = g.getNumberOfNodes();
+		boolean[] seen = new boolean[n];
+		for (int v=0; v<n; v++)
+		{
+			if (g.getDegree(v)!=n-1)
+				return false;
+			Arrays.fill(seen, false);
+			seen[v] = true;
+			for (int j=0; j<n-1; j++)
+			{
+				int u = g.getNeighbor(v, j);
+				if (seen[u])
+					return false;
+				seen[u] = true;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return total probability of the states dropped in the last computation;
+	 * an upper bound on the error of its results.
+	 */
+	public double getDroppedProbability()
+	{
+		return droppedProbability;
+	}
+	
+	/**
+	 * Returns the exact distribution of the number of infectious nodes at each time;
+	 * the initial infection is conditional binomial.
+	 *
+	 * @return an array whose {@code [t][n]}<sup>th</sup> element is the probability that {@code n} nodes
+	 * (excluding the super node) are infectious by time {@code t}.
+	 */
+	public double[][] getDistributionOfInfectiousNodes()
+	{
+		double[][] distribution = new double[timeStep+1][s+1];
+		droppedProbability = 0;
+		Map<chainState, Double> states = getInitialStates();
+		record(states, distribution[0]);
+		for (int t=1; t<=timeStep; t++)
+		{
+			states = infectFromOutsideAndPromote(states);
+			record(states, distribution[t]);
+			states = transmitAndAge(states);
+		}
+		return distribution;
+	}
+	
+	/**
+	 * Returns the exact probability of detecting the outbreak with {@code k} tests per day,
+	 * for the sequential as well as a random testing order (see
+	 * {@link analysis.fixedNumberOfTestsPerDay#test(graph, simulationRuns, int, double, int)});
+	 * the initial infection is conditional binomial.
+	 *
+	 * @param k number of tests per day.
+	 * @return probability of detecting the outbreak by the time step;
+	 * it overestimates by at most {@link completeGraphMarkovChain#getDroppedProbability()}.
+	 * @throws Exception thrown if {@code k*timeStep>s}, or if {@code k<0}.
+	 */
+	public double getDetectionProbability(int k) throws Exception
+	{
+		if (k<0)
+			throw new Exception("Number of tests per day should be non-negative!");
+		if ((long) k*timeStep>s)
+			throw new Exception("Number of tests per day times time step should be at most the number of nodes!");
+		droppedProbability = 0;
+		Map<chainState, Double> states = getInitialStates();
+		for (int t=1; t<=timeStep; t++)
+		{
+			states = infectFromOutsideAndPromote(states);
+			states = test(states, k);
+			if (t<timeStep)
+				states = transmitAndAge(states);
+		}
+		double probabilityOfNoDetection = 0;
+		for (double p: states.values())
+			probabilityOfNoDetection += p;
+		return 1-probabilityOfNoDetection;
+	}
+	
+	/**
+	 * Returns the states at time 0: all nodes are untested, and a truncated binomial number of nodes are infectious.
+	 *
+	 * @return a map from states to their probabilities.
+	 */
+	private Map<chainState, Double> getInitialStates()
+	{
+		double[] pmf = simulationRuns.getTruncatedBinomialPMF(s, externalInfectionProbability);
+		Map<chainState, Double> states = new HashMap<>();
+		for (int n=1; n<=s; n++)
+		{
+			chainState state = new chainState(new int[2*(infectious+1)]);
+			state.counts[index(0, SUSCEPTIBLE)] = s-n;
+			state.counts[index(0, infectious)] = n;
+			add(states, state, pmf[n-1]);
+		}
+		return states;
+	}
+	
+	/**
+	 * Infects susceptible and exposed nodes from outside world, and makes exposed nodes infectious after
+	 * {@code latency} days.
+	 * <br>
+	 * Exposed nodes that become infectious after {@code latency} days do so on the same day whether or not they
+	 * are infected from outside world; so, they are made infectious first, which merges states early.
+	 *
+	 * @param states a map from states to their probabilities.
+	 * @return a map from states to their probabilities after the step.
+	 */
+	private Map<chainState, Double> infectFromOutsideAndPromote(Map<chainState, Double> states)
+	{
+		Map<chainState, Double> promoted = new HashMap<>();
+		for (Map.Entry<chainState, Double> e: states.entrySet())
+		{
+			chainState nextState = e.getKey().copy();
+			for (int group=0; group<2; group++)
+			{
+				nextState.counts[index(group, infectious)] += nextState.counts[index(group, latency)];
+				nextState.counts[index(group, latency)] = 0;
+			}
+			add(promoted, nextState, e.getValue());
+		}
+		states = promoted;
+		for (int group=0; group<2; group++)
+		{
+			for (int c=SUSCEPTIBLE; c<latency; c++)
+			{
+				Map<chainState, Double> next = new HashMap<>();
+				for (Map.Entry<chainState, Double> e: states.entrySet())
+				{
+					move(e.getKey(), e.getValue(), index(group, c), index(group, infectious),
+							externalInfectionProbability, next);
+				}
+				states = next;
+			}
+		}
+		return states;
+	}
+	
+	/**
+	 * Ages exposed nodes by a day, and then exposes each susceptible node with probability
+	 * {@code 1-(1-transmissability)^I}, where {@code I} is the number of infectious nodes.
+	 *
+	 * @param states a map from states to their probabilities.
+	 * @return a map from states to their probabilities after the step.
+	 */
+	private Map<chainState, Double> transmitAndAge(Map<chainState, Double> states)
+	{
+		Map<chainState, Double> aged = new HashMap<>();
+		for (Map.Entry<chainState, Double> e: states.entrySet())
+		{
+			chainState nextState = e.getKey().copy();
+			for (int group=0; group<2; group++)
+			{
+				for (int a=latency; a>1; a--)
+					nextState.counts[index(group, a)] = nextState.counts[index(group, a-1)];
+				nextState.counts[index(group, 1)] = 0;
+			}
+			add(aged, nextState, e.getValue());
+		}
+		states = aged;
+		for (int group=0; group<2; group++)
+		{
+			Map<chainState, Double> next = new HashMap<>();
+			for (Map.Entry<chainState, Double> e: states.entrySet())
+			{
+				double p = 1-Math.pow(1-transmissability, getNumberOfInfectiousNodes(e.getKey()));
+				move(e.getKey(), e.getValue(), index(group, SUSCEPTIBLE), index(group, 1), p, next);
+			}
+			states = next;
+		}
+		return states;
+	}
+	
+	/**
+	 * Moves a binomial number of nodes, {@code Bin(n, p)} for {@code n} nodes in a class, to another class,
+	 * and adds the resulting states to {@code next}.
+	 * The upper tail of the binomial distribution is dropped once it is below the tolerance.
+	 *
+	 * @param state state
+	 * @param probability probability of {@code state}
+	 * @param from index of the class to move nodes from
+	 * @param to index of the class to move nodes to
+	 * @param p probability with which each node is moved
+	 * @param next a map from states to their probabilities to add the resulting states to.
+	 */
+	private void move(chainState state, double probability, int from, int to, double p,
+	                  Map<chainState, Double> next)
+	{
+		int n = state.counts[from];
+		if ((n==0) || (p<=0) || (p>=1))
+		{
+			int j = (p>=1) ? n : 0;
+			chainState nextState = state.copy();
+			nextState.counts[from] -= j;
+			nextState.counts[to] += j;
+			add(next, nextState, probability);
+			return;
+		}
+		double mode = (n+1)*p;
+		double odds = p/(1-p);
+		double pmf = Math.exp(n*Math.log1p(-p));
+		double cumulativeProbability = 0;
+		for (int j=0; j<=n; j++)
+		{
+			if ((j>mode) && (probability*pmf<tolerance))
+			{
+				droppedProbability += probability*Math.max(0, 1-cumulativeProbability);
+				return;
+			}
+			cumulativeProbability += pmf;
+			chainState nextState = state.copy();
+			nextState.counts[from] -= j;
+			nextState.counts[to] += j;
+			add(next, nextState, probability*pmf);
+			pmf *= odds*(n-j)/(j+1);
+		}
+	}
+	
+	/**
+	 * Tests {@code k} uniformly random untested nodes, and moves them to the tested group;
+	 * only the sample paths in which the outbreak is not detected are kept.
+	 *
+	 * @param states a map from states to their probabilities
+	 * @param k number of tests.
+	 * @return a map from states to their probabilities jointly with no detection so far.
+	 */
+	private Map<chainState, Double> test(Map<chainState, Double> states, int k)
+	{
+		Map<chainState, Double> next = new HashMap<>();
+		for (Map.Entry<chainState, Double> e: states.entrySet())
+		{
+			chainState state = e.getKey();
+			int untested = 0;
+			for (int c=SUSCEPTIBLE; c<=infectious; c++)
+				untested += state.counts[index(0, c)];
+			drawTestedNodes(state.copy(), e.getValue(), infectious, k, untested, next);
+		}
+		return next;
+	}
+	
+	/**
+	 * Draws the number of tested nodes in each class of untested nodes, one class after the other
+	 * (multivariate hypergeometric distribution), and adds the resulting states to {@code next}.
+	 *
+	 * @param state state with tested nodes of classes after {@code c} already moved to the tested group
+	 * @param probability probability of {@code state}
+	 * @param c class of untested nodes to draw from; classes are drawn from infectious to susceptible
+	 * @param remainingTests number of tests not yet drawn
+	 * @param remainingUntested number of untested nodes in classes up to {@code c}
+	 * @param next a map from states to their probabilities to add the resulting states to.
+	 */
+	private void drawTestedNodes(chainState state, double probability, int c, int remainingTests,
+	                             int remainingUntested, Map<chainState, Double> next)
+	{
+		if ((c<SUSCEPTIBLE) || (remainingTests==0))
+		{
+			add(next, state, probability);
+			return;
+		}
+		int from = index(0, c);
+		int to = index(1, c);
+		int n = state.counts[from];
+		for (int j=Math.max(0, remainingTests-(remainingUntested-n)); j<=Math.min(n, remainingTests); j++)
+		{
+			double p = probability*Math.exp(logChoose(n, j)+logChoose(remainingUntested-n, remainingTests-j)
+					-logChoose(remainingUntested, remainingTests));
+			if (c==infectious)
+				p *= Math.pow(fnRate, j);
+			chainState nextState = state.copy();
+			nextState.counts[from] -= j;
+			nextState.counts[to] += j;
+			drawTestedNodes(nextState, p, c-1, remainingTests-j, remainingUntested-n, next);
+		}
+	}
+	
+	/**
+	 * Adds probability to a state, or drops it if it is below the tolerance.
+	 *
+	 * @param states a map from states to their probabilities
+	 * @param state state
+	 * @param probability probability to add.
+	 */
+	private void add(Map<chainState, Double> states, chainState state, double probability)
+	{
+		if (probability<tolerance)
+		{
+			droppedProbability += probability;
+			return;
+		}
+		states.merge(state, probability, Double::sum);
+	}
+	
+	/**
+	 * Adds the probability of each number of infectious nodes to {@code distribution}.
+	 *
+	 * @param states a map from states to their probabilities
+	 * @param distribution an array whose {@code n}<sup>th</sup> element is the probability of {@code n} infectious
+	 *                     nodes.
+	 */
+	private void record(Map<chainState, Double> states, double[] distribution)
+	{
+		for (Map.Entry<chainState, Double> e: states.entrySet())
+			distribution[getNumberOfInfectiousNodes(e.getKey())] += e.getValue();
+	}
+	
+	/**
+	 * Returns the natural logarithm of {@code n}-choose-{@code j}.
+	 *
+	 * @param n number of elements
+	 * @param j number of chosen elements.
+	 * @return natural logarithm of {@code n}-choose-{@code j}.
+	 */
+	private double logChoose(int n, int j)
+	{
+		return logFactorial[n]-logFactorial[j]-logFactorial[n-j];
+	}
+	
+	/**
+	 * Returns the index of a class of a group in {@link chainState#counts}.
+	 *
+	 * @param group 0 for untested nodes; 1 for tested nodes
+	 * @param c class: {@link completeGraphMarkovChain#SUSCEPTIBLE}, {@code 1, ..., latency} for exposed nodes by
+	 *          number of days since infection, or {@link completeGraphMarkovChain#infectious}.
+	 * @return the index of class {@code c} of group {@code group}.
+	 */
+	private int index(int group, int c)
+	{
+		return group*(infectious+1)+c;
+	}
+	
+	/**
+	 * Returns the number of infectious nodes (in both groups) in a state.
+	 *
+	 * @param state state.
+	 * @return the number of infectious nodes in {@code state}.
+	 */
+	private int getNumberOfInfectiousNodes(chainState state)
+	{
+		return state.counts[index(0, infectious)]+state.counts[index(1, infectious)];
+	}
+	
+	/**
+	 * Represents a state of the Markov chain: the number of nodes in each class of the untested group and of the
+	 * tested group (see {@link completeGraphMarkovChain#index(int, int)}).
+	 */
+	private static class chainState
+	{
+		/**
+		 * Number of nodes in each class of each group.
+		 */
+		final int[] counts;
+		
+		/**
+		 * Constructor.
+		 *
+		 * @param counts number of nodes in each class of each group.
+		 */
+		chainState(int[] counts)
+		{
+			this.counts = counts;
+		}
+		
+		/**
+		 * Returns a copy of the state.
+		 *
+		 * @return a copy of the state.
+		 */
+		chainState copy()
+		{
+			return new chainState(counts.clone());
+		}
+		
+		/**
+		 * Indicates whether some other object is "equal to" this one.
+		 *
+		 * @param o the reference object with which to compare.
+		 * @return {@code true} if this object is the same as the obj argument; {@code false} otherwise.
+		 */
+		@Override
+		public boolean equals(Object o)
+		{
+			if (this==o)
+				return true;
+			if (o==null || getClass()!=o.getClass())
+				return false;
+			return Arrays.equals(counts, ((chainState) o).counts);
+		}
+		
+		/**
+		 * Returns a hash code value for the object.
+		 *
+		 * @return a hash code value for this object.
+		 */
+		@Override
+		public int hashCode()
+		{
+			return Arrays.hashCode(counts);
+		}
+	}
+}
@@ -0,0 +1,316 @@
+package simulation;
+
+import dataTypes.simulationParameters;
+import helper.randomStreams;
+import helper.reseedableRandom;
+import network.csrGraph;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Simulates a sample path of the epidemic for several points of a sweep over transmissabilities and external
+ * infection probabilities at once, coupled by common random numbers.
+ * <br>
+ * Each trial of infection has one random number shared by all points, looked up by its index
+ * (see {@link helper.randomStreams#doubleAt(long, long)}) instead of drawn in order: the trial of external
+ * infection of the {@code i}<sup>th</sup> node of the vertex set on day {@code t}, and the trial of transmission
+ * along the {@code e}<sup>th</sup> neighbor entry (see {@link network.csrGraph#getTargets()}) on day {@code t}.
+ * The random number is computed once and compared with the probability of every point in the same pass over the
+ * graph; the latency of each node is drawn once for all points, and the initial infections of a point are the
+ * first ones of a random order shared by all points.
+ * Hence, the coupling is monotone: a node infectious on a day at some point is infectious on that day at every
+ * point with a larger transmissability and external infection probability (and at least as many initial
+ * infections), and detection probabilities vary smoothly over the sweep.
+ * <br>
+ * The model is the same as that of {@link epidemicKernel} (external infections, promotions, then transmissions,
+ * each day); the sample paths have the same distribution, but use the random number streams differently.
+ * An instance is not thread-safe; use one instance per thread.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 11, 2020.
+ */
+class coupledSweepKernel
+{
+	/**
+	 * Value of {@link coupledSweepKernel#infectiousDay} for nodes that did not become infectious within the time
+	 * step.
+	 */
+	private static final byte NOT_INFECTIOUS = epidemicKernel.NOT_INFECTIOUS;
+	
+	/**
+	 * State of a susceptible node.
+	 */
+	private static final byte SUSCEPTIBLE = 0;
+	
+	/**
+	 * State of an exposed (infected, but not yet infectious) node.
+	 */
+	private static final byte EXPOSED = 1;
+	
+	/**
+	 * State of an infectious node.
+	 */
+	private static final byte INFECTIOUS = 2;
+	
+	/**
+	 * Number of nodes (excluding the super node).
+	 */
+	private final int s;
+	
+	/**
+	 * Offsets of the adjacency lists (see {@link network.csrGraph#getOffsets()}).
+	 */
+	private final int[] offsets;
+	
+	/**
+	 * Neighbor ids of the adjacency lists (see {@link network.csrGraph#getTargets()}).
+	 */
+	private final int[] targets;
+	
+	/**
+	 * Node ids in the order of the vertex set of the network;
+	 * the order in which the super node tries to infect nodes, and from which the initial infections are selected.
+	 */
+	private final int[] vertexSetOrder;
+	
+	/**
+	 * Time step of each simulation run.
+	 */
+	private final int timeStep;
+	
+	/**
+	 * Number of days to move from the exposed state to the infected state.
+	 */
+	private final int latency;
+	
+	/**
+	 * Cumulative probability distribution of the latency of each node;
+	 * {@code null}, if every node has a latency of {@link coupledSweepKernel#latency} days.
+	 */
+	private final double[] latencyCDF;
+	
+	/**
+	 * Daily probability of transmission of each point.
+	 */
+	private final double[] transmissabilities;
+	
+	/**
+	 * Daily probability of infection from outside world of each point.
+	 */
+	private final double[] externalInfectionProbabilities;
+	
+	/**
+	 * State of each node at each point.
+	 */
+	private final byte[][] state;
+	
+	/**
+	 * Day on which each node became infectious at each point; {@link coupledSweepKernel#NOT_INFECTIOUS} if it did
+	 * not.
+	 */
+	private final byte[][] infectiousDay;
+	
+	/**
+	 * Day on which each exposed node becomes infectious at each point; 0 if it does not.
+	 */
+	private final int[][] promotionDay;
+	
+	/**
+	 * Number of points at which each node is infectious.
+	 */
+	private final int[] numberOfInfectiousPoints;
+	
+	/**
+	 * Scratch space for selecting the initial set of infectious nodes.
+	 */
+	private final int[] candidates;
+	
+	/**
+	 * Seed of the random numbers of the latency of each node in the current sample path.
+	 */
+	private long latencySeed;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param listOfParams simulation parameters of the points; they should differ only in the transmissability and
+	 *                     the external infection probability.
+	 */
+	coupledSweepKernel(csrGraph g, List<simulationParameters> listOfParams)
+	{
+		simulationParameters param = listOfParams.get(0);
+		int numberOfPoints = listOfParams.size();
+		this.s = g.getNumberOfNodes();
+		this.offsets = g.getOffsets();
+		this.targets = g.getTargets();
+		this.vertexSetOrder = g.getVertexSetOrder();
+		this.timeStep = param.getTimeStep();
+		this.latency = param.getLatency();
+		this.latencyCDF = (param.getLatencyDistribution()==null) ? null : getCDF(param.getLatencyDistribution());
+		this.transmissabilities = new double[numberOfPoints];
+		this.externalInfectionProbabilities = new double[numberOfPoints];
+		for (int p=0; p<numberOfPoints; p++)
+		{
+			transmissabilities[p] = listOfParams.get(p).getTransmissability();
+			externalInfectionProbabilities[p] = listOfParams.get(p).getExternalInfectionProbability();
+		}
+		this.state = new byte[numberOfPoints][s];
+		this.infectiousDay = new byte[numberOfPoints][s];
+		this.promotionDay = new int[numberOfPoints][s];
+		this.numberOfInfectiousPoints = new int[s];
+		this.candidates = new int[s];
+	}
+	
+	/**
+	 * Returns the day on which each node became infectious at a point in the last simulated sample path.
+	 * <br>
+	 * The returned array is overwritten by the next call to {@link coupledSweepKernel#simulate(int[],
+	 * reseedableRandom, long, long)}.
+	 *
+	 * @param p index of the point.
+	 * @return day on which each node became infectious at point {@code p};
+	 * {@link dataTypes.simulationOutput#NOT_INFECTIOUS} if it did not.
+	 */
+	byte[] getInfectiousDay(int p)
+	{
+		return infectiousDay[p];
+	}
+	
+	/**
+	 * Simulates a sample path at every point.
+	 *
+	 * @param initialNumberOfInfections number of nodes infectious at time 0 (excluding the super node) at each point
+	 * @param firstInfectedGen random number generator for selecting the initial set of infectious nodes
+	 * @param outsideInfectionSeed seed from which the random numbers of external infections on each day are derived
+	 * @param transmissionSeed seed from which the random numbers of transmissions on each day, and of the latency
+	 *                         of each node, are derived.
+	 */
+	void simulate(int[] initialNumberOfInfections, reseedableRandom firstInfectedGen, long outsideInfectionSeed,
+	              long transmissionSeed)
+	{
+		int numberOfPoints = state.length;
+		for (int p=0; p<numberOfPoints; p++)
+		{
+			Arrays.fill(state[p], SUSCEPTIBLE);
+			Arrays.fill(infectiousDay[p], NOT_INFECTIOUS);
+			Arrays.fill(promotionDay[p], 0);
+		}
+		Arrays.fill(numberOfInfectiousPoints, 0);
+		latencySeed = randomStreams.seedForReplication(transmissionSeed, 0);
+		
+		// TIME 0: the initial infections of each point are the first ones of the same random order
+		int maximumInitialInfections = Arrays.stream(initialNumberOfInfections).max().orElse(0);
+		System.arraycopy(vertexSetOrder, 0, candidates, 0, s);
+		int numberOfCandidates = s;
+		for (int i=0; i<maximumInitialInfections; i++)
+		{
+			int randIndex = firstInfectedGen.nextInt(numberOfCandidates);
+			int v = candidates[randIndex];
+			System.arraycopy(candidates, randIndex+1, candidates, randIndex, numberOfCandidates-randIndex-1);
+			numberOfCandidates--;
+			for (int p=0; p<numberOfPoints; p++)
+				if (i<initialNumberOfInfections[p])
+					makeInfectious(p, v, 0);
+		}
+		
+		for (int t=1; t<=timeStep; t++)
+		{
+			// find nodes infected by super node in the morning of t
+			long externalInfectionSeed = randomStreams.seedForReplication(outsideInfectionSeed, t);
+			for (int i=0; i<s; i++)
+			{
+				int v = vertexSetOrder[i];
+				if (numberOfInfectiousPoints[v]==numberOfPoints)
+					continue;
+				double r = randomStreams.doubleAt(externalInfectionSeed, i);
+				for (int p=0; p<numberOfPoints; p++)
+					if ((state[p][v]!=INFECTIOUS) && (r<=externalInfectionProbabilities[p]))
+						makeInfectious(p, v, t);
+			}
+			// find infected nodes which became infectious after being latent
+			for (int p=0; p<numberOfPoints; p++)
+				for (int v=0; v<s; v++)
+					if ((state[p][v]==EXPOSED) && (promotionDay[p][v]==t))
+						makeInfectious(p, v, t);
+			// internal infections
+			long transmissionDaySeed = randomStreams.seedForReplication(transmissionSeed, t);
+			for (int v=0; v<s; v++)
+			{
+				if (numberOfInfectiousPoints[v]==0)
+					continue;
+				for (int e=offsets[v]; e<offsets[v+1]; e++)
+				{
+					int u = targets[e];
+					double r = randomStreams.doubleAt(transmissionDaySeed, e);
+					for (int p=0; p<numberOfPoints; p++)
+						if ((state[p][v]==INFECTIOUS) && (state[p][u]==SUSCEPTIBLE) && (r<=transmissabilities[p]))
+							expose(p, u, t);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Exposes a node at a point, and sets the day on which it becomes infectious.
+	 *
+	 * @param p index of the point
+	 * @param u id of the node
+	 * @param t day on which the node is exposed.
+	 */
+	private void expose(int p, int u, int t)
+	{
+		state[p][u] = EXPOSED;
+		int d = (latencyCDF==null) ? latency : drawLatency(u);
+		if (d>0)
+			promotionDay[p][u] = t+d;
+	}
+	
+	/**
+	 * Draws the latency of a node from {@link coupledSweepKernel#latencyCDF} by inversion of a random number of the
+	 * node, so the latency is the same at every point.
+	 *
+	 * @param u id of the node.
+	 * @return the latency of the node in days.
+	 */
+	private int drawLatency(int u)
+	{
+		double r = randomStreams.doubleAt(latencySeed, u);
+		int d = 0;
+		while ((d<latencyCDF.length-1) && (r>=latencyCDF[d]))
+			d++;
+		return d;
+	}
+	
+	/**
+	 * Returns the cumulative probability distribution of a probability distribution.
+	 *
+	 * @param pmf probability distribution.
+	 * @return the cumulative probability distribution of {@code pmf}.
+	 */
+	private static double[] getCDF(double[] pmf)
+	{
+		double[] cdf = new double[pmf.length];
+		double sum = 0;
+		for (int d=0; d<pmf.length; d++)
+		{
+			sum += pmf[d];
+			cdf[d] = sum;
+		}
+		return cdf;
+	}
+	
+	/**
+	 * Makes a node infectious at a point.
+	 *
+	 * @param p index of the point
+	 * @param v id of the node
+	 * @param t day on which the node becomes infectious.
+	 */
+	private void makeInfectious(int p, int v, int t)
+	{
+		state[p][v] = INFECTIOUS;
+		infectiousDay[p][v] = (byte) t;
+		numberOfInfectiousPoints[v]++;
+	}
+}
@@ -0,0 +1,244 @@
+package simulation;
+
+import helper.reseedableRandom;
+import network.csrGraph;
+
+import java.util.Arrays;
+
+/**
+ * Simulates a single sample path of the epidemic with the state of each node kept in dense {@code int} arrays
+ * of 0/1 flags, so the daily updates are loops over all nodes without branches that the JIT compiler can
+ * turn into SIMD instructions (with a scalar loop on hardware without them).
+ * <br>
+ * Each day, the random numbers are drawn first, in the same order as in {@link epidemicKernel},
+ * and are then compared with the probabilities in a separate loop;
+ * the latency is tracked by incrementing the age of every exposed node and promoting exposed nodes whose age
+ * equals the latency with arithmetic masks.
+ * So, given the same random number streams, the sample path is the same as the one of {@link epidemicKernel}
+ * (without geometric skips).
+ * <br>
+ * An instance is not thread-safe; use one instance per thread.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 30, 2020.
+ */
+class denseEpidemicKernel implements epidemicEngine
+{
+	/**
+	 * Random number that is never at most a probability; used for trials that are not drawn.
+	 */
+	private static final double NO_TRIAL = 2;
+	
+	/**
+	 * Number of nodes (excluding the super node).
+	 */
+	private final int s;
+	
+	/**
+	 * Offsets of the adjacency lists (see {@link network.csrGraph#getOffsets()}).
+	 */
+	private final int[] offsets;
+	
+	/**
+	 * Neighbor ids of the adjacency lists (see {@link network.csrGraph#getTargets()}).
+	 */
+	private final int[] targets;
+	
+	/**
+	 * Node ids in the order of the vertex set of the network;
+	 * the order in which the super node tries to infect nodes, and from which the initial infections are selected.
+	 */
+	private final int[] vertexSetOrder;
+	
+	/**
+	 * Time step of each simulation run.
+	 */
+	private final int timeStep;
+	
+	/**
+	 * Number of days to move from the exposed state to the infected state.
+	 */
+	private final int latency;
+	
+	/**
+	 * Daily probability of transmission.
+	 */
+	private final double transmissability;
+	
+	/**
+	 * Daily probability of infection from outside world.
+	 */
+	private final double externalInfectionProbability;
+	
+	/**
+	 * 1 for infectious nodes; 0, otherwise.
+	 */
+	private final int[] infectious;
+	
+	/**
+	 * 1 for exposed (infected, but not yet infectious) nodes; 0, otherwise.
+	 */
+	private final int[] exposed;
+	
+	/**
+	 * Number of days since each exposed node was infected.
+	 */
+	private final int[] age;
+	
+	/**
+	 * Day on which each node became infectious; {@link epidemicKernel#NOT_INFECTIOUS} if it did not.
+	 */
+	private final int[] day;
+	
+	/**
+	 * Random number of the trial of external infection of each node on the current day;
+	 * {@link denseEpidemicKernel#NO_TRIAL} for infectious nodes.
+	 */
+	private final double[] externalInfectionUniform;
+	
+	/**
+	 * Random number of the trial of transmission along each neighbor entry on the current day;
+	 * {@link denseEpidemicKernel#NO_TRIAL} for infectious neighbors.
+	 */
+	private final double[] transmissionUniform;
+	
+	/**
+	 * 1 for nodes with a successful trial of transmission on the current day; 0, otherwise.
+	 */
+	private final int[] transmitted;
+	
+	/**
+	 * Day on which each node became infectious, in the form returned by
+	 * {@link denseEpidemicKernel#getInfectiousDay()}.
+	 */
+	private final byte[] infectiousDay;
+	
+	/**
+	 * Scratch space for selecting the initial set of infectious nodes.
+	 */
+	private final int[] candidates;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param timeStep time step of each simulation run; at most {@link epidemicKernel#MAX_TIME_STEP}
+	 * @param latency number of days to move from the exposed state to the infected state
+	 * @param transmissability daily probability of transmission
+	 * @param externalInfectionProbability daily probability of infection from outside world.
+	 */
+	denseEpidemicKernel(csrGraph g, int timeStep, int latency, double transmissability,
+	                    double externalInfectionProbability)
+	{
+		this.s = g.getNumberOfNodes();
+		this.offsets = g.getOffsets();
+		this.targets = g.getTargets();
+		this.vertexSetOrder = g.getVertexSetOrder();
+		this.timeStep = timeStep;
+		this.latency = latency;
+		this.transmissability = transmissability;
+		this.externalInfectionProbability = externalInfectionProbability;
+		this.infectious = new int[s];
+		this.exposed = new int[s];
+		this.age = new int[s];
+		this.day = new int[s];
+		this.externalInfectionUniform = new double[s];
+		this.transmissionUniform = new double[targets.length];
+		this.transmitted = new int[s];
+		this.infectiousDay = new byte[s];
+		this.candidates = new int[s];
+	}
+	
+	/**
+	 * Getter.
+	 * <br>
+	 * The returned array is overwritten by the next call to
+	 * {@link denseEpidemicKernel#simulate(int, reseedableRandom, reseedableRandom, reseedableRandom)}.
+	 *
+	 * @return {@link denseEpidemicKernel#infectiousDay}.
+	 */
+	@Override
+	public byte[] getInfectiousDay()
+	{
+		return infectiousDay;
+	}
+	
+	/**
+	 * Simulates a sample path; results are in {@link denseEpidemicKernel#getInfectiousDay()}.
+	 *
+	 * @param initialNumberOfInfections number of nodes infectious at time 0 (excluding the super node)
+	 * @param firstInfectedGen random number generator for selecting the initial set of infectious nodes
+	 * @param outsideInfectionGen random number generator for external infections in subsequent time steps
+	 * @param transmissabilityGen random number generator for internal infections.
+	 */
+	@Override
+	public void simulate(int initialNumberOfInfections, reseedableRandom firstInfectedGen,
+	                     reseedableRandom outsideInfectionGen, reseedableRandom transmissabilityGen)
+	{
+		Arrays.fill(infectious, 0);
+		Arrays.fill(exposed, 0);
+		Arrays.fill(age, 0);
+		Arrays.fill(day, epidemicKernel.NOT_INFECTIOUS);
+		Arrays.fill(transmitted, 0);
+		
+		// TIME 0: select initial infections the same way as epidemicKernel
+		System.arraycopy(vertexSetOrder, 0, candidates, 0, s);
+		int numberOfCandidates = s;
+		for (int i=0; i<initialNumberOfInfections; i++)
+		{
+			int randIndex = firstInfectedGen.nextInt(numberOfCandidates);
+			int v = candidates[randIndex];
+			System.arraycopy(candidates, randIndex+1, candidates, randIndex, numberOfCandidates-randIndex-1);
+			numberOfCandidates--;
+			infectious[v] = 1;
+			day[v] = 0;
+		}
+		
+		for (int t=1; t<=timeStep; t++)
+		{
+			// draw trials of external infection for non-infectious nodes, in the order of the vertex set
+			for (int v: vertexSetOrder)
+				externalInfectionUniform[v] = (infectious[v]!=0) ? NO_TRIAL : outsideInfectionGen.nextDouble();
+			// nodes infected by super node in the morning of t, and exposed nodes which became infectious
+			for (int v=0; v<s; v++)
+			{
+				int infectedFromOutside = (externalInfectionUniform[v]<=externalInfectionProbability) ? 1 : 0;
+				int promoted = exposed[v] & isZero(age[v]-latency);
+				int newlyInfectious = infectedFromOutside | promoted;
+				infectious[v] |= newlyInfectious;
+				exposed[v] &= newlyInfectious^1;
+				day[v] += newlyInfectious*(t-day[v]);
+			}
+			// internal infections: draw trials for non-infectious neighbors, in increasing order of ids
+			for (int v=0; v<s; v++)
+			{
+				if (infectious[v]==0)
+					continue;
+				for (int e=offsets[v]; e<offsets[v+1]; e++)
+					transmissionUniform[e] = (infectious[targets[e]]!=0) ? NO_TRIAL
+							: transmissabilityGen.nextDouble();
+				for (int e=offsets[v]; e<offsets[v+1]; e++)
+					transmitted[targets[e]] |= (transmissionUniform[e]<=transmissability) ? 1 : 0;
+			}
+			// expose susceptible nodes with a successful trial, and update time since infection
+			for (int v=0; v<s; v++)
+			{
+				exposed[v] |= transmitted[v] & (infectious[v]^1);
+				transmitted[v] = 0;
+				age[v] += exposed[v];
+			}
+		}
+		for (int v=0; v<s; v++)
+			infectiousDay[v] = (byte) day[v];
+	}
+	
+	/**
+	 * Returns 1 if a number is 0, without branches.
+	 *
+	 * @param x a number.
+	 * @return 1 if {@code x==0}; 0, otherwise.
+	 */
+	private static int isZero(int x)
+	{
+		return ((x|-x)>>>31)^1;
+	}
+}
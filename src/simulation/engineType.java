@@ -0,0 +1,122 @@
+package simulation;
+
+import dataTypes.simulationParameters;
+import network.csrGraph;
+
+/**
+ * Represents the types of engines available for simulating sample paths of the epidemic.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+public enum engineType
+{
+	/**
+	 * Steps through the days, drawing a random number for each trial of infection
+	 * (see {@link epidemicKernel}).
+	 */
+	DAILY_SWEEP,
+	
+	/**
+	 * Steps through the days, skipping geometrically to the next successful trial of infection
+	 * (see {@link epidemicKernel#epidemicKernel(network.csrGraph, int, int, double, double, boolean)}).
+	 */
+	DAILY_SWEEP_WITH_GEOMETRIC_SKIPS,
+	
+	/**
+	 * Steps through the days like {@link engineType#DAILY_SWEEP}, with the daily updates as branch-free loops
+	 * over dense arrays (see {@link denseEpidemicKernel}); gives the same sample paths as
+	 * {@link engineType#DAILY_SWEEP}.
+	 */
+	DENSE_DAILY_SWEEP,
+	
+	/**
+	 * Finds infectious days as first passage times with geometric delays on edges
+	 * (see {@link firstPassagePercolationKernel}).
+	 */
+	FIRST_PASSAGE_PERCOLATION,
+	
+	/**
+	 * Steps through the days for {@link bitParallelKernel#REPLICATIONS_PER_WORD} simulation repetitions at once,
+	 * with node states as bitmasks (see {@link bitParallelKernel});
+	 * only available with multiple threads or streaming.
+	 */
+	BIT_PARALLEL;
+	
+	/**
+	 * Checks whether engines of this type consume the random number streams day by day, so that a sample path
+	 * with a shorter time step is a prefix of the sample path with a longer time step from the same streams.
+	 *
+	 * @return {@code true} for all types except {@link engineType#FIRST_PASSAGE_PERCOLATION}, whose random numbers
+	 * depend on the time step; {@code false}, otherwise.
+	 */
+	boolean hasNestedTimeSteps()
+	{
+		return this!=FIRST_PASSAGE_PERCOLATION;
+	}
+	
+	/**
+	 * Checks whether engines of this type can save the state of sample paths at the end of the time step, and
+	 * extend them later (see {@link epidemicEndState}).
+	 *
+	 * @return {@code true} for {@link engineType#DAILY_SWEEP} and {@link engineType#DAILY_SWEEP_WITH_GEOMETRIC_SKIPS};
+	 * {@code false}, otherwise.
+	 */
+	boolean canSaveEndStates()
+	{
+		return (this==DAILY_SWEEP) || (this==DAILY_SWEEP_WITH_GEOMETRIC_SKIPS);
+	}
+	
+	/**
+	 * Checks whether engines of this type count the trials of infection and their successes in each sample path
+	 * (see {@link trialCounts}).
+	 *
+	 * @return {@code true} for {@link engineType#DAILY_SWEEP}; {@code false}, otherwise.
+	 */
+	boolean canRecordTrialCounts()
+	{
+		return this==DAILY_SWEEP;
+	}
+	
+	/**
+	 * Checks whether engines of this type can simulate a random latency of each node
+	 * (see {@link simulationParameters#getLatencyDistribution()}), which needs a calendar of promotions.
+	 *
+	 * @return {@code true} for {@link engineType#DAILY_SWEEP} and {@link engineType#DAILY_SWEEP_WITH_GEOMETRIC_SKIPS};
+	 * {@code false}, otherwise.
+	 */
+	boolean canSimulateRandomLatency()
+	{
+		return (this==DAILY_SWEEP) || (this==DAILY_SWEEP_WITH_GEOMETRIC_SKIPS);
+	}
+	
+	/**
+	 * Returns a new engine of this type.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param param simulation parameters.
+	 * @return a new engine of this type for graph {@code g} and parameters {@code param}.
+	 * @throws UnsupportedOperationException thrown for {@link engineType#BIT_PARALLEL}, which simulates several
+	 *                                       repetitions at once;
+	 *                                       or if the latency is random
+	 *                                       (see {@link simulationParameters#getLatencyDistribution()}) and
+	 *                                       the engine cannot simulate it
+	 *                                       (see {@link engineType#canSimulateRandomLatency()}); callers check this
+	 *                                       before simulating, so this is only an internal assertion.
+	 */
+	epidemicEngine newEngine(csrGraph g, simulationParameters param)
+	{
+		if (this==BIT_PARALLEL)
+			throw new UnsupportedOperationException("Bit-parallel engine simulates several repetitions at once!");
+		if ((param.getLatencyDistribution()!=null) && !canSimulateRandomLatency())
+			throw new UnsupportedOperationException("Random latency is only supported by the daily sweep!");
+		if (this==DENSE_DAILY_SWEEP)
+			return new denseEpidemicKernel(g, param.getTimeStep(), param.getLatency(), param.getTransmissability(),
+					param.getExternalInfectionProbability());
+		if (this==FIRST_PASSAGE_PERCOLATION)
+			return new firstPassagePercolationKernel(g, param.getTimeStep(), param.getLatency(),
+					param.getTransmissability(), param.getExternalInfectionProbability());
+		return new epidemicKernel(g, param.getTimeStep(), param.getLatency(), param.getTransmissability(),
+				param.getExternalInfectionProbability(), this==DAILY_SWEEP_WITH_GEOMETRIC_SKIPS,
+				param.getLatencyDistribution());
+	}
+}
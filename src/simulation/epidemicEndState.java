@@ -0,0 +1,89 @@
+package simulation;
+
+/**
+ * Represents the state of each sample path of a simulation at the end of its time step, from which the
+ * sample paths can be extended to a longer time step (see {@link epidemicKernel#resume(epidemicEndState, int,
+ * helper.reseedableRandom, helper.reseedableRandom)}) instead of being simulated again.
+ * <br>
+ * The state of a sample path is the day of each node, i.e.,
+ * {@link epidemicEndState#SUSCEPTIBLE} for susceptible nodes,
+ * the day on which the node became infectious for infectious nodes,
+ * and the day on which the node becomes infectious for exposed nodes
+ * ({@link dataTypes.simulationOutput#NOT_INFECTIOUS} if it does not within
+ * {@link epidemicKernel#MAX_TIME_STEP}),
+ * together with the states of the random number generators for infections.
+ * The states are stored in blocks of {@link simulationRuns#REPLICATIONS_PER_BLOCK} sample paths,
+ * like the sample paths of {@link dataTypes.simulationOutput}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 6, 2020.
+ */
+class epidemicEndState
+{
+	/**
+	 * Day of a susceptible node.
+	 */
+	static final byte SUSCEPTIBLE = -1;
+	
+	/**
+	 * Number of states of random number generation stored for each sample path.
+	 */
+	static final int GENERATOR_STATES = 4;
+	
+	/**
+	 * Time step at the end of which the states are saved.
+	 */
+	final int timeStep;
+	
+	/**
+	 * Number of nodes (excluding the super node).
+	 */
+	final int s;
+	
+	/**
+	 * Day of each node in each sample path; the day of the node with id {@code i} in sample path {@code x} is
+	 * {@code nodeDays[x/REPLICATIONS_PER_BLOCK][(x%REPLICATIONS_PER_BLOCK)*s+i]}.
+	 */
+	final byte[][] nodeDays;
+	
+	/**
+	 * States of random number generation of each sample path, i.e., the states of the random number generators
+	 * for external and internal infections, and the numbers of trials of external infection and transmission left
+	 * to skip (with geometric skips);
+	 * the states of sample path {@code x} start at
+	 * {@code generatorStates[x/REPLICATIONS_PER_BLOCK][(x%REPLICATIONS_PER_BLOCK)*GENERATOR_STATES]}.
+	 */
+	final long[][] generatorStates;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param timeStep time step at the end of which the states are saved
+	 * @param s number of nodes (excluding the super node)
+	 * @param reps number of sample paths.
+	 */
+	epidemicEndState(int timeStep, int s, int reps)
+	{
+		int numberOfBlocks = simulationRuns.getNumberOfBlocks(reps);
+		this.timeStep = timeStep;
+		this.s = s;
+		this.nodeDays = new byte[numberOfBlocks][];
+		this.generatorStates = new long[numberOfBlocks][];
+		for (int b=0; b<numberOfBlocks; b++)
+		{
+			int samplesInBlock = Math.min(simulationRuns.REPLICATIONS_PER_BLOCK,
+					reps-b*simulationRuns.REPLICATIONS_PER_BLOCK);
+			nodeDays[b] = new byte[samplesInBlock*s];
+			generatorStates[b] = new long[samplesInBlock*GENERATOR_STATES];
+		}
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link epidemicEndState#timeStep}.
+	 */
+	int getTimeStep()
+	{
+		return timeStep;
+	}
+}
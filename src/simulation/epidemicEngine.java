@@ -0,0 +1,37 @@
+package simulation;
+
+import helper.reseedableRandom;
+
+/**
+ * Represents an engine that simulates single sample paths of the epidemic on a {@link network.csrGraph}.
+ * <br>
+ * Implementations reuse their state across calls to
+ * {@link epidemicEngine#simulate(int, reseedableRandom, reseedableRandom, reseedableRandom)};
+ * an instance is not thread-safe, so use one instance per thread.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 26, 2020.
+ */
+interface epidemicEngine
+{
+	/**
+	 * Simulates a sample path; results are in {@link epidemicEngine#getInfectiousDay()}.
+	 *
+	 * @param initialNumberOfInfections number of nodes infectious at time 0 (excluding the super node)
+	 * @param firstInfectedGen random number generator for selecting the initial set of infectious nodes
+	 * @param outsideInfectionGen random number generator for external infections in subsequent time steps
+	 * @param transmissabilityGen random number generator for internal infections.
+	 */
+	void simulate(int initialNumberOfInfections, reseedableRandom firstInfectedGen,
+	              reseedableRandom outsideInfectionGen, reseedableRandom transmissabilityGen);
+	
+	/**
+	 * Returns the day on which each node (indexed by node ids of {@link network.csrGraph}) became infectious
+	 * in the last simulated sample path; {@link dataTypes.simulationOutput#NOT_INFECTIOUS} if it did not.
+	 * <br>
+	 * The returned array is overwritten by the next call to
+	 * {@link epidemicEngine#simulate(int, reseedableRandom, reseedableRandom, reseedableRandom)}.
+	 *
+	 * @return day on which each node became infectious.
+	 */
+	byte[] getInfectiousDay();
+}
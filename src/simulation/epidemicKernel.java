@@ -0,0 +1,636 @@
+package simulation;
+
+import dataTypes.simulationOutput;
+import helper.reseedableRandom;
+import network.csrGraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Simulates a single sample path of the epidemic with node states kept in primitive arrays indexed by the
+ * dense node ids of a {@link network.csrGraph}.
+ * <br>
+ * All arrays are allocated once in the constructor and reused by every call to
+ * {@link epidemicKernel#simulate(int, reseedableRandom, reseedableRandom, reseedableRandom)},
+ * so a simulation repetition does not allocate any memory.
+ * An instance is not thread-safe; use one instance per thread.
+ * <br>
+ * Given the same random number streams, the sample path is the same as the one simulated with
+ * {@link java.util.HashSet}s of node labels, as long as node labels are smaller than the number of nodes
+ * rounded up to a power of 2 (infectious nodes are then visited in increasing order of labels in both).
+ * <br>
+ * Exposed nodes wait for their promotion to the infectious state in a calendar of
+ * {@code maximum latency+1} slots used as a ring buffer: a node exposed on day {@code t} with latency {@code d}
+ * is put in slot {@code (t+d) mod (maximum latency+1)}, and only the nodes in the slot of the current day are
+ * visited, so the latency costs time in proportion to the number of exposed nodes instead of two scans over
+ * all exposed nodes every day.
+ * The same calendar handles a latency drawn independently for each node from a probability distribution
+ * (see {@link dataTypes.simulationParameters#getLatencyDistribution()}).
+ * <br>
+ * The state of a sample path at the end of the time step can be saved, and the sample path extended from it to a
+ * longer time step later (see {@link epidemicEndState}); the extended sample path is the same as the one simulated
+ * with the longer time step from the start, since the random number streams are consumed day by day.
+ * <br>
+ * Without geometric skips, the kernel also counts the trials of infection that change the sample path and their
+ * successes (see {@link trialCounts}).
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 10, 2020.
+ */
+class epidemicKernel implements epidemicEngine
+{
+	/**
+	 * Value of {@link epidemicKernel#infectiousDay} for nodes that did not become infectious within the time step.
+	 */
+	static final byte NOT_INFECTIOUS = simulationOutput.NOT_INFECTIOUS;
+	
+	/**
+	 * Maximum time step that can be simulated.
+	 */
+	static final int MAX_TIME_STEP = NOT_INFECTIOUS-1;
+	
+	/**
+	 * State of a susceptible node.
+	 */
+	private static final byte SUSCEPTIBLE = 0;
+	
+	/**
+	 * State of an exposed (infected, but not yet infectious) node.
+	 */
+	private static final byte EXPOSED = 1;
+	
+	/**
+	 * State of an infectious node.
+	 */
+	private static final byte INFECTIOUS = 2;
+	
+	/**
+	 * Number of nodes (excluding the super node).
+	 */
+	private final int s;
+	
+	/**
+	 * Offsets of the adjacency lists (see {@link network.csrGraph#getOffsets()}).
+	 */
+	private final int[] offsets;
+	
+	/**
+	 * Neighbor ids of the adjacency lists (see {@link network.csrGraph#getTargets()}).
+	 */
+	private final int[] targets;
+	
+	/**
+	 * Node ids in the order of the vertex set of the network;
+	 * the order in which the super node tries to infect nodes, and from which the initial infections are selected.
+	 */
+	private final int[] vertexSetOrder;
+	
+	/**
+	 * Time step of each simulation run.
+	 */
+	private final int timeStep;
+	
+	/**
+	 * Number of days to move from the exposed state to the infected state.
+	 */
+	private final int latency;
+	
+	/**
+	 * Cumulative probability distribution of the latency of each node;
+	 * {@code null}, if every node has a latency of {@link epidemicKernel#latency} days.
+	 */
+	private final double[] latencyCDF;
+	
+	/**
+	 * Daily probability of transmission.
+	 */
+	private final double transmissability;
+	
+	/**
+	 * Daily probability of infection from outside world.
+	 */
+	private final double externalInfectionProbability;
+	
+	/**
+	 * State of each node.
+	 */
+	private final byte[] state;
+	
+	/**
+	 * Day on which each node became infectious; {@link epidemicKernel#NOT_INFECTIOUS} if it did not.
+	 */
+	private final byte[] infectiousDay;
+	
+	/**
+	 * Infectious nodes.
+	 */
+	private final BitSet infectiousNodes;
+	
+	/**
+	 * First node in each slot of the calendar of promotions; -1 if the slot is empty.
+	 */
+	private final int[] calendarHead;
+	
+	/**
+	 * Next node in the same slot of the calendar of promotions; -1 for the last node.
+	 * A node is exposed at most once in a sample path, so it is in at most one slot.
+	 */
+	private final int[] calendarNext;
+	
+	/**
+	 * Scratch space for selecting the initial set of infectious nodes.
+	 */
+	private final int[] candidates;
+	
+	/**
+	 * {@code true}, if the kernel skips geometrically to the next successful trial of infection;
+	 * {@code false}, if it draws a random number for each trial.
+	 */
+	private final boolean geometricSkips;
+	
+	/**
+	 * Natural logarithm of the daily probability of no transmission.
+	 */
+	private final double logOfNoTransmission;
+	
+	/**
+	 * Natural logarithm of the daily probability of no infection from outside world.
+	 */
+	private final double logOfNoExternalInfection;
+	
+	/**
+	 * Number of trials of external infection left to fail before the next success (with geometric skips).
+	 */
+	private long externalInfectionSkip;
+	
+	/**
+	 * Number of trials of transmission left to fail before the next success (with geometric skips).
+	 */
+	private long transmissionSkip;
+	
+	/**
+	 * Number of nodes infectious at time 0 in the current sample path.
+	 */
+	private int initialInfections;
+	
+	/**
+	 * Number of trials of external infection of nodes that are not infectious in the current sample path
+	 * (without geometric skips).
+	 */
+	private int externalInfectionTrials;
+	
+	/**
+	 * Number of successful trials of external infection in the current sample path (without geometric skips).
+	 */
+	private int externalInfections;
+	
+	/**
+	 * Number of trials of transmission to susceptible nodes in the current sample path (without geometric skips).
+	 */
+	private int transmissionTrials;
+	
+	/**
+	 * Number of successful trials of transmission in the current sample path (without geometric skips).
+	 */
+	private int transmissions;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param timeStep time step of each simulation run; at most {@link epidemicKernel#MAX_TIME_STEP}
+	 * @param latency number of days to move from the exposed state to the infected state
+	 * @param transmissability daily probability of transmission
+	 * @param externalInfectionProbability daily probability of infection from outside world.
+	 */
+	epidemicKernel(csrGraph g, int timeStep, int latency, double transmissability,
+	               double externalInfectionProbability)
+	{
+		this(g, timeStep, latency, transmissability, externalInfectionProbability, false);
+	}
+	
+	/**
+	 * Constructor.
+	 * <br>
+	 * With geometric skips, the trials of external infection (over days and nodes) and the trials of transmission
+	 * (over days, infectious nodes and their neighbors) each form a sequence of independent Bernoulli trials;
+	 * the kernel draws the number of failures before the next success from a geometric distribution,
+	 * and jumps to that trial.
+	 * So, the number of random numbers drawn scales with the number of infections instead of the number of trials.
+	 * Trials on nodes that are already infectious are skipped over too, but have no effect.
+	 * The sample paths have the same distribution as without geometric skips,
+	 * but use the random number streams differently.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param timeStep time step of each simulation run; at most {@link epidemicKernel#MAX_TIME_STEP}
+	 * @param latency number of days to move from the exposed state to the infected state
+	 * @param transmissability daily probability of transmission
+	 * @param externalInfectionProbability daily probability of infection from outside world
+	 * @param geometricSkips {@code true}, if the kernel should skip geometrically to the next successful trial;
+	 *                       {@code false}, if it should draw a random number for each trial.
+	 */
+	epidemicKernel(csrGraph g, int timeStep, int latency, double transmissability,
+	               double externalInfectionProbability, boolean geometricSkips)
+	{
+		this(g, timeStep, latency, transmissability, externalInfectionProbability, geometricSkips, null);
+	}
+	
+	/**
+	 * Constructor.
+	 * <br>
+	 * With a probability distribution of latency, the latency of a node is drawn from
+	 * {@code transmissabilityGen} when the node is exposed;
+	 * as with a fixed latency of 0, nodes with a latency of 0 stay exposed.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param timeStep time step of each simulation run; at most {@link epidemicKernel#MAX_TIME_STEP}
+	 * @param latency number of days to move from the exposed state to the infected state;
+	 *                ignored if {@code latencyDistribution} is not {@code null}
+	 * @param transmissability daily probability of transmission
+	 * @param externalInfectionProbability daily probability of infection from outside world
+	 * @param geometricSkips {@code true}, if the kernel should skip geometrically to the next successful trial
+	 *                       (see {@link epidemicKernel#epidemicKernel(network.csrGraph, int, int, double, double,
+	 *                       boolean)}); {@code false}, if it should draw a random number for each trial
+	 * @param latencyDistribution probability distribution of the latency of each node
+	 *                            (see {@link dataTypes.simulationParameters#getLatencyDistribution()});
+	 *                            {@code null} for a fixed latency.
+	 */
+	epidemicKernel(csrGraph g, int timeStep, int latency, double transmissability,
+	               double externalInfectionProbability, boolean geometricSkips, double[] latencyDistribution)
+	{
+		this.s = g.getNumberOfNodes();
+		this.offsets = g.getOffsets();
+		this.targets = g.getTargets();
+		this.vertexSetOrder = g.getVertexSetOrder();
+		this.timeStep = timeStep;
+		this.latency = latency;
+		this.latencyCDF = (latencyDistribution==null) ? null : getCDF(latencyDistribution);
+		this.transmissability = transmissability;
+		this.externalInfectionProbability = externalInfectionProbability;
+		this.state = new byte[s];
+		this.infectiousDay = new byte[s];
+		this.infectiousNodes = new BitSet(s);
+		this.calendarHead = new int[1+((latencyCDF==null) ? latency : latencyCDF.length-1)];
+		this.calendarNext = new int[s];
+		this.candidates = new int[s];
+		this.geometricSkips = geometricSkips;
+		this.logOfNoTransmission = Math.log1p(-transmissability);
+		this.logOfNoExternalInfection = Math.log1p(-externalInfectionProbability);
+	}
+	
+	/**
+	 * Getter.
+	 * <br>
+	 * The returned array is overwritten by the next call to
+	 * {@link epidemicKernel#simulate(int, reseedableRandom, reseedableRandom, reseedableRandom)}.
+	 *
+	 * @return {@link epidemicKernel#infectiousDay}.
+	 */
+	@Override
+	public byte[] getInfectiousDay()
+	{
+		return infectiousDay;
+	}
+	
+	/**
+	 * Copies the numbers of trials of infection and their successes in the last simulated sample path
+	 * (without geometric skips); for an extended sample path (see {@link epidemicKernel#resume(epidemicEndState,
+	 * int, reseedableRandom, reseedableRandom)}), only the trials on the days it was extended by are counted.
+	 *
+	 * @param counts trial counts to copy to.
+	 */
+	void getTrialCounts(trialCounts counts)
+	{
+		counts.initialInfections = initialInfections;
+		counts.externalInfectionTrials = externalInfectionTrials;
+		counts.externalInfections = externalInfections;
+		counts.transmissionTrials = transmissionTrials;
+		counts.transmissions = transmissions;
+	}
+	
+	/**
+	 * Simulates a sample path; results are in {@link epidemicKernel#getInfectiousDay()}.
+	 *
+	 * @param initialNumberOfInfections number of nodes infectious at time 0 (excluding the super node)
+	 * @param firstInfectedGen random number generator for selecting the initial set of infectious nodes
+	 * @param outsideInfectionGen random number generator for external infections in subsequent time steps
+	 * @param transmissabilityGen random number generator for internal infections.
+	 */
+	@Override
+	public void simulate(int initialNumberOfInfections, reseedableRandom firstInfectedGen,
+	                     reseedableRandom outsideInfectionGen, reseedableRandom transmissabilityGen)
+	{
+		for (int v=0; v<s; v++)
+		{
+			state[v] = SUSCEPTIBLE;
+			infectiousDay[v] = NOT_INFECTIOUS;
+		}
+		infectiousNodes.clear();
+		Arrays.fill(calendarHead, -1);
+		initialInfections = initialNumberOfInfections;
+		
+		// TIME 0: select initial infections the same way as helper.combinatorics.selectRandomElements
+		System.arraycopy(vertexSetOrder, 0, candidates, 0, s);
+		int numberOfCandidates = s;
+		for (int i=0; i<initialNumberOfInfections; i++)
+		{
+			int randIndex = firstInfectedGen.nextInt(numberOfCandidates);
+			int v = candidates[randIndex];
+			System.arraycopy(candidates, randIndex+1, candidates, randIndex, numberOfCandidates-randIndex-1);
+			numberOfCandidates--;
+			makeInfectious(v, 0);
+		}
+		
+		if (geometricSkips)
+		{
+			externalInfectionSkip = nextSkip(outsideInfectionGen, logOfNoExternalInfection);
+			transmissionSkip = nextSkip(transmissabilityGen, logOfNoTransmission);
+		}
+		
+		simulateDays(1, outsideInfectionGen, transmissabilityGen);
+	}
+	
+	/**
+	 * Extends a sample path from its state saved at the end of a shorter time step to the time step of this kernel;
+	 * results are in {@link epidemicKernel#getInfectiousDay()}.
+	 *
+	 * @param endState saved states, at the end of a time step of at most the time step of this kernel
+	 * @param x index of the sample path
+	 * @param outsideInfectionGen random number generator for external infections; reseeded from the saved state
+	 * @param transmissabilityGen random number generator for internal infections; reseeded from the saved state.
+	 */
+	void resume(epidemicEndState endState, int x, reseedableRandom outsideInfectionGen,
+	            reseedableRandom transmissabilityGen)
+	{
+		byte[] nodeDays = endState.nodeDays[x/simulationRuns.REPLICATIONS_PER_BLOCK];
+		int offset = (x%simulationRuns.REPLICATIONS_PER_BLOCK)*s;
+		infectiousNodes.clear();
+		Arrays.fill(calendarHead, -1);
+		initialInfections = 0;
+		for (int v=0; v<s; v++)
+		{
+			byte day = nodeDays[offset+v];
+			infectiousDay[v] = NOT_INFECTIOUS;
+			if (day==epidemicEndState.SUSCEPTIBLE)
+				state[v] = SUSCEPTIBLE;
+			else if (day<=endState.timeStep)
+				makeInfectious(v, day);
+			else
+			{
+				state[v] = EXPOSED;
+				if (day!=NOT_INFECTIOUS)
+					schedule(v, day);
+			}
+		}
+		long[] generatorStates = endState.generatorStates[x/simulationRuns.REPLICATIONS_PER_BLOCK];
+		int position = (x%simulationRuns.REPLICATIONS_PER_BLOCK)*epidemicEndState.GENERATOR_STATES;
+		outsideInfectionGen.reseed(generatorStates[position]);
+		transmissabilityGen.reseed(generatorStates[position+1]);
+		externalInfectionSkip = generatorStates[position+2];
+		transmissionSkip = generatorStates[position+3];
+		
+		simulateDays(endState.timeStep+1, outsideInfectionGen, transmissabilityGen);
+	}
+	
+	/**
+	 * Saves the state of the last simulated sample path.
+	 *
+	 * @param endState states to save to, at the end of the time step of this kernel
+	 * @param x index of the sample path
+	 * @param outsideInfectionGen random number generator for external infections used for the sample path
+	 * @param transmissabilityGen random number generator for internal infections used for the sample path.
+	 */
+	void saveEndState(epidemicEndState endState, int x, reseedableRandom outsideInfectionGen,
+	                  reseedableRandom transmissabilityGen)
+	{
+		byte[] nodeDays = endState.nodeDays[x/simulationRuns.REPLICATIONS_PER_BLOCK];
+		int offset = (x%simulationRuns.REPLICATIONS_PER_BLOCK)*s;
+		for (int v=0; v<s; v++)
+		{
+			if (state[v]==SUSCEPTIBLE)
+				nodeDays[offset+v] = epidemicEndState.SUSCEPTIBLE;
+			else
+				nodeDays[offset+v] = (state[v]==INFECTIOUS) ? infectiousDay[v] : NOT_INFECTIOUS;
+		}
+		// exposed nodes in the calendar become infectious on one of the next (number of slots-1) days
+		for (int t=timeStep+1; t<timeStep+calendarHead.length; t++)
+		{
+			for (int v=calendarHead[t%calendarHead.length]; v>=0; v=calendarNext[v])
+			{
+				if (state[v]==EXPOSED)
+					nodeDays[offset+v] = (t<=MAX_TIME_STEP) ? (byte) t : NOT_INFECTIOUS;
+			}
+		}
+		long[] generatorStates = endState.generatorStates[x/simulationRuns.REPLICATIONS_PER_BLOCK];
+		int position = (x%simulationRuns.REPLICATIONS_PER_BLOCK)*epidemicEndState.GENERATOR_STATES;
+		generatorStates[position] = outsideInfectionGen.getSeed();
+		generatorStates[position+1] = transmissabilityGen.getSeed();
+		generatorStates[position+2] = externalInfectionSkip;
+		generatorStates[position+3] = transmissionSkip;
+	}
+	
+	/**
+	 * Simulates the days of a sample path from a given day to the time step.
+	 *
+	 * @param firstDay first day to simulate
+	 * @param outsideInfectionGen random number generator for external infections
+	 * @param transmissabilityGen random number generator for internal infections.
+	 */
+	private void simulateDays(int firstDay, reseedableRandom outsideInfectionGen,
+	                          reseedableRandom transmissabilityGen)
+	{
+		externalInfectionTrials = 0;
+		externalInfections = 0;
+		transmissionTrials = 0;
+		transmissions = 0;
+		for (int t=firstDay; t<=timeStep; t++)
+		{
+			// find nodes infected by super node in the morning of t
+			if (geometricSkips)
+				infectFromOutsideWithSkips(t, outsideInfectionGen);
+			else
+			{
+				for (int v: vertexSetOrder)
+				{
+					if (state[v]==INFECTIOUS)
+						continue;
+					externalInfectionTrials++;
+					if (outsideInfectionGen.nextDouble()<=externalInfectionProbability)
+					{
+						externalInfections++;
+						makeInfectious(v, t);
+					}
+				}
+			}
+			// find infected nodes which became infectious after being latent
+			int slot = t%calendarHead.length;
+			for (int v=calendarHead[slot]; v>=0; v=calendarNext[v])
+			{
+				if (state[v]==EXPOSED)
+					makeInfectious(v, t);
+			}
+			calendarHead[slot] = -1;
+			// internal infections
+			for (int v=infectiousNodes.nextSetBit(0); v>=0; v=infectiousNodes.nextSetBit(v+1))
+			{
+				if (geometricSkips)
+				{
+					transmitWithSkips(v, t, transmissabilityGen);
+					continue;
+				}
+				for (int e=offsets[v]; e<offsets[v+1]; e++)
+				{
+					int u = targets[e];
+					if (state[u]==INFECTIOUS)
+						continue;
+					// a trial on an exposed node draws a random number, but does not change the sample path
+					boolean success = transmissabilityGen.nextDouble()<=transmissability;
+					if (state[u]==SUSCEPTIBLE)
+					{
+						transmissionTrials++;
+						if (success)
+						{
+							transmissions++;
+							expose(u, t, transmissabilityGen);
+						}
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Infects nodes from outside world in the morning of a day, skipping geometrically over the trials
+	 * (one trial per node, in the order of {@link epidemicKernel#vertexSetOrder}).
+	 *
+	 * @param t day
+	 * @param outsideInfectionGen random number generator for external infections.
+	 */
+	private void infectFromOutsideWithSkips(int t, reseedableRandom outsideInfectionGen)
+	{
+		int i = 0;
+		while (externalInfectionSkip<s-i)
+		{
+			i += (int) externalInfectionSkip;
+			int v = vertexSetOrder[i++];
+			if (state[v]!=INFECTIOUS)
+				makeInfectious(v, t);
+			externalInfectionSkip = nextSkip(outsideInfectionGen, logOfNoExternalInfection);
+		}
+		externalInfectionSkip -= s-i;
+	}
+	
+	/**
+	 * Exposes neighbors of an infectious node, skipping geometrically over the trials
+	 * (one trial per neighbor entry).
+	 *
+	 * @param v id of the infectious node
+	 * @param t day
+	 * @param transmissabilityGen random number generator for internal infections.
+	 */
+	private void transmitWithSkips(int v, int t, reseedableRandom transmissabilityGen)
+	{
+		int e = offsets[v];
+		int end = offsets[v+1];
+		while (transmissionSkip<end-e)
+		{
+			e += (int) transmissionSkip;
+			int u = targets[e++];
+			if (state[u]==SUSCEPTIBLE)
+				expose(u, t, transmissabilityGen);
+			transmissionSkip = nextSkip(transmissabilityGen, logOfNoTransmission);
+		}
+		transmissionSkip -= end-e;
+	}
+	
+	/**
+	 * Returns the number of failed trials before the next successful trial.
+	 *
+	 * @param gen random number generator
+	 * @param logOfFailureProbability natural logarithm of the probability of failure of a trial.
+	 * @return the number of failed trials before the next successful trial;
+	 * {@link Long#MAX_VALUE} if trials never succeed.
+	 */
+	private static long nextSkip(reseedableRandom gen, double logOfFailureProbability)
+	{
+		if (logOfFailureProbability==0)
+			return Long.MAX_VALUE;
+		return gen.nextGeometric(logOfFailureProbability);
+	}
+	
+	/**
+	 * Exposes a node, and schedules its promotion to the infectious state in the calendar.
+	 *
+	 * @param u id of the node
+	 * @param t day on which the node is exposed
+	 * @param transmissabilityGen random number generator for internal infections; draws the latency of the node
+	 *                            if it is random.
+	 */
+	private void expose(int u, int t, reseedableRandom transmissabilityGen)
+	{
+		state[u] = EXPOSED;
+		int d = (latencyCDF==null) ? latency : drawLatency(transmissabilityGen);
+		if (d==0)
+			return;
+		schedule(u, t+d);
+	}
+	
+	/**
+	 * Puts an exposed node in the slot of the calendar of the day on which it becomes infectious.
+	 *
+	 * @param u id of the node
+	 * @param day day on which the node becomes infectious; at most (number of slots-1) days after the current day.
+	 */
+	private void schedule(int u, int day)
+	{
+		int slot = day%calendarHead.length;
+		calendarNext[u] = calendarHead[slot];
+		calendarHead[slot] = u;
+	}
+	
+	/**
+	 * Draws the latency of a node from {@link epidemicKernel#latencyCDF} by inversion.
+	 *
+	 * @param gen random number generator.
+	 * @return the latency of the node in days.
+	 */
+	private int drawLatency(reseedableRandom gen)
+	{
+		double u = gen.nextDouble();
+		int d = 0;
+		while ((d<latencyCDF.length-1) && (u>=latencyCDF[d]))
+			d++;
+		return d;
+	}
+	
+	/**
+	 * Returns the cumulative probability distribution of a probability distribution.
+	 *
+	 * @param pmf probability distribution.
+	 * @return the cumulative probability distribution of {@code pmf}.
+	 */
+	private static double[] getCDF(double[] pmf)
+	{
+		double[] cdf = new double[pmf.length];
+		double sum = 0;
+		for (int d=0; d<pmf.length; d++)
+		{
+			sum += pmf[d];
+			cdf[d] = sum;
+		}
+		return cdf;
+	}
+	
+	/**
+	 * Makes a node infectious.
+	 *
+	 * @param v id of the node
+	 * @param t day on which the node becomes infectious.
+	 */
+	private void makeInfectious(int v, int t)
+	{
+		state[v] = INFECTIOUS;
+		infectiousDay[v] = (byte) t;
+		infectiousNodes.set(v);
+	}
+}
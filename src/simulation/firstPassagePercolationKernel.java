@@ -0,0 +1,252 @@
+package simulation;
+
+import helper.reseedableRandom;
+import network.csrGraph;
+
+import java.util.Arrays;
+
+/**
+ * Simulates a single sample path of the epidemic as a first passage percolation on a {@link network.csrGraph}.
+ * <br>
+ * In the daily sweep ({@link epidemicKernel}), an infectious node tries to infect each neighbor every day
+ * with probability {@code transmissability}, and the neighbor becomes infectious {@code latency} days after the
+ * first successful try; a node is also infected from outside on the first day a daily trial with probability
+ * {@code externalInfectionProbability} succeeds.
+ * So, the day on which a node becomes infectious is the length of a shortest path from the initially infectious
+ * nodes (or the day of its external infection, if earlier), where an edge from a node that became infectious on
+ * day {@code d} takes {@code max(d, 1)+G+latency} days, with {@code G} a geometric number of failed tries.
+ * <br>
+ * This kernel samples the geometric delays lazily, only for edges out of nodes that become infectious,
+ * and finds the shortest paths with a bucket queue over days, stopping at the time step.
+ * External infections are found by skipping geometrically over the (day, node) trials.
+ * The sample paths have the same distribution as those of {@link epidemicKernel}
+ * (the same initial set of infectious nodes is selected for the same random number stream),
+ * but use the random number streams differently.
+ * <br>
+ * As in {@link epidemicKernel}, exposed nodes become infectious only if {@code latency>=1}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 26, 2020.
+ */
+class firstPassagePercolationKernel implements epidemicEngine
+{
+	/**
+	 * Number of nodes (excluding the super node).
+	 */
+	private final int s;
+	
+	/**
+	 * Offsets of the adjacency lists (see {@link network.csrGraph#getOffsets()}).
+	 */
+	private final int[] offsets;
+	
+	/**
+	 * Neighbor ids of the adjacency lists (see {@link network.csrGraph#getTargets()}).
+	 */
+	private final int[] targets;
+	
+	/**
+	 * Node ids in the order of the vertex set of the network;
+	 * the order in which the initial infections are selected.
+	 */
+	private final int[] vertexSetOrder;
+	
+	/**
+	 * Time step of each simulation run.
+	 */
+	private final int timeStep;
+	
+	/**
+	 * Number of days to move from the exposed state to the infected state.
+	 */
+	private final int latency;
+	
+	/**
+	 * Daily probability of transmission.
+	 */
+	private final double transmissability;
+	
+	/**
+	 * Daily probability of infection from outside world.
+	 */
+	private final double externalInfectionProbability;
+	
+	/**
+	 * Natural logarithm of the daily probability of no transmission.
+	 */
+	private final double logOfNoTransmission;
+	
+	/**
+	 * Natural logarithm of the daily probability of no infection from outside world.
+	 */
+	private final double logOfNoExternalInfection;
+	
+	/**
+	 * Day on which each node became infectious; {@link epidemicKernel#NOT_INFECTIOUS} if it did not.
+	 * Until a node is settled, it is the earliest day found so far.
+	 */
+	private final byte[] infectiousDay;
+	
+	/**
+	 * {@code true} for nodes whose infectious day is final; {@code false}, otherwise.
+	 */
+	private final boolean[] settled;
+	
+	/**
+	 * Scratch space for selecting the initial set of infectious nodes.
+	 */
+	private final int[] candidates;
+	
+	/**
+	 * Index of the first entry in the bucket of each day; -1 if the bucket is empty.
+	 */
+	private final int[] bucketHead;
+	
+	/**
+	 * Node of each entry in the buckets.
+	 */
+	private int[] entryNode;
+	
+	/**
+	 * Index of the next entry in the same bucket; -1 for the last entry.
+	 */
+	private int[] entryNext;
+	
+	/**
+	 * Number of entries in the buckets.
+	 */
+	private int numberOfEntries;
+	
+	/**
+	 * Constructor.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param timeStep time step of each simulation run; at most {@link epidemicKernel#MAX_TIME_STEP}
+	 * @param latency number of days to move from the exposed state to the infected state
+	 * @param transmissability daily probability of transmission
+	 * @param externalInfectionProbability daily probability of infection from outside world.
+	 */
+	firstPassagePercolationKernel(csrGraph g, int timeStep, int latency, double transmissability,
+	                              double externalInfectionProbability)
+	{
+		this.s = g.getNumberOfNodes();
+		this.offsets = g.getOffsets();
+		this.targets = g.getTargets();
+		this.vertexSetOrder = g.getVertexSetOrder();
+		this.timeStep = timeStep;
+		this.latency = latency;
+		this.transmissability = transmissability;
+		this.externalInfectionProbability = externalInfectionProbability;
+		this.logOfNoTransmission = Math.log1p(-transmissability);
+		this.logOfNoExternalInfection = Math.log1p(-externalInfectionProbability);
+		this.infectiousDay = new byte[s];
+		this.settled = new boolean[s];
+		this.candidates = new int[s];
+		this.bucketHead = new int[timeStep+1];
+		this.entryNode = new int[Math.max(s, 1)];
+		this.entryNext = new int[Math.max(s, 1)];
+	}
+	
+	/**
+	 * Getter.
+	 * <br>
+	 * The returned array is overwritten by the next call to
+	 * {@link firstPassagePercolationKernel#simulate(int, reseedableRandom, reseedableRandom, reseedableRandom)}.
+	 *
+	 * @return {@link firstPassagePercolationKernel#infectiousDay}.
+	 */
+	@Override
+	public byte[] getInfectiousDay()
+	{
+		return infectiousDay;
+	}
+	
+	/**
+	 * Simulates a sample path; results are in {@link firstPassagePercolationKernel#getInfectiousDay()}.
+	 *
+	 * @param initialNumberOfInfections number of nodes infectious at time 0 (excluding the super node)
+	 * @param firstInfectedGen random number generator for selecting the initial set of infectious nodes
+	 * @param outsideInfectionGen random number generator for external infections in subsequent time steps
+	 * @param transmissabilityGen random number generator for internal infections.
+	 */
+	@Override
+	public void simulate(int initialNumberOfInfections, reseedableRandom firstInfectedGen,
+	                     reseedableRandom outsideInfectionGen, reseedableRandom transmissabilityGen)
+	{
+		Arrays.fill(infectiousDay, epidemicKernel.NOT_INFECTIOUS);
+		Arrays.fill(settled, false);
+		Arrays.fill(bucketHead, -1);
+		numberOfEntries = 0;
+		
+		// TIME 0: select initial infections the same way as epidemicKernel
+		System.arraycopy(vertexSetOrder, 0, candidates, 0, s);
+		int numberOfCandidates = s;
+		for (int i=0; i<initialNumberOfInfections; i++)
+		{
+			int randIndex = firstInfectedGen.nextInt(numberOfCandidates);
+			int v = candidates[randIndex];
+			System.arraycopy(candidates, randIndex+1, candidates, randIndex, numberOfCandidates-randIndex-1);
+			numberOfCandidates--;
+			update(v, 0);
+		}
+		
+		// external infections: skip to the successful trials among the (day, node) trials
+		if (externalInfectionProbability>0)
+		{
+			long numberOfTrials = (long) timeStep*s;
+			long trial = Math.min(outsideInfectionGen.nextGeometric(logOfNoExternalInfection), numberOfTrials);
+			while (trial<numberOfTrials)
+			{
+				update(vertexSetOrder[(int) (trial%s)], (int) (trial/s)+1);
+				trial += 1+Math.min(outsideInfectionGen.nextGeometric(logOfNoExternalInfection), numberOfTrials);
+			}
+		}
+		
+		// internal infections, in increasing order of days
+		boolean transmits = (transmissability>0) && (latency>=1);
+		for (int d=0; d<=timeStep; d++)
+		{
+			for (int entry=bucketHead[d]; entry>=0; entry=entryNext[entry])
+			{
+				int v = entryNode[entry];
+				if (settled[v] || (infectiousDay[v]!=d))
+					continue;
+				settled[v] = true;
+				if (!transmits)
+					continue;
+				// v tries its neighbors from day max(d, 1)
+				long earliestDay = Math.max(d, 1)+latency;
+				for (int e=offsets[v]; e<offsets[v+1]; e++)
+				{
+					int u = targets[e];
+					if (infectiousDay[u]<=earliestDay)
+						continue;
+					long day = earliestDay+Math.min(transmissabilityGen.nextGeometric(logOfNoTransmission),
+							timeStep);
+					if ((day<=timeStep) && (day<infectiousDay[u]))
+						update(u, (int) day);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Records an earlier infectious day for a node, and adds the node to the bucket of that day.
+	 *
+	 * @param v id of the node
+	 * @param day day on which the node becomes infectious; at most the time step.
+	 */
+	private void update(int v, int day)
+	{
+		if (day>=infectiousDay[v])
+			return;
+		infectiousDay[v] = (byte) day;
+		if (numberOfEntries==entryNode.length)
+		{
+			entryNode = Arrays.copyOf(entryNode, 2*numberOfEntries);
+			entryNext = Arrays.copyOf(entryNext, 2*numberOfEntries);
+		}
+		entryNode[numberOfEntries] = v;
+		entryNext[numberOfEntries] = bucketHead[day];
+		bucketHead[day] = numberOfEntries++;
+	}
+}
@@ -0,0 +1,25 @@
+package simulation;
+
+/**
+ * Represents a consumer of sample paths that are streamed from a simulation, instead of being stored
+ * (see {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency}).
+ * <br>
+ * Each block of simulation repetitions is fed to its own copy of the consumer, and the copies are combined in the
+ * order of the blocks (see {@link streamConsumer}).
+ * So, a consumer only keeps the statistics it needs, and its results do not depend on the number of threads.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+public interface samplePathConsumer extends streamConsumer<samplePathConsumer>
+{
+	/**
+	 * Consumes a sample path.
+	 * <br>
+	 * <b>Note:</b> {@code infectiousDay} is overwritten by the next sample path, so it should not be stored.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node (indexed by node ids of {@link network.csrGraph})
+	 *                      became infectious; {@link dataTypes.simulationOutput#NOT_INFECTIOUS} if it did not.
+	 */
+	void accept(int replication, byte[] infectiousDay);
+}
@@ -1,19 +1,26 @@
 package simulation;
 
+import dataTypes.epidemicParameters;
 import dataTypes.simulationOutput;
 import dataTypes.simulationParameters;
+import helper.discreteDistributionSampler;
+import helper.randomStreams;
+import helper.reseedableRandom;
+import network.csrGraph;
 import network.graph;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
  * Represents results of simulation runs.
  * @author Sudesh Agrawal (sudesh@utexas.edu).
- * Last Updated: November 16, 2020.
+ * Last Updated: December 16, 2020.
  */
 public class simulationRuns
 {
@@ -24,12 +31,91 @@ public class simulationRuns
 	 */
 	Map<simulationParameters, simulationOutput> mapParamToSamples;
 	
+	/**
+	 * A map from {@link dataTypes.epidemicParameters} to {@link dataTypes.simulationOutput} of the stored simulations.
+	 * Simulation parameters that differ only in the false negative probability share a key,
+	 * so the epidemic is simulated once for all of them.
+	 * In parallel simulations, a simulation with a longer time step also serves shorter time steps
+	 * (see {@link dataTypes.simulationOutput#getPrefix(int)}).
+	 * Cleared when the base seed, the type of simulation (sequential or parallel), or the engine changes.
+	 */
+	Map<epidemicParameters, simulationOutput> mapEpidemicToSamples;
+	
+	/**
+	 * A map from {@link dataTypes.epidemicParameters} to the states of the sample paths at the end of the time step
+	 * of the stored simulations, if {@link simulationRuns#saveEndStates} is {@code true};
+	 * a simulation with a longer time step extends the sample paths from these states.
+	 * Cleared together with {@link simulationRuns#mapEpidemicToSamples}.
+	 */
+	Map<epidemicParameters, epidemicEndState> mapEpidemicToEndStates;
+	
+	/**
+	 * A map from {@link dataTypes.epidemicParameters} to the trial counts (see {@link trialCounts}) of the sample
+	 * paths of the stored simulations, if {@link simulationRuns#recordTrialCounts} is {@code true};
+	 * the counts of sample path {@code x} start at index {@code (x%REPLICATIONS_PER_BLOCK)*}{@link
+	 * trialCounts#NUMBER_OF_COUNTS} of block {@code x/REPLICATIONS_PER_BLOCK}.
+	 * Cleared together with {@link simulationRuns#mapEpidemicToSamples}.
+	 */
+	Map<epidemicParameters, int[][]> mapEpidemicToTrialCounts;
+	
+	/**
+	 * A map from the daily probability of infection from outside world to the sampler of the number of initial
+	 * infections (see {@link simulationRuns#getInitialInfectionsSampler(int, double)}), built once per parameter
+	 * point and reused by every simulation of it;
+	 * a sampler for a different number of nodes is rebuilt.
+	 */
+	Map<Double, discreteDistributionSampler> mapExternalInfectionProbabilityToSampler;
+	
+	/**
+	 * Base seed of the simulations in {@link simulationRuns#mapEpidemicToSamples}.
+	 */
+	int[] cachedBaseSeed;
+	
+	/**
+	 * {@code true}, if the simulations in {@link simulationRuns#mapEpidemicToSamples} were run in parallel;
+	 * {@code false}, otherwise.
+	 */
+	boolean cachedInParallel;
+	
+	/**
+	 * Number of consecutive simulation repetitions handled together by a thread in parallel simulations.
+	 */
+	static final int REPLICATIONS_PER_BLOCK = 1024;
+	
+	/**
+	 * {@code true}, if sample paths should be stored in the compact form
+	 * (see {@link dataTypes.simulationOutput#getInfectiousDays()}); {@code false}, otherwise.
+	 */
+	boolean compactSamplePaths;
+	
+	/**
+	 * {@code true}, if the states of sample paths at the end of the time step should be saved in parallel
+	 * simulations (see {@link simulationRuns#mapEpidemicToEndStates}); {@code false}, otherwise.
+	 */
+	boolean saveEndStates;
+	
+	/**
+	 * {@code true}, if the trial counts of sample paths should be stored in parallel simulations
+	 * (see {@link simulationRuns#mapEpidemicToTrialCounts}); {@code false}, otherwise.
+	 */
+	boolean recordTrialCounts;
+	
+	/**
+	 * Type of engine used for simulating sample paths.
+	 */
+	engineType engine;
+	
 	/**
 	 * Constructor.
 	 */
 	public simulationRuns()
 	{
 		this.mapParamToSamples = new HashMap<>();
+		this.mapEpidemicToSamples = new HashMap<>();
+		this.mapEpidemicToEndStates = new HashMap<>();
+		this.mapEpidemicToTrialCounts = new HashMap<>();
+		this.mapExternalInfectionProbabilityToSampler = new HashMap<>();
+		this.engine = engineType.DAILY_SWEEP;
 	}
 	
 	/**
@@ -40,6 +126,11 @@ public class simulationRuns
 	public simulationRuns(Map<simulationParameters, simulationOutput> mapParamToSamples)
 	{
 		this.mapParamToSamples = mapParamToSamples;
+		this.mapEpidemicToSamples = new HashMap<>();
+		this.mapEpidemicToEndStates = new HashMap<>();
+		this.mapEpidemicToTrialCounts = new HashMap<>();
+		this.mapExternalInfectionProbabilityToSampler = new HashMap<>();
+		this.engine = engineType.DAILY_SWEEP;
 	}
 	
 	/**
@@ -52,41 +143,253 @@ public class simulationRuns
 		return mapParamToSamples;
 	}
 	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationRuns#mapEpidemicToSamples}.
+	 */
+	public Map<epidemicParameters, simulationOutput> getMapEpidemicToSamples()
+	{
+		return mapEpidemicToSamples;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationRuns#compactSamplePaths}.
+	 */
+	public boolean isCompactSamplePaths()
+	{
+		return compactSamplePaths;
+	}
+	
+	/**
+	 * Setter.
+	 *
+	 * @param compactSamplePaths {@code true}, if sample paths of subsequent simulations should be stored in the
+	 *                           compact form (one byte per node per sample path); {@code false}, otherwise.
+	 */
+	public void setCompactSamplePaths(boolean compactSamplePaths)
+	{
+		this.compactSamplePaths = compactSamplePaths;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationRuns#saveEndStates}.
+	 */
+	public boolean isSaveEndStates()
+	{
+		return saveEndStates;
+	}
+	
+	/**
+	 * Setter.
+	 * <br>
+	 * Saving the states costs memory of one byte per node and four {@code long}s per sample path, and is only
+	 * supported by {@link engineType#DAILY_SWEEP} and {@link engineType#DAILY_SWEEP_WITH_GEOMETRIC_SKIPS}.
+	 *
+	 * @param saveEndStates {@code true}, if the states of sample paths at the end of the time step of subsequent
+	 *                      parallel simulations should be saved, so that the simulations can be extended to a
+	 *                      longer time step; {@code false}, otherwise.
+	 */
+	public void setSaveEndStates(boolean saveEndStates)
+	{
+		this.saveEndStates = saveEndStates;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationRuns#recordTrialCounts}.
+	 */
+	public boolean isRecordTrialCounts()
+	{
+		return recordTrialCounts;
+	}
+	
+	/**
+	 * Setter.
+	 * <br>
+	 * Storing the trial counts costs memory of five {@code int}s per sample path, and is only supported by
+	 * {@link engineType#DAILY_SWEEP}.
+	 * The counts are stored for simulations run in parallel from the start; not for sequential simulations,
+	 * prefixes of longer simulations, or simulations with added repetitions.
+	 *
+	 * @param recordTrialCounts {@code true}, if the trial counts of sample paths of subsequent parallel simulations
+	 *                          should be stored, so that their results can be reweighted to other parameters
+	 *                          (see {@link simulationRuns#reweightSimulation(graph, simulationParameters,
+	 *                          simulationParameters, double, List)}); {@code false}, otherwise.
+	 */
+	public void setRecordTrialCounts(boolean recordTrialCounts)
+	{
+		this.recordTrialCounts = recordTrialCounts;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link simulationRuns#engine}.
+	 */
+	public engineType getEngine()
+	{
+		return engine;
+	}
+	
+	/**
+	 * Setter.
+	 *
+	 * @param engine type of engine used for simulating sample paths of subsequent simulations.
+	 */
+	public void setEngine(engineType engine)
+	{
+		this.engine = engine;
+		mapEpidemicToSamples.clear();
+		mapEpidemicToEndStates.clear();
+		mapEpidemicToTrialCounts.clear();
+	}
+	
+	/**
+	 * Returns the stored simulation of the epidemic parameters of {@code param}, if any, and stores it for
+	 * {@code param} in {@link simulationRuns#mapParamToSamples}.
+	 * In parallel simulations with an engine that consumes random numbers day by day
+	 * (see {@link engineType#hasNestedTimeSteps()}), a stored simulation with a longer time step serves as well.
+	 * Stored simulations are discarded if {@code baseSeed} or the type of simulation differs from theirs,
+	 * and are not reused if they are not in the form of {@link simulationRuns#compactSamplePaths}.
+	 *
+	 * @param param simulation parameters
+	 * @param baseSeed base seed for random number generation
+	 * @param inParallel {@code true}, if the simulation is run in parallel; {@code false}, otherwise.
+	 * @return the stored simulation output; {@code null}, if there is none to reuse.
+	 * @throws Exception thrown if the prefix of a stored simulation cannot be taken.
+	 */
+	private simulationOutput reuseSimulation(simulationParameters param, int[] baseSeed, boolean inParallel)
+			throws Exception
+	{
+		if (!Arrays.equals(baseSeed, cachedBaseSeed) || (inParallel!=cachedInParallel))
+		{
+			mapEpidemicToSamples.clear();
+			mapEpidemicToEndStates.clear();
+			mapEpidemicToTrialCounts.clear();
+			cachedBaseSeed = baseSeed.clone();
+			cachedInParallel = inParallel;
+		}
+		epidemicParameters epidemic = param.getEpidemicParameters();
+		simulationOutput output = mapEpidemicToSamples.get(epidemic);
+		if ((output==null) && inParallel && engine.hasNestedTimeSteps())
+		{
+			// sample paths with a longer time step contain the sample paths as prefixes
+			simulationOutput longerOutput = null;
+			for (Map.Entry<epidemicParameters, simulationOutput> entry: mapEpidemicToSamples.entrySet())
+			{
+				if (entry.getKey().equalsExceptTimeStep(epidemic) && (entry.getKey().getTimeStep()>param.getTimeStep())
+						&& (entry.getValue().isCompact()==compactSamplePaths))
+					longerOutput = entry.getValue();
+			}
+			if (longerOutput!=null)
+			{
+				output = longerOutput.getPrefix(param.getTimeStep());
+				mapEpidemicToSamples.put(epidemic, output);
+			}
+		}
+		if ((output==null) || (output.isCompact()!=compactSamplePaths))
+			return null;
+		System.out.println("Reusing simulation for: \n\t"+epidemic.toString());
+		mapParamToSamples.put(param, output);
+		return output;
+	}
+	
+	/**
+	 * Returns the parameters with the longest time step among the parameters in {@code listOfParams} that differ
+	 * from {@code param} only in the time step or the false negative probability, if the engine consumes random
+	 * numbers day by day (see {@link engineType#hasNestedTimeSteps()}); the prefixes of its sample paths then serve
+	 * the shorter time steps.
+	 *
+	 * @param param simulation parameters
+	 * @param listOfParams list of simulation parameters.
+	 * @return {@code param} with the longest time step; {@code param} itself, if its time step is the longest.
+	 */
+	private simulationParameters getLongestTimeStep(simulationParameters param, List<simulationParameters> listOfParams)
+	{
+		simulationParameters longest = param;
+		if (!engine.hasNestedTimeSteps())
+			return longest;
+		epidemicParameters epidemic = param.getEpidemicParameters();
+		for (simulationParameters other: listOfParams)
+		{
+			if ((other.getTimeStep()>longest.getTimeStep()) && (other.getTimeStep()<=epidemicKernel.MAX_TIME_STEP)
+					&& epidemic.equalsExceptTimeStep(other.getEpidemicParameters()))
+			{
+				longest = new simulationParameters(param);
+				longest.setTimeStep(other.getTimeStep());
+			}
+		}
+		return longest;
+	}
+	
+	/**
+	 * Returns the saved states at the end of the longest time step shorter than the time step of {@code param},
+	 * for the same epidemic parameters except the time step.
+	 *
+	 * @param param simulation parameters.
+	 * @return the saved states; {@code null}, if there are none, or if the engine cannot extend sample paths.
+	 */
+	private epidemicEndState getEndStateToResume(simulationParameters param)
+	{
+		if (!engine.canSaveEndStates())
+			return null;
+		epidemicParameters epidemic = param.getEpidemicParameters();
+		epidemicEndState endState = null;
+		for (Map.Entry<epidemicParameters, epidemicEndState> entry: mapEpidemicToEndStates.entrySet())
+		{
+			int endTimeStep = entry.getKey().getTimeStep();
+			if (entry.getKey().equalsExceptTimeStep(epidemic) && (endTimeStep<param.getTimeStep())
+					&& ((endState==null) || (endTimeStep>endState.getTimeStep())))
+				endState = entry.getValue();
+		}
+		return endState;
+	}
+	
 	/**
 	 * Simulates infectious nodes at each time in a sample path.
 	 * The initial infection is conditional binomial.
+	 * <br>
+	 * The states of the random number generators at the end of the simulation are saved with the output
+	 * (see {@link dataTypes.simulationOutput#getGeneratorStates()}), so that simulation repetitions can be added later
+	 * (see {@link simulationRuns#addSimulationRepetitions(graph, simulationParameters, int)}).
 	 *
 	 * @param originalGraph network graph
 	 * @param listOfParams list of simulation parameters
 	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation;
-	 *                 actual seed is sum of base seed and hashcode of the parameters in {@code listOfParams};
+	 *                 actual seed is sum of base seed and hashcode of the epidemic parameters
+	 *                 (see {@link dataTypes.epidemicParameters#getSeedHashCode()}) of the parameters in
+	 *                 {@code listOfParams}, so parameters that differ only in the false negative probability share
+	 *                 the sample paths;
 	 *                 the first base seed is for selection the initial set of infectious nodes;
 	 *                 the second base seed is for external infections in subsequent time steps;
 	 *                 the third base seed is for internal infections;
 	 *                 the fourth base seed is for choosing the number of initial infections.
 	 *
 	 * @throws Exception thrown if minimum node label in the graph {@code g} is less than 2;
-	 *                      or if the length of {@code baseSeed} is not 4.
+	 *                      or if the length of {@code baseSeed} is not 4;
+	 *                      or if the latency is random and the engine cannot simulate it.
 	 */
 	public void simulationForConditionalProbabilityWithLatency(graph originalGraph,
 	                                                           List<simulationParameters> listOfParams,
 	                                                           int[] baseSeed) throws Exception
 	{
-		graph g = new graph(originalGraph.getG(), originalGraph.getNetworkName(), false);
-		int s = g.getVertexSet().size();
+		csrGraph g = new csrGraph(originalGraph);
+		int s = g.getNumberOfNodes();
 		// check graph node labels >=2
-		int minNodeLabel = g.getMinimumNodeLabel();
+		int minNodeLabel = originalGraph.getMinimumNodeLabel();
 		if (minNodeLabel<2)
 			throw new Exception("Node labels should be >=2!");
 		if (baseSeed.length!=4)
 			throw new Exception("Length of base seed array should be 4!");
-		Set<Integer> actualNodeSet = g.getVertexSet();
-		List<Integer> actualNodeList = new ArrayList<>(actualNodeSet);
-		// add node 1 as super node to model outside infection
+		int[] labels = g.getLabels();
+		// node 1 acts as super node to model outside infection; it is adjacent to all other nodes
 		int supernode = 1;
-		g.addVertex(supernode);
-		// add an edge from the super node to all other nodes
-		g.addEdges(supernode, actualNodeSet);
 		
 		for (simulationParameters param: listOfParams)
 		{
@@ -97,155 +400,1379 @@ public class simulationRuns
 			}
 			int timeStep = param.getTimeStep();
 			int reps = param.getNumberOfSimulationRepetitions();
-			double transmissability = param.getTransmissability();
-			int latency = param.getLatency();
-			double externalInfectionRate = param.getExternalInfectionProbability();
-			int hashcode = param.hashCode();
-			
-			// Random number generators
-			SplittableRandom firstInfectedGen = new SplittableRandom(baseSeed[0]+hashcode);
-			SplittableRandom outsideInfectionGen = new SplittableRandom(baseSeed[1]+hashcode);
-			SplittableRandom transmissabilityGen = new SplittableRandom(baseSeed[2]+hashcode);
-			SplittableRandom binomialGen = new SplittableRandom(baseSeed[3]+hashcode);
-			
-			// Finding truncated Bin(s, p)
-			double q = 1-externalInfectionRate;
-			double factor = 1.0/(1.0-Math.pow(q, s));
-			double[] conditionalProb = new double[s];
-			for (int k=1; k<=s; k++)
-			{
-				conditionalProb[k-1] = factor*Math.pow(externalInfectionRate, k)*Math.pow(q, s-k)
-						*helper.combinatorics.nChoosek(s, k);
-			}
+			int hashcode = param.getEpidemicParameters().getSeedHashCode();
+			if (reuseSimulation(param, baseSeed, false)!=null)
+				continue;
 			
-			// Generate number of initial infections (at t=1) for each run using truncated binomial
-			double[] binomialGenChoice = IntStream.range(0, reps).mapToDouble(x -> binomialGen.nextDouble()).toArray();
-			int[] stateSpace = new int[s];
-			for (int i=1; i<=s; i++)
-				stateSpace[i-1] = i;
-			int[] binomialChoices = helper.combinatorics.discreteProbabilityChoice(binomialGenChoice,
-					stateSpace, conditionalProb);
+			if (timeStep>epidemicKernel.MAX_TIME_STEP)
+				throw new Exception("Time step should be at most "+epidemicKernel.MAX_TIME_STEP+"!");
+			if (engine==engineType.BIT_PARALLEL)
+				throw new Exception("Bit-parallel engine is only available with multiple threads or streaming!");
+			if ((param.getLatencyDistribution()!=null) && !engine.canSimulateRandomLatency())
+				throw new Exception("Random latency is only supported by the daily sweep!");
 			
-			List<Map<Integer, Set<Integer>>> samplesOfInfectiousNodes = new ArrayList<>();
+			// states of the random number generators
+			long[] generatorStates = {baseSeed[0]+hashcode, baseSeed[1]+hashcode, baseSeed[2]+hashcode,
+					baseSeed[3]+hashcode};
+			byte[][] infectiousDays = getBlocks(null, 0, reps, s);
 			
 			// simulation repetitions
-			Set<Integer> infectedNodes = new HashSet<>(s);
-			Set<Integer> infectiousNodes = new HashSet<>(s);
-			Set<Integer> tmpInfectiousNodes = new HashSet<>(s);
-			Set<Integer> tmpInfectedNodes = new HashSet<>(s);
-			Map<Integer, Integer> timeSinceInfected = new HashMap<>(s);
-			List<Integer> currentNeighbors;
-			int initialNumberOfInfections;
-			List<Integer> firstInfectiousNodes = new ArrayList<>(s);
 			System.out.println("Starting simulation for: \n\t"+param.toString());
 			Instant tic = Instant.now();
-			for (int x=0; x<reps; x++)
-			{
-				//System.out.println("\t Simulation repetition "+(x+1));
-				samplesOfInfectiousNodes.add(new HashMap<>());
-				samplesOfInfectiousNodes.get(x).put(0, new HashSet<>());
-				
-				// TIME 0
-				//System.out.println("\t\t Time 0");
-				//System.out.println("\t\t\t Supernode: "+ supernode);
-				infectiousNodes.add(supernode);
-				samplesOfInfectiousNodes.get(x).get(0).add(supernode);
-				initialNumberOfInfections = binomialChoices[x];
-				firstInfectiousNodes.addAll(helper.combinatorics.selectRandomElements(actualNodeList,
-						initialNumberOfInfections, firstInfectedGen));
-				infectiousNodes.addAll(firstInfectiousNodes);
-				samplesOfInfectiousNodes.get(x).get(0).addAll(infectiousNodes);
-				//System.out.println("\t\t\t No. of nodes infectious at t=0: "+initialNumberOfInfections);
-				//System.out.println("\t\t\t Nodes made infectious by super node: "+firstInfectiousNodes);
-				//System.out.println("\t\t\t Infectious nodes at the end of day of t=0: "+infectiousNodes);
-				
-				for (int t=1; t<=timeStep; t++)
-				{
-					//System.out.println("\t\t Time "+t);
-					
-					// find nodes infected by super node in the morning of t
-					currentNeighbors = g.getNeighborsOfNode(supernode).stream()
-										.filter(e -> !infectiousNodes.contains(e))
-										.collect(Collectors.toList());
-					if (currentNeighbors.size()>0)
-					{
-						tmpInfectiousNodes.addAll(currentNeighbors.stream()
-									.filter(currentNeighbor -> outsideInfectionGen.nextDouble()<=externalInfectionRate)
-									.collect(Collectors.toList()));
-						//System.out.println("\t\t\t Nodes "+tmpInfectiousNodes.toString()
-						//					+" became externally infectious in the morning of t="+t);
-						infectiousNodes.addAll(tmpInfectiousNodes);
-						infectedNodes.removeAll(tmpInfectiousNodes);
-						timeSinceInfected.keySet().removeAll(tmpInfectiousNodes);
-						tmpInfectiousNodes.clear();
-					}
-					// find infected nodes which became infectious after being latent
-					for (Integer infectedNode: infectedNodes)
-					{
-						//System.out.println("\t\t\t Time since infection for node "+infectedNode+" = "
-						//					+timeSinceInfected.get(infectedNode));
-						if (timeSinceInfected.get(infectedNode)==latency)
-							tmpInfectiousNodes.add(infectedNode);
-					}
-					infectiousNodes.addAll(tmpInfectiousNodes);
-					infectedNodes.removeAll(tmpInfectiousNodes);
-					timeSinceInfected.keySet().removeAll(tmpInfectiousNodes);
-					//System.out.println("\t\t\t Infected nodes "+tmpInfectiousNodes
-					//					+" became infectious in the morning of t = "+t);
-					tmpInfectiousNodes.clear();
-					samplesOfInfectiousNodes.get(x).put(t, new HashSet<>());
-					samplesOfInfectiousNodes.get(x).get(t).addAll(infectiousNodes);
-					for (Integer infectiousNode: infectiousNodes)
-					{
-						if (infectiousNode!= supernode)
-						{
-							// find neighbors of the current infectious nodes which are not already infectious
-							currentNeighbors = g.getNeighborsOfNode(infectiousNode).stream()
-												.filter(e -> !infectiousNodes.contains(e))
-												.collect(Collectors.toList());
-							//System.out.println("\t\t\t Node "+infectiousNode+" can infect uninfectious node(s): "
-							//					+currentNeighbors+"");
-							if (currentNeighbors.size()>0)
-							{
-								tmpInfectedNodes.addAll(currentNeighbors.stream()
-										.filter(currentNeighbor -> transmissabilityGen.nextDouble()<=transmissability)
-										.collect(Collectors.toList()));
-								// remove nodes which are already infectious
-								tmpInfectedNodes.remove(infectiousNode);
-								//System.out.println("\t\t\t Node "+infectiousNode+" infected nodes: "
-								//					+tmpInfectedNodes.toString());
-								
-							}
-							infectedNodes.addAll(tmpInfectedNodes);
-							tmpInfectedNodes.clear();
-						}
-					}
-					// update time since infection
-					for (Integer infectedNode: infectedNodes)
-					{
-						timeSinceInfected.put(infectedNode,
-								timeSinceInfected.getOrDefault(infectedNode, 0)+1);
-					}
-					//System.out.println("\t\t Infected nodes: "+infectedNodes.toString());
-					//System.out.println("\t\t Time since infection: "+timeSinceInfected.toString());
-					//System.out.println("\t\t Infectious nodes: "+infectiousNodes.toString());
-				}
-				
-				infectedNodes.clear();
-				infectiousNodes.clear();
-				tmpInfectiousNodes.clear();
-				timeSinceInfected.clear();
-				firstInfectiousNodes.clear();
-			}
+			simulateSequentially(g, param, generatorStates, 0, infectiousDays);
+			simulationOutput output = new simulationOutput(infectiousDays, REPLICATIONS_PER_BLOCK, reps, labels,
+					supernode, timeStep, 0);
+			output.setGeneratorStates(generatorStates);
+			output.setSimulatedWith(engine, baseSeed);
+			if (!compactSamplePaths)
+				output.setSamplesOfInfectiousNodesAtEachTime(output.getSamplesOfInfectiousNodesAtEachTime());
 			Instant toc = Instant.now();
 			System.out.println("Ending simulation for: \n\t"+param.toString());
 			double timeElapsedInSeconds = 1.0*Duration.between(tic, toc).toMillis()/1000.0;
-			simulationOutput output = new simulationOutput(samplesOfInfectiousNodes, timeElapsedInSeconds);
+			output.setSimulationWallTime(timeElapsedInSeconds);
 			mapParamToSamples.put(param, output);
+			mapEpidemicToSamples.put(param.getEpidemicParameters(), output);
 			//System.out.println("---------------------------");
 			//System.out.println("Simulation time = "+timeElapsedInSeconds+" second.");
 			//System.out.println(output);
 			//System.out.println("---------------------------");
 		}
 	}
+	
+	/**
+	 * Simulates infectious nodes at each time in a sample path,
+	 * splitting the simulation repetitions across the threads of a {@link java.util.concurrent.ForkJoinPool}.
+	 * The initial infection is conditional binomial.
+	 * <br>
+	 * Each repetition draws from its own random number streams (see {@link helper.randomStreams}),
+	 * so the output is identical for any {@code numberOfThreads}.
+	 * The streams are not the same as those of
+	 * {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[])}.
+	 * <br>
+	 * Since the streams do not depend on the time step, parameters in {@code listOfParams} that differ only in the
+	 * time step (or the false negative probability) are served by a single simulation with the longest time step,
+	 * whose sample paths contain the shorter ones as prefixes (except with
+	 * {@link engineType#FIRST_PASSAGE_PERCOLATION}).
+	 * If states at the end of the time step were saved (see {@link simulationRuns#setSaveEndStates(boolean)}),
+	 * a simulation with a longer time step extends the sample paths of the stored simulation instead of starting over.
+	 *
+	 * @param originalGraph network graph
+	 * @param listOfParams list of simulation parameters
+	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation;
+	 *                 the streams of a repetition are derived from the sum of base seed and hashcode of the
+	 *                 epidemic parameters (see {@link dataTypes.epidemicParameters#getSeedHashCode()}) of the
+	 *                 parameters in {@code listOfParams}, and the index of the repetition;
+	 *                 the first base seed is for selection the initial set of infectious nodes;
+	 *                 the second base seed is for external infections in subsequent time steps;
+	 *                 the third base seed is for internal infections;
+	 *                 the fourth base seed is for choosing the number of initial infections
+	 * @param numberOfThreads number of threads to run the simulation repetitions on.
+	 * @throws Exception thrown if minimum node label in the graph {@code g} is less than 2;
+	 *                      or if the length of {@code baseSeed} is not 4;
+	 *                      or if {@code numberOfThreads<1};
+	 *                      or if states at the end of the time step should be saved, and the engine cannot save them;
+	 *                      or if trial counts should be stored, and the engine cannot record them;
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	public void simulationForConditionalProbabilityWithLatency(graph originalGraph,
+	                                                           List<simulationParameters> listOfParams,
+	                                                           int[] baseSeed, int numberOfThreads) throws Exception
+	{
+		csrGraph g = new csrGraph(originalGraph);
+		int s = g.getNumberOfNodes();
+		// check graph node labels >=2
+		int minNodeLabel = originalGraph.getMinimumNodeLabel();
+		if (minNodeLabel<2)
+			throw new Exception("Node labels should be >=2!");
+		if (baseSeed.length!=4)
+			throw new Exception("Length of base seed array should be 4!");
+		if (numberOfThreads<1)
+			throw new Exception("Number of threads should be positive!");
+		// node 1 acts as super node to model outside infection; it is adjacent to all other nodes
+		int supernode = 1;
+		
+		ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+		try
+		{
+			for (simulationParameters param: listOfParams)
+			{
+				if (!param.getNetworkName().equals(g.getNetworkName()))
+				{
+					System.out.println("Parameters are for a different network; skipping "+param.toString());
+					continue;
+				}
+				int timeStep = param.getTimeStep();
+				int reps = param.getNumberOfSimulationRepetitions();
+				double externalInfectionRate = param.getExternalInfectionProbability();
+				int hashcode = param.getEpidemicParameters().getSeedHashCode();
+				if (reuseSimulation(param, baseSeed, true)!=null)
+					continue;
+				if (timeStep>epidemicKernel.MAX_TIME_STEP)
+					throw new Exception("Time step should be at most "+epidemicKernel.MAX_TIME_STEP+"!");
+				if (saveEndStates && !engine.canSaveEndStates())
+					throw new Exception("End states can only be saved with the daily sweep!");
+				if (recordTrialCounts && !engine.canRecordTrialCounts())
+					throw new Exception("Trial counts are only recorded by the daily sweep!");
+				if ((param.getLatencyDistribution()!=null) && !engine.canSimulateRandomLatency())
+					throw new Exception("Random latency is only supported by the daily sweep!");
+				// simulate the longest time step, whose prefixes serve the shorter time steps;
+				// trial counts are of whole sample paths, so they are recorded for the time step itself
+				simulationParameters simulatedParam = recordTrialCounts ? param
+						: getLongestTimeStep(param, listOfParams);
+				int simulatedTimeStep = simulatedParam.getTimeStep();
+				epidemicEndState resumeFrom = recordTrialCounts ? null : getEndStateToResume(simulatedParam);
+				epidemicEndState saveTo = saveEndStates ? new epidemicEndState(simulatedTimeStep, s, reps) : null;
+				int[][] trialCountsTo = recordTrialCounts ? new int[getNumberOfBlocks(reps)][] : null;
+				
+				// Finding truncated Bin(s, p)
+				discreteDistributionSampler initialInfectionsSampler = getInitialInfectionsSampler(s,
+						externalInfectionRate);
+				
+				// Generate number of initial infections (at t=1) for each run using truncated binomial
+				double[] binomialGenChoice = IntStream.range(0, reps)
+						.mapToDouble(x -> randomStreams.streamForReplication(baseSeed[3]+hashcode, x)
+								.nextDouble())
+						.toArray();
+				int[] binomialChoices = initialInfectionsSampler.sample(binomialGenChoice);
+				
+				// simulation repetitions
+				if (resumeFrom==null)
+					System.out.println("Starting simulation for: \n\t"+simulatedParam.toString());
+				else
+					System.out.println("Extending simulation from time step "+resumeFrom.getTimeStep()+" for: \n\t"
+							+simulatedParam.toString());
+				Instant tic = Instant.now();
+				byte[][] infectiousDays = pool.submit(() ->
+						IntStream.range(0, getNumberOfBlocks(reps)).parallel()
+								.mapToObj(b -> simulateBlock(g, simulatedParam, baseSeed, binomialChoices, b,
+										resumeFrom, saveTo, trialCountsTo))
+								.toArray(byte[][]::new)).get();
+				simulationOutput output = new simulationOutput(infectiousDays, REPLICATIONS_PER_BLOCK, reps,
+						g.getLabels(), supernode, simulatedTimeStep, 0);
+				output.setSimulatedWith(engine, baseSeed);
+				if (!compactSamplePaths)
+					output.setSamplesOfInfectiousNodesAtEachTime(output.getSamplesOfInfectiousNodesAtEachTime());
+				Instant toc = Instant.now();
+				System.out.println("Ending simulation for: \n\t"+simulatedParam.toString());
+				double timeElapsedInSeconds = 1.0*Duration.between(tic, toc).toMillis()/1000.0;
+				output.setSimulationWallTime(timeElapsedInSeconds);
+				mapEpidemicToSamples.put(simulatedParam.getEpidemicParameters(), output);
+				if (saveTo!=null)
+					mapEpidemicToEndStates.put(simulatedParam.getEpidemicParameters(), saveTo);
+				if (trialCountsTo!=null)
+					mapEpidemicToTrialCounts.put(simulatedParam.getEpidemicParameters(), trialCountsTo);
+				if (simulatedTimeStep!=timeStep)
+				{
+					output = output.getPrefix(timeStep);
+					mapEpidemicToSamples.put(param.getEpidemicParameters(), output);
+				}
+				mapParamToSamples.put(param, output);
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Adds simulation repetitions to a stored sequential simulation
+	 * (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[])}),
+	 * continuing the random number streams from their states saved with the output
+	 * (see {@link dataTypes.simulationOutput#getGeneratorStates()}).
+	 * The combined output is the same as that of a simulation with the larger number of repetitions,
+	 * and is stored for parameters with the larger number of repetitions;
+	 * so, repetitions can only be added with the engine of the stored simulation
+	 * (see {@link dataTypes.simulationOutput#getEngine()}).
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters of the stored simulation
+	 * @param additionalRepetitions number of simulation repetitions to add.
+	 * @return simulation parameters of the combined output.
+	 * @throws Exception thrown if there is no stored simulation for {@code param};
+	 *                      or if it was not simulated sequentially, or with the current engine;
+	 *                      or if {@code additionalRepetitions<1};
+	 *                      or if {@code param} is for a different network;
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	public simulationParameters addSimulationRepetitions(graph originalGraph, simulationParameters param,
+	                                                     int additionalRepetitions) throws Exception
+	{
+		simulationOutput output = getOutputToAddRepetitions(originalGraph, param, additionalRepetitions);
+		if (output.getGeneratorStates()==null)
+			throw new Exception("Simulation was not simulated sequentially; add repetitions with threads!");
+		csrGraph g = new csrGraph(originalGraph);
+		simulationParameters combinedParam = new simulationParameters(param);
+		int firstReplication = output.getNumberOfSamples();
+		int reps = firstReplication+additionalRepetitions;
+		combinedParam.setNumberOfSimulationRepetitions(reps);
+		
+		System.out.println("Adding "+additionalRepetitions+" simulation repetitions for: \n\t"+param.toString());
+		Instant tic = Instant.now();
+		long[] generatorStates = output.getGeneratorStates().clone();
+		byte[][] infectiousDays = getBlocks(output, firstReplication, reps, g.getNumberOfNodes());
+		simulateSequentially(g, combinedParam, generatorStates, firstReplication, infectiousDays);
+		simulationOutput combinedOutput = getAppendedOutput(output, infectiousDays, firstReplication, reps);
+		combinedOutput.setGeneratorStates(generatorStates);
+		Instant toc = Instant.now();
+		combinedOutput.setSimulationWallTime(output.getSimulationWallTime()
+				+1.0*Duration.between(tic, toc).toMillis()/1000.0);
+		storeCombinedOutput(param, output, combinedParam, combinedOutput);
+		return combinedParam;
+	}
+	
+	/**
+	 * Adds simulation repetitions to a stored parallel simulation
+	 * (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[], int)}),
+	 * splitting the new simulation repetitions across the threads of a {@link java.util.concurrent.ForkJoinPool}.
+	 * Since each repetition draws from its own random number streams, the new repetitions start their streams at
+	 * their own indices;
+	 * with the {@link engineType#BIT_PARALLEL} engine, the last incomplete group of
+	 * {@link bitParallelKernel#REPLICATIONS_PER_WORD} repetitions is simulated again together with the new ones.
+	 * The combined output is the same as that of a simulation with the larger number of repetitions,
+	 * and is stored for parameters with the larger number of repetitions;
+	 * so, repetitions can only be added with the engine and the base seed of the stored simulation
+	 * (see {@link dataTypes.simulationOutput#getEngine()} and {@link dataTypes.simulationOutput#getBaseSeed()}).
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters of the stored simulation
+	 * @param additionalRepetitions number of simulation repetitions to add
+	 * @param baseSeed base seed of the stored simulation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[],
+	 *                 int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on.
+	 * @return simulation parameters of the combined output.
+	 * @throws Exception thrown if there is no stored simulation for {@code param};
+	 *                      or if it was simulated sequentially, or not with the current engine;
+	 *                      or if {@code additionalRepetitions<1};
+	 *                      or if {@code param} is for a different network;
+	 *                      or if the length of {@code baseSeed} is not 4, or it is not the base seed of the stored
+	 *                      simulation;
+	 *                      or if {@code numberOfThreads<1};
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	public simulationParameters addSimulationRepetitions(graph originalGraph, simulationParameters param,
+	                                                     int additionalRepetitions, int[] baseSeed,
+	                                                     int numberOfThreads) throws Exception
+	{
+		simulationOutput output = getOutputToAddRepetitions(originalGraph, param, additionalRepetitions);
+		if (output.getGeneratorStates()!=null)
+			throw new Exception("Simulation was simulated sequentially; add repetitions without threads!");
+		if (baseSeed.length!=4)
+			throw new Exception("Length of base seed array should be 4!");
+		if (!Arrays.equals(baseSeed, output.getBaseSeed()))
+			throw new Exception("Base seed differs from that of the stored simulation!");
+		if (numberOfThreads<1)
+			throw new Exception("Number of threads should be positive!");
+		csrGraph g = new csrGraph(originalGraph);
+		int s = g.getNumberOfNodes();
+		simulationParameters combinedParam = new simulationParameters(param);
+		int reps = output.getNumberOfSamples()+additionalRepetitions;
+		combinedParam.setNumberOfSimulationRepetitions(reps);
+		int hashcode = combinedParam.getEpidemicParameters().getSeedHashCode();
+		int firstReplication = output.getNumberOfSamples();
+		if (engine==engineType.BIT_PARALLEL)
+			firstReplication -= firstReplication%bitParallelKernel.REPLICATIONS_PER_WORD;
+		int firstNewReplication = firstReplication;
+		
+		// Generate number of initial infections (at t=1) for each run using truncated binomial
+		discreteDistributionSampler initialInfectionsSampler = getInitialInfectionsSampler(s,
+				param.getExternalInfectionProbability());
+		double[] binomialGenChoice = IntStream.range(firstNewReplication, reps)
+				.mapToDouble(x -> randomStreams.streamForReplication(baseSeed[3]+hashcode, x).nextDouble())
+				.toArray();
+		int[] binomialChoices = initialInfectionsSampler.sample(binomialGenChoice);
+		
+		System.out.println("Adding "+additionalRepetitions+" simulation repetitions for: \n\t"+param.toString());
+		Instant tic = Instant.now();
+		byte[][] infectiousDays = getBlocks(output, firstReplication, reps, s);
+		ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+		try
+		{
+			pool.submit(() ->
+					IntStream.range(firstNewReplication/REPLICATIONS_PER_BLOCK, infectiousDays.length).parallel()
+							.forEach(b ->
+							{
+								int firstOfBlock = b*REPLICATIONS_PER_BLOCK;
+								simulateReplications(g, combinedParam, baseSeed, binomialChoices,
+										firstNewReplication, Math.max(firstNewReplication, firstOfBlock),
+										Math.min(reps, firstOfBlock+REPLICATIONS_PER_BLOCK), null, null, null,
+										(infectiousDay, x) -> System.arraycopy(infectiousDay, 0, infectiousDays[b],
+												(x-firstOfBlock)*s, s));
+							})).get();
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		simulationOutput combinedOutput = getAppendedOutput(output, infectiousDays, firstReplication, reps);
+		Instant toc = Instant.now();
+		combinedOutput.setSimulationWallTime(output.getSimulationWallTime()
+				+1.0*Duration.between(tic, toc).toMillis()/1000.0);
+		storeCombinedOutput(param, output, combinedParam, combinedOutput);
+		return combinedParam;
+	}
+	
+	/**
+	 * Returns the stored simulation to which simulation repetitions are added.
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters of the stored simulation
+	 * @param additionalRepetitions number of simulation repetitions to add.
+	 * @return the stored simulation output of {@code param}.
+	 * @throws Exception thrown if there is no stored simulation for {@code param};
+	 *                      or if {@code additionalRepetitions<1};
+	 *                      or if {@code param} is for a different network;
+	 *                      or if the stored simulation was not simulated with the current engine;
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	private simulationOutput getOutputToAddRepetitions(graph originalGraph, simulationParameters param,
+	                                                   int additionalRepetitions) throws Exception
+	{
+		simulationOutput output = mapParamToSamples.get(param);
+		if (output==null)
+			throw new Exception("No stored simulation for the parameters!");
+		if (additionalRepetitions<1)
+			throw new Exception("Number of additional repetitions should be positive!");
+		if (!param.getNetworkName().equals(originalGraph.getNetworkName()))
+			throw new Exception("Parameters are for a different network!");
+		if (output.getEngine()!=engine)
+			throw new Exception("Stored simulation was simulated with another engine!");
+		if ((param.getLatencyDistribution()!=null) && !engine.canSimulateRandomLatency())
+			throw new Exception("Random latency is only supported by the daily sweep!");
+		return output;
+	}
+	
+	/**
+	 * Stores the combined output of a simulation with added simulation repetitions; it is also stored for its
+	 * epidemic parameters (see {@link simulationRuns#mapEpidemicToSamples}) if the simulation it extends is.
+	 *
+	 * @param param simulation parameters of the stored simulation
+	 * @param output stored simulation output
+	 * @param combinedParam simulation parameters of the combined output
+	 * @param combinedOutput combined output.
+	 */
+	private void storeCombinedOutput(simulationParameters param, simulationOutput output,
+	                                 simulationParameters combinedParam, simulationOutput combinedOutput)
+	{
+		if (mapEpidemicToSamples.get(param.getEpidemicParameters())==output)
+			mapEpidemicToSamples.put(combinedParam.getEpidemicParameters(), combinedOutput);
+		mapParamToSamples.put(combinedParam, combinedOutput);
+	}
+	
+	/**
+	 * Answers a "what-if" query from a stored simulation without simulating again: each stored sample path is
+	 * weighted by its likelihood ratio under the query parameters (see {@link trialCounts#getLogLikelihoodRatio(
+	 * double, double, double, double, int)}), computed from its stored trial counts
+	 * (see {@link simulationRuns#setRecordTrialCounts(boolean)}), and fed to {@code consumers} with its weight;
+	 * weighted averages over the sample paths are then unbiased estimates under the query parameters.
+	 * <br>
+	 * The weights degenerate as the query parameters move away from the simulated ones, so the query is refused
+	 * if the effective sample size {@code (sum of weights)^2/(sum of squared weights)} is less than
+	 * {@code minimumEffectiveSampleSize}.
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters of the stored simulation
+	 * @param queryParam simulation parameters of the query; they should differ from {@code param} only in the
+	 *                   transmissability, the external infection probability and the false negative probability
+	 * @param minimumEffectiveSampleSize minimum effective sample size to answer the query
+	 * @param consumers consumers of the weighted sample paths.
+	 * @return the effective sample size of the weighted sample paths.
+	 * @throws Exception thrown if there is no stored simulation for {@code param}, or no stored trial counts for it;
+	 *                      or if {@code param} is for a different network;
+	 *                      or if {@code queryParam} differs from {@code param} in more than the transmissability,
+	 *                      the external infection probability and the false negative probability;
+	 *                      or if a probability of the query differs from a simulated probability that is not strictly
+	 *                      between 0 and 1;
+	 *                      or if the effective sample size is less than {@code minimumEffectiveSampleSize}.
+	 */
+	public double reweightSimulation(graph originalGraph, simulationParameters param, simulationParameters queryParam,
+	                                 double minimumEffectiveSampleSize,
+	                                 List<? extends weightedSamplePathConsumer> consumers) throws Exception
+	{
+		simulationOutput output = mapParamToSamples.get(param);
+		if (output==null)
+			throw new Exception("No stored simulation for the parameters!");
+		int[][] storedTrialCounts = mapEpidemicToTrialCounts.get(param.getEpidemicParameters());
+		if (storedTrialCounts==null)
+			throw new Exception("No stored trial counts for the simulation; record trial counts to reweight!");
+		if (!param.getNetworkName().equals(originalGraph.getNetworkName()))
+			throw new Exception("Parameters are for a different network!");
+		if (!isCoupledWith(param, queryParam))
+			throw new Exception("Query parameters should differ from the simulation parameters only in the "
+					+"transmissability, the external infection probability and the false negative probability!");
+		double transmissability = param.getTransmissability();
+		double externalInfectionRate = param.getExternalInfectionProbability();
+		if (((queryParam.getTransmissability()!=transmissability) && ((transmissability<=0) || (transmissability>=1)))
+				|| ((queryParam.getExternalInfectionProbability()!=externalInfectionRate)
+				&& ((externalInfectionRate<=0) || (externalInfectionRate>=1))))
+			throw new Exception("Simulated probabilities that differ in the query should be strictly between 0 and 1!");
+		int reps = output.getNumberOfSamples();
+		int[] nodeLabels = originalGraph.getVertexSet().stream().mapToInt(v -> v).sorted().toArray();
+		int s = nodeLabels.length;
+		
+		// likelihood ratios of the sample paths
+		double[] weights = new double[reps];
+		trialCounts counts = new trialCounts();
+		double sumOfWeights = 0;
+		double sumOfSquaredWeights = 0;
+		for (int x=0; x<reps; x++)
+		{
+			counts.copyFrom(storedTrialCounts[x/REPLICATIONS_PER_BLOCK],
+					(x%REPLICATIONS_PER_BLOCK)*trialCounts.NUMBER_OF_COUNTS);
+			weights[x] = Math.exp(counts.getLogLikelihoodRatio(queryParam.getTransmissability(),
+					queryParam.getExternalInfectionProbability(), transmissability, externalInfectionRate, s));
+			sumOfWeights += weights[x];
+			sumOfSquaredWeights += weights[x]*weights[x];
+		}
+		double effectiveSampleSize = (sumOfSquaredWeights>0) ? sumOfWeights*sumOfWeights/sumOfSquaredWeights : 0;
+		if (effectiveSampleSize<minimumEffectiveSampleSize)
+			throw new Exception("Effective sample size "+effectiveSampleSize+" is less than "
+					+minimumEffectiveSampleSize+"; simulate the query parameters instead!");
+		
+		System.out.println("Reweighting simulation (effective sample size = "+effectiveSampleSize+") for: \n\t"
+				+queryParam.toString());
+		byte[] infectiousDay = new byte[s];
+		for (int x=0; x<reps; x++)
+		{
+			output.getInfectiousDays(x, nodeLabels, infectiousDay);
+			for (weightedSamplePathConsumer consumer: consumers)
+				consumer.accept(x, infectiousDay, weights[x]);
+		}
+		return effectiveSampleSize;
+	}
+	
+	/**
+	 * Returns the probability mass function of the number of initial infections,
+	 * a binomial distribution {@code Bin(s, p)} conditioned on at least one infection.
+	 * <br>
+	 * Computed in log-space, since {@code s}-choose-{@code k} overflows an integer for large networks.
+	 *
+	 * @param s number of nodes in the network
+	 * @param p daily probability of infection from outside world.
+	 * @return an array whose {@code (k-1)}<sup>th</sup> element is the probability of {@code k} initial infections.
+	 */
+	static double[] getTruncatedBinomialPMF(int s, double p)
+	{
+		double q = 1-p;
+		double factor = 1.0/(1.0-Math.pow(q, s));
+		double[] conditionalProb = new double[s];
+		double logNChooseK = 0.0;
+		for (int k=1; k<=s; k++)
+		{
+			logNChooseK += Math.log(s-k+1)-Math.log(k);
+			conditionalProb[k-1] = factor*Math.exp(logNChooseK+k*Math.log(p)+(s-k)*Math.log(q));
+		}
+		return conditionalProb;
+	}
+	
+	/**
+	 * Returns the sampler of the number of initial infections, i.e., of the truncated binomial distribution
+	 * (see {@link simulationRuns#getTruncatedBinomialPMF(int, double)}), from
+	 * {@link simulationRuns#mapExternalInfectionProbabilityToSampler}, building it if it is not there or is for a
+	 * different number of nodes.
+	 *
+	 * @param s number of nodes in the network
+	 * @param p daily probability of infection from outside world.
+	 * @return the sampler of the number of initial infections.
+	 * @throws Exception thrown if the truncated binomial distribution is not a probability mass function.
+	 */
+	discreteDistributionSampler getInitialInfectionsSampler(int s, double p) throws Exception
+	{
+		discreteDistributionSampler sampler = mapExternalInfectionProbabilityToSampler.get(p);
+		if ((sampler==null) || (sampler.getNumberOfStates()!=s))
+		{
+			sampler = new discreteDistributionSampler(getInitialInfectionsStateSpace(s),
+					getTruncatedBinomialPMF(s, p));
+			mapExternalInfectionProbabilityToSampler.put(p, sampler);
+		}
+		return sampler;
+	}
+	
+	/**
+	 * Returns the state space {@code 1, 2, ..., s} of the number of initial infections.
+	 *
+	 * @param s number of nodes in the network.
+	 * @return an array of integers from 1 to {@code s}.
+	 */
+	static int[] getInitialInfectionsStateSpace(int s)
+	{
+		int[] stateSpace = new int[s];
+		for (int i=1; i<=s; i++)
+			stateSpace[i-1] = i;
+		return stateSpace;
+	}
+	
+	/**
+	 * Simulates infectious nodes at each time in a sample path, and streams each sample path to
+	 * {@code consumers} as soon as it is simulated, instead of storing it
+	 * (nothing is added to {@link simulationRuns#mapParamToSamples}).
+	 * The initial infection is conditional binomial.
+	 * <br>
+	 * The sample paths are the same as those of
+	 * {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[], int)};
+	 * each block of simulation repetitions is fed to copies of {@code consumers},
+	 * which are then combined into {@code consumers} in the order of the blocks.
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters
+	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[],
+	 *                 int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on
+	 * @param consumers consumers of the sample paths.
+	 * @throws Exception thrown if minimum node label in the graph {@code g} is less than 2;
+	 *                      or if the length of {@code baseSeed} is not 4;
+	 *                      or if {@code numberOfThreads<1};
+	 *                      or if {@code param} is for a different network;
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	public void streamSimulationForConditionalProbabilityWithLatency(graph originalGraph, simulationParameters param,
+	                                                                 int[] baseSeed, int numberOfThreads,
+	                                                                 List<? extends samplePathConsumer> consumers)
+			throws Exception
+	{
+		streamSimulationForConditionalProbabilityWithLatency(originalGraph, param, baseSeed, numberOfThreads, consumers,
+				0, param.getNumberOfSimulationRepetitions());
+	}
+	
+	/**
+	 * Simulates a range of simulation repetitions, and streams each sample path to {@code consumers} as soon as it
+	 * is simulated (see {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency(graph,
+	 * simulationParameters, int[], int, List)}).
+	 * <br>
+	 * Since the random number streams of a simulation repetition do not depend on the number of simulation
+	 * repetitions, streaming consecutive ranges gives the same sample paths as streaming all of them at once;
+	 * so, a simulation can be streamed in batches until the consumers have seen enough sample paths.
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters (the number of simulation repetitions is not used)
+	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[],
+	 *                 int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on
+	 * @param consumers consumers of the sample paths
+	 * @param firstReplication index of the first simulation repetition; a multiple of
+	 *                         {@link bitParallelKernel#REPLICATIONS_PER_WORD} with {@link engineType#BIT_PARALLEL}
+	 * @param lastReplication index of the simulation repetition after the last one.
+	 * @throws Exception thrown if minimum node label in the graph {@code g} is less than 2;
+	 *                      or if the length of {@code baseSeed} is not 4;
+	 *                      or if {@code numberOfThreads<1};
+	 *                      or if {@code param} is for a different network;
+	 *                      or if the range of simulation repetitions is invalid;
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	public void streamSimulationForConditionalProbabilityWithLatency(graph originalGraph, simulationParameters param,
+	                                                                 int[] baseSeed, int numberOfThreads,
+	                                                                 List<? extends samplePathConsumer> consumers,
+	                                                                 int firstReplication, int lastReplication)
+			throws Exception
+	{
+		csrGraph g = getGraphToStream(originalGraph, param, baseSeed, numberOfThreads, firstReplication,
+				lastReplication);
+		checkEngineToStream(param, firstReplication);
+		int s = g.getNumberOfNodes();
+		
+		// Finding truncated Bin(s, p)
+		discreteDistributionSampler initialInfectionsSampler = getInitialInfectionsSampler(s,
+				param.getExternalInfectionProbability());
+		
+		streamReplications(g, param, baseSeed, numberOfThreads, consumers, firstReplication, lastReplication,
+				initialInfectionsSampler, "Starting streaming simulation");
+	}
+	
+	/**
+	 * Simulates infectious nodes at each time in a sample path, and streams each sample path with its trial counts
+	 * (see {@link trialCounts}) to {@code consumers} as soon as it is simulated
+	 * (see {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency(graph, simulationParameters,
+	 * int[], int, List)}).
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters
+	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[],
+	 *                 int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on
+	 * @param consumers consumers of the sample paths and their trial counts.
+	 * @throws Exception thrown if minimum node label in the graph {@code g} is less than 2;
+	 *                      or if the length of {@code baseSeed} is not 4;
+	 *                      or if {@code numberOfThreads<1};
+	 *                      or if {@code param} is for a different network;
+	 *                      or if the engine does not record trial counts;
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	public void streamTrialCountsForConditionalProbabilityWithLatency(graph originalGraph, simulationParameters param,
+	                                                                  int[] baseSeed, int numberOfThreads,
+	                                                                  List<? extends trialCountsConsumer> consumers)
+			throws Exception
+	{
+		streamTrialCountsForConditionalProbabilityWithLatency(originalGraph, param, baseSeed, numberOfThreads,
+				consumers, 0, param.getNumberOfSimulationRepetitions());
+	}
+	
+	/**
+	 * Simulates a range of simulation repetitions, and streams each sample path with its trial counts to
+	 * {@code consumers} as soon as it is simulated (see
+	 * {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency(graph, simulationParameters, int[],
+	 * int, List, int, int)}).
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters (the number of simulation repetitions is not used)
+	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[],
+	 *                 int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on
+	 * @param consumers consumers of the sample paths and their trial counts
+	 * @param firstReplication index of the first simulation repetition
+	 * @param lastReplication index of the simulation repetition after the last one.
+	 * @throws Exception thrown if minimum node label in the graph {@code g} is less than 2;
+	 *                      or if the length of {@code baseSeed} is not 4;
+	 *                      or if {@code numberOfThreads<1};
+	 *                      or if {@code param} is for a different network;
+	 *                      or if the range of simulation repetitions is invalid;
+	 *                      or if the engine does not record trial counts;
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	public void streamTrialCountsForConditionalProbabilityWithLatency(graph originalGraph, simulationParameters param,
+	                                                                  int[] baseSeed, int numberOfThreads,
+	                                                                  List<? extends trialCountsConsumer> consumers,
+	                                                                  int firstReplication, int lastReplication)
+			throws Exception
+	{
+		List<trialCountsFeeder> feeders = new ArrayList<>(consumers.size());
+		for (trialCountsConsumer consumer: consumers)
+			feeders.add(new trialCountsFeeder(consumer));
+		streamSimulationForConditionalProbabilityWithLatency(originalGraph, param, baseSeed, numberOfThreads, feeders,
+				firstReplication, lastReplication);
+	}
+	
+	/**
+	 * Feeds the sample paths of a block to a consumer of trial counts (see {@link trialCountsConsumer}), together
+	 * with the trial counts of the block, which are set by
+	 * {@link simulationRuns#simulateBlock(csrGraph, simulationParameters, int[], int[], int, int, int, List)} and
+	 * updated by the engine for each sample path.
+	 */
+	private static class trialCountsFeeder implements samplePathConsumer
+	{
+		/**
+		 * Consumer of the sample paths and their trial counts.
+		 */
+		final trialCountsConsumer consumer;
+		
+		/**
+		 * Trial counts of the current sample path.
+		 */
+		trialCounts counts;
+		
+		/**
+		 * Constructor.
+		 *
+		 * @param consumer consumer of the sample paths and their trial counts.
+		 */
+		trialCountsFeeder(trialCountsConsumer consumer)
+		{
+			this.consumer = consumer;
+		}
+		
+		/**
+		 * Returns a new feeder of a new instance of the consumer.
+		 *
+		 * @return a new feeder of a new instance of {@link trialCountsFeeder#consumer}.
+		 */
+		@Override
+		public samplePathConsumer newInstance()
+		{
+			return new trialCountsFeeder(consumer.newInstance());
+		}
+		
+		/**
+		 * Feeds a sample path with its trial counts to the consumer.
+		 *
+		 * @param replication index (starting from 0) of the simulation repetition
+		 * @param infectiousDay day on which each node became infectious.
+		 */
+		@Override
+		public void accept(int replication, byte[] infectiousDay)
+		{
+			consumer.accept(replication, infectiousDay, counts);
+		}
+		
+		/**
+		 * Adds the statistics of the consumer of another feeder to the consumer of this feeder.
+		 *
+		 * @param other a feeder created by {@link trialCountsFeeder#newInstance()}.
+		 */
+		@Override
+		public void combine(samplePathConsumer other)
+		{
+			consumer.combine(((trialCountsFeeder) other).consumer);
+		}
+	}
+	
+	/**
+	 * Simulates a range of simulation repetitions of a stratum of the number of initial infections, i.e., conditional
+	 * on the number of initial infections being in the stratum, and streams each sample path to {@code consumers}
+	 * as soon as it is simulated (see {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency(graph,
+	 * simulationParameters, int[], int, List, int, int)}).
+	 * <br>
+	 * With {@code m} strata, stratum {@code j} ({@code 0<=j<m-1}) has {@code j+1} initial infections, and the last
+	 * stratum has {@code m} or more initial infections, drawn from the truncated binomial distribution conditioned on
+	 * the stratum (see {@link simulationRuns#getStratumProbabilities(int, double, int)}).
+	 * The random number streams of each stratum are derived from the base seed and the stratum
+	 * (see {@link simulationRuns#getStratumBaseSeed(int[], int)}), so the strata are independent.
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters (the number of simulation repetitions is not used)
+	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[],
+	 *                 int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on
+	 * @param consumers consumers of the sample paths
+	 * @param numberOfStrata number of strata
+	 * @param stratum index (starting from 0) of the stratum
+	 * @param firstReplication index of the first simulation repetition of the stratum; a multiple of
+	 *                         {@link bitParallelKernel#REPLICATIONS_PER_WORD} with {@link engineType#BIT_PARALLEL}
+	 * @param lastReplication index of the simulation repetition of the stratum after the last one.
+	 * @throws Exception thrown if minimum node label in the graph {@code g} is less than 2;
+	 *                      or if the length of {@code baseSeed} is not 4;
+	 *                      or if {@code numberOfThreads<1};
+	 *                      or if {@code param} is for a different network;
+	 *                      or if the range of simulation repetitions is invalid;
+	 *                      or if the number of strata is not between 1 and the number of nodes;
+	 *                      or if the stratum is invalid, or has zero probability;
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	public void streamStratumForConditionalProbabilityWithLatency(graph originalGraph, simulationParameters param,
+	                                                              int[] baseSeed, int numberOfThreads,
+	                                                              List<? extends samplePathConsumer> consumers,
+	                                                              int numberOfStrata, int stratum, int firstReplication,
+	                                                              int lastReplication) throws Exception
+	{
+		csrGraph g = getGraphToStream(originalGraph, param, baseSeed, numberOfThreads, firstReplication,
+				lastReplication);
+		checkEngineToStream(param, firstReplication);
+		int s = g.getNumberOfNodes();
+		if ((numberOfStrata<1) || (numberOfStrata>s))
+			throw new Exception("Number of strata should be between 1 and the number of nodes!");
+		if ((stratum<0) || (stratum>=numberOfStrata))
+			throw new Exception("Invalid stratum!");
+		
+		// Finding truncated Bin(s, p) conditioned on the stratum
+		double[] conditionalProb = getTruncatedBinomialPMF(s, param.getExternalInfectionProbability());
+		int smallestInitialInfections = stratum+1;
+		int largestInitialInfections = (stratum==numberOfStrata-1) ? s : stratum+1;
+		int[] stateSpace = IntStream.rangeClosed(smallestInitialInfections, largestInitialInfections).toArray();
+		double stratumProbability = 0;
+		for (int i: stateSpace)
+			stratumProbability += conditionalProb[i-1];
+		if (stratumProbability<=0)
+			throw new Exception("Stratum has zero probability!");
+		double[] stratumProb = new double[stateSpace.length];
+		for (int i=0; i<stateSpace.length; i++)
+			stratumProb[i] = conditionalProb[stateSpace[i]-1]/stratumProbability;
+		
+		streamReplications(g, param, getStratumBaseSeed(baseSeed, stratum), numberOfThreads, consumers,
+				firstReplication, lastReplication, new discreteDistributionSampler(stateSpace, stratumProb),
+				"Starting streaming simulation of stratum "+(stratum+1)+" of "+numberOfStrata);
+	}
+	
+	/**
+	 * Returns the probabilities of the strata of the number of initial infections
+	 * (see {@link simulationRuns#streamStratumForConditionalProbabilityWithLatency}), i.e., the sums of the
+	 * probabilities of the truncated binomial distribution over the strata.
+	 *
+	 * @param s number of nodes in the network
+	 * @param p daily probability of infection from outside world
+	 * @param numberOfStrata number of strata.
+	 * @return an array whose {@code j}<sup>th</sup> element is the probability of stratum {@code j}.
+	 * @throws Exception thrown if the number of strata is not between 1 and {@code s}.
+	 */
+	public static double[] getStratumProbabilities(int s, double p, int numberOfStrata) throws Exception
+	{
+		if ((numberOfStrata<1) || (numberOfStrata>s))
+			throw new Exception("Number of strata should be between 1 and the number of nodes!");
+		double[] conditionalProb = getTruncatedBinomialPMF(s, p);
+		double[] stratumProb = new double[numberOfStrata];
+		for (int k=1; k<=s; k++)
+			stratumProb[Math.min(k, numberOfStrata)-1] += conditionalProb[k-1];
+		return stratumProb;
+	}
+	
+	/**
+	 * Returns the base seed from which the random number streams of a stratum are derived.
+	 *
+	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation
+	 * @param stratum index (starting from 0) of the stratum.
+	 * @return base seed of stratum {@code stratum}.
+	 */
+	static int[] getStratumBaseSeed(int[] baseSeed, int stratum)
+	{
+		int[] stratumSeed = new int[baseSeed.length];
+		for (int i=0; i<baseSeed.length; i++)
+			stratumSeed[i] = (int) randomStreams.seedForReplication(baseSeed[i], -1-stratum);
+		return stratumSeed;
+	}
+	
+	/**
+	 * Simulates a sweep over transmissabilities and external infection probabilities, coupled by common random
+	 * numbers, and streams each sample path of each point of the sweep to the consumers of the point.
+	 * <br>
+	 * Each simulation repetition is simulated at every point in one pass (see {@link coupledSweepKernel}):
+	 * each trial of infection has one random number shared by all points, so the sample paths are monotone in the
+	 * transmissability and the external infection probability, and differences between points have a much smaller
+	 * variance than with independent simulations.
+	 * The random numbers of repetition {@code x} are derived from the sum of base seed and hashcode of the
+	 * parameters shared by the points (see {@link dataTypes.epidemicParameters#getCoupledSeedHashCode()}), and
+	 * {@code x}; the sample paths of a point have the same distribution as those of
+	 * {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency(graph, simulationParameters, int[],
+	 * int, List)}, but are not the same sample paths.
+	 * The engine (see {@link simulationRuns#engine}) is not used.
+	 *
+	 * @param originalGraph network graph
+	 * @param listOfParams simulation parameters of the points; they should differ only in the transmissability, the
+	 *                     external infection probability and the false negative probability
+	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[],
+	 *                 int)})
+	 * @param numberOfThreads number of threads to run the simulation repetitions on
+	 * @param consumers consumers of the sample paths of each point, in the order of {@code listOfParams}.
+	 * @throws Exception thrown if minimum node label in the graph {@code g} is less than 2;
+	 *                      or if the length of {@code baseSeed} is not 4;
+	 *                      or if {@code numberOfThreads<1};
+	 *                      or if the parameters are for a different network;
+	 *                      or if there are no parameters, or the parameters differ in more than the transmissability,
+	 *                      the external infection probability and the false negative probability;
+	 *                      or if there is not a list of consumers for each point.
+	 */
+	public void streamCoupledSweepForConditionalProbabilityWithLatency(graph originalGraph,
+	                                                   List<simulationParameters> listOfParams, int[] baseSeed,
+	                                                   int numberOfThreads,
+	                                                   List<? extends List<? extends samplePathConsumer>> consumers)
+			throws Exception
+	{
+		if (listOfParams.isEmpty())
+			throw new Exception("No simulation parameters to sweep!");
+		if (consumers.size()!=listOfParams.size())
+			throw new Exception("There should be a list of consumers for each simulation parameters!");
+		simulationParameters param = listOfParams.get(0);
+		for (simulationParameters other: listOfParams)
+		{
+			if (!isCoupledWith(param, other))
+				throw new Exception("Simulation parameters of a coupled sweep should differ only in the "
+						+"transmissability, the external infection probability and the false negative probability!");
+		}
+		int reps = param.getNumberOfSimulationRepetitions();
+		csrGraph g = getGraphToStream(originalGraph, param, baseSeed, numberOfThreads, 0, reps);
+		int s = g.getNumberOfNodes();
+		int hashcode = param.getEpidemicParameters().getCoupledSeedHashCode();
+		
+		// Generate number of initial infections (at t=1) for each run by inverting the same random number at each point
+		double[] binomialGenChoice = IntStream.range(0, reps)
+				.mapToDouble(x -> randomStreams.streamForReplication(baseSeed[3]+hashcode, x).nextDouble())
+				.toArray();
+		int[][] binomialChoices = new int[listOfParams.size()][];
+		for (int p=0; p<listOfParams.size(); p++)
+			binomialChoices[p] = getInitialInfectionsSampler(s, listOfParams.get(p).getExternalInfectionProbability())
+					.sample(binomialGenChoice);
+		
+		// simulation repetitions
+		System.out.println("Starting coupled sweep of "+listOfParams.size()+" points for: \n\t"+param.toString());
+		Instant tic = Instant.now();
+		ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+		try
+		{
+			List<List<List<samplePathConsumer>>> consumersOfBlocks = pool.submit(() ->
+					IntStream.range(0, getNumberOfBlocks(reps))
+							.parallel()
+							.mapToObj(b -> simulateCoupledBlock(g, listOfParams, baseSeed, binomialChoices,
+									b*REPLICATIONS_PER_BLOCK, Math.min(reps, (b+1)*REPLICATIONS_PER_BLOCK), consumers))
+							.collect(Collectors.toList())).get();
+			for (List<List<samplePathConsumer>> consumersOfBlock: consumersOfBlocks)
+				for (int p=0; p<consumers.size(); p++)
+					for (int i=0; i<consumers.get(p).size(); i++)
+						consumers.get(p).get(i).combine(consumersOfBlock.get(p).get(i));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		Instant toc = Instant.now();
+		System.out.println("Ending coupled sweep for: \n\t"+param.toString());
+		System.out.println("Simulation time = "+1.0*Duration.between(tic, toc).toMillis()/1000.0+" second.");
+	}
+	
+	/**
+	 * Checks whether two simulation parameters can be points of the same coupled sweep, i.e., whether they differ
+	 * only in the transmissability, the external infection probability and the false negative probability.
+	 *
+	 * @param param simulation parameters
+	 * @param other simulation parameters.
+	 * @return {@code true}, if {@code param} and {@code other} can be points of the same coupled sweep;
+	 * {@code false}, otherwise.
+	 */
+	private static boolean isCoupledWith(simulationParameters param, simulationParameters other)
+	{
+		return param.getNetworkName().equals(other.getNetworkName())
+				&& (param.getTimeStep()==other.getTimeStep())
+				&& (param.getNumberOfSimulationRepetitions()==other.getNumberOfSimulationRepetitions())
+				&& (param.getLatency()==other.getLatency())
+				&& Arrays.equals(param.getLatencyDistribution(), other.getLatencyDistribution());
+	}
+	
+	/**
+	 * Simulates the simulation repetitions of a block (see {@link simulationRuns#REPLICATIONS_PER_BLOCK}) at every
+	 * point of a coupled sweep, and feeds each sample path of each point to new copies
+	 * (see {@link samplePathConsumer#newInstance()}) of the consumers of the point.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param listOfParams simulation parameters of the points
+	 * @param baseSeed base seed for random number generation
+	 * @param binomialChoices number of initial infections in each simulation repetition, by point
+	 * @param firstReplication index of the first simulation repetition
+	 * @param lastReplication index of the simulation repetition after the last one
+	 * @param consumers consumers of the sample paths of each point.
+	 * @return copies of {@code consumers} that consumed the sample paths of the block.
+	 */
+	private List<List<samplePathConsumer>> simulateCoupledBlock(csrGraph g, List<simulationParameters> listOfParams,
+	                                        int[] baseSeed, int[][] binomialChoices, int firstReplication,
+	                                        int lastReplication,
+	                                        List<? extends List<? extends samplePathConsumer>> consumers)
+	{
+		int numberOfPoints = listOfParams.size();
+		int hashcode = listOfParams.get(0).getEpidemicParameters().getCoupledSeedHashCode();
+		List<List<samplePathConsumer>> consumersOfBlock = new ArrayList<>(numberOfPoints);
+		for (List<? extends samplePathConsumer> consumersOfPoint: consumers)
+		{
+			List<samplePathConsumer> copies = new ArrayList<>(consumersOfPoint.size());
+			for (samplePathConsumer consumer: consumersOfPoint)
+				copies.add(consumer.newInstance());
+			consumersOfBlock.add(copies);
+		}
+		coupledSweepKernel kernel = new coupledSweepKernel(g, listOfParams);
+		reseedableRandom firstInfectedGen = new reseedableRandom(0);
+		int[] initialNumberOfInfections = new int[numberOfPoints];
+		for (int x=firstReplication; x<lastReplication; x++)
+		{
+			for (int p=0; p<numberOfPoints; p++)
+				initialNumberOfInfections[p] = binomialChoices[p][x];
+			firstInfectedGen.reseed(randomStreams.seedForReplication(baseSeed[0]+hashcode, x));
+			kernel.simulate(initialNumberOfInfections, firstInfectedGen,
+					randomStreams.seedForReplication(baseSeed[1]+hashcode, x),
+					randomStreams.seedForReplication(baseSeed[2]+hashcode, x));
+			for (int p=0; p<numberOfPoints; p++)
+				for (samplePathConsumer consumer: consumersOfBlock.get(p))
+					consumer.accept(x, kernel.getInfectiousDay(p));
+		}
+		return consumersOfBlock;
+	}
+	
+	/**
+	 * Checks the arguments of a streaming simulation, and returns the network graph to simulate on.
+	 *
+	 * @param originalGraph network graph
+	 * @param param simulation parameters
+	 * @param baseSeed an integer array of length 4 to act as a base seed for random number generation
+	 * @param numberOfThreads number of threads to run the simulation repetitions on
+	 * @param firstReplication index of the first simulation repetition
+	 * @param lastReplication index of the simulation repetition after the last one.
+	 * @return the network graph in compressed sparse row form.
+	 * @throws Exception thrown if minimum node label in the graph {@code g} is less than 2;
+	 *                      or if the length of {@code baseSeed} is not 4;
+	 *                      or if {@code numberOfThreads<1};
+	 *                      or if {@code param} is for a different network;
+	 *                      or if the range of simulation repetitions is invalid;
+	 *                      or if the time step is too long.
+	 */
+	private csrGraph getGraphToStream(graph originalGraph, simulationParameters param, int[] baseSeed,
+	                                  int numberOfThreads, int firstReplication, int lastReplication) throws Exception
+	{
+		csrGraph g = new csrGraph(originalGraph);
+		// check graph node labels >=2
+		int minNodeLabel = originalGraph.getMinimumNodeLabel();
+		if (minNodeLabel<2)
+			throw new Exception("Node labels should be >=2!");
+		if (baseSeed.length!=4)
+			throw new Exception("Length of base seed array should be 4!");
+		if (numberOfThreads<1)
+			throw new Exception("Number of threads should be positive!");
+		if (!param.getNetworkName().equals(g.getNetworkName()))
+			throw new Exception("Parameters are for a different network!");
+		if ((firstReplication<0) || (lastReplication<firstReplication))
+			throw new Exception("Invalid range of simulation repetitions!");
+		if (param.getTimeStep()>epidemicKernel.MAX_TIME_STEP)
+			throw new Exception("Time step should be at most "+epidemicKernel.MAX_TIME_STEP+"!");
+		return g;
+	}
+	
+	/**
+	 * Checks that the engine (see {@link simulationRuns#engine}) can stream a range of simulation repetitions.
+	 *
+	 * @param param simulation parameters
+	 * @param firstReplication index of the first simulation repetition.
+	 * @throws Exception thrown if the engine is {@link engineType#BIT_PARALLEL} and {@code firstReplication} is not
+	 *                      a multiple of {@link bitParallelKernel#REPLICATIONS_PER_WORD};
+	 *                      or if the latency is random and the engine cannot simulate it.
+	 */
+	private void checkEngineToStream(simulationParameters param, int firstReplication) throws Exception
+	{
+		if ((engine==engineType.BIT_PARALLEL) && (firstReplication%bitParallelKernel.REPLICATIONS_PER_WORD!=0))
+			throw new Exception("First simulation repetition should be a multiple of "
+					+bitParallelKernel.REPLICATIONS_PER_WORD+" with the bit-parallel engine!");
+		if ((param.getLatencyDistribution()!=null) && !engine.canSimulateRandomLatency())
+			throw new Exception("Random latency is only supported by the daily sweep!");
+	}
+	
+	/**
+	 * Simulates a range of simulation repetitions with the number of initial infections drawn from a distribution,
+	 * and streams each sample path to {@code consumers}.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param param simulation parameters
+	 * @param baseSeed base seed for random number generation
+	 * @param numberOfThreads number of threads to run the simulation repetitions on
+	 * @param consumers consumers of the sample paths
+	 * @param firstReplication index of the first simulation repetition
+	 * @param lastReplication index of the simulation repetition after the last one
+	 * @param initialInfectionsSampler sampler of the number of initial infections
+	 * @param message message printed when the simulation starts.
+	 * @throws Exception thrown if a consumer needs trial counts and the engine does not record them;
+	 *                      or if a thread is interrupted or fails.
+	 */
+	private void streamReplications(csrGraph g, simulationParameters param, int[] baseSeed, int numberOfThreads,
+	                                List<? extends samplePathConsumer> consumers, int firstReplication,
+	                                int lastReplication, discreteDistributionSampler initialInfectionsSampler,
+	                                String message)
+			throws Exception
+	{
+		if (needsTrialCounts(consumers) && !engine.canRecordTrialCounts())
+			throw new Exception("Trial counts are only recorded by the daily sweep!");
+		int hashcode = param.getEpidemicParameters().getSeedHashCode();
+		
+		// Generate number of initial infections (at t=1) for each run in the range
+		double[] binomialGenChoice = IntStream.range(firstReplication, lastReplication)
+				.mapToDouble(x -> randomStreams.streamForReplication(baseSeed[3]+hashcode, x).nextDouble())
+				.toArray();
+		int[] binomialChoices = initialInfectionsSampler.sample(binomialGenChoice);
+		
+		// simulation repetitions
+		System.out.println(message
+				+((firstReplication>0) ? " from simulation repetition "+(firstReplication+1) : "")
+				+" for: \n\t"+param.toString());
+		Instant tic = Instant.now();
+		ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+		try
+		{
+			List<List<samplePathConsumer>> consumersOfBlocks = pool.submit(() ->
+					IntStream.range(firstReplication/REPLICATIONS_PER_BLOCK, getNumberOfBlocks(lastReplication))
+							.parallel()
+							.mapToObj(b -> simulateBlock(g, param, baseSeed, binomialChoices, firstReplication,
+									Math.max(firstReplication, b*REPLICATIONS_PER_BLOCK),
+									Math.min(lastReplication, (b+1)*REPLICATIONS_PER_BLOCK), consumers))
+							.collect(Collectors.toList())).get();
+			for (List<samplePathConsumer> consumersOfBlock: consumersOfBlocks)
+				for (int i=0; i<consumers.size(); i++)
+					consumers.get(i).combine(consumersOfBlock.get(i));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		Instant toc = Instant.now();
+		System.out.println("Ending streaming simulation for: \n\t"+param.toString());
+		System.out.println("Simulation time = "+1.0*Duration.between(tic, toc).toMillis()/1000.0+" second.");
+	}
+	
+	/**
+	 * Checks whether any of the consumers needs trial counts (see {@link trialCountsConsumer}).
+	 *
+	 * @param consumers consumers of the sample paths.
+	 * @return {@code true}, if any of {@code consumers} feeds a {@link trialCountsConsumer}; {@code false}, otherwise.
+	 */
+	private static boolean needsTrialCounts(List<? extends samplePathConsumer> consumers)
+	{
+		for (samplePathConsumer consumer: consumers)
+			if (consumer instanceof trialCountsFeeder)
+				return true;
+		return false;
+	}
+	
+	/**
+	 * Returns the number of blocks of {@link simulationRuns#REPLICATIONS_PER_BLOCK} simulation repetitions.
+	 *
+	 * @param reps number of simulation repetitions.
+	 * @return the number of blocks needed for {@code reps} simulation repetitions.
+	 */
+	static int getNumberOfBlocks(int reps)
+	{
+		return (reps+REPLICATIONS_PER_BLOCK-1)/REPLICATIONS_PER_BLOCK;
+	}
+	
+	/**
+	 * Returns blocks of {@link simulationRuns#REPLICATIONS_PER_BLOCK} sample paths in the compact form for
+	 * simulation repetitions, holding the sample paths of the first repetitions of an output.
+	 * Blocks of the output that are complete in the new blocks are shared; the block in which new repetitions start
+	 * is copied.
+	 *
+	 * @param output simulation output whose sample paths are held; {@code null} for new blocks only
+	 * @param firstReplication index of the first simulation repetition not held from {@code output}
+	 * @param reps number of simulation repetitions
+	 * @param s number of nodes (excluding the super node).
+	 * @return blocks of sample paths in the compact form for {@code reps} simulation repetitions.
+	 */
+	private static byte[][] getBlocks(simulationOutput output, int firstReplication, int reps, int s)
+	{
+		byte[][] blocks = new byte[getNumberOfBlocks(reps)][];
+		boolean holdOutput = (output!=null) && output.isCompact();
+		for (int b=0; b<blocks.length; b++)
+		{
+			int first = b*REPLICATIONS_PER_BLOCK;
+			int last = Math.min(reps, first+REPLICATIONS_PER_BLOCK);
+			if (holdOutput && (last<=firstReplication))
+				blocks[b] = output.getInfectiousDays()[b];
+			else
+			{
+				blocks[b] = new byte[(last-first)*s];
+				if (holdOutput && (first<firstReplication))
+					System.arraycopy(output.getInfectiousDays()[b], 0, blocks[b], 0, (firstReplication-first)*s);
+			}
+		}
+		return blocks;
+	}
+	
+	/**
+	 * Returns the output of the sample paths of an output followed by more sample paths in the form of the output.
+	 *
+	 * @param output simulation output
+	 * @param blocks sample paths in the compact form (see {@link simulationRuns#getBlocks(simulationOutput, int, int,
+	 *               int)}), holding the first sample paths of {@code output} if it is in the compact form
+	 * @param firstReplication index of the first simulation repetition not from {@code output}
+	 * @param reps number of simulation repetitions.
+	 * @return the output of {@code reps} sample paths.
+	 */
+	private static simulationOutput getAppendedOutput(simulationOutput output, byte[][] blocks, int firstReplication,
+	                                                  int reps)
+	{
+		simulationOutput appended = new simulationOutput(blocks, REPLICATIONS_PER_BLOCK, reps, output.getNodeLabels(),
+				output.getSupernode(), output.getTimeStep(), output.getSimulationWallTime());
+		appended.setSimulatedWith(output.getEngine(), output.getBaseSeed());
+		if (!output.isCompact())
+		{
+			List<Map<Integer, Set<Integer>>> samples = new ArrayList<>(reps);
+			samples.addAll(output.getSamplesOfInfectiousNodesAtEachTime().subList(0, firstReplication));
+			for (int x=firstReplication; x<reps; x++)
+				samples.add(appended.getSample(x));
+			appended.setSamplesOfInfectiousNodesAtEachTime(samples);
+		}
+		return appended;
+	}
+	
+	/**
+	 * Simulates simulation repetitions one after another from the states of the random number generators, which
+	 * are updated to the states after the last repetition.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param param simulation parameters
+	 * @param generatorStates states of the random number generators for selecting the initial set of infectious nodes,
+	 *                        external infections, internal infections, and choosing the number of initial
+	 *                        infections
+	 * @param firstReplication index of the first simulation repetition
+	 * @param infectiousDays blocks to store the sample paths in the compact form.
+	 * @throws Exception thrown if the probability mass function of the number of initial infections is invalid.
+	 */
+	private void simulateSequentially(csrGraph g, simulationParameters param, long[] generatorStates,
+	                                  int firstReplication, byte[][] infectiousDays) throws Exception
+	{
+		int s = g.getNumberOfNodes();
+		int reps = param.getNumberOfSimulationRepetitions();
+		
+		// Random number generators
+		reseedableRandom firstInfectedGen = new reseedableRandom(generatorStates[0]);
+		reseedableRandom outsideInfectionGen = new reseedableRandom(generatorStates[1]);
+		reseedableRandom transmissabilityGen = new reseedableRandom(generatorStates[2]);
+		reseedableRandom binomialGen = new reseedableRandom(generatorStates[3]);
+		
+		// Finding truncated Bin(s, p)
+		discreteDistributionSampler initialInfectionsSampler = getInitialInfectionsSampler(s,
+				param.getExternalInfectionProbability());
+		
+		// Generate number of initial infections (at t=1) for each run using truncated binomial
+		double[] binomialGenChoice = IntStream.range(firstReplication, reps).mapToDouble(x -> binomialGen.nextDouble())
+				.toArray();
+		int[] binomialChoices = initialInfectionsSampler.sample(binomialGenChoice);
+		
+		epidemicEngine kernel = engine.newEngine(g, param);
+		for (int x=firstReplication; x<reps; x++)
+		{
+			//System.out.println("\t Simulation repetition "+(x+1));
+			kernel.simulate(binomialChoices[x-firstReplication], firstInfectedGen, outsideInfectionGen,
+					transmissabilityGen);
+			System.arraycopy(kernel.getInfectiousDay(), 0, infectiousDays[x/REPLICATIONS_PER_BLOCK],
+					(x%REPLICATIONS_PER_BLOCK)*s, s);
+		}
+		generatorStates[0] = firstInfectedGen.getSeed();
+		generatorStates[1] = outsideInfectionGen.getSeed();
+		generatorStates[2] = transmissabilityGen.getSeed();
+		generatorStates[3] = binomialGen.getSeed();
+	}
+	
+	/**
+	 * Simulates a block of consecutive simulation repetitions (see {@link simulationRuns#REPLICATIONS_PER_BLOCK}).
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param param simulation parameters
+	 * @param baseSeed base seed for random number generation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[], int)})
+	 * @param binomialChoices number of initial infections in each simulation repetition
+	 * @param block index of the block
+	 * @param resumeFrom states at the end of a shorter time step from which the sample paths are extended;
+	 *                   {@code null} to simulate the sample paths from the start
+	 * @param saveTo states to save the sample paths to at the end of the time step; {@code null} to not save them
+	 * @param trialCountsTo trial counts of each block (see {@link simulationRuns#mapEpidemicToTrialCounts}), to which
+	 *                      the counts of the block are stored; {@code null} to not store them.
+	 * @return sample paths of the simulation repetitions in the block in the compact form
+	 * (see {@link dataTypes.simulationOutput#getInfectiousDays()}).
+	 */
+	private byte[] simulateBlock(csrGraph g, simulationParameters param, int[] baseSeed, int[] binomialChoices,
+	                             int block, epidemicEndState resumeFrom, epidemicEndState saveTo,
+	                             int[][] trialCountsTo)
+	{
+		int s = g.getNumberOfNodes();
+		int firstReplication = block*REPLICATIONS_PER_BLOCK;
+		int lastReplication = Math.min(binomialChoices.length, firstReplication+REPLICATIONS_PER_BLOCK);
+		byte[] infectiousDays = new byte[(lastReplication-firstReplication)*s];
+		trialCounts counts = (trialCountsTo!=null) ? new trialCounts() : null;
+		int[] countsOfBlock = (trialCountsTo!=null)
+				? new int[(lastReplication-firstReplication)*trialCounts.NUMBER_OF_COUNTS] : null;
+		simulateReplications(g, param, baseSeed, binomialChoices, 0, firstReplication, lastReplication,
+				resumeFrom, saveTo, counts, (infectiousDay, x) ->
+				{
+					System.arraycopy(infectiousDay, 0, infectiousDays, (x-firstReplication)*s, s);
+					if (counts!=null)
+						counts.copyTo(countsOfBlock, (x-firstReplication)*trialCounts.NUMBER_OF_COUNTS);
+				});
+		if (trialCountsTo!=null)
+			trialCountsTo[block] = countsOfBlock;
+		return infectiousDays;
+	}
+	
+	/**
+	 * Simulates the simulation repetitions of a block (see {@link simulationRuns#REPLICATIONS_PER_BLOCK}) in a range,
+	 * and feeds each sample path to new copies (see {@link samplePathConsumer#newInstance()}) of consumers;
+	 * feeders of consumers of trial counts (see {@link trialCountsConsumer}) are given the trial counts of the block,
+	 * so the trial counts of each sample path are fed too.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param param simulation parameters
+	 * @param baseSeed base seed for random number generation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[], int)})
+	 * @param binomialChoices number of initial infections in each simulation repetition, from repetition
+	 *                        {@code firstChoice}
+	 * @param firstChoice index of the simulation repetition whose number of initial infections is
+	 *                    {@code binomialChoices[0]}
+	 * @param firstReplication index of the first simulation repetition
+	 * @param lastReplication index of the simulation repetition after the last one
+	 * @param consumers consumers of the sample paths.
+	 * @return copies of {@code consumers} that consumed the sample paths of the block.
+	 */
+	private List<samplePathConsumer> simulateBlock(csrGraph g, simulationParameters param, int[] baseSeed,
+	                                               int[] binomialChoices, int firstChoice, int firstReplication,
+	                                               int lastReplication, List<? extends samplePathConsumer> consumers)
+	{
+		trialCounts counts = needsTrialCounts(consumers) ? new trialCounts() : null;
+		List<samplePathConsumer> consumersOfBlock = new ArrayList<>(consumers.size());
+		for (samplePathConsumer consumer: consumers)
+		{
+			samplePathConsumer consumerOfBlock = consumer.newInstance();
+			if (consumerOfBlock instanceof trialCountsFeeder)
+				((trialCountsFeeder) consumerOfBlock).counts = counts;
+			consumersOfBlock.add(consumerOfBlock);
+		}
+		simulateReplications(g, param, baseSeed, binomialChoices, firstChoice, firstReplication, lastReplication,
+				null, null, counts, (infectiousDay, x) ->
+				{
+					for (samplePathConsumer consumer: consumersOfBlock)
+						consumer.accept(x, infectiousDay);
+				});
+		return consumersOfBlock;
+	}
+	
+	/**
+	 * Simulates consecutive simulation repetitions, reusing one engine (see {@link simulationRuns#engine}) and one
+	 * set of random number generators, and passes each sample path to {@code action}.
+	 * <br>
+	 * The random number streams of repetition {@code x} are derived from the sum of base seed and hashcode of
+	 * the epidemic parameters of {@code param} (see {@link dataTypes.epidemicParameters#getSeedHashCode()}),
+	 * and {@code x}; with the {@link engineType#BIT_PARALLEL} engine, the streams for the trials of infection are
+	 * derived from the index of the group of {@link bitParallelKernel#REPLICATIONS_PER_WORD} repetitions simulated
+	 * at once.
+	 *
+	 * @param g network graph (excluding the super node)
+	 * @param param simulation parameters
+	 * @param baseSeed base seed for random number generation
+	 *                 (see {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[], int)})
+	 * @param binomialChoices number of initial infections in each simulation repetition, from repetition
+	 *                        {@code firstChoice}
+	 * @param firstChoice index of the simulation repetition whose number of initial infections is
+	 *                    {@code binomialChoices[0]}
+	 * @param firstReplication index of the first simulation repetition; a multiple of
+	 *                         {@link bitParallelKernel#REPLICATIONS_PER_WORD} with {@link engineType#BIT_PARALLEL}
+	 * @param lastReplication index of the simulation repetition after the last one
+	 * @param resumeFrom states at the end of a shorter time step from which the sample paths are extended
+	 *                   (only with {@link engineType#canSaveEndStates()}); {@code null} to simulate the sample paths
+	 *                   from the start
+	 * @param saveTo states to save the sample paths to at the end of the time step
+	 *               (only with {@link engineType#canSaveEndStates()}); {@code null} to not save them
+	 * @param counts trial counts to copy the counts of each sample path to before {@code action} is performed
+	 *               (only with {@link engineType#canRecordTrialCounts()}); {@code null} to not copy them
+	 * @param action action to be performed on the day on which each node became infectious, and the index of the
+	 *               simulation repetition, for each sample path.
+	 */
+	private void simulateReplications(csrGraph g, simulationParameters param, int[] baseSeed, int[] binomialChoices,
+	                                  int firstChoice, int firstReplication, int lastReplication,
+	                                  epidemicEndState resumeFrom, epidemicEndState saveTo, trialCounts counts,
+	                                  ObjIntConsumer<byte[]> action)
+	{
+		int hashcode = param.getEpidemicParameters().getSeedHashCode();
+		reseedableRandom outsideInfectionGen = new reseedableRandom(0);
+		reseedableRandom transmissabilityGen = new reseedableRandom(0);
+		if (engine==engineType.BIT_PARALLEL)
+		{
+			if (param.getLatencyDistribution()!=null)
+				throw new UnsupportedOperationException("Random latency is only supported by the daily sweep!");
+			bitParallelKernel kernel = new bitParallelKernel(g, param.getTimeStep(), param.getLatency(),
+					param.getTransmissability(), param.getExternalInfectionProbability());
+			for (int x=firstReplication; x<lastReplication; x+=bitParallelKernel.REPLICATIONS_PER_WORD)
+			{
+				int word = x/bitParallelKernel.REPLICATIONS_PER_WORD;
+				int numberOfReplications = Math.min(bitParallelKernel.REPLICATIONS_PER_WORD, lastReplication-x);
+				outsideInfectionGen.reseed(randomStreams.seedForReplication(baseSeed[1]+hashcode, word));
+				transmissabilityGen.reseed(randomStreams.seedForReplication(baseSeed[2]+hashcode, word));
+				kernel.simulate(x, numberOfReplications, binomialChoices, firstChoice, baseSeed[0]+hashcode,
+						outsideInfectionGen, transmissabilityGen);
+				for (int r=0; r<numberOfReplications; r++)
+					action.accept(kernel.getInfectiousDay(r), x+r);
+			}
+			return;
+		}
+		epidemicEngine kernel = engine.newEngine(g, param);
+		reseedableRandom firstInfectedGen = new reseedableRandom(0);
+		for (int x=firstReplication; x<lastReplication; x++)
+		{
+			if (resumeFrom!=null)
+				((epidemicKernel) kernel).resume(resumeFrom, x, outsideInfectionGen, transmissabilityGen);
+			else
+			{
+				firstInfectedGen.reseed(randomStreams.seedForReplication(baseSeed[0]+hashcode, x));
+				outsideInfectionGen.reseed(randomStreams.seedForReplication(baseSeed[1]+hashcode, x));
+				transmissabilityGen.reseed(randomStreams.seedForReplication(baseSeed[2]+hashcode, x));
+				kernel.simulate(binomialChoices[x-firstChoice], firstInfectedGen, outsideInfectionGen,
+						transmissabilityGen);
+			}
+			if (saveTo!=null)
+				((epidemicKernel) kernel).saveEndState(saveTo, x, outsideInfectionGen, transmissabilityGen);
+			if (counts!=null)
+				((epidemicKernel) kernel).getTrialCounts(counts);
+			action.accept(kernel.getInfectiousDay(), x);
+		}
+	}
 }
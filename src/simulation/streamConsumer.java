@@ -0,0 +1,32 @@
+package simulation;
+
+/**
+ * Represents a consumer of streamed sample paths that keeps only the statistics it needs
+ * (see {@link simulationRuns#streamSimulationForConditionalProbabilityWithLatency}).
+ * <br>
+ * Each block of simulation repetitions is fed to its own copy of the consumer (see
+ * {@link streamConsumer#newInstance()}), and the copies are combined in the order of the blocks
+ * (see {@link streamConsumer#combine(streamConsumer)}).
+ * So, the results of a consumer do not depend on the number of threads.
+ * How a sample path is fed to a consumer is up to the extending interface: {@link samplePathConsumer} consumes the
+ * sample path alone, and {@link trialCountsConsumer} consumes it with its trial counts.
+ * @param <T> type of the consumer.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+public interface streamConsumer<T extends streamConsumer<T>>
+{
+	/**
+	 * Returns a new consumer with the same configuration as this consumer, but without any sample paths consumed.
+	 *
+	 * @return a new consumer with the same configuration as this consumer.
+	 */
+	T newInstance();
+	
+	/**
+	 * Adds the statistics of sample paths consumed by another consumer to this consumer.
+	 *
+	 * @param other a consumer created by {@link streamConsumer#newInstance()} of this consumer.
+	 */
+	void combine(T other);
+}
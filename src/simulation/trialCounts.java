@@ -0,0 +1,263 @@
+package simulation;
+
+/**
+ * Represents the numbers of Bernoulli trials of infection and their successes in a sample path, recorded by
+ * {@link engineType#DAILY_SWEEP} engines for consumers that need them (see {@link trialCountsConsumer}).
+ * <br>
+ * Only trials whose outcome changes the sample path are counted: a trial of external infection of a node that is
+ * not infectious, and a trial of transmission to a susceptible node.
+ * Given the sample path, these trials are independent Bernoulli trials with the simulated probabilities;
+ * so, the likelihood ratio of a sample path under other probabilities, and the scores of the probabilities
+ * (see {@link trialCounts#getScoreOfTransmissability(double)}), depend only on these counts.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 14, 2020.
+ */
+public class trialCounts
+{
+	/**
+	 * Number of counts of a sample path (see {@link trialCounts#copyTo(int[], int)}).
+	 */
+	static final int NUMBER_OF_COUNTS = 5;
+	
+	/**
+	 * Number of nodes infectious at time 0 (excluding the super node).
+	 */
+	int initialInfections;
+	
+	/**
+	 * Number of trials of external infection of nodes that are not infectious.
+	 */
+	int externalInfectionTrials;
+	
+	/**
+	 * Number of successful trials of external infection.
+	 */
+	int externalInfections;
+	
+	/**
+	 * Number of trials of transmission to susceptible nodes.
+	 */
+	int transmissionTrials;
+	
+	/**
+	 * Number of successful trials of transmission.
+	 */
+	int transmissions;
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link trialCounts#initialInfections}.
+	 */
+	public int getInitialInfections()
+	{
+		return initialInfections;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link trialCounts#externalInfectionTrials}.
+	 */
+	public int getExternalInfectionTrials()
+	{
+		return externalInfectionTrials;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link trialCounts#externalInfections}.
+	 */
+	public int getExternalInfections()
+	{
+		return externalInfections;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link trialCounts#transmissionTrials}.
+	 */
+	public int getTransmissionTrials()
+	{
+		return transmissionTrials;
+	}
+	
+	/**
+	 * Getter.
+	 *
+	 * @return {@link trialCounts#transmissions}.
+	 */
+	public int getTransmissions()
+	{
+		return transmissions;
+	}
+	
+	/**
+	 * Returns the natural logarithm of the likelihood ratio of the sample path under another transmissability,
+	 * i.e., {@code S log(b/b') + (T-S) log((1-b)/(1-b'))} for {@code T} trials of transmission with {@code S}
+	 * successes, simulated with transmissability {@code b'}.
+	 *
+	 * @param transmissability transmissability under which the likelihood is evaluated
+	 * @param simulatedTransmissability transmissability with which the sample path was simulated.
+	 * @return the natural logarithm of the likelihood ratio of {@code transmissability} to
+	 * {@code simulatedTransmissability}.
+	 */
+	public double getLogLikelihoodRatioOfTransmissability(double transmissability, double simulatedTransmissability)
+	{
+		return getLogLikelihoodRatio(transmissionTrials, transmissions, transmissability, simulatedTransmissability);
+	}
+	
+	/**
+	 * Returns the natural logarithm of the likelihood ratio of the sample path under another transmissability and
+	 * external infection probability, including the number {@code k} of initial infections, drawn from the binomial
+	 * distribution {@code Bin(s, p)} truncated to {@code k>=1}.
+	 *
+	 * @param transmissability transmissability under which the likelihood is evaluated
+	 * @param externalInfectionProbability external infection probability under which the likelihood is evaluated
+	 * @param simulatedTransmissability transmissability with which the sample path was simulated
+	 * @param simulatedExternalInfectionProbability external infection probability with which the sample path was
+	 *                                              simulated
+	 * @param s number of nodes (excluding the super node).
+	 * @return the natural logarithm of the likelihood ratio.
+	 */
+	public double getLogLikelihoodRatio(double transmissability, double externalInfectionProbability,
+	                                    double simulatedTransmissability, double simulatedExternalInfectionProbability,
+	                                    int s)
+	{
+		double logRatio = getLogLikelihoodRatio(transmissionTrials, transmissions, transmissability,
+				simulatedTransmissability);
+		logRatio += getLogLikelihoodRatio(externalInfectionTrials, externalInfections, externalInfectionProbability,
+				simulatedExternalInfectionProbability);
+		if (initialInfections>0)
+		{
+			logRatio += getLogLikelihoodRatio(s, initialInfections, externalInfectionProbability,
+					simulatedExternalInfectionProbability);
+			logRatio -= Math.log(-Math.expm1(s*Math.log1p(-externalInfectionProbability)));
+			logRatio += Math.log(-Math.expm1(s*Math.log1p(-simulatedExternalInfectionProbability)));
+		}
+		return logRatio;
+	}
+	
+	/**
+	 * Returns the natural logarithm of the likelihood ratio of Bernoulli trials under two success probabilities.
+	 *
+	 * @param trials number of trials
+	 * @param successes number of successes
+	 * @param p success probability under which the likelihood is evaluated
+	 * @param simulatedP success probability with which the trials were simulated.
+	 * @return the natural logarithm of the likelihood ratio of {@code p} to {@code simulatedP}.
+	 */
+	static double getLogLikelihoodRatio(int trials, int successes, double p, double simulatedP)
+	{
+		double logRatio = 0;
+		if (successes>0)
+			logRatio += successes*(Math.log(p)-Math.log(simulatedP));
+		if (trials>successes)
+			logRatio += (trials-successes)*(Math.log1p(-p)-Math.log1p(-simulatedP));
+		return logRatio;
+	}
+	
+	/**
+	 * Returns the score of the transmissability, i.e., the derivative of the natural logarithm of the likelihood of
+	 * the sample path with respect to the transmissability, {@code S/b - (T-S)/(1-b)} for {@code T} trials of
+	 * transmission with {@code S} successes.
+	 *
+	 * @param transmissability transmissability with which the sample path was simulated; {@code 0<b<1}.
+	 * @return the score of the transmissability.
+	 */
+	public double getScoreOfTransmissability(double transmissability)
+	{
+		return getScore(transmissionTrials, transmissions, transmissability);
+	}
+	
+	/**
+	 * Returns the score of the external infection probability, i.e., the derivative of the natural logarithm of the
+	 * likelihood of the sample path with respect to the external infection probability.
+	 * <br>
+	 * Besides the trials of external infection, the number {@code k} of initial infections is drawn from the
+	 * binomial distribution {@code Bin(s, p)} truncated to {@code k>=1}, whose score is
+	 * {@code k/p - (s-k)/(1-p) - s(1-p)^(s-1)/(1-(1-p)^s)}; the initial infections are ignored if the sample path
+	 * was extended from a saved end state.
+	 *
+	 * @param externalInfectionProbability external infection probability with which the sample path was simulated;
+	 *                                     {@code 0<p<1}
+	 * @param s number of nodes (excluding the super node).
+	 * @return the score of the external infection probability.
+	 */
+	public double getScoreOfExternalInfectionProbability(double externalInfectionProbability, int s)
+	{
+		double p = externalInfectionProbability;
+		double score = getScore(externalInfectionTrials, externalInfections, p);
+		if (initialInfections>0)
+		{
+			double logOfAllEscape = s*Math.log1p(-p);
+			score += getScore(s, initialInfections, p)
+					-s*Math.exp(logOfAllEscape)/((1-p)*(-Math.expm1(logOfAllEscape)));
+		}
+		return score;
+	}
+	
+	/**
+	 * Returns the score of the success probability of Bernoulli trials, i.e., the derivative of the natural logarithm
+	 * of their likelihood with respect to the success probability.
+	 *
+	 * @param trials number of trials
+	 * @param successes number of successes
+	 * @param p success probability with which the trials were simulated; {@code 0<p<1}.
+	 * @return the score {@code successes/p - (trials-successes)/(1-p)}.
+	 */
+	static double getScore(int trials, int successes, double p)
+	{
+		return successes/p-(trials-successes)/(1-p);
+	}
+	
+	/**
+	 * Copies the counts to an array, e.g., to store the counts of a sample path
+	 * (see {@link simulationRuns#setRecordTrialCounts(boolean)}).
+	 *
+	 * @param array array to copy the counts to
+	 * @param offset index of the array at which the {@link trialCounts#NUMBER_OF_COUNTS} counts start.
+	 */
+	void copyTo(int[] array, int offset)
+	{
+		array[offset] = initialInfections;
+		array[offset+1] = externalInfectionTrials;
+		array[offset+2] = externalInfections;
+		array[offset+3] = transmissionTrials;
+		array[offset+4] = transmissions;
+	}
+	
+	/**
+	 * Copies the counts from an array to which they were copied by {@link trialCounts#copyTo(int[], int)}.
+	 *
+	 * @param array array to copy the counts from
+	 * @param offset index of the array at which the {@link trialCounts#NUMBER_OF_COUNTS} counts start.
+	 */
+	void copyFrom(int[] array, int offset)
+	{
+		initialInfections = array[offset];
+		externalInfectionTrials = array[offset+1];
+		externalInfections = array[offset+2];
+		transmissionTrials = array[offset+3];
+		transmissions = array[offset+4];
+	}
+	
+	/**
+	 * Returns a string representation of the object.
+	 *
+	 * @return a string representation of the object.
+	 */
+	@Override
+	public String toString()
+	{
+		return "trialCounts{" +
+				"initialInfections=" + initialInfections +
+				", externalInfectionTrials=" + externalInfectionTrials +
+				", externalInfections=" + externalInfections +
+				", transmissionTrials=" + transmissionTrials +
+				", transmissions=" + transmissions +
+				'}';
+	}
+}
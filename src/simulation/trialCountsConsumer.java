@@ -0,0 +1,27 @@
+package simulation;
+
+/**
+ * Represents a consumer of streamed sample paths (see {@link streamConsumer}) that needs the numbers of
+ * trials of infection and their successes in each sample path (see {@link trialCounts}),
+ * e.g., to weight the sample path by its likelihood ratio;
+ * it is fed by {@link simulationRuns#streamTrialCountsForConditionalProbabilityWithLatency}.
+ * <br>
+ * Trial counts are only recorded by the {@link engineType#DAILY_SWEEP} engine.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+public interface trialCountsConsumer extends streamConsumer<trialCountsConsumer>
+{
+	/**
+	 * Consumes a sample path with its trial counts.
+	 * <br>
+	 * <b>Note:</b> {@code infectiousDay} and {@code counts} are overwritten by the next sample path,
+	 * so they should not be stored.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node (indexed by node ids of {@link network.csrGraph})
+	 *                      became infectious; {@link dataTypes.simulationOutput#NOT_INFECTIOUS} if it did not
+	 * @param counts numbers of trials of infection and their successes in the sample path.
+	 */
+	void accept(int replication, byte[] infectiousDay, trialCounts counts);
+}
@@ -0,0 +1,24 @@
+package simulation;
+
+/**
+ * Represents a consumer of sample paths (see {@link samplePathConsumer}) that weights each sample path, e.g., by its
+ * likelihood ratio under other parameters than the simulated ones
+ * (see {@link simulationRuns#reweightSimulation(network.graph, dataTypes.simulationParameters,
+ * dataTypes.simulationParameters, double, java.util.List)}).
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 14, 2020.
+ */
+public interface weightedSamplePathConsumer extends samplePathConsumer
+{
+	/**
+	 * Consumes a sample path with its weight.
+	 * <br>
+	 * <b>Note:</b> {@code infectiousDay} is overwritten by the next sample path, so it should not be stored.
+	 *
+	 * @param replication index (starting from 0) of the simulation repetition
+	 * @param infectiousDay day on which each node (indexed by node ids of {@link network.csrGraph})
+	 *                      became infectious; {@link dataTypes.simulationOutput#NOT_INFECTIOUS} if it did not
+	 * @param weight weight of the sample path.
+	 */
+	void accept(int replication, byte[] infectiousDay, double weight);
+}
@@ -0,0 +1,62 @@
+package analysis;
+
+import network.graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link bitsetTestingKernel}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 4, 2020.
+ */
+class bitsetTestingKernelTest
+{
+	/**
+	 * Test for {@link bitsetTestingKernel#getNumberOfInfectiousTests(int, int)},
+	 * against counting the tests of infectious nodes one by one, on a graph spanning several words, including a
+	 * custom schedule that tests nodes more than once on a day.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void getNumberOfInfectiousTests() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size150");
+		network.initializeAsCirculantGraph(150, new int[]{1, 2}, 2);
+		int timeStep = 10;
+		List<testSchedule> schedules = new ArrayList<>();
+		for (int k=1; k<=90; k+=11)
+		{
+			schedules.add(new testSchedule(network, k, timeStep));
+			schedules.add(new testSchedule(network, k, timeStep, new Random(1118+k)));
+		}
+		Map<Integer, List<Integer>> repeatedNodes = new HashMap<>();
+		for (int t=1; t<=timeStep; t++)
+			repeatedNodes.put(t, List.of(t+1, 70+t, t+1, 140, t+1, 140));
+		schedules.add(new testSchedule(network, "repeated nodes", repeatedNodes, timeStep));
+		bitsetTestingKernel kernel = new bitsetTestingKernel(schedules, 150, timeStep);
+		Random gen = new Random(2507);
+		byte[] infectiousDay = new byte[150];
+		for (int x=0; x<50; x++)
+		{
+			for (int v=0; v<150; v++)
+				infectiousDay[v] = (gen.nextInt(3)==0) ? (byte) gen.nextInt(timeStep+1) : Byte.MAX_VALUE;
+			kernel.setSamplePath(infectiousDay);
+			for (int i=0; i<schedules.size(); i++)
+			{
+				assertEquals(timeStep, kernel.getNumberOfDays(i));
+				for (int t=1; t<=timeStep; t++)
+				{
+					int count = 0;
+					for (int v: schedules.get(i).testNodes[t-1])
+						if (infectiousDay[v]<=t)
+							count++;
+					assertEquals(count, kernel.getNumberOfInfectiousTests(i, t));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import network.graph;
+import org.apache.commons.math3.util.Pair;
+import org.junit.jupiter.api.Test;
+import simulation.simulationRuns;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link fixedNumberOfTestsPerDayEvaluator}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 25, 2020.
+ */
+class fixedNumberOfTestsPerDayEvaluatorTest
+{
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDayEvaluator#accept(int, byte[])}.
+	 * Without false negatives, detection is a function of the sample path;
+	 * so, streaming must give the same counts as testing stored sample paths.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void acceptWithoutFalseNegatives() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 3000,
+				0.0, 0.1, 2, 0.005);
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		listOfParams.add(param);
+		
+		simulationRuns stored = new simulationRuns();
+		stored.setCompactSamplePaths(true);
+		stored.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 3);
+		fixedNumberOfTestsPerDay storedResults = new fixedNumberOfTestsPerDay();
+		
+		List<fixedNumberOfTestsPerDayEvaluator> evaluators = new ArrayList<>();
+		for (int k=1; k<=3; k++)
+		{
+			storedResults.test(network, stored, k, 0.05, 3567);
+			evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, param, k, 3567));
+		}
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3,
+				evaluators);
+		fixedNumberOfTestsPerDay streamedResults = new fixedNumberOfTestsPerDay();
+		streamedResults.addStreamingResults(evaluators, 0.05);
+		
+		for (int k=1; k<=3; k++)
+		{
+			Pair<simulationParameters, Integer> key = new Pair<>(param, k);
+			assertEquals(storedResults.getTestResults().get(key), streamedResults.getTestResults().get(key));
+			assertEquals(3000, evaluators.get(k-1).getNumberOfSamples());
+		}
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDayEvaluator#combine(simulation.samplePathConsumer)}.
+	 * Results should not depend on the number of threads.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void combine() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 5000,
+				0.2, 0.1, 2, 0.005);
+		
+		List<fixedNumberOfTestsPerDayEvaluator> oneThread = new ArrayList<>();
+		oneThread.add(new fixedNumberOfTestsPerDayEvaluator(network, param, 2, 3567, 1118));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 1,
+				oneThread);
+		List<fixedNumberOfTestsPerDayEvaluator> manyThreads = new ArrayList<>();
+		manyThreads.add(new fixedNumberOfTestsPerDayEvaluator(network, param, 2, 3567, 1118));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 7,
+				manyThreads);
+		
+		assertEquals(5000, manyThreads.get(0).getNumberOfSamples());
+		assertEquals(oneThread.get(0).getNumberOfDetectedSamples(), manyThreads.get(0).getNumberOfDetectedSamples());
+		assert manyThreads.get(0).isRandomOrder();
+	}
+}
@@ -0,0 +1,304 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.apache.commons.math3.util.Pair;
+import org.junit.jupiter.api.Test;
+import simulation.completeGraphMarkovChain;
+import simulation.engineType;
+import simulation.simulationRuns;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link fixedNumberOfTestsPerDay}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+class fixedNumberOfTestsPerDayTest
+{
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testRaoBlackwellized(graph, simulationRuns, int, double)}.
+	 * Without false negatives, the conditional detection probability of a sample path is 0 or 1;
+	 * so, the estimate must be the same as that of
+	 * {@link fixedNumberOfTestsPerDay#test(graph, simulationRuns, int, double, int)}.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void testRaoBlackwellizedWithoutFalseNegatives() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 3000,
+				0.0, 0.1, 2, 0.005);
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		listOfParams.add(param);
+		simulationRuns simulationResults = new simulationRuns();
+		simulationResults.setCompactSamplePaths(true);
+		simulationResults.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 3);
+		
+		for (int k=1; k<=3; k++)
+		{
+			Pair<simulationParameters, Integer> key = new Pair<>(param, k);
+			fixedNumberOfTestsPerDay sampled = new fixedNumberOfTestsPerDay();
+			sampled.testWithRandomOrder(network, simulationResults, k, 0.05, 3567, 1118);
+			fixedNumberOfTestsPerDay raoBlackwellized = new fixedNumberOfTestsPerDay();
+			raoBlackwellized.testRaoBlackwellizedWithRandomOrder(network, simulationResults, k, 0.05, 1118);
+			assertEquals(sampled.getTestResults().get(key).getMean(),
+					raoBlackwellized.getTestResults().get(key).getMean(), 1e-12);
+			assert raoBlackwellized.getRandomTestingOrder().get(key);
+		}
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testRaoBlackwellized(graph, simulationRuns, int, double)}.
+	 * With false negatives, the estimate must agree with that of
+	 * {@link fixedNumberOfTestsPerDay#test(graph, simulationRuns, int, double, int)} within 5 standard errors,
+	 * and have a smaller standard error.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void testRaoBlackwellizedWithFalseNegatives() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 20000,
+				0.3, 0.1, 2, 0.005);
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		listOfParams.add(param);
+		simulationRuns simulationResults = new simulationRuns();
+		simulationResults.setCompactSamplePaths(true);
+		simulationResults.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 3);
+		
+		Pair<simulationParameters, Integer> key = new Pair<>(param, 2);
+		fixedNumberOfTestsPerDay sampled = new fixedNumberOfTestsPerDay();
+		sampled.test(network, simulationResults, 2, 0.05, 3567);
+		fixedNumberOfTestsPerDay raoBlackwellized = new fixedNumberOfTestsPerDay();
+		raoBlackwellized.testRaoBlackwellized(network, simulationResults, 2, 0.05);
+		statisticalOutput sampledOutput = sampled.getTestResults().get(key);
+		statisticalOutput raoBlackwellizedOutput = raoBlackwellized.getTestResults().get(key);
+		assertEquals(sampledOutput.getMean(), raoBlackwellizedOutput.getMean(), 5*sampledOutput.getStDev());
+		assert raoBlackwellizedOutput.getStDev()<sampledOutput.getStDev();
+		assert !raoBlackwellized.getRandomTestingOrder().get(key);
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#test(graph, simulationRuns, int, double, int)} on shorter time steps
+	 * served from a simulation with a longer time step; the results must be the same as those on simulations of
+	 * each time step alone.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void testShorterTimeSteps() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		for (int timeStep=3; timeStep<=6; timeStep++)
+			listOfParams.add(new simulationParameters(network.getNetworkName(), timeStep, 2000, 0.2, 0.1, 2, 0.005));
+		simulationRuns simulationResults = new simulationRuns();
+		simulationResults.setCompactSamplePaths(true);
+		simulationResults.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 3);
+		fixedNumberOfTestsPerDay served = new fixedNumberOfTestsPerDay();
+		served.test(network, simulationResults, 2, 0.05, 3567);
+		
+		for (simulationParameters param: listOfParams)
+		{
+			List<simulationParameters> alone = new ArrayList<>();
+			alone.add(param);
+			simulationRuns aloneResults = new simulationRuns();
+			aloneResults.setCompactSamplePaths(true);
+			aloneResults.simulationForConditionalProbabilityWithLatency(network, alone, seed, 3);
+			fixedNumberOfTestsPerDay tested = new fixedNumberOfTestsPerDay();
+			tested.test(network, aloneResults, 2, 0.05, 3567);
+			Pair<simulationParameters, Integer> key = new Pair<>(param, 2);
+			assertEquals(tested.getTestResults().get(key).getMean(), served.getTestResults().get(key).getMean());
+		}
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testAdaptively(graph, simulationRuns, List, double, double, int,
+	 * int[], int)}.
+	 * An evaluator must stop once its half-width is at most the target, or at the maximum number of simulation
+	 * repetitions, and an easy detection probability must stop before a hard one;
+	 * the recorded CI must be the Agresti-Coull CI of the stopping rule;
+	 * the counts must be the same as those of an evaluator fed the same number of sample paths at once;
+	 * the bit-parallel engine must be rejected.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void testAdaptively() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		int maximumReps = 20000;
+		int batchSize = 1000;
+		double targetHalfWidth = 0.01;
+		simulationParameters easyParam = new simulationParameters(network.getNetworkName(), 8, maximumReps,
+				0.0, 0.1, 2, 0.005);
+		simulationParameters hardParam = new simulationParameters(network.getNetworkName(), 8, maximumReps,
+				0.5, 0.1, 2, 0.005);
+		List<fixedNumberOfTestsPerDayEvaluator> evaluators = new ArrayList<>();
+		evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, easyParam, 30, 3567));
+		evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, hardParam, 1, 3567));
+		fixedNumberOfTestsPerDay adaptive = new fixedNumberOfTestsPerDay();
+		List<simulationParameters> stoppedParams = adaptive.testAdaptively(network, new simulationRuns(), evaluators,
+				0.05, targetHalfWidth, batchSize, seed, 3);
+		
+		assert evaluators.get(0).getNumberOfSamples()<evaluators.get(1).getNumberOfSamples();
+		for (int i=0; i<evaluators.size(); i++)
+		{
+			fixedNumberOfTestsPerDayEvaluator evaluator = evaluators.get(i);
+			int n = evaluator.getNumberOfSamples();
+			assert (n%batchSize==0) && (n<=maximumReps);
+			double halfWidth = fixedNumberOfTestsPerDay.getStoppingHalfWidth(n,
+					evaluator.getNumberOfDetectedSamples(), 1.959963984540054);
+			assert (halfWidth<=targetHalfWidth) || (n==maximumReps);
+			assertEquals(n, stoppedParams.get(i).getNumberOfSimulationRepetitions());
+			statisticalOutput output = adaptive.getTestResults().get(new Pair<>(stoppedParams.get(i),
+					evaluator.getK()));
+			assertEquals(n, output.getSampleSize());
+			assertEquals(2*halfWidth, output.getCIWidth(), 1e-12);
+			assertEquals("Agresti-Coull for binomial proportion", output.getNameOfStatisticalTest());
+			
+			List<fixedNumberOfTestsPerDayEvaluator> atOnce = new ArrayList<>();
+			atOnce.add(new fixedNumberOfTestsPerDayEvaluator(network, evaluator.getParam(), evaluator.getK(), 3567));
+			new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, evaluator.getParam(),
+					seed, 3, atOnce, 0, n);
+			assertEquals(evaluator.getNumberOfDetectedSamples(), atOnce.get(0).getNumberOfDetectedSamples());
+		}
+		
+		simulationRuns bitParallel = new simulationRuns();
+		bitParallel.setEngine(engineType.BIT_PARALLEL);
+		Exception exception = assertThrows(Exception.class, () -> adaptive.testAdaptively(network, bitParallel,
+				evaluators, 0.05, targetHalfWidth, batchSize, seed, 3));
+		assertEquals("Simulating in batches is not supported by the bit-parallel engine!", exception.getMessage());
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testStratified(graph, simulationRuns, fixedNumberOfTestsPerDayEvaluator,
+	 * double, int, int, boolean, int[], int)}.
+	 * The strata must use all simulation repetitions, at least the pilot ones each, and the stratified estimate must
+	 * agree with the estimate of {@link fixedNumberOfTestsPerDay#addStreamingResults(List, double)} within 5
+	 * standard errors, with a standard error that is not much larger; the bit-parallel engine must be rejected.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void testStratified() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		int reps = 20000;
+		int pilotReps = 500;
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 5, reps,
+				0.2, 0.05, 2, 0.02);
+		Pair<simulationParameters, Integer> key = new Pair<>(param, 1);
+		List<fixedNumberOfTestsPerDayEvaluator> evaluators = new ArrayList<>();
+		evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, param, 1, 3567));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3, evaluators);
+		fixedNumberOfTestsPerDay plain = new fixedNumberOfTestsPerDay();
+		plain.addStreamingResults(evaluators, 0.05);
+		statisticalOutput plainOutput = plain.getTestResults().get(key);
+		
+		for (boolean neymanAllocation: new boolean[]{false, true})
+		{
+			fixedNumberOfTestsPerDay stratified = new fixedNumberOfTestsPerDay();
+			List<fixedNumberOfTestsPerDayEvaluator> strata = stratified.testStratified(network, new simulationRuns(),
+					new fixedNumberOfTestsPerDayEvaluator(network, param, 1, 3567), 0.05, 4, pilotReps,
+					neymanAllocation, seed, 3);
+			assertEquals(4, strata.size());
+			int sampleSize = 0;
+			for (fixedNumberOfTestsPerDayEvaluator stratum: strata)
+			{
+				assert stratum.getNumberOfSamples()>=pilotReps;
+				sampleSize += stratum.getNumberOfSamples();
+			}
+			assertEquals(reps, sampleSize);
+			statisticalOutput output = stratified.getTestResults().get(key);
+			assertEquals(reps, output.getSampleSize());
+			assertEquals(plainOutput.getMean(), output.getMean(), 5*plainOutput.getStDev());
+			assert output.getStDev()<1.1*plainOutput.getStDev();
+		}
+		assertArrayEquals(new int[]{7, 0, 3}, fixedNumberOfTestsPerDay.getAllocation(10, new double[]{0.65, 0, 0.35}));
+		
+		simulationRuns bitParallel = new simulationRuns();
+		bitParallel.setEngine(engineType.BIT_PARALLEL);
+		Exception exception = assertThrows(Exception.class, () -> new fixedNumberOfTestsPerDay().testStratified(network,
+				bitParallel, new fixedNumberOfTestsPerDayEvaluator(network, param, 1, 3567), 0.05, 4, pilotReps, false,
+				seed, 3));
+		assertEquals("Simulating in batches is not supported by the bit-parallel engine!", exception.getMessage());
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testCoupledSweep(graph, simulationRuns, List, double, int[], int)}.
+	 * A result must be recorded for each evaluator, and evaluators of the same point must share its sample paths.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void testCoupledSweep() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		int reps = 5000;
+		List<fixedNumberOfTestsPerDayEvaluator> evaluators = new ArrayList<>();
+		for (double transmissability: new double[]{0.02, 0.2})
+			for (double fnRate: new double[]{0, 0.3})
+				evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, new simulationParameters(
+						network.getNetworkName(), 6, reps, fnRate, transmissability, 2, 0.005), 2, 3567));
+		fixedNumberOfTestsPerDay sweep = new fixedNumberOfTestsPerDay();
+		sweep.testCoupledSweep(network, new simulationRuns(), evaluators, 0.05, seed, 2);
+		assertEquals(evaluators.size(), sweep.getTestResults().size());
+		for (fixedNumberOfTestsPerDayEvaluator evaluator: evaluators)
+		{
+			assertEquals(reps, evaluator.getNumberOfSamples());
+			statisticalOutput output = sweep.getTestResults().get(new Pair<>(evaluator.getParam(), 2));
+			assertEquals(1.0*evaluator.getNumberOfDetectedSamples()/reps, output.getMean(), 1e-12);
+		}
+		// without false negatives, a larger transmissability detects the outbreak in every sample path the smaller one
+		// does
+		assert evaluators.get(0).getNumberOfDetectedSamples()<=evaluators.get(2).getNumberOfDetectedSamples();
+		assert evaluators.get(1).getNumberOfDetectedSamples()<=evaluators.get(0).getNumberOfDetectedSamples();
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testWithMarkovChain(graph, simulationParameters, int, boolean)}.
+	 * The recorded CI must be the one-sided bound {@code [p-dropped, p]} of the Markov chain, without an alpha.
+	 *
+	 * @throws Exception thrown if the Markov chain throws an exception.
+	 */
+	@Test
+	void testWithMarkovChain() throws Exception
+	{
+		graph network = new graph("CompleteGraph_size20");
+		network.initializeAsCompleteGraph(20, 2);
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 1,
+				0.2, 0.05, 2, 0.005);
+		completeGraphMarkovChain chain = new completeGraphMarkovChain(network, param);
+		double upperBound = chain.getDetectionProbability(2);
+		double dropped = chain.getDroppedProbability();
+		
+		fixedNumberOfTestsPerDay exact = new fixedNumberOfTestsPerDay();
+		exact.testWithMarkovChain(network, param, 2, false);
+		statisticalOutput output = exact.getTestResults().get(new Pair<>(param, 2));
+		assertEquals(upperBound, output.getMean()+0.5*output.getCIWidth(), 1e-15);
+		assertEquals(upperBound-dropped, output.getMean()-0.5*output.getCIWidth(), 1e-15);
+		assert Double.isNaN(output.getAlpha());
+		assert !exact.getRandomTestingOrder().get(new Pair<>(param, 2));
+	}
+}
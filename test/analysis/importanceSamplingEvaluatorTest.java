@@ -0,0 +1,99 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.junit.jupiter.api.Test;
+import simulation.engineType;
+import simulation.simulationRuns;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link importanceSamplingEvaluator}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+class importanceSamplingEvaluatorTest
+{
+	/**
+	 * Test for {@link importanceSamplingEvaluator#accept(int, byte[], simulation.trialCounts)}.
+	 * Without tilting, every weight is 1; so, the detection probability must be the same as that of
+	 * {@link fixedNumberOfTestsPerDayEvaluator}, and the effective sample size must be the number of sample paths.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void acceptWithoutTilting() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 3000,
+				0.2, 0.1, 2, 0.005);
+		
+		List<fixedNumberOfTestsPerDayEvaluator> evaluators = new ArrayList<>();
+		evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, param, 2, 3567, 1118));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3,
+				evaluators);
+		List<importanceSamplingEvaluator> weighted = new ArrayList<>();
+		weighted.add(new importanceSamplingEvaluator(network, param, 2, 3567, 1118, 0.1, 5));
+		new fixedNumberOfTestsPerDay().testWithImportanceSampling(network, new simulationRuns(), weighted, 0.05,
+				seed, 3);
+		
+		assertEquals(3000, weighted.get(0).getNumberOfSamples());
+		assertEquals(3000, weighted.get(0).getEffectiveSampleSize(), 1e-9);
+		assertEquals(evaluators.get(0).getNumberOfDetectedSamples()/3000.0,
+				weighted.get(0).getDetectionProbability(0.05).getMean(), 1e-12);
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testWithImportanceSampling(graph, simulationRuns, List, double,
+	 * int[], int)} with a tilted transmissability.
+	 * The estimates must agree with plain Monte Carlo within 5 standard errors, and the probability of the rare
+	 * tail event must have a smaller standard error than plain Monte Carlo with the same number of sample paths.
+	 * Engines that do not record trial counts must be rejected.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void acceptWithTilting() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		int reps = 40000;
+		int infectiousThreshold = 10;
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, reps,
+				0.3, 0.04, 2, 0.002);
+		
+		List<importanceSamplingEvaluator> plain = new ArrayList<>();
+		plain.add(new importanceSamplingEvaluator(network, param, 1, 3567, 0.04, infectiousThreshold));
+		new simulationRuns().streamTrialCountsForConditionalProbabilityWithLatency(network, param, seed, 3, plain);
+		List<importanceSamplingEvaluator> tilted = new ArrayList<>();
+		tilted.add(new importanceSamplingEvaluator(network, param, 1, 3567, 0.06, infectiousThreshold));
+		fixedNumberOfTestsPerDay results = new fixedNumberOfTestsPerDay();
+		results.testWithImportanceSampling(network, new simulationRuns(), tilted, 0.05, seed, 3);
+		
+		statisticalOutput plainDetection = plain.get(0).getDetectionProbability(0.05);
+		statisticalOutput tiltedDetection = tilted.get(0).getDetectionProbability(0.05);
+		assertEquals(plainDetection.getMean(), tiltedDetection.getMean(),
+				5*Math.hypot(plainDetection.getStDev(), tiltedDetection.getStDev()));
+		statisticalOutput plainTail = plain.get(0).getTailProbability(0.05);
+		statisticalOutput tiltedTail = tilted.get(0).getTailProbability(0.05);
+		assert tiltedTail.getMean()>0;
+		assertEquals(plainTail.getMean(), tiltedTail.getMean(),
+				5*Math.hypot(plainTail.getStDev(), tiltedTail.getStDev()));
+		assert tiltedTail.getStDev()<Math.sqrt(tiltedTail.getMean()*(1-tiltedTail.getMean())/reps);
+		assert tilted.get(0).getEffectiveSampleSize()<reps;
+		assertEquals(tiltedDetection, results.getTestResults().get(new org.apache.commons.math3.util.Pair<>(param, 1)));
+		
+		simulationRuns denseResults = new simulationRuns();
+		denseResults.setEngine(engineType.DENSE_DAILY_SWEEP);
+		assertThrows(Exception.class, () -> new fixedNumberOfTestsPerDay().testWithImportanceSampling(network,
+				denseResults, tilted, 0.05, seed, 3));
+	}
+}
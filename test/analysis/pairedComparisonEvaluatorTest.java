@@ -0,0 +1,119 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.apache.commons.math3.util.Pair;
+import org.junit.jupiter.api.Test;
+import simulation.simulationRuns;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link pairedComparisonEvaluator}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+class pairedComparisonEvaluatorTest
+{
+	/**
+	 * Test that the detection probabilities of each schedule agree with those of {@link testSchedulesEvaluator}
+	 * within 5 standard errors, that a schedule does not differ from a copy of itself, and that the paired difference
+	 * has a smaller standard error than the difference of independent estimates.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void pairedDifference() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		int reps = 10000;
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, reps,
+				0.3, 0.1, 2, 0.005);
+		List<testSchedule> schedules = new ArrayList<>();
+		schedules.add(new testSchedule(network, 2, 8));
+		schedules.add(new testSchedule(network, 3, 8));
+		schedules.add(new testSchedule(network, 2, 8, new Random(1118)));
+		schedules.add(new testSchedule(network, 2, 8));
+		List<pairedComparisonEvaluator> paired = List.of(new pairedComparisonEvaluator(param, schedules, 3567));
+		List<testSchedulesEvaluator> independent = List.of(new testSchedulesEvaluator(param, schedules, 3567));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3, paired);
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3,
+				independent);
+		
+		pairedComparisonEvaluator evaluator = paired.get(0);
+		assertEquals(reps, evaluator.getNumberOfSamples());
+		for (int i=0; i<schedules.size(); i++)
+		{
+			double p0 = 1.0*evaluator.getNumberOfDetectedSamples(i)/reps;
+			double p1 = 1.0*independent.get(0).getNumberOfDetectedSamples(i)/reps;
+			assertEquals(p0, p1, 5*Math.sqrt((p0*(1-p0)+p1*(1-p1))/reps));
+		}
+		
+		statisticalOutput copy = evaluator.getPairedDifference(0, 3, 0.05);
+		assertEquals(0, copy.getMean());
+		assertEquals(0, copy.getCIWidth());
+		
+		statisticalOutput difference = evaluator.getPairedDifference(1, 0, 0.05);
+		double p0 = 1.0*evaluator.getNumberOfDetectedSamples(0)/reps;
+		double p1 = 1.0*evaluator.getNumberOfDetectedSamples(1)/reps;
+		assertEquals(p1-p0, difference.getMean(), 1e-12);
+		assertEquals(-difference.getMean(), evaluator.getPairedDifference(0, 1, 0.05).getMean(), 1e-12);
+		assert difference.getMean()>0;
+		assert difference.getStDev()<0.85*Math.sqrt((p0*(1-p0)+p1*(1-p1))/reps);
+		assertEquals(2*1.959964*difference.getStDev(), difference.getCIWidth(), 1e-5);
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#compareSchedules(graph, simulationRuns, List, double, int)}: one pass
+	 * over stored sample paths must give the same counts as streaming the same sample paths, and record the detection
+	 * probability of each schedule and the paired difference between each two schedules, including a sequential and
+	 * a random testing order with the same number of tests per day.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void compareSchedules() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 2000,
+				0.2, 0.1, 2, 0.005);
+		List<testSchedule> schedules = List.of(new testSchedule(network, 1, 8), new testSchedule(network, 2, 8),
+				new testSchedule(network, 2, 8, new Random(1118)));
+		simulationRuns simulation = new simulationRuns();
+		simulation.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 2);
+		fixedNumberOfTestsPerDay comparison = new fixedNumberOfTestsPerDay();
+		List<pairedComparisonEvaluator> evaluators = comparison.compareSchedules(network, simulation, schedules, 0.05,
+				3567);
+		List<pairedComparisonEvaluator> streamed = List.of(new pairedComparisonEvaluator(param, schedules, 3567));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3, streamed);
+		
+		assertEquals(1, evaluators.size());
+		for (int i=0; i<schedules.size(); i++)
+		{
+			assertEquals(streamed.get(0).getNumberOfDetectedSamples(i), evaluators.get(0).getNumberOfDetectedSamples(i));
+			assertEquals(1.0*streamed.get(0).getNumberOfDetectedSamples(i)/2000,
+					comparison.getScheduleResults().get(new Pair<>(param, schedules.get(i))).getMean(), 1e-12);
+			for (int j=0; j<schedules.size(); j++)
+				assertEquals(streamed.get(0).getNumberOfDiscordantSamples(i, j),
+						evaluators.get(0).getNumberOfDiscordantSamples(i, j));
+			for (int j=i+1; j<schedules.size(); j++)
+			{
+				statisticalOutput difference = comparison.getPairedDifferences().get(
+						new Pair<>(param, new Pair<>(schedules.get(i), schedules.get(j))));
+				assertEquals(streamed.get(0).getPairedDifference(i, j, 0.05).getMean(), difference.getMean(), 1e-12);
+				assertEquals(streamed.get(0).getPairedDifference(i, j, 0.05).getCIWidth(), difference.getCIWidth(),
+						1e-12);
+			}
+		}
+		assertEquals(schedules.size(), comparison.getScheduleResults().size());
+		assertEquals(schedules.size()*(schedules.size()-1)/2, comparison.getPairedDifferences().size());
+		assert comparison.getTestResults().isEmpty();
+	}
+}
@@ -0,0 +1,94 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.apache.commons.math3.util.Pair;
+import org.junit.jupiter.api.Test;
+import simulation.simulationRuns;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link raoBlackwellizedEvaluator}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+class raoBlackwellizedEvaluatorTest
+{
+	/**
+	 * Test for {@link raoBlackwellizedEvaluator#accept(int, byte[])}: streaming must give the same estimate as
+	 * {@link fixedNumberOfTestsPerDay#testRaoBlackwellized(graph, simulationRuns, int, double)} on the same stored
+	 * sample paths, for both testing orders, and the estimate must not depend on the number of threads.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void accept() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 3000,
+				0.3, 0.1, 2, 0.005);
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		listOfParams.add(param);
+		
+		simulationRuns stored = new simulationRuns();
+		stored.setCompactSamplePaths(true);
+		stored.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 3);
+		fixedNumberOfTestsPerDay sequentialResults = new fixedNumberOfTestsPerDay();
+		sequentialResults.testRaoBlackwellized(network, stored, 2, 0.05);
+		fixedNumberOfTestsPerDay randomOrderResults = new fixedNumberOfTestsPerDay();
+		randomOrderResults.testRaoBlackwellizedWithRandomOrder(network, stored, 2, 0.05, 1118);
+		
+		List<raoBlackwellizedEvaluator> evaluators = new ArrayList<>();
+		evaluators.add(new raoBlackwellizedEvaluator(network, param, 2));
+		evaluators.add(new raoBlackwellizedEvaluator(network, param, 2, 1118));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 7,
+				evaluators);
+		
+		Pair<simulationParameters, Integer> key = new Pair<>(param, 2);
+		List<fixedNumberOfTestsPerDay> storedResults = List.of(sequentialResults, randomOrderResults);
+		for (int i=0; i<evaluators.size(); i++)
+		{
+			fixedNumberOfTestsPerDay streamedResults = new fixedNumberOfTestsPerDay();
+			streamedResults.addRaoBlackwellizedResults(List.of(evaluators.get(i)), 0.05);
+			statisticalOutput storedOutput = storedResults.get(i).getTestResults().get(key);
+			statisticalOutput streamedOutput = streamedResults.getTestResults().get(key);
+			assertEquals(3000, evaluators.get(i).getNumberOfSamples());
+			assertEquals(storedOutput.getMean(), streamedOutput.getMean(), 1e-12);
+			assertEquals(storedOutput.getStDev(), streamedOutput.getStDev(), 1e-12);
+			assertEquals(i==1, streamedResults.getRandomTestingOrder().get(key));
+		}
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testRaoBlackwellized(graph, simulationRuns, int, double)}: stored
+	 * sample paths of another network are skipped.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void skipsOtherNetworks() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		graph otherNetwork = new graph("OtherCirculantGraph_size30");
+		otherNetwork.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 100,
+				0.3, 0.1, 2, 0.005);
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		listOfParams.add(param);
+		simulationRuns stored = new simulationRuns();
+		stored.simulationForConditionalProbabilityWithLatency(network, listOfParams, new int[]{2507, 2507, 2101, 1308},
+				2);
+		
+		fixedNumberOfTestsPerDay results = new fixedNumberOfTestsPerDay();
+		results.testRaoBlackwellized(otherNetwork, stored, 2, 0.05);
+		assert results.getTestResults().isEmpty();
+	}
+}
@@ -0,0 +1,114 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.apache.commons.math3.util.Pair;
+import org.junit.jupiter.api.Test;
+import simulation.engineType;
+import simulation.simulationRuns;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link reweightingEvaluator}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 14, 2020.
+ */
+class reweightingEvaluatorTest
+{
+	/**
+	 * Test that a query with the simulated transmissability and external infection probability weights every sample
+	 * path by 1, and gives the same detection probability as {@link fixedNumberOfTestsPerDayEvaluator}.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void reweightWithoutChange() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 3000,
+				0.2, 0.1, 2, 0.005);
+		simulationParameters queryParam = new simulationParameters(param);
+		queryParam.setFalseNegativeProbability(0.4);
+		simulationRuns simulation = new simulationRuns();
+		simulation.setRecordTrialCounts(true);
+		simulation.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 2);
+		
+		List<reweightingEvaluator> evaluators = List.of(new reweightingEvaluator(network, queryParam, 2, 3567));
+		fixedNumberOfTestsPerDay reweighted = new fixedNumberOfTestsPerDay();
+		double effectiveSampleSize = reweighted.testWithReweighting(network, simulation, param, evaluators, 0.05, 100);
+		assertEquals(3000, effectiveSampleSize, 1e-6);
+		
+		List<fixedNumberOfTestsPerDayEvaluator> plain = List.of(new fixedNumberOfTestsPerDayEvaluator(network,
+				queryParam, 2, 3567));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, queryParam, seed, 2, plain);
+		assertEquals(1.0*plain.get(0).getNumberOfDetectedSamples()/3000,
+				reweighted.getTestResults().get(new Pair<>(queryParam, 2)).getMean(), 1e-12);
+	}
+	
+	/**
+	 * Test for {@link simulationRuns#reweightSimulation(graph, simulationParameters, simulationParameters, double,
+	 * List)}: the detection probability at nearby parameters must agree with a simulation at those parameters within
+	 * 5 standard errors, and the query must be refused if the effective sample size is too small, or if no trial
+	 * counts are stored.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void reweightToNearbyParameters() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		int reps = 20000;
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, reps,
+				0.2, 0.1, 2, 0.005);
+		simulationParameters queryParam = new simulationParameters(param);
+		queryParam.setTransmissability(0.11);
+		queryParam.setExternalInfectionProbability(0.0055);
+		simulationRuns simulation = new simulationRuns();
+		simulation.setRecordTrialCounts(true);
+		simulation.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 3);
+		
+		reweightingEvaluator evaluator = new reweightingEvaluator(network, queryParam, 2, 3567);
+		double effectiveSampleSize = simulation.reweightSimulation(network, param, queryParam, 1000,
+				List.of(evaluator));
+		assert (effectiveSampleSize>1000) && (effectiveSampleSize<reps);
+		assertEquals(effectiveSampleSize, evaluator.getEffectiveSampleSize(), 1e-6);
+		statisticalOutput output = evaluator.getDetectionProbability(0.05);
+		
+		List<fixedNumberOfTestsPerDayEvaluator> direct = List.of(new fixedNumberOfTestsPerDayEvaluator(network,
+				queryParam, 2, 3567));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, queryParam, seed, 3,
+				direct);
+		double probability = 1.0*direct.get(0).getNumberOfDetectedSamples()/reps;
+		double standardError = Math.sqrt(probability*(1-probability)/reps);
+		assertEquals(probability, output.getMean(), 5*Math.sqrt(standardError*standardError
+				+output.getStDev()*output.getStDev()));
+		
+		simulationParameters farParam = new simulationParameters(param);
+		farParam.setTransmissability(0.4);
+		Exception exception = assertThrows(Exception.class, () -> simulation.reweightSimulation(network, param,
+				farParam, 1000, List.of(new reweightingEvaluator(network, farParam, 2, 3567))));
+		assert exception.getMessage().startsWith("Effective sample size ");
+		
+		simulationRuns withoutCounts = new simulationRuns();
+		withoutCounts.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 3);
+		exception = assertThrows(Exception.class, () -> withoutCounts.reweightSimulation(network, param, queryParam,
+				1000, List.of(evaluator)));
+		assertEquals("No stored trial counts for the simulation; record trial counts to reweight!",
+				exception.getMessage());
+		
+		simulationRuns bitParallel = new simulationRuns();
+		bitParallel.setEngine(engineType.BIT_PARALLEL);
+		bitParallel.setRecordTrialCounts(true);
+		exception = assertThrows(Exception.class, () -> bitParallel.simulationForConditionalProbabilityWithLatency(
+				network, List.of(param), seed, 3));
+		assertEquals("Trial counts are only recorded by the daily sweep!", exception.getMessage());
+	}
+}
@@ -0,0 +1,194 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import dataTypes.statisticalOutput;
+import network.graph;
+import org.apache.commons.math3.util.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import simulation.simulationRuns;
+import simulation.trialCounts;
+import simulation.trialCountsConsumer;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link sensitivityEvaluator}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+class sensitivityEvaluatorTest
+{
+	/**
+	 * Consumer of trial counts that sums the scores of the sample paths.
+	 */
+	static class scoreSums implements trialCountsConsumer
+	{
+		/**
+		 * Simulation parameters.
+		 */
+		final simulationParameters param;
+		
+		/**
+		 * Number of sample paths consumed.
+		 */
+		int numberOfSamples;
+		
+		/**
+		 * Sum and sum of squares of the scores of the transmissability and of the external infection probability.
+		 */
+		final double[] sums = new double[4];
+		
+		/**
+		 * Constructor.
+		 *
+		 * @param param simulation parameters.
+		 */
+		scoreSums(simulationParameters param)
+		{
+			this.param = param;
+		}
+		
+		/**
+		 * Returns a new consumer without any sample paths consumed.
+		 *
+		 * @return a new consumer.
+		 */
+		@Override
+		public trialCountsConsumer newInstance()
+		{
+			return new scoreSums(param);
+		}
+		
+		/**
+		 * Adds the scores of a sample path to the sums.
+		 *
+		 * @param replication index (starting from 0) of the simulation repetition
+		 * @param infectiousDay day on which each node became infectious
+		 * @param counts numbers of trials of infection and their successes in the sample path.
+		 */
+		@Override
+		public void accept(int replication, byte[] infectiousDay, trialCounts counts)
+		{
+			double transmissabilityScore = counts.getScoreOfTransmissability(param.getTransmissability());
+			double externalInfectionScore = counts.getScoreOfExternalInfectionProbability(
+					param.getExternalInfectionProbability(), infectiousDay.length);
+			numberOfSamples++;
+			sums[0] += transmissabilityScore;
+			sums[1] += transmissabilityScore*transmissabilityScore;
+			sums[2] += externalInfectionScore;
+			sums[3] += externalInfectionScore*externalInfectionScore;
+		}
+		
+		/**
+		 * Adds the sums of another consumer to this consumer.
+		 *
+		 * @param other a consumer created by {@link scoreSums#newInstance()}.
+		 */
+		@Override
+		public void combine(trialCountsConsumer other)
+		{
+			scoreSums that = (scoreSums) other;
+			this.numberOfSamples += that.numberOfSamples;
+			for (int i=0; i<sums.length; i++)
+				this.sums[i] += that.sums[i];
+		}
+	}
+	
+	/**
+	 * Test that the scores of the transmissability and of the external infection probability (including the number of
+	 * initial infections) have mean 0 within 5 standard errors.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void scoresHaveMeanZero() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int reps = 20000;
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, reps,
+				0.2, 0.1, 2, 0.02);
+		List<scoreSums> consumers = List.of(new scoreSums(param));
+		new simulationRuns().streamTrialCountsForConditionalProbabilityWithLatency(network, param,
+				new int[]{2507, 2507, 2101, 1308}, 3, consumers);
+		scoreSums scores = consumers.get(0);
+		assertEquals(reps, scores.numberOfSamples);
+		for (int i=0; i<4; i+=2)
+		{
+			double mean = scores.sums[i]/reps;
+			double standardError = Math.sqrt((scores.sums[i+1]/reps-mean*mean)/reps);
+			assertEquals(0, mean, 5*standardError);
+		}
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testSensitivity(graph, simulationRuns, List, double, int[], int)}:
+	 * the detection probability must be the same as that of {@link fixedNumberOfTestsPerDayEvaluator}, and each
+	 * derivative must agree with a central difference from a coupled sweep
+	 * (see {@link fixedNumberOfTestsPerDay#testCoupledSweep(graph, simulationRuns, List, double, int[], int)})
+	 * within 5 standard errors; the derivatives must be recorded and written to csv file.
+	 *
+	 * @param tempDir temporary directory for the csv file.
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void derivativesAgreeWithCentralDifferences(@TempDir Path tempDir) throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		int reps = 20000;
+		double transmissability = 0.1;
+		double externalInfectionProbability = 0.005;
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, reps,
+				0.2, transmissability, 2, externalInfectionProbability);
+		List<sensitivityEvaluator> evaluators = List.of(new sensitivityEvaluator(network, param, 2, 3567));
+		fixedNumberOfTestsPerDay sensitivity = new fixedNumberOfTestsPerDay();
+		sensitivity.testSensitivity(network, new simulationRuns(), evaluators, 0.05, seed, 3);
+		
+		List<fixedNumberOfTestsPerDayEvaluator> plain = List.of(new fixedNumberOfTestsPerDayEvaluator(network, param,
+				2, 3567));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3, plain);
+		assertEquals(plain.get(0).getNumberOfDetectedSamples(), evaluators.get(0).getNumberOfDetectedSamples());
+		assertEquals(1.0*plain.get(0).getNumberOfDetectedSamples()/reps,
+				sensitivity.getTestResults().get(new Pair<>(param, 2)).getMean(), 1e-12);
+		
+		double[][] perturbations = {{0.02, 0}, {0, 0.002}};
+		statisticalOutput[] derivatives = {evaluators.get(0).getDerivativeWithRespectToTransmissability(0.05),
+				evaluators.get(0).getDerivativeWithRespectToExternalInfectionProbability(0.05)};
+		for (int i=0; i<2; i++)
+		{
+			List<fixedNumberOfTestsPerDayEvaluator> sweep = new ArrayList<>();
+			for (int sign: new int[]{-1, 1})
+				sweep.add(new fixedNumberOfTestsPerDayEvaluator(network, new simulationParameters(
+						network.getNetworkName(), 8, reps, 0.2, transmissability+sign*perturbations[i][0], 2,
+						externalInfectionProbability+sign*perturbations[i][1]), 2, 3567));
+			new fixedNumberOfTestsPerDay().testCoupledSweep(network, new simulationRuns(), sweep, 0.05, seed, 3);
+			double p0 = 1.0*sweep.get(0).getNumberOfDetectedSamples()/reps;
+			double p1 = 1.0*sweep.get(1).getNumberOfDetectedSamples()/reps;
+			double step = 2*(perturbations[i][0]+perturbations[i][1]);
+			double differenceStandardError = Math.sqrt((p0*(1-p0)+p1*(1-p1))/reps)/step;
+			double standardError = Math.sqrt(Math.pow(derivatives[i].getStDev(), 2)
+					+Math.pow(differenceStandardError, 2));
+			assertEquals((p1-p0)/step, derivatives[i].getMean(), 5*standardError);
+			statisticalOutput recorded = sensitivity.getDerivatives().get(new Pair<>(param, 2))
+					.get(sensitivityEvaluator.NAMES_OF_PROBABILITIES[i]);
+			assertEquals(derivatives[i].getMean(), recorded.getMean(), 1e-12);
+			assertEquals(derivatives[i].getStDev(), recorded.getStDev(), 1e-12);
+		}
+		
+		File csv = tempDir.resolve("derivatives.csv").toFile();
+		sensitivity.writeDerivativesToCSV(csv.getPath(), false);
+		List<String> lines = Files.readAllLines(csv.toPath());
+		assertEquals(3, lines.size());
+		assert lines.get(1).contains("\"transmissability\"");
+		assert lines.get(2).contains("\"external infection probability\"");
+	}
+}
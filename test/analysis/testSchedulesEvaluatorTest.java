@@ -0,0 +1,225 @@
+package analysis;
+
+import dataTypes.simulationParameters;
+import network.graph;
+import org.apache.commons.math3.util.Pair;
+import org.junit.jupiter.api.Test;
+import simulation.simulationRuns;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link testSchedulesEvaluator}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+class testSchedulesEvaluatorTest
+{
+	/**
+	 * Test that scoring several schedules in one pass gives the same counts as one
+	 * {@link fixedNumberOfTestsPerDayEvaluator} per schedule.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void sameCountsAsOneEvaluatorPerSchedule() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 5000,
+				0.2, 0.1, 2, 0.005);
+		
+		List<fixedNumberOfTestsPerDayEvaluator> evaluators = new ArrayList<>();
+		List<testSchedule> schedules = new ArrayList<>();
+		for (int k=1; k<=4; k++)
+		{
+			evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, param, k, 3567));
+			schedules.add(new testSchedule(network, k, 8));
+			evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, param, k, 3567, 1118));
+			schedules.add(new testSchedule(network, k, 8, new Random(1118+param.hashCode()+k)));
+		}
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3,
+				evaluators);
+		List<testSchedulesEvaluator> onePass = new ArrayList<>();
+		onePass.add(new testSchedulesEvaluator(param, schedules, 3567));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3,
+				onePass);
+		
+		assertEquals(5000, onePass.get(0).getNumberOfSamples());
+		for (int i=0; i<schedules.size(); i++)
+			assertEquals(evaluators.get(i).getNumberOfDetectedSamples(), onePass.get(0).getNumberOfDetectedSamples(i));
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testSchedules(graph, simulationRuns, List, double, int)}.
+	 * Without false negatives, detection is a function of the sample path;
+	 * so, one pass over stored sample paths (compact or not) must give the same detection probabilities as
+	 * {@link fixedNumberOfTestsPerDay#test(graph, simulationRuns, int, double, int)}, and a custom schedule must
+	 * give the same detection probability as the sequential schedule it copies.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void testSchedulesWithoutFalseNegatives() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 2000,
+				0.0, 0.1, 2, 0.005);
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		listOfParams.add(param);
+		
+		Map<Integer, List<Integer>> customTestNodes = new HashMap<>();
+		for (int t=1; t<=8; t++)
+			customTestNodes.put(t, Arrays.asList(2+(2*(t-1))%30, 2+(2*(t-1)+1)%30));
+		List<testSchedule> schedules = new ArrayList<>();
+		schedules.add(new testSchedule(network, "copy of sequential, k=2", customTestNodes, 8));
+		for (int k=1; k<=3; k++)
+			schedules.add(new testSchedule(network, k, 8));
+		
+		for (boolean compact: new boolean[]{false, true})
+		{
+			simulationRuns simulationResults = new simulationRuns();
+			simulationResults.setCompactSamplePaths(compact);
+			simulationResults.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 3);
+			fixedNumberOfTestsPerDay onePass = new fixedNumberOfTestsPerDay();
+			List<testSchedulesEvaluator> evaluators = onePass.testSchedules(network, simulationResults, schedules,
+					0.05, 3567);
+			assertEquals(evaluators.get(0).getNumberOfDetectedSamples(0), evaluators.get(0).getNumberOfDetectedSamples(2));
+			for (int k=1; k<=3; k++)
+			{
+				fixedNumberOfTestsPerDay oneScan = new fixedNumberOfTestsPerDay();
+				oneScan.test(network, simulationResults, k, 0.05, 3567);
+				Pair<simulationParameters, Integer> key = new Pair<>(param, k);
+				assertEquals(oneScan.getTestResults().get(key),
+						onePass.getScheduleResults().get(new Pair<>(param, schedules.get(k))));
+			}
+		}
+	}
+	
+	/**
+	 * Test for {@link fixedNumberOfTestsPerDay#testSchedules(graph, simulationRuns, List, double, int)}.
+	 * The results of a sequential and a random testing order with the same number of tests per day must both be
+	 * recorded, and, without false negatives, must be the same as those of
+	 * {@link fixedNumberOfTestsPerDay#test(graph, simulationRuns, int, double, int)} and
+	 * {@link fixedNumberOfTestsPerDay#testWithRandomOrder(graph, simulationRuns, int, double, int, int)}.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void testSchedulesWithBothOrders() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 2000,
+				0.0, 0.1, 2, 0.005);
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		listOfParams.add(param);
+		simulationRuns simulationResults = new simulationRuns();
+		simulationResults.setCompactSamplePaths(true);
+		simulationResults.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 3);
+		
+		List<testSchedule> schedules = new ArrayList<>();
+		for (int k=1; k<=3; k++)
+		{
+			schedules.add(new testSchedule(network, k, 8));
+			schedules.add(new testSchedule(network, k, 8, new Random(1118+param.hashCode()+k)));
+		}
+		fixedNumberOfTestsPerDay onePass = new fixedNumberOfTestsPerDay();
+		onePass.testSchedules(network, simulationResults, schedules, 0.05, 3567);
+		assertEquals(schedules.size(), onePass.getScheduleResults().size());
+		for (int k=1; k<=3; k++)
+		{
+			Pair<simulationParameters, Integer> key = new Pair<>(param, k);
+			fixedNumberOfTestsPerDay sequential = new fixedNumberOfTestsPerDay();
+			sequential.test(network, simulationResults, k, 0.05, 3567);
+			assertEquals(sequential.getTestResults().get(key),
+					onePass.getScheduleResults().get(new Pair<>(param, schedules.get(2*(k-1)))));
+			fixedNumberOfTestsPerDay randomOrder = new fixedNumberOfTestsPerDay();
+			randomOrder.testWithRandomOrder(network, simulationResults, k, 0.05, 3567, 1118);
+			assertEquals(randomOrder.getTestResults().get(key),
+					onePass.getScheduleResults().get(new Pair<>(param, schedules.get(2*k-1))));
+		}
+	}
+	
+	/**
+	 * Test that counting tests of infectious nodes with bitsets gives the same counts as simulating each test
+	 * when test results are deterministic, and the same detection probabilities within 5 standard errors
+	 * otherwise.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void bitsets() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size100");
+		network.initializeAsCirculantGraph(100, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		int reps = 20000;
+		for (double fnRate: new double[]{0, 0.3, 1})
+		{
+			simulationParameters param = new simulationParameters(network.getNetworkName(), 8, reps,
+					fnRate, 0.1, 2, 0.005);
+			List<testSchedule> schedules = new ArrayList<>();
+			for (int k=1; k<=20; k+=3)
+			{
+				schedules.add(new testSchedule(network, k, 8));
+				schedules.add(new testSchedule(network, k, 8, new Random(1118+param.hashCode()+k)));
+			}
+			List<testSchedulesEvaluator> evaluators = new ArrayList<>();
+			evaluators.add(new testSchedulesEvaluator(param, schedules, 3567));
+			evaluators.add(new testSchedulesEvaluator(param, schedules, 3567, true));
+			new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 3,
+					evaluators);
+			for (int i=0; i<schedules.size(); i++)
+			{
+				double p0 = 1.0*evaluators.get(0).getNumberOfDetectedSamples(i)/reps;
+				double p1 = 1.0*evaluators.get(1).getNumberOfDetectedSamples(i)/reps;
+				if (fnRate<0.5)
+					assert p0>0;
+				if ((fnRate==0) || (fnRate==1))
+					assertEquals(p0, p1);
+				else
+					assertEquals(p0, p1, 5*Math.sqrt((p0*(1-p0)+p1*(1-p1))/reps));
+			}
+		}
+	}
+	
+	/**
+	 * Test that a node tested more than once on a day of a custom schedule is tested each time, with and without
+	 * bitsets: an outbreak in which only that node is infectious is detected with probability {@code 1-fnRate^2}.
+	 *
+	 * @throws Exception thrown if the schedule cannot be created.
+	 */
+	@Test
+	void repeatedTestsOfANode() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int reps = 20000;
+		double fnRate = 0.5;
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 1, reps, fnRate, 0.1, 2,
+				0.005);
+		Map<Integer, List<Integer>> testNodes = new HashMap<>();
+		testNodes.put(1, List.of(2, 10, 2));
+		List<testSchedule> schedules = List.of(new testSchedule(network, "repeated node", testNodes, 1));
+		byte[] infectiousDay = new byte[30];
+		Arrays.fill(infectiousDay, dataTypes.simulationOutput.NOT_INFECTIOUS);
+		infectiousDay[0] = 1;
+		
+		double expected = 1-fnRate*fnRate;
+		for (boolean bitsets: new boolean[]{false, true})
+		{
+			testSchedulesEvaluator evaluator = new testSchedulesEvaluator(param, schedules, 3567, bitsets);
+			for (int x=0; x<reps; x++)
+				evaluator.accept(x, infectiousDay);
+			double p = 1.0*evaluator.getNumberOfDetectedSamples(0)/reps;
+			assertEquals(expected, p, 5*Math.sqrt(expected*(1-expected)/reps));
+		}
+	}
+}
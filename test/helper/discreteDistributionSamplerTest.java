@@ -0,0 +1,117 @@
+package helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link discreteDistributionSampler}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 15, 2020.
+ */
+class discreteDistributionSamplerTest
+{
+	/**
+	 * Chooses an element from the state space by a linear scan over the cumulative distribution function.
+	 *
+	 * @param u a random number in {@code [0, 1]}
+	 * @param stateSpace state space of the distribution
+	 * @param cdf cumulative distribution function.
+	 * @return the chosen element; {@code -1} if {@code u} is greater than the last cumulative probability.
+	 */
+	private static int linearScan(double u, int[] stateSpace, double[] cdf)
+	{
+		int choice = -1;
+		if (u<=cdf[0])
+			choice = stateSpace[0];
+		else
+			for (int j=1; j<cdf.length; j++)
+				if ((u>cdf[j-1]) && (u<=cdf[j]))
+					choice = stateSpace[j];
+		return choice;
+	}
+	
+	/**
+	 * Unit test for {@link discreteDistributionSampler#sample(double)}: the choices are the same as those of a linear
+	 * scan, for random numbers and for the cumulative probabilities themselves, with zero probabilities in the pmf.
+	 *
+	 * @throws Exception thrown if the pmf is not a probability mass function.
+	 */
+	@Test
+	void sample() throws Exception
+	{
+		int[] stateSpace = {3, 5, 7, 11, 13, 17, 19};
+		double[] pmf = {0.0, 0.2, 0.1, 0.0, 0.0, 0.4, 0.3};
+		double[] cdf = new double[pmf.length];
+		double sum = 0.0;
+		for (int i=0; i<pmf.length; i++)
+		{
+			sum += pmf[i];
+			cdf[i] = sum;
+		}
+		discreteDistributionSampler sampler = new discreteDistributionSampler(stateSpace, pmf);
+		
+		SplittableRandom gen = new SplittableRandom(2507);
+		for (int i=0; i<10000; i++)
+		{
+			double u = gen.nextDouble();
+			assertEquals(linearScan(u, stateSpace, cdf), sampler.sample(u));
+		}
+		for (int i=0; i<cdf.length-1; i++)
+		{
+			assertEquals(linearScan(cdf[i], stateSpace, cdf), sampler.sample(cdf[i]));
+			assertEquals(linearScan(Math.nextUp(cdf[i]), stateSpace, cdf), sampler.sample(Math.nextUp(cdf[i])));
+		}
+		assert sampler.sample(0.0)==3;
+		assert sampler.sample(cdf[cdf.length-1])==19;
+		assert sampler.sample(Math.nextUp(cdf[cdf.length-1]))==19;
+		
+		// a random number beyond the sum of the probabilities goes to the last element with a positive probability
+		pmf = new double[]{0.5, 0.5-0.00000001, 0.0};
+		sampler = new discreteDistributionSampler(new int[]{1, 2, 3}, pmf);
+		assert sampler.sample(1.0)==2;
+	}
+	
+	/**
+	 * Unit test for the batch draws {@link discreteDistributionSampler#sample(double[], int[])} and
+	 * {@link discreteDistributionSampler#sample(List)}, against
+	 * {@link combinatorics#discreteProbabilityChoice(double[], int[], double[])}.
+	 *
+	 * @throws Exception thrown if the pmf is not a probability mass function.
+	 */
+	@Test
+	void sampleBatch() throws Exception
+	{
+		double[] randomChoices = {0.1, 0.9, 0.5, 0.05, 0.75, 0.7};
+		int[] stateSpace = {0, 1, 2};
+		double[] pmf = {0.3, 0.4, 0.3};
+		discreteDistributionSampler sampler = new discreteDistributionSampler(stateSpace, pmf);
+		
+		int[] choices = new int[randomChoices.length];
+		sampler.sample(randomChoices, choices);
+		assertArrayEquals(new int[]{0, 2, 1, 0, 2, 1}, choices);
+		assertArrayEquals(choices, combinatorics.discreteProbabilityChoice(randomChoices, stateSpace, pmf));
+		
+		List<Double> randomChoicesList = new ArrayList<>(randomChoices.length);
+		for (double u: randomChoices)
+			randomChoicesList.add(u);
+		List<Integer> choicesList = sampler.sample(randomChoicesList);
+		for (int i=0; i<choices.length; i++)
+			assert choicesList.get(i)==choices[i];
+		
+		// the state space is copied
+		stateSpace[0] = 4;
+		assert sampler.sample(0.1)==0;
+		
+		Exception exception = assertThrows(Exception.class,
+				() -> new discreteDistributionSampler(new int[]{0, 1, 2}, new double[]{0.3, 0.3, 0.3}));
+		assertEquals("'pmf' is not a probability mass function!", exception.getMessage());
+		exception = assertThrows(Exception.class,
+				() -> new discreteDistributionSampler(new int[]{0, 1}, new double[]{0.3, 0.4, 0.3}));
+		assertEquals("'stateSpace' and 'pmf' should have the same length!", exception.getMessage());
+	}
+}
@@ -0,0 +1,45 @@
+package helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link randomStreams}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 11, 2020.
+ */
+class randomStreamsTest
+{
+	/**
+	 * Unit test for {@link randomStreams#seedForReplication(long, long)}.
+	 */
+	@Test
+	void seedForReplication()
+	{
+		long baseSeed = 2507+1234567;
+		SplittableRandom gen = new SplittableRandom(baseSeed);
+		for (int x=0; x<100; x++)
+			assertEquals(gen.nextLong(), randomStreams.seedForReplication(baseSeed, x));
+		
+		// streams of a repetition do not depend on the order in which they are asked for
+		assertEquals(randomStreams.streamForReplication(baseSeed, 57).nextDouble(),
+				randomStreams.streamForReplication(baseSeed, 57).nextDouble());
+		assertNotEquals(randomStreams.seedForReplication(baseSeed, 57),
+				randomStreams.seedForReplication(baseSeed, 58));
+	}
+	
+	/**
+	 * Unit test for {@link randomStreams#doubleAt(long, long)}.
+	 */
+	@Test
+	void doubleAt()
+	{
+		long seed = randomStreams.seedForReplication(2101+1234567, 3);
+		SplittableRandom gen = new SplittableRandom(seed);
+		for (int i=0; i<100; i++)
+			assertEquals(gen.nextDouble(), randomStreams.doubleAt(seed, i));
+	}
+}
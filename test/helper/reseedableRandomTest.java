@@ -0,0 +1,37 @@
+package helper;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link reseedableRandom}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 23, 2020.
+ */
+class reseedableRandomTest
+{
+	/**
+	 * Test that {@link reseedableRandom} generates the same values as {@link java.util.SplittableRandom}.
+	 */
+	@Test
+	void sameValuesAsSplittableRandom()
+	{
+		int[] bounds = {1, 2, 7, 64, 100, 1000003, Integer.MAX_VALUE};
+		reseedableRandom gen = new reseedableRandom(0);
+		for (long seed=-5; seed<=5; seed++)
+		{
+			SplittableRandom expected = new SplittableRandom(2507+seed);
+			gen.reseed(2507+seed);
+			for (int i=0; i<1000; i++)
+			{
+				assertEquals(expected.nextLong(), gen.nextLong());
+				assertEquals(expected.nextDouble(), gen.nextDouble());
+				int bound = bounds[i%bounds.length];
+				assertEquals(expected.nextInt(bound), gen.nextInt(bound));
+			}
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link csrGraph}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 21, 2020.
+ */
+class csrGraphTest
+{
+	/**
+	 * Test for {@link csrGraph#csrGraph(graph)}.
+	 *
+	 * @throws Exception thrown if {@link graph#buildGraphFromFile(String, String)} throws an exception.
+	 */
+	@Test
+	void csrGraph() throws Exception
+	{
+		String[] networkNames = {"testnetwork1", "testnetwork6withUnconnectedComponents", "testnetwork8"};
+		for (String networkName: networkNames)
+		{
+			graph network = new graph(networkName);
+			network.buildGraphFromFile("./test/resources/networks/"+networkName+".txt", ",");
+			csrGraph csr = new csrGraph(network);
+			assertEquals(networkName, csr.getNetworkName());
+			assertEquals(network.getVertexSet().size(), csr.getNumberOfNodes());
+			assertEquals(2*network.getEdgeSet().size(), csr.getNumberOfNeighborEntries());
+			
+			// ids are in increasing order of labels
+			int[] labels = csr.getLabels();
+			for (int i=1; i<labels.length; i++)
+				assert labels[i-1]<labels[i];
+			
+			// neighbors are the same, and in the same order
+			int[] offsets = csr.getOffsets();
+			int[] targets = csr.getTargets();
+			for (Integer node: network.getVertexSet())
+			{
+				int id = csr.getId(node);
+				assertEquals(node.intValue(), csr.getLabel(id));
+				List<Integer> neighbors = new ArrayList<>();
+				for (int e=offsets[id]; e<offsets[id+1]; e++)
+					neighbors.add(labels[targets[e]]);
+				assertEquals(network.getNeighborsOfNode(node), neighbors);
+				assertEquals(network.getNeighborsOfNode(node), csr.getNeighborsOfNode(node));
+				assertEquals(neighbors.size(), csr.getDegree(id));
+			}
+			
+			// vertex set order
+			int[] vertexSetOrder = csr.getVertexSetOrder();
+			int i = 0;
+			for (Integer node: network.getVertexSet())
+				assertEquals(node.intValue(), labels[vertexSetOrder[i++]]);
+			
+			assertEquals(-1, csr.getId(-5));
+		}
+		
+		// snapshot is not affected by later changes to the graph
+		graph network = new graph("CompleteGraph_size4");
+		network.initializeAsCompleteGraph(4, 2);
+		csrGraph csr = new csrGraph(network);
+		network.addVertex(10);
+		network.addEdge(2, 10);
+		assertEquals(4, csr.getNumberOfNodes());
+		assertEquals(3, csr.getDegree(csr.getId(2)));
+		csr.getTargets()[0] = 100;
+		assertNotEquals(100, csr.getNeighbor(0, 0));
+	}
+}
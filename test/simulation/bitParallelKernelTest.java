@@ -0,0 +1,114 @@
+package simulation;
+
+import dataTypes.simulationOutput;
+import dataTypes.simulationParameters;
+import network.graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link bitParallelKernel}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 29, 2020.
+ */
+class bitParallelKernelTest
+{
+	/**
+	 * Test that the {@link engineType#BIT_PARALLEL} engine gives the same sample paths as the
+	 * {@link engineType#DAILY_SWEEP} engine when the trials of infection are deterministic.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void samePathsForDeterministicTrials() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 3}, 2);
+		int[] seed = {2507, 2101, 1308, 1901};
+		double[][] probabilities = {{1, 0}, {0, 0}, {0, 1}, {1, 1}};
+		for (double[] p: probabilities)
+		{
+			for (int latency=0; latency<=3; latency++)
+			{
+				List<simulationParameters> listOfParams = new ArrayList<>();
+				simulationParameters param = new simulationParameters(network.getNetworkName(), 12, 150,
+						0.1, p[0], latency, p[1]);
+				listOfParams.add(param);
+				simulationRuns daily = new simulationRuns();
+				daily.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 2);
+				simulationRuns bitParallel = new simulationRuns();
+				bitParallel.setEngine(engineType.BIT_PARALLEL);
+				bitParallel.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 2);
+				assertEquals(daily.getMapParamToSamples().get(param).getSamplesOfInfectiousNodesAtEachTime(),
+						bitParallel.getMapParamToSamples().get(param).getSamplesOfInfectiousNodesAtEachTime());
+			}
+		}
+	}
+	
+	/**
+	 * Test that the {@link engineType#BIT_PARALLEL} engine gives the same probability of each node being
+	 * infectious at the end as the {@link engineType#DAILY_SWEEP} engine, within 5 standard errors;
+	 * and that its sample paths do not depend on the number of threads.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void sameProbabilityOfInfection() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 3}, 2);
+		int[] seed = {2507, 2101, 1308, 1901};
+		int reps = 20000;
+		int timeStep = 10;
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		simulationParameters param = new simulationParameters(network.getNetworkName(), timeStep, reps,
+				0.1, 0.15, 2, 0.005);
+		listOfParams.add(param);
+		simulationRuns daily = new simulationRuns();
+		daily.setCompactSamplePaths(true);
+		daily.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 4);
+		simulationRuns bitParallel = new simulationRuns();
+		bitParallel.setCompactSamplePaths(true);
+		bitParallel.setEngine(engineType.BIT_PARALLEL);
+		bitParallel.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 4);
+		
+		simulationOutput dailyOutput = daily.getMapParamToSamples().get(param);
+		simulationOutput bitParallelOutput = bitParallel.getMapParamToSamples().get(param);
+		for (Integer v: network.getVertexSet())
+		{
+			double[] probability = new double[2];
+			simulationOutput[] outputs = {dailyOutput, bitParallelOutput};
+			for (int i=0; i<2; i++)
+			{
+				for (int x=0; x<reps; x++)
+					if (outputs[i].getInfectiousNodesAtTime(x, timeStep).contains(v))
+						probability[i]++;
+				probability[i] /= reps;
+			}
+			double standardError = Math.sqrt((probability[0]*(1-probability[0])
+					+probability[1]*(1-probability[1]))/reps);
+			assertEquals(probability[0], probability[1], 5*standardError+1e-9);
+		}
+		
+		simulationParameters smallParam = new simulationParameters(network.getNetworkName(), timeStep, 1500,
+				0.1, 0.15, 2, 0.005);
+		listOfParams.set(0, smallParam);
+		simulationRuns oneThread = new simulationRuns();
+		oneThread.setEngine(engineType.BIT_PARALLEL);
+		oneThread.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 1);
+		simulationRuns manyThreads = new simulationRuns();
+		manyThreads.setEngine(engineType.BIT_PARALLEL);
+		manyThreads.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 7);
+		assertEquals(oneThread.getMapParamToSamples().get(smallParam).getSamplesOfInfectiousNodesAtEachTime(),
+				manyThreads.getMapParamToSamples().get(smallParam).getSamplesOfInfectiousNodesAtEachTime());
+		
+		Exception exception = assertThrows(Exception.class,
+				() -> oneThread.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed));
+		assertEquals("Bit-parallel engine is only available with multiple threads or streaming!",
+				exception.getMessage());
+	}
+}
@@ -0,0 +1,96 @@
+package simulation;
+
+import analysis.fixedNumberOfTestsPerDayEvaluator;
+import dataTypes.simulationParameters;
+import network.csrGraph;
+import network.graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link completeGraphMarkovChain}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 28, 2020.
+ */
+class completeGraphMarkovChainTest
+{
+	/**
+	 * Test for {@link completeGraphMarkovChain#isCompleteGraph(csrGraph)}.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void isCompleteGraph() throws Exception
+	{
+		graph complete = new graph("CompleteGraph_size20");
+		complete.initializeAsCompleteGraph(20, 2);
+		assert completeGraphMarkovChain.isCompleteGraph(new csrGraph(complete));
+		graph circulant = new graph("CirculantGraph_size30");
+		circulant.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		assert !completeGraphMarkovChain.isCompleteGraph(new csrGraph(circulant));
+		
+		simulationParameters param = new simulationParameters(circulant.getNetworkName(), 8, 1,
+				0.2, 0.05, 2, 0.005);
+		Exception exception = assertThrows(Exception.class, () -> new completeGraphMarkovChain(circulant, param));
+		assertEquals("Graph is not a complete graph!", exception.getMessage());
+	}
+	
+	/**
+	 * Test that {@link completeGraphMarkovChain} agrees with simulation, within 5 standard errors.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void agreesWithSimulation() throws Exception
+	{
+		graph network = new graph("CompleteGraph_size20");
+		network.initializeAsCompleteGraph(20, 2);
+		int reps = 20000;
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 8, reps,
+				0.2, 0.05, 2, 0.005);
+		completeGraphMarkovChain chain = new completeGraphMarkovChain(network, param);
+		
+		// distribution of the number of infectious nodes
+		double[][] distribution = chain.getDistributionOfInfectiousNodes();
+		assertEquals(1, java.util.Arrays.stream(distribution[8]).sum(), 1e-8);
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		listOfParams.add(param);
+		simulationRuns simulation = new simulationRuns();
+		simulation.setCompactSamplePaths(true);
+		simulation.simulationForConditionalProbabilityWithLatency(network, listOfParams,
+				new int[]{2507, 2507, 2101, 1308}, 2);
+		for (int t=0; t<=8; t++)
+		{
+			double mean = 0;
+			double meanOfSquares = 0;
+			for (int n=0; n<=20; n++)
+			{
+				mean += n*distribution[t][n];
+				meanOfSquares += n*n*distribution[t][n];
+			}
+			double sum = 0;
+			for (int x=0; x<reps; x++)
+				sum += simulation.getMapParamToSamples().get(param).getInfectiousNodesAtTime(x, t).size()-1;
+			assertEquals(mean, sum/reps, 5*Math.sqrt((meanOfSquares-mean*mean)/reps)+1e-9);
+		}
+		
+		// detection probability
+		List<fixedNumberOfTestsPerDayEvaluator> evaluators = new ArrayList<>();
+		evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, param, 1, 3567));
+		evaluators.add(new fixedNumberOfTestsPerDayEvaluator(network, param, 2, 3567, 1118));
+		new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, param,
+				new int[]{2507, 2507, 2101, 1308}, 2, evaluators);
+		for (fixedNumberOfTestsPerDayEvaluator evaluator: evaluators)
+		{
+			double probability = chain.getDetectionProbability(evaluator.getK());
+			assert chain.getDroppedProbability()<1e-6;
+			double standardError = Math.sqrt(probability*(1-probability)/reps);
+			assertEquals(probability, 1.0*evaluator.getNumberOfDetectedSamples()/reps, 5*standardError);
+		}
+		assertThrows(Exception.class, () -> chain.getDetectionProbability(3));
+	}
+}
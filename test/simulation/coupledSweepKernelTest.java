@@ -0,0 +1,54 @@
+package simulation;
+
+import dataTypes.simulationParameters;
+import helper.randomStreams;
+import helper.reseedableRandom;
+import network.csrGraph;
+import network.graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for {@link coupledSweepKernel}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 11, 2020.
+ */
+class coupledSweepKernelTest
+{
+	/**
+	 * Test that a node infectious on a day at some point of a sweep is infectious by that day at every point with a
+	 * larger transmissability, external infection probability and number of initial infections.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void monotoneCoupling() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 3}, 2);
+		csrGraph g = new csrGraph(network);
+		double[] transmissabilities = {0.02, 0.05, 0.05, 0.1, 0.3};
+		double[] externalInfectionProbabilities = {0.001, 0.001, 0.01, 0.01, 0.02};
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		for (int p=0; p<transmissabilities.length; p++)
+			listOfParams.add(new simulationParameters(network.getNetworkName(), 12, 100, 0.1,
+					transmissabilities[p], 2, externalInfectionProbabilities[p]));
+		coupledSweepKernel kernel = new coupledSweepKernel(g, listOfParams);
+		reseedableRandom firstInfectedGen = new reseedableRandom(0);
+		for (int x=0; x<200; x++)
+		{
+			firstInfectedGen.reseed(randomStreams.seedForReplication(2507, x));
+			kernel.simulate(new int[]{1, 1, 2, 2, 3}, firstInfectedGen, randomStreams.seedForReplication(2101, x),
+					randomStreams.seedForReplication(1308, x));
+			for (int p=1; p<transmissabilities.length; p++)
+			{
+				byte[] smaller = kernel.getInfectiousDay(p-1);
+				byte[] larger = kernel.getInfectiousDay(p);
+				for (int v=0; v<g.getNumberOfNodes(); v++)
+					assert larger[v]<=smaller[v];
+			}
+		}
+	}
+}
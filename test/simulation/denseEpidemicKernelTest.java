@@ -0,0 +1,47 @@
+package simulation;
+
+import helper.reseedableRandom;
+import network.csrGraph;
+import network.graph;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link denseEpidemicKernel}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 30, 2020.
+ */
+class denseEpidemicKernelTest
+{
+	/**
+	 * Test that {@link denseEpidemicKernel} gives the same sample paths as {@link epidemicKernel}
+	 * for the same random number streams.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void samePathsForSameRandomNumberStreams() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 3}, 2);
+		csrGraph g = new csrGraph(network);
+		double[][] probabilities = {{1, 0}, {0, 0}, {0, 1}, {0.15, 0.005}, {0.4, 0.05}};
+		for (double[] p: probabilities)
+		{
+			for (int latency=0; latency<=3; latency++)
+			{
+				epidemicKernel scalar = new epidemicKernel(g, 12, latency, p[0], p[1]);
+				denseEpidemicKernel dense = new denseEpidemicKernel(g, 12, latency, p[0], p[1]);
+				for (int x=0; x<200; x++)
+				{
+					scalar.simulate(1+x%3, new reseedableRandom(x), new reseedableRandom(2101+x),
+							new reseedableRandom(1308+x));
+					dense.simulate(1+x%3, new reseedableRandom(x), new reseedableRandom(2101+x),
+							new reseedableRandom(1308+x));
+					assertArrayEquals(scalar.getInfectiousDay(), dense.getInfectiousDay());
+				}
+			}
+		}
+	}
+}
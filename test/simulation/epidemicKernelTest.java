@@ -0,0 +1,144 @@
+package simulation;
+
+import helper.reseedableRandom;
+import network.csrGraph;
+import network.graph;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link epidemicKernel}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 1, 2020.
+ */
+class epidemicKernelTest
+{
+	/**
+	 * Test that geometric skips give the same sample paths as drawing a random number for each trial,
+	 * when the trials of infection are deterministic.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void geometricSkipsForDeterministicTrials() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 3}, 2);
+		csrGraph g = new csrGraph(network);
+		double[][] probabilities = {{1, 0}, {0, 0}, {0, 1}, {1, 1}};
+		for (double[] p: probabilities)
+		{
+			epidemicKernel eachTrial = new epidemicKernel(g, 12, 2, p[0], p[1], false);
+			epidemicKernel skips = new epidemicKernel(g, 12, 2, p[0], p[1], true);
+			for (int x=0; x<20; x++)
+			{
+				eachTrial.simulate(1+x%3, new reseedableRandom(x), new reseedableRandom(0), new reseedableRandom(0));
+				skips.simulate(1+x%3, new reseedableRandom(x), new reseedableRandom(0), new reseedableRandom(0));
+				assertArrayEquals(eachTrial.getInfectiousDay(), skips.getInfectiousDay());
+			}
+		}
+	}
+	
+	/**
+	 * Test that geometric skips give the same probability of each node being infectious by the time step
+	 * as drawing a random number for each trial, within 5 standard errors.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void geometricSkipsForRandomTrials() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 3}, 2);
+		csrGraph g = new csrGraph(network);
+		int reps = 20000;
+		epidemicKernel[] kernels = {new epidemicKernel(g, 10, 1, 0.1, 0.01, false),
+				new epidemicKernel(g, 10, 1, 0.1, 0.01, true)};
+		int[][] count = new int[2][g.getNumberOfNodes()];
+		for (int i=0; i<2; i++)
+		{
+			reseedableRandom firstInfectedGen = new reseedableRandom(2507+i);
+			reseedableRandom outsideInfectionGen = new reseedableRandom(2101+i);
+			reseedableRandom transmissabilityGen = new reseedableRandom(1308+i);
+			for (int x=0; x<reps; x++)
+			{
+				kernels[i].simulate(1, firstInfectedGen, outsideInfectionGen, transmissabilityGen);
+				byte[] infectiousDay = kernels[i].getInfectiousDay();
+				for (int v=0; v<infectiousDay.length; v++)
+					if (infectiousDay[v]<=10)
+						count[i][v]++;
+			}
+		}
+		for (int v=0; v<g.getNumberOfNodes(); v++)
+		{
+			double p0 = 1.0*count[0][v]/reps;
+			double p1 = 1.0*count[1][v]/reps;
+			double standardError = Math.sqrt((p0*(1-p0)+p1*(1-p1))/reps);
+			assertEquals(p0, p1, 5*standardError+1e-9);
+		}
+	}
+	
+	/**
+	 * Test that a latency distribution with all its mass on one latency gives the same sample paths as that
+	 * fixed latency, when the trials of infection are deterministic.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void degenerateLatencyDistribution() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 3}, 2);
+		csrGraph g = new csrGraph(network);
+		for (int latency=1; latency<=3; latency++)
+		{
+			double[] latencyDistribution = new double[latency+1];
+			latencyDistribution[latency] = 1;
+			for (boolean geometricSkips: new boolean[]{false, true})
+			{
+				epidemicKernel fixed = new epidemicKernel(g, 12, latency, 1, 0, geometricSkips);
+				epidemicKernel random = new epidemicKernel(g, 12, 0, 1, 0, geometricSkips, latencyDistribution);
+				for (int x=0; x<20; x++)
+				{
+					fixed.simulate(1+x%3, new reseedableRandom(x), new reseedableRandom(0), new reseedableRandom(0));
+					random.simulate(1+x%3, new reseedableRandom(x), new reseedableRandom(0), new reseedableRandom(0));
+					assertArrayEquals(fixed.getInfectiousDay(), random.getInfectiousDay());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Test that the latency of a node is drawn from the latency distribution, within 5 standard errors.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void randomLatency() throws Exception
+	{
+		graph network = new graph("Edge");
+		network.addVertex(2);
+		network.addVertex(3);
+		network.addEdge(2, 3);
+		csrGraph g = new csrGraph(network);
+		double[] latencyDistribution = {0, 0.2, 0.5, 0.3};
+		int reps = 20000;
+		// the other node is exposed on day 1, and becomes infectious on day 1+latency
+		epidemicKernel kernel = new epidemicKernel(g, 10, 0, 1, 0, false, latencyDistribution);
+		reseedableRandom firstInfectedGen = new reseedableRandom(2507);
+		reseedableRandom transmissabilityGen = new reseedableRandom(1308);
+		int[] count = new int[latencyDistribution.length];
+		for (int x=0; x<reps; x++)
+		{
+			kernel.simulate(1, firstInfectedGen, new reseedableRandom(0), transmissabilityGen);
+			byte[] infectiousDay = kernel.getInfectiousDay();
+			count[Math.max(infectiousDay[0], infectiousDay[1])-1]++;
+		}
+		for (int d=0; d<latencyDistribution.length; d++)
+		{
+			double p = latencyDistribution[d];
+			assertEquals(p, (double) count[d]/reps, 5*Math.sqrt(p*(1-p)/reps)+1e-9);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package simulation;
+
+import helper.reseedableRandom;
+import network.csrGraph;
+import network.graph;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link firstPassagePercolationKernel}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: November 26, 2020.
+ */
+class firstPassagePercolationKernelTest
+{
+	/**
+	 * Test that {@link firstPassagePercolationKernel} gives the same sample paths as {@link epidemicKernel}
+	 * when the trials of infection are deterministic.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void samePathsForDeterministicTrials() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 3}, 2);
+		csrGraph g = new csrGraph(network);
+		double[][] probabilities = {{1, 0}, {0, 0}, {0, 1}, {1, 1}};
+		for (double[] p: probabilities)
+		{
+			for (int latency=0; latency<=3; latency++)
+			{
+				epidemicKernel daily = new epidemicKernel(g, 12, latency, p[0], p[1]);
+				firstPassagePercolationKernel fpp = new firstPassagePercolationKernel(g, 12, latency, p[0], p[1]);
+				for (int x=0; x<20; x++)
+				{
+					daily.simulate(1+x%3, new reseedableRandom(x), new reseedableRandom(0),
+							new reseedableRandom(0));
+					fpp.simulate(1+x%3, new reseedableRandom(x), new reseedableRandom(0),
+							new reseedableRandom(0));
+					assertArrayEquals(daily.getInfectiousDay(), fpp.getInfectiousDay());
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Test that {@link firstPassagePercolationKernel} gives the same mean number of infectious nodes on each day
+	 * as {@link epidemicKernel}, within 5 standard errors.
+	 *
+	 * @throws Exception thrown if the graph cannot be initialized.
+	 */
+	@Test
+	void sameMeanNumberOfInfectiousNodes() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 3}, 2);
+		csrGraph g = new csrGraph(network);
+		int timeStep = 10;
+		int reps = 20000;
+		epidemicEngine[] engines = {new epidemicKernel(g, timeStep, 2, 0.15, 0.005),
+				new firstPassagePercolationKernel(g, timeStep, 2, 0.15, 0.005)};
+		double[][] sum = new double[2][timeStep+1];
+		double[][] sumOfSquares = new double[2][timeStep+1];
+		for (int i=0; i<2; i++)
+		{
+			reseedableRandom firstInfectedGen = new reseedableRandom(2507+i);
+			reseedableRandom outsideInfectionGen = new reseedableRandom(2101+i);
+			reseedableRandom transmissabilityGen = new reseedableRandom(1308+i);
+			for (int x=0; x<reps; x++)
+			{
+				engines[i].simulate(1, firstInfectedGen, outsideInfectionGen, transmissabilityGen);
+				int[] count = new int[timeStep+1];
+				for (byte day: engines[i].getInfectiousDay())
+					for (int t=day; t<=timeStep; t++)
+						count[t]++;
+				for (int t=0; t<=timeStep; t++)
+				{
+					sum[i][t] += count[t];
+					sumOfSquares[i][t] += count[t]*count[t];
+				}
+			}
+		}
+		for (int t=0; t<=timeStep; t++)
+		{
+			double standardError = 0;
+			for (int i=0; i<2; i++)
+			{
+				double mean = sum[i][t]/reps;
+				standardError += (sumOfSquares[i][t]/reps-mean*mean)/reps;
+			}
+			standardError = Math.sqrt(standardError);
+			assertEquals(sum[0][t]/reps, sum[1][t]/reps, 5*standardError+1e-9);
+		}
+	}
+}
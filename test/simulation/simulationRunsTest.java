@@ -0,0 +1,526 @@
+package simulation;
+
+import analysis.fixedNumberOfTestsPerDayEvaluator;
+import dataTypes.simulationOutput;
+import dataTypes.simulationParameters;
+import network.graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for {@link simulationRuns}.
+ * @author Sudesh Agrawal (sudesh@utexas.edu).
+ * Last Updated: December 16, 2020.
+ */
+class simulationRunsTest
+{
+	/**
+	 * Test for {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[], int)}.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void simulationForConditionalProbabilityWithLatencyInParallel() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 6, 500,
+				0.2, 0.1, 2, 0.01);
+		listOfParams.add(param);
+		
+		simulationRuns oneThread = new simulationRuns();
+		oneThread.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 1);
+		simulationRuns manyThreads = new simulationRuns();
+		manyThreads.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 7);
+		assertEquals(oneThread.getMapParamToSamples().get(param).getSamplesOfInfectiousNodesAtEachTime(),
+				manyThreads.getMapParamToSamples().get(param).getSamplesOfInfectiousNodesAtEachTime());
+		assertEquals(500, oneThread.getMapParamToSamples().get(param).getSamplesOfInfectiousNodesAtEachTime()
+				.size());
+		
+		Exception exception = assertThrows(Exception.class,
+				() -> new simulationRuns().simulationForConditionalProbabilityWithLatency(network, listOfParams,
+						seed, 0));
+		assertEquals("Number of threads should be positive!", exception.getMessage());
+	}
+	
+	/**
+	 * Test for {@link simulationRuns#setCompactSamplePaths(boolean)}.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void compactSamplePaths() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 6, 1500,
+				0.2, 0.1, 2, 0.01);
+		listOfParams.add(param);
+		
+		simulationRuns expanded = new simulationRuns();
+		expanded.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed);
+		simulationRuns compact = new simulationRuns();
+		compact.setCompactSamplePaths(true);
+		compact.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed);
+		simulationOutput expandedOutput = expanded.getMapParamToSamples().get(param);
+		simulationOutput compactOutput = compact.getMapParamToSamples().get(param);
+		assert !expandedOutput.isCompact();
+		assert compactOutput.isCompact();
+		assertEquals(1500, compactOutput.getNumberOfSamples());
+		for (int x=0; x<1500; x++)
+		{
+			assertEquals(expandedOutput.getSample(x), compactOutput.getSample(x));
+			for (int t=0; t<=6; t++)
+				assertEquals(expandedOutput.getInfectiousNodesAtTime(x, t),
+						compactOutput.getInfectiousNodesAtTime(x, t));
+		}
+		assertEquals(expandedOutput.getSamplesOfInfectiousNodesAtEachTime(),
+				compactOutput.getSamplesOfInfectiousNodesAtEachTime());
+	}
+	
+	/**
+	 * Test for {@link simulationRuns#getMapEpidemicToSamples()}.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void reuseSimulationAcrossFalseNegativeProbabilities() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		simulationParameters param1 = new simulationParameters(network.getNetworkName(), 6, 500,
+				0.2, 0.1, 2, 0.01);
+		simulationParameters param2 = new simulationParameters(network.getNetworkName(), 6, 500,
+				0.3, 0.1, 2, 0.01);
+		simulationParameters param3 = new simulationParameters(network.getNetworkName(), 6, 500,
+				0.2, 0.15, 2, 0.01);
+		listOfParams.add(param1);
+		listOfParams.add(param2);
+		listOfParams.add(param3);
+		
+		simulationRuns simulation = new simulationRuns();
+		simulation.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 2);
+		assertEquals(param1.getEpidemicParameters(), param2.getEpidemicParameters());
+		assertEquals(param1.getEpidemicParameters().hashCode(), param2.getEpidemicParameters().hashCode());
+		assertNotEquals(param1.getEpidemicParameters(), param3.getEpidemicParameters());
+		assertSame(simulation.getMapParamToSamples().get(param1), simulation.getMapParamToSamples().get(param2));
+		assertNotSame(simulation.getMapParamToSamples().get(param1), simulation.getMapParamToSamples().get(param3));
+		assertEquals(2, simulation.getMapEpidemicToSamples().size());
+		assertEquals(3, simulation.getMapParamToSamples().size());
+		
+		// the sample paths do not depend on the false negative probability
+		simulationRuns alone = new simulationRuns();
+		alone.simulationForConditionalProbabilityWithLatency(network, List.of(param2), seed, 3);
+		assertEquals(alone.getMapParamToSamples().get(param2).getSamplesOfInfectiousNodesAtEachTime(),
+				simulation.getMapParamToSamples().get(param1).getSamplesOfInfectiousNodesAtEachTime());
+		
+		// a different base seed is simulated again
+		int[] otherSeed = {2508, 2507, 2101, 1308};
+		simulation.simulationForConditionalProbabilityWithLatency(network, List.of(param1), otherSeed, 2);
+		assertEquals(1, simulation.getMapEpidemicToSamples().size());
+		assertNotSame(simulation.getMapParamToSamples().get(param1), simulation.getMapParamToSamples().get(param2));
+	}
+	
+	/**
+	 * Test for serving shorter time steps from a simulation with a longer time step in
+	 * {@link simulationRuns#simulationForConditionalProbabilityWithLatency(graph, List, int[], int)}.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void shorterTimeStepsAsPrefixes() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		for (engineType engine: new engineType[]{engineType.DAILY_SWEEP, engineType.BIT_PARALLEL})
+		{
+			List<simulationParameters> listOfParams = new ArrayList<>();
+			for (int timeStep=3; timeStep<=6; timeStep++)
+				listOfParams.add(new simulationParameters(network.getNetworkName(), timeStep, 1500,
+						0.2, 0.1, 2, 0.01));
+			
+			simulationRuns simulation = new simulationRuns();
+			simulation.setEngine(engine);
+			simulation.setCompactSamplePaths(true);
+			simulation.simulationForConditionalProbabilityWithLatency(network, listOfParams, seed, 2);
+			assertEquals(4, simulation.getMapParamToSamples().size());
+			simulationOutput longest = simulation.getMapParamToSamples().get(listOfParams.get(3));
+			for (simulationParameters param: listOfParams)
+			{
+				simulationOutput output = simulation.getMapParamToSamples().get(param);
+				assertEquals(param.getTimeStep(), output.getTimeStep());
+				assertSame(longest.getInfectiousDays(), output.getInfectiousDays());
+				
+				// same as simulating the time step alone
+				simulationRuns alone = new simulationRuns();
+				alone.setEngine(engine);
+				alone.setCompactSamplePaths(true);
+				alone.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 3);
+				simulationOutput aloneOutput = alone.getMapParamToSamples().get(param);
+				byte[] infectiousDay = new byte[30];
+				byte[] aloneInfectiousDay = new byte[30];
+				for (int x=0; x<1500; x++)
+				{
+					output.getInfectiousDays(x, output.getNodeLabels(), infectiousDay);
+					aloneOutput.getInfectiousDays(x, aloneOutput.getNodeLabels(), aloneInfectiousDay);
+					assertArrayEquals(aloneInfectiousDay, infectiousDay);
+					assertEquals(aloneOutput.getSample(x), output.getSample(x));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Test for {@link simulationRuns#setSaveEndStates(boolean)}.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void extendFromSavedEndStates() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters randomLatency = new simulationParameters(network.getNetworkName(), 3, 1500,
+				0.2, 0.15, 2, 0.01);
+		randomLatency.setLatencyDistribution(new double[]{0.1, 0.3, 0.4, 0.2});
+		List<simulationParameters> listOfParams = List.of(
+				new simulationParameters(network.getNetworkName(), 3, 1500, 0.2, 0.1, 2, 0.01),
+				new simulationParameters(network.getNetworkName(), 3, 1500, 0.2, 0.1, 0, 0.01),
+				randomLatency);
+		for (engineType engine: new engineType[]{engineType.DAILY_SWEEP, engineType.DAILY_SWEEP_WITH_GEOMETRIC_SKIPS})
+		{
+			for (simulationParameters param: listOfParams)
+			{
+				simulationRuns simulation = new simulationRuns();
+				simulation.setEngine(engine);
+				simulation.setCompactSamplePaths(true);
+				simulation.setSaveEndStates(true);
+				simulation.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 2);
+				simulationParameters longer = new simulationParameters(param);
+				longer.setTimeStep(5);
+				simulation.simulationForConditionalProbabilityWithLatency(network, List.of(longer), seed, 2);
+				simulationParameters longest = new simulationParameters(param);
+				longest.setTimeStep(8);
+				simulation.simulationForConditionalProbabilityWithLatency(network, List.of(longest), seed, 2);
+				
+				simulationRuns fromStart = new simulationRuns();
+				fromStart.setEngine(engine);
+				fromStart.setCompactSamplePaths(true);
+				fromStart.simulationForConditionalProbabilityWithLatency(network, List.of(longer, longest), seed, 2);
+				for (simulationParameters extended: List.of(longer, longest))
+				{
+					simulationOutput output = simulation.getMapParamToSamples().get(extended);
+					simulationOutput expected = fromStart.getMapParamToSamples().get(extended);
+					assertEquals(extended.getTimeStep(), output.getTimeStep());
+					for (int x=0; x<1500; x++)
+						for (int i=0; i<30; i++)
+							assertEquals(expected.getInfectiousDay(x, i), output.getInfectiousDay(x, i));
+				}
+			}
+		}
+		
+		simulationRuns unsupported = new simulationRuns();
+		unsupported.setEngine(engineType.FIRST_PASSAGE_PERCOLATION);
+		unsupported.setSaveEndStates(true);
+		Exception exception = assertThrows(Exception.class,
+				() -> unsupported.simulationForConditionalProbabilityWithLatency(network,
+						List.of(listOfParams.get(0)), seed, 2));
+		assertEquals("End states can only be saved with the daily sweep!", exception.getMessage());
+	}
+	
+	/**
+	 * Test for {@link simulationParameters#setLatencyDistribution(double[])}: invalid distributions are rejected,
+	 * the distribution is copied, and engines that cannot simulate a random latency reject it before simulating.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void randomLatencyChecks() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 3, 100,
+				0.2, 0.15, 2, 0.01);
+		
+		Exception exception = assertThrows(Exception.class,
+				() -> param.setLatencyDistribution(new double[]{0.1, 0.3, 0.4}));
+		assertEquals("Latency distribution is not a probability mass function!", exception.getMessage());
+		exception = assertThrows(Exception.class, () -> param.setLatencyDistribution(new double[]{-0.1, 0.6, 0.5}));
+		assertEquals("Latency distribution should not have negative probabilities!", exception.getMessage());
+		exception = assertThrows(Exception.class, () -> param.setLatencyDistribution(new double[0]));
+		assertEquals("Latency distribution should not be empty!", exception.getMessage());
+		assertNull(param.getLatencyDistribution());
+		
+		double[] latencyDistribution = {0.1, 0.3, 0.4, 0.2};
+		param.setLatencyDistribution(latencyDistribution);
+		int hash = param.hashCode();
+		latencyDistribution[0] = 0.5;
+		assertEquals(hash, param.hashCode());
+		assertEquals(0.1, param.getLatencyDistribution()[0]);
+		param.getLatencyDistribution()[0] = 0.5;
+		param.getEpidemicParameters().getLatencyDistribution()[0] = 0.5;
+		assertEquals(hash, param.hashCode());
+		assertEquals(0.1, param.getLatencyDistribution()[0]);
+		
+		simulationRuns unsupported = new simulationRuns();
+		unsupported.setEngine(engineType.FIRST_PASSAGE_PERCOLATION);
+		String expectedMessage = "Random latency is only supported by the daily sweep!";
+		exception = assertThrows(Exception.class,
+				() -> unsupported.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 2));
+		assertEquals(expectedMessage, exception.getMessage());
+		exception = assertThrows(Exception.class,
+				() -> unsupported.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed));
+		assertEquals(expectedMessage, exception.getMessage());
+		assertEquals(Exception.class, exception.getClass());
+		List<fixedNumberOfTestsPerDayEvaluator> evaluators = List.of(
+				new fixedNumberOfTestsPerDayEvaluator(network, param, 2, 3567));
+		exception = assertThrows(Exception.class,
+				() -> unsupported.streamSimulationForConditionalProbabilityWithLatency(network, param, seed, 2,
+						evaluators));
+		assertEquals(expectedMessage, exception.getMessage());
+		exception = assertThrows(Exception.class,
+				() -> unsupported.streamStratumForConditionalProbabilityWithLatency(network, param, seed, 2,
+						evaluators, 2, 0, 0, 100));
+		assertEquals(expectedMessage, exception.getMessage());
+	}
+	
+	/**
+	 * Test for {@link simulationRuns#addSimulationRepetitions(graph, simulationParameters, int)} and
+	 * {@link simulationRuns#addSimulationRepetitions(graph, simulationParameters, int, int[], int)}.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void addSimulationRepetitions() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 6, 1000,
+				0.2, 0.1, 2, 0.01);
+		simulationParameters moreReps = new simulationParameters(param);
+		moreReps.setNumberOfSimulationRepetitions(2500);
+		for (engineType engine: new engineType[]{engineType.DAILY_SWEEP, engineType.BIT_PARALLEL})
+		{
+			for (boolean compact: new boolean[]{true, false})
+			{
+				simulationRuns fresh = new simulationRuns();
+				fresh.setEngine(engine);
+				fresh.setCompactSamplePaths(compact);
+				fresh.simulationForConditionalProbabilityWithLatency(network, List.of(moreReps), seed, 2);
+				
+				simulationRuns toppedUp = new simulationRuns();
+				toppedUp.setEngine(engine);
+				toppedUp.setCompactSamplePaths(compact);
+				toppedUp.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 2);
+				simulationParameters halfway = toppedUp.addSimulationRepetitions(network, param, 250, seed, 3);
+				simulationParameters combined = toppedUp.addSimulationRepetitions(network, halfway, 1250, seed, 1);
+				assertEquals(moreReps, combined);
+				assertEquals(1250, toppedUp.getMapParamToSamples().get(halfway).getNumberOfSamples());
+				assertEquals(fresh.getMapParamToSamples().get(moreReps).getSamplesOfInfectiousNodesAtEachTime(),
+						toppedUp.getMapParamToSamples().get(combined).getSamplesOfInfectiousNodesAtEachTime());
+				assertSame(toppedUp.getMapParamToSamples().get(combined),
+						toppedUp.getMapEpidemicToSamples().get(combined.getEpidemicParameters()));
+				
+				Exception exception = assertThrows(Exception.class,
+						() -> toppedUp.addSimulationRepetitions(network, combined, 10));
+				assertEquals("Simulation was not simulated sequentially; add repetitions with threads!",
+						exception.getMessage());
+			}
+		}
+		
+		for (boolean compact: new boolean[]{true, false})
+		{
+			simulationRuns fresh = new simulationRuns();
+			fresh.setCompactSamplePaths(compact);
+			fresh.simulationForConditionalProbabilityWithLatency(network, List.of(moreReps), seed);
+			simulationRuns toppedUp = new simulationRuns();
+			toppedUp.setCompactSamplePaths(compact);
+			toppedUp.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed);
+			simulationParameters combined = toppedUp.addSimulationRepetitions(network, param, 1500);
+			assertEquals(moreReps, combined);
+			assertEquals(fresh.getMapParamToSamples().get(moreReps).getSamplesOfInfectiousNodesAtEachTime(),
+					toppedUp.getMapParamToSamples().get(combined).getSamplesOfInfectiousNodesAtEachTime());
+			assertArrayEquals(fresh.getMapParamToSamples().get(moreReps).getGeneratorStates(),
+					toppedUp.getMapParamToSamples().get(combined).getGeneratorStates());
+			
+			Exception exception = assertThrows(Exception.class,
+					() -> toppedUp.addSimulationRepetitions(network, combined, 10, seed, 2));
+			assertEquals("Simulation was simulated sequentially; add repetitions without threads!",
+					exception.getMessage());
+		}
+		
+		Exception exception = assertThrows(Exception.class,
+				() -> new simulationRuns().addSimulationRepetitions(network, param, 10));
+		assertEquals("No stored simulation for the parameters!", exception.getMessage());
+	}
+	
+	/**
+	 * Test for {@link simulationRuns#addSimulationRepetitions(graph, simulationParameters, int)} and
+	 * {@link simulationRuns#addSimulationRepetitions(graph, simulationParameters, int, int[], int)}: repetitions
+	 * are only added with the engine and the base seed of the stored simulation, so the combined output stays the
+	 * same as that of a simulation with the larger number of repetitions.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void addSimulationRepetitionsChecks() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		simulationParameters param = new simulationParameters(network.getNetworkName(), 6, 1000,
+				0.2, 0.1, 2, 0.01);
+		String engineMessage = "Stored simulation was simulated with another engine!";
+		
+		for (engineType otherEngine: new engineType[]{engineType.FIRST_PASSAGE_PERCOLATION, engineType.BIT_PARALLEL})
+		{
+			simulationRuns simulation = new simulationRuns();
+			simulation.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 2);
+			simulation.setEngine(otherEngine);
+			Exception exception = assertThrows(Exception.class,
+					() -> simulation.addSimulationRepetitions(network, param, 1000, seed, 2));
+			assertEquals(engineMessage, exception.getMessage());
+			assertEquals(1000, simulation.getMapParamToSamples().get(param).getNumberOfSamples());
+		}
+		
+		simulationRuns simulation = new simulationRuns();
+		simulation.setEngine(engineType.BIT_PARALLEL);
+		simulation.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed, 2);
+		assertEquals(engineType.BIT_PARALLEL, simulation.getMapParamToSamples().get(param).getEngine());
+		assertArrayEquals(seed, simulation.getMapParamToSamples().get(param).getBaseSeed());
+		Exception exception = assertThrows(Exception.class,
+				() -> simulation.addSimulationRepetitions(network, param, 1000, new int[]{1, 2, 3, 4}, 2));
+		assertEquals("Base seed differs from that of the stored simulation!", exception.getMessage());
+		simulation.setEngine(engineType.DAILY_SWEEP);
+		exception = assertThrows(Exception.class,
+				() -> simulation.addSimulationRepetitions(network, param, 1000, seed, 2));
+		assertEquals(engineMessage, exception.getMessage());
+		simulation.setEngine(engineType.BIT_PARALLEL);
+		simulationParameters combined = simulation.addSimulationRepetitions(network, param, 1000, seed, 2);
+		assertEquals(engineType.BIT_PARALLEL, simulation.getMapParamToSamples().get(combined).getEngine());
+		assertArrayEquals(seed, simulation.getMapParamToSamples().get(combined).getBaseSeed());
+		
+		simulationRuns sequential = new simulationRuns();
+		sequential.simulationForConditionalProbabilityWithLatency(network, List.of(param), seed);
+		sequential.setEngine(engineType.FIRST_PASSAGE_PERCOLATION);
+		exception = assertThrows(Exception.class, () -> sequential.addSimulationRepetitions(network, param, 1000));
+		assertEquals(engineMessage, exception.getMessage());
+	}
+	
+	/**
+	 * Test for {@link simulationRuns#streamCoupledSweepForConditionalProbabilityWithLatency}: the results do not
+	 * depend on the number of threads, and the detection probability of each point agrees with that of an
+	 * independent streaming simulation within 5 standard errors.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void streamCoupledSweep() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		int reps = 20000;
+		List<simulationParameters> listOfParams = List.of(
+				new simulationParameters(network.getNetworkName(), 8, reps, 0.1, 0.05, 2, 0.002),
+				new simulationParameters(network.getNetworkName(), 8, reps, 0.1, 0.15, 2, 0.005));
+		
+		int[][] detectedSamples = new int[2][listOfParams.size()];
+		int[] numberOfThreads = {1, 3};
+		for (int i=0; i<numberOfThreads.length; i++)
+		{
+			List<List<fixedNumberOfTestsPerDayEvaluator>> evaluators = new ArrayList<>();
+			for (simulationParameters param: listOfParams)
+				evaluators.add(List.of(new fixedNumberOfTestsPerDayEvaluator(network, param, 2, 3567)));
+			new simulationRuns().streamCoupledSweepForConditionalProbabilityWithLatency(network, listOfParams, seed,
+					numberOfThreads[i], evaluators);
+			for (int p=0; p<listOfParams.size(); p++)
+			{
+				assertEquals(reps, evaluators.get(p).get(0).getNumberOfSamples());
+				detectedSamples[i][p] = evaluators.get(p).get(0).getNumberOfDetectedSamples();
+			}
+		}
+		assertArrayEquals(detectedSamples[0], detectedSamples[1]);
+		assert detectedSamples[0][0]<detectedSamples[0][1];
+		
+		for (int p=0; p<listOfParams.size(); p++)
+		{
+			fixedNumberOfTestsPerDayEvaluator independent = new fixedNumberOfTestsPerDayEvaluator(network,
+					listOfParams.get(p), 2, 3567);
+			new simulationRuns().streamSimulationForConditionalProbabilityWithLatency(network, listOfParams.get(p),
+					seed, 2, List.of(independent));
+			double p0 = 1.0*detectedSamples[0][p]/reps;
+			double p1 = 1.0*independent.getNumberOfDetectedSamples()/reps;
+			assertEquals(p0, p1, 5*Math.sqrt((p0*(1-p0)+p1*(1-p1))/reps));
+		}
+		
+		simulationParameters longer = new simulationParameters(network.getNetworkName(), 9, reps, 0.1, 0.05, 2,
+				0.002);
+		Exception exception = assertThrows(Exception.class,
+				() -> new simulationRuns().streamCoupledSweepForConditionalProbabilityWithLatency(network,
+						List.of(listOfParams.get(0), longer), seed, 2, List.of(List.of(), List.of())));
+		assertEquals("Simulation parameters of a coupled sweep should differ only in the transmissability, the "
+				+"external infection probability and the false negative probability!", exception.getMessage());
+	}
+	
+	/**
+	 * Test for {@link simulationRuns#streamCoupledSweepForConditionalProbabilityWithLatency}: the engine is not used,
+	 * so a random latency is simulated whichever engine is set.
+	 *
+	 * @throws Exception thrown if the simulation throws an exception.
+	 */
+	@Test
+	void streamCoupledSweepWithRandomLatency() throws Exception
+	{
+		graph network = new graph("CirculantGraph_size30");
+		network.initializeAsCirculantGraph(30, new int[]{1, 2}, 2);
+		int[] seed = {2507, 2507, 2101, 1308};
+		List<simulationParameters> listOfParams = new ArrayList<>();
+		for (double transmissability: new double[]{0.05, 0.15})
+		{
+			simulationParameters param = new simulationParameters(network.getNetworkName(), 8, 1000, 0.1,
+					transmissability, 2, 0.002);
+			param.setLatencyDistribution(new double[]{0.1, 0.3, 0.4, 0.2});
+			listOfParams.add(param);
+		}
+		
+		int[] expected = null;
+		for (engineType engine: engineType.values())
+		{
+			List<List<fixedNumberOfTestsPerDayEvaluator>> evaluators = new ArrayList<>();
+			for (simulationParameters param: listOfParams)
+				evaluators.add(List.of(new fixedNumberOfTestsPerDayEvaluator(network, param, 2, 3567)));
+			simulationRuns simulation = new simulationRuns();
+			simulation.setEngine(engine);
+			simulation.streamCoupledSweepForConditionalProbabilityWithLatency(network, listOfParams, seed, 2,
+					evaluators);
+			int[] detectedSamples = new int[listOfParams.size()];
+			for (int p=0; p<listOfParams.size(); p++)
+				detectedSamples[p] = evaluators.get(p).get(0).getNumberOfDetectedSamples();
+			if (expected==null)
+				expected = detectedSamples;
+			assertArrayEquals(expected, detectedSamples);
+		}
+		
+		simulationRuns unsupported = new simulationRuns();
+		unsupported.setEngine(engineType.FIRST_PASSAGE_PERCOLATION);
+		Exception exception = assertThrows(Exception.class,
+				() -> unsupported.streamSimulationForConditionalProbabilityWithLatency(network, listOfParams.get(0),
+						seed, 2, List.of()));
+		assertEquals("Random latency is only supported by the daily sweep!", exception.getMessage());
+	}
+}